@@ -1,11 +1,17 @@
 package de.julielab.concepts.db.creators.mesh;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.jgrapht.graph.DefaultEdge;
+
 import de.julielab.concepts.db.creators.mesh.components.Descriptor;
 import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
 import de.julielab.concepts.util.FacetCreationException;
@@ -33,6 +39,11 @@ import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
  * descriptor name will be "Facet foobar". All right?
  * </p>
  * 
+ * <p>
+ * The facets of all tree vertices are determined in a single traversal of the tree and stored in a table. The table
+ * is computed again when the tree has been modified since.
+ * </p>
+ * 
  * @author Philipp Lucas
  * 
  */
@@ -41,6 +52,16 @@ public class FacetsProvider {
 
 	private Tree tree;
 
+	/**
+	 * Maps each tree vertex below a facet vertex to the name of the facet.
+	 */
+	private Map<TreeVertex, String> vertex2facet;
+
+	/**
+	 * The modification count of the tree at the time <code>vertex2facet</code> was computed.
+	 */
+	private int facetTableModificationCount;
+
 	/**
 	 * @param tree
 	 *            Tree of which to provide facets.
@@ -54,19 +75,41 @@ public class FacetsProvider {
 	 *         Tree, or if v is the root vertex..
 	 */
 	public String getFacet(TreeVertex v) {
-		TreeVertex root = tree.getRootVertex();
+		return getFacetTable().get(v);
+	}
 
-		if (!tree.hasVertex(v.getName()) || v.equals(root)) {
-			return null;
+	/**
+	 * @return Returns the table from tree vertices to their facets, computing it if it does not exist yet or the tree
+	 *         has been modified since.
+	 */
+	private Map<TreeVertex, String> getFacetTable() {
+		if (vertex2facet == null || facetTableModificationCount != tree.getModificationCount()) {
+			vertex2facet = computeFacetTable();
+			facetTableModificationCount = tree.getModificationCount();
 		}
+		return vertex2facet;
+	}
 
-		TreeVertex parent = tree.parentVertexOf(v);
-
-		if (parent.equals(root)) {
-			return v.getName();
-		} else {
-			return getFacet(parent);
+	/**
+	 * Assigns each facet vertex, i.e. each child of the root vertex, its own name as facet and passes it down to all
+	 * of its descendants in a depth-first traversal.
+	 */
+	private Map<TreeVertex, String> computeFacetTable() {
+		Map<TreeVertex, String> table = new HashMap<TreeVertex, String>(tree.vertexSet().size() * 2);
+		Deque<TreeVertex> stack = new ArrayDeque<TreeVertex>();
+		for (DefaultEdge facetEdge : tree.outgoingEdgesOf(tree.getRootVertex())) {
+			TreeVertex facetVertex = tree.getEdgeTarget(facetEdge);
+			String facet = facetVertex.getName();
+			stack.push(facetVertex);
+			while (!stack.isEmpty()) {
+				TreeVertex v = stack.pop();
+				table.put(v, facet);
+				for (DefaultEdge e : tree.outgoingEdgesOf(v)) {
+					stack.push(tree.getEdgeTarget(e));
+				}
+			}
 		}
+		return table;
 	}
 
 	/**
@@ -0,0 +1,432 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.TreeNumber;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+
+/**
+ * <p>
+ * An immutable snapshot of the structure of a <code>Tree</code>, created by <code>Tree.freeze()</code>. It offers the
+ * query methods of <code>Tree</code> but none of the modification methods.
+ * </p>
+ *
+ * <p>
+ * The tree vertices are numbered in depth-first pre-order, starting with 0 for the root vertex. The structure is stored
+ * in <code>int</code> arrays over these numbers: the parent of each vertex, the children of each vertex in a
+ * compressed sparse row layout and the height of each vertex. Thus, parent, child and height queries are simple array
+ * accesses instead of edge set lookups. Since the vertices of a subtree have consecutive numbers, ancestor tests take
+ * constant time.
+ * </p>
+ *
+ * <p>
+ * The snapshot shares the <code>Descriptor</code> and <code>TreeVertex</code> objects with the tree, but not the
+ * structure: modifications of the tree after freezing are not reflected by the snapshot. Vertex names, partial tree
+ * numbers and descriptor names and UIs are copied at freezing time. As long as the shared objects are not modified, a
+ * snapshot can be queried by multiple threads concurrently.
+ * </p>
+ *
+ */
+public class FrozenTree {
+
+	private final String name;
+
+	/** The tree vertices in pre-order. */
+	private final TreeVertex[] vertices;
+	private final String[] partialTreeNumbers;
+	/** The parent number of each vertex; -1 for the root vertex. */
+	private final int[] parents;
+	/** The children of vertex <code>i</code> are <code>children[childStarts[i]]</code> to <code>children[childStarts[i + 1] - 1]</code>. */
+	private final int[] childStarts;
+	private final int[] children;
+	/** The number after the last vertex in the subtree rooted at each vertex. */
+	private final int[] subtreeEnds;
+	private final int[] heights;
+	/** The descriptor number of each vertex. */
+	private final int[] vertexDescriptors;
+
+	private final Descriptor[] descriptors;
+	private final int[] descriptorHeights;
+	private final Descriptor rootDesc;
+
+	private final Map<TreeVertex, Integer> vertex2number;
+	private final Map<String, Integer> vertexName2number;
+	private final Map<String, Integer> descUi2number;
+	private final Map<String, Integer> descName2number;
+	private final Map<Descriptor, Integer> descriptor2number;
+	private final Set<TreeVertex> vertexSet;
+
+	/**
+	 * Creates the snapshot of <code>tree</code>. All vertices must be connected to the root vertex.
+	 *
+	 * @param tree
+	 *            The tree to freeze.
+	 * @throws IllegalStateException
+	 *             If there are vertices that are not connected to the root vertex.
+	 */
+	FrozenTree(Tree tree) {
+		name = tree.getName();
+		int numVertices = tree.vertexSet().size();
+		vertices = new TreeVertex[numVertices];
+		partialTreeNumbers = new String[numVertices];
+		parents = new int[numVertices];
+		childStarts = new int[numVertices + 1];
+		children = new int[Math.max(numVertices - 1, 0)];
+		subtreeEnds = new int[numVertices];
+		heights = new int[numVertices];
+		vertex2number = new IdentityHashMap<TreeVertex, Integer>(numVertices);
+		vertexName2number = new HashMap<String, Integer>(numVertices * 2);
+
+		// Number the vertices in pre-order with an explicit stack. The stack keeps the children of each visited vertex
+		// so that the child numbers can be filled in once they are known.
+		int[] stackVertices = new int[numVertices];
+		int[] stackChildIndex = new int[numVertices];
+		List<List<TreeVertex>> stackChildren = new ArrayList<List<TreeVertex>>();
+		int numVisited = 0;
+		int numChildren = 0;
+		int stackSize = 0;
+		visit(tree.getRootVertex(), -1, 0, numVisited++);
+		stackVertices[stackSize] = 0;
+		stackChildIndex[stackSize] = 0;
+		stackChildren.add(tree.childVerticesOf(tree.getRootVertex()));
+		childStarts[0] = numChildren;
+		numChildren += stackChildren.get(0).size();
+		stackSize++;
+		while (stackSize > 0) {
+			int top = stackSize - 1;
+			int parent = stackVertices[top];
+			List<TreeVertex> parentChildren = stackChildren.get(top);
+			if (stackChildIndex[top] == parentChildren.size()) {
+				subtreeEnds[parent] = numVisited;
+				stackChildren.remove(top);
+				stackSize--;
+				continue;
+			}
+			TreeVertex child = parentChildren.get(stackChildIndex[top]);
+			int childNumber = numVisited++;
+			children[childStarts[parent] + stackChildIndex[top]] = childNumber;
+			stackChildIndex[top]++;
+			visit(child, parent, heights[parent] + 1, childNumber);
+			List<TreeVertex> grandChildren = tree.childVerticesOf(child);
+			childStarts[childNumber] = numChildren;
+			numChildren += grandChildren.size();
+			if (numChildren > children.length)
+				throw new IllegalStateException("The tree " + name + " contains vertices with multiple parents.");
+			stackVertices[stackSize] = childNumber;
+			stackChildIndex[stackSize] = 0;
+			stackChildren.add(grandChildren);
+			stackSize++;
+		}
+		if (numVisited != numVertices)
+			throw new IllegalStateException("The tree " + name + " has " + (numVertices - numVisited)
+					+ " vertices that are not connected to the root vertex.");
+		childStarts[numVertices] = numChildren;
+
+		Collection<Descriptor> allDescriptors = tree.getAllDescriptors();
+		rootDesc = tree.getRootDesc();
+		descriptors = allDescriptors.toArray(new Descriptor[allDescriptors.size()]);
+		descriptorHeights = new int[descriptors.length];
+		descUi2number = new HashMap<String, Integer>(descriptors.length * 2);
+		descName2number = new HashMap<String, Integer>(descriptors.length * 2);
+		descriptor2number = new IdentityHashMap<Descriptor, Integer>(descriptors.length);
+		vertexDescriptors = new int[numVertices];
+		Arrays.fill(vertexDescriptors, -1);
+		for (int i = 0; i < descriptors.length; i++) {
+			Descriptor desc = descriptors[i];
+			descUi2number.put(desc.getUI(), i);
+			descName2number.put(desc.getName(), i);
+			descriptor2number.put(desc, i);
+			int minHeight = Integer.MAX_VALUE;
+			for (TreeVertex v : desc.getTreeVertices()) {
+				Integer number = vertex2number.get(v);
+				if (number != null) {
+					vertexDescriptors[number] = i;
+					minHeight = Math.min(minHeight, heights[number]);
+				}
+			}
+			descriptorHeights[i] = minHeight == Integer.MAX_VALUE ? -1 : minHeight;
+		}
+		vertexSet = Collections.unmodifiableSet(new LinkedHashSet<TreeVertex>(Arrays.asList(vertices)));
+	}
+
+	private void visit(TreeVertex v, int parent, int height, int number) {
+		vertices[number] = v;
+		partialTreeNumbers[number] = v.getPartialTreeNumber();
+		parents[number] = parent;
+		heights[number] = height;
+		vertex2number.put(v, number);
+		vertexName2number.put(v.getName(), number);
+	}
+
+	/**
+	 * @return Returns the number of <code>v</code> or -1 if <code>v</code> is not in this tree.
+	 */
+	private int numberOf(TreeVertex v) {
+		if (v == null)
+			return -1;
+		Integer number = vertex2number.get(v);
+		return number != null ? number : -1;
+	}
+
+	private Descriptor descriptorOf(int vertexNumber) {
+		int descNumber = vertexDescriptors[vertexNumber];
+		return descNumber >= 0 ? descriptors[descNumber] : null;
+	}
+
+	/**
+	 * @return Returns the name of the frozen <code>Tree</code>.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Returns the number of tree vertices.
+	 */
+	public int size() {
+		return vertices.length;
+	}
+
+	public TreeVertex getRootVertex() {
+		return vertices[0];
+	}
+
+	public Descriptor getRootDesc() {
+		return rootDesc;
+	}
+
+	public boolean isRoot(Descriptor desc) {
+		return desc.equals(rootDesc);
+	}
+
+	public boolean isRoot(TreeVertex vertex) {
+		return vertex.equals(vertices[0]);
+	}
+
+	/**
+	 * @return Returns all tree vertices in pre-order.
+	 */
+	public Set<TreeVertex> vertexSet() {
+		return vertexSet;
+	}
+
+	/**
+	 * @return Returns the tree vertex with name <code>vertexName</code> or null if there is no such tree vertex.
+	 */
+	public TreeVertex getVertex(String vertexName) {
+		Integer number = vertexName2number.get(vertexName);
+		return number != null ? vertices[number] : null;
+	}
+
+	public boolean hasVertex(String vertexName) {
+		return vertexName2number.containsKey(vertexName);
+	}
+
+	/**
+	 * @return Returns the parent vertex of v or null if v is the root vertex or not in this tree.
+	 */
+	public TreeVertex parentVertexOf(TreeVertex v) {
+		int number = numberOf(v);
+		if (number < 0 || parents[number] < 0)
+			return null;
+		return vertices[parents[number]];
+	}
+
+	public TreeVertex parentVertexOf(String vName) {
+		return parentVertexOf(getVertex(vName));
+	}
+
+	public boolean isParentVertex(TreeVertex parent, TreeVertex v) {
+		if (parent == null || v == null) {
+			return false;
+		}
+		return parent.equals(parentVertexOf(v));
+	}
+
+	/**
+	 * @return Returns <code>true</code> iff the vertex named <code>anchestorName</code> is a proper ancestor of
+	 *         <code>v</code>.
+	 */
+	public boolean isAnchestorVertex(String anchestorName, TreeVertex v) {
+		Integer anchestor = vertexName2number.get(anchestorName);
+		int number = numberOf(v);
+		if (anchestor == null || number < 0)
+			return false;
+		return anchestor < number && number < subtreeEnds[anchestor];
+	}
+
+	/**
+	 * @return Returns the children of v in the order of <code>Tree.childVerticesOf(TreeVertex)</code> and the empty
+	 *         list if v has no children or is not in this tree.
+	 */
+	public List<TreeVertex> childVerticesOf(TreeVertex v) {
+		int number = numberOf(v);
+		if (number < 0)
+			return Collections.emptyList();
+		List<TreeVertex> ret = new ArrayList<TreeVertex>(childStarts[number + 1] - childStarts[number]);
+		for (int i = childStarts[number]; i < childStarts[number + 1]; i++)
+			ret.add(vertices[children[i]]);
+		return ret;
+	}
+
+	/**
+	 * @return Returns the descriptors of the child vertices of the tree vertices of <code>d</code>.
+	 */
+	public List<Descriptor> childDescriptorsOf(Descriptor d) {
+		List<Descriptor> ret = new ArrayList<Descriptor>();
+		for (TreeVertex treeVertex : d.getTreeVertices()) {
+			int number = numberOf(treeVertex);
+			if (number < 0)
+				continue;
+			for (int i = childStarts[number]; i < childStarts[number + 1]; i++)
+				ret.add(descriptorOf(children[i]));
+		}
+		return ret;
+	}
+
+	public Descriptor parentDescriptorOf(TreeVertex v) {
+		TreeVertex parent = parentVertexOf(v);
+		if (parent != null)
+			return getDescriptorByVertex(parent);
+		return null;
+	}
+
+	/**
+	 * @return Returns the descriptors of the parent vertices of the tree vertices of <code>d</code>. The root
+	 *         descriptor has no parent descriptors.
+	 */
+	public List<Descriptor> parentDescriptorsOf(Descriptor d) {
+		List<Descriptor> ret = new ArrayList<Descriptor>();
+		for (TreeVertex treeVertex : d.getTreeVertices()) {
+			Descriptor parentDesc = parentDescriptorOf(treeVertex);
+			if (parentDesc != null)
+				ret.add(parentDesc);
+		}
+		return ret;
+	}
+
+	public List<String> allParentUIsOf(Descriptor desc) {
+		List<String> allUis = new ArrayList<String>();
+		for (Descriptor parentDesc : parentDescriptorsOf(desc))
+			allUis.add(parentDesc.getUI());
+		return allUis;
+	}
+
+	/**
+	 * @return Returns the height of v, 0 for the root vertex, or -1 if v is not in this tree.
+	 */
+	public int heightOf(TreeVertex v) {
+		int number = numberOf(v);
+		return number >= 0 ? heights[number] : -1;
+	}
+
+	/**
+	 * @return Returns the minimum height of the tree vertices of desc, or -1 if it has no tree vertices.
+	 */
+	public int heightOf(Descriptor desc) {
+		Integer number = descriptor2number.get(desc);
+		return number != null ? descriptorHeights[number] : -1;
+	}
+
+	/**
+	 * @return Returns the tree vertex of desc with the smallest height.
+	 */
+	public TreeVertex getBestTreeVertexOf(Descriptor desc) {
+		TreeVertex best = null;
+		for (TreeVertex v : desc.getTreeVertices()) {
+			if (best == null || heightOf(best) > heightOf(v)) {
+				best = v;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return Returns the full tree number of a vertex in this tree or null if v is not in this tree.
+	 */
+	public TreeNumber treeNumberOf(TreeVertex v) {
+		int number = numberOf(v);
+		if (number < 0)
+			return null;
+		StringBuilder sb = new StringBuilder(partialTreeNumbers[number]);
+		for (int p = parents[number]; p > 0; p = parents[p])
+			sb.insert(0, '.').insert(0, partialTreeNumbers[p]);
+		return new TreeNumber(sb.toString());
+	}
+
+	public Set<TreeNumber> allTreeNumbersOf(Descriptor d) {
+		Set<TreeNumber> treeNumbers = new LinkedHashSet<TreeNumber>();
+		for (TreeVertex v : d.getTreeVertices()) {
+			treeNumbers.add(treeNumberOf(v));
+		}
+		return treeNumbers;
+	}
+
+	public boolean hasTreeNumber(Descriptor desc, TreeNumber nr) {
+		return allTreeNumbersOf(desc).contains(nr);
+	}
+
+	public boolean hasDescriptorByName(String descName) {
+		return descName2number.containsKey(descName);
+	}
+
+	public Descriptor getDescriptorByName(String descName) {
+		Integer number = descName2number.get(descName);
+		return number != null ? descriptors[number] : null;
+	}
+
+	public boolean hasDescriptorByUi(String descUi) {
+		return descUi2number.containsKey(descUi);
+	}
+
+	public Descriptor getDescriptorByUi(String descUi) {
+		Integer number = descUi2number.get(descUi);
+		return number != null ? descriptors[number] : null;
+	}
+
+	/**
+	 * @return Returns the descriptor that belongs to tree vertex v or null if there is no such descriptor.
+	 */
+	public Descriptor getDescriptorByVertex(TreeVertex v) {
+		int number = numberOf(v);
+		return number >= 0 ? descriptorOf(number) : null;
+	}
+
+	/**
+	 * @return Returns all descriptors, including the root descriptor, in the order of
+	 *         <code>Tree.getAllDescriptors()</code>.
+	 */
+	public List<Descriptor> getAllDescriptors() {
+		return Collections.unmodifiableList(Arrays.asList(descriptors));
+	}
+
+	/**
+	 * @return Returns a list of all descriptors sorted by their height, starting with the root descriptor.
+	 *         Descriptors without tree vertices come last.
+	 */
+	public List<Descriptor> getAllDescriptorsByHeight() {
+		Integer[] order = new Integer[descriptors.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (i, j) -> Integer.compare(sortHeight(i), sortHeight(j)));
+		List<Descriptor> allDescList = new ArrayList<Descriptor>(descriptors.length);
+		for (Integer i : order)
+			allDescList.add(descriptors[i]);
+		return allDescList;
+	}
+
+	private int sortHeight(int descNumber) {
+		int height = descriptorHeights[descNumber];
+		return height == -1 ? Integer.MAX_VALUE : height;
+	}
+}
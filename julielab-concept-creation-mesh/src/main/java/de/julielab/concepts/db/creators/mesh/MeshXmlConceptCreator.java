@@ -5,6 +5,7 @@ import de.julielab.concepts.db.core.services.FacetCreationService;
 import de.julielab.concepts.db.core.spi.ConceptCreator;
 import de.julielab.concepts.db.creators.mesh.components.Descriptor;
 import de.julielab.concepts.db.creators.mesh.exchange.DataImporter;
+import de.julielab.concepts.db.creators.mesh.exchange.TreeSnapshot;
 import de.julielab.concepts.db.creators.mesh.tools.ProgressCounter;
 import de.julielab.concepts.util.ConceptCreationException;
 import de.julielab.concepts.util.FacetCreationException;
@@ -16,6 +17,10 @@ import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,6 +38,8 @@ public class MeshXmlConceptCreator implements ConceptCreator {
     public static final String ORG_SOURCES = "originalsources";
     public static final String SOURCE = "source";
     public static final String SOURCE_NAME = "sourcename";
+    public static final String CACHE_DIR = "cache_dir";
+    public static final String TREE_SNAPSHOT_FILE = "meshTreeSnapshot.bin";
 
 
     private final static Logger log = LoggerFactory.getLogger(MeshXmlConceptCreator.class);
@@ -61,34 +68,52 @@ public class MeshXmlConceptCreator implements ConceptCreator {
 
         Map<Descriptor, String> desc2File = new HashMap<>();
         try {
-            conceptTree = new Tree("Concepts Tree");
-            for (HierarchicalConfiguration<ImmutableNode> input : importConfig.configurationsAt(slash(confPath, INPUT))) {
-                String file = ConfigurationUtilities.requirePresent(XMLFILE, input::getString);
-                String format = ConfigurationUtilities.requirePresent(FORMAT, input::getString);
-                if (!FORMATS.contains(format))
-                    throw new ConceptCreationException("Unknown concept XML format: " + format + ". Supported formats: " + FORMATS);
-                log.info("Adding data from {} to the internal concept hierarchy representation that will be inserted into the database.", file);
-                switch (format) {
-                    case "MESH_XML": {
-                        List<Descriptor> descriptors = DataImporter.fromOriginalMeshXml(file, conceptTree, true);
-                        descriptors.forEach(d -> desc2File.put(d, file));
-                        break;
-                    }
-                    case "MESH_SUPPLEMENTARY_XML": {
-                        List<Descriptor> descriptors = DataImporter.fromSupplementaryConceptsXml(file, conceptTree);
-                        descriptors.forEach(d -> desc2File.put(d, file));
-                        break;
-                    }
-                    case "SIMPLE_XML": {
-                        List<Descriptor> descriptors = DataImporter.fromUserDefinedMeshXml(file, conceptTree);
-                        descriptors.forEach(d -> desc2File.put(d, file));
-                        break;
+            String cacheDir = importConfig.getString(slash(confPath, CACHE_DIR));
+            Path snapshotFile = null;
+            String snapshotKey = null;
+            conceptTree = null;
+            if (cacheDir != null) {
+                snapshotFile = Path.of(cacheDir, TREE_SNAPSHOT_FILE);
+                snapshotKey = getSnapshotKey(importConfig.configurationsAt(slash(confPath, INPUT)));
+                conceptTree = TreeSnapshot.read(snapshotFile, snapshotKey, desc2File);
+            }
+            if (conceptTree != null) {
+                log.info("Read the internal concept hierarchy representation from the snapshot at {}. The XML files are not read.", snapshotFile);
+            } else {
+                conceptTree = new Tree("Concepts Tree");
+                for (HierarchicalConfiguration<ImmutableNode> input : importConfig.configurationsAt(slash(confPath, INPUT))) {
+                    String file = ConfigurationUtilities.requirePresent(XMLFILE, input::getString);
+                    String format = ConfigurationUtilities.requirePresent(FORMAT, input::getString);
+                    if (!FORMATS.contains(format))
+                        throw new ConceptCreationException("Unknown concept XML format: " + format + ". Supported formats: " + FORMATS);
+                    log.info("Adding data from {} to the internal concept hierarchy representation that will be inserted into the database.", file);
+                    switch (format) {
+                        case "MESH_XML": {
+                            List<Descriptor> descriptors = DataImporter.fromOriginalMeshXml(file, conceptTree, true);
+                            descriptors.forEach(d -> desc2File.put(d, file));
+                            break;
+                        }
+                        case "MESH_SUPPLEMENTARY_XML": {
+                            List<Descriptor> descriptors = DataImporter.fromSupplementaryConceptsXml(file, conceptTree);
+                            descriptors.forEach(d -> desc2File.put(d, file));
+                            break;
+                        }
+                        case "SIMPLE_XML": {
+                            List<Descriptor> descriptors = DataImporter.fromUserDefinedMeshXml(file, conceptTree);
+                            descriptors.forEach(d -> desc2File.put(d, file));
+                            break;
+                        }
                     }
                 }
-            }
 
-            conceptTree.verifyIntegrity();
-            log.info("Concept XML data reading finished.");
+                boolean integrityVerified = conceptTree.verifyIntegrity();
+                log.info("Concept XML data reading finished.");
+                // A snapshot would preserve a broken tree for all subsequent imports.
+                if (snapshotFile != null && integrityVerified)
+                    writeSnapshot(conceptTree, desc2File, snapshotKey, snapshotFile);
+                else if (snapshotFile != null)
+                    log.warn("The concept tree failed the integrity check. No snapshot is written to {}.", snapshotFile);
+            }
         } catch (Exception e) {
             throw new ConceptCreationException(e);
         }
@@ -97,7 +122,32 @@ public class MeshXmlConceptCreator implements ConceptCreator {
 
     }
 
-    private List<ImportConcepts> createConceptsFromTree(Tree tree, HierarchicalConfiguration<ImmutableNode> importConfig, Map<String, String> file2Source, Map<Descriptor, String> desc2File, Map<String, List<ConceptSourceMatcher>> conceptSourceMatchers) throws ConceptCreationException, FacetCreationException {
+    /**
+     * The snapshot of the concept tree is valid for the exact input files in the configured order.
+     */
+    private String getSnapshotKey(List<HierarchicalConfiguration<ImmutableNode>> inputs) throws IOException, ConfigurationException {
+        StringBuilder key = new StringBuilder();
+        for (HierarchicalConfiguration<ImmutableNode> input : inputs) {
+            String file = ConfigurationUtilities.requirePresent(XMLFILE, input::getString);
+            String format = ConfigurationUtilities.requirePresent(FORMAT, input::getString);
+            key.append(format).append('|').append(file).append('|').append(TreeSnapshot.checksum(new File(file))).append(';');
+        }
+        return key.toString();
+    }
+
+    private void writeSnapshot(Tree conceptTree, Map<Descriptor, String> desc2File, String snapshotKey, Path snapshotFile) {
+        // The snapshot is only a cache, the import does not depend on it.
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            TreeSnapshot.write(conceptTree, desc2File, snapshotKey, snapshotFile);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not write the snapshot of the concept tree to {}.", snapshotFile, e);
+        }
+    }
+
+    private List<ImportConcepts> createConceptsFromTree(Tree conceptTree, HierarchicalConfiguration<ImmutableNode> importConfig, Map<String, String> file2Source, Map<Descriptor, String> desc2File, Map<String, List<ConceptSourceMatcher>> conceptSourceMatchers) throws ConceptCreationException, FacetCreationException {
+        // The tree is only read from here on.
+        FrozenTree tree = conceptTree.freeze();
         // Sanity check.
         List<Descriptor> rootChildren2 = tree.childDescriptorsOf(tree.getRootDesc());
         for (Descriptor facet : rootChildren2) {
@@ -109,7 +159,7 @@ public class MeshXmlConceptCreator implements ConceptCreator {
                                 + facet);
         }
 
-        FacetsProvider facetsProvider = new FacetsProvider(tree);
+        FacetsProvider facetsProvider = new FacetsProvider(conceptTree);
 
         // get all descriptors sorted by it's heights
         List<Descriptor> allDesc = tree.getAllDescriptorsByHeight();
@@ -1,9 +1,11 @@
 package de.julielab.concepts.db.creators.mesh;
 
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -11,7 +13,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
-import org.jgrapht.alg.DijkstraShortestPath;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.slf4j.Logger;
@@ -123,6 +124,24 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 	// name of this tree object
 	private String name;
 
+	/**
+	 * Incremented on each change of the structure of the tree or of the vertex names. Allows derived data like facet
+	 * tables to detect whether they are still up to date.
+	 */
+	private int modificationCount;
+
+	/**
+	 * Index for ancestor and lowest common ancestor queries. Created on demand and created again when the tree has been
+	 * modified since.
+	 */
+	private transient TreeIntervalIndex intervalIndex;
+
+	/**
+	 * The number of open batches, see <code>beginBatch()</code>. While a batch is open, the cached heights of the
+	 * vertices are not maintained.
+	 */
+	private int batchDepth;
+
 	/**
 	 * Constructor.
 	 * 
@@ -372,6 +391,7 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		vertexName2vertex.remove(vertex.getName());
 		vertex.setName(newName);
 		vertexName2vertex.put(newName, vertex);
+		modificationCount++;
 		return true;
 
 	}
@@ -429,7 +449,14 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		}
 
 		// prevent invalid moving: <code>newVertex</code> is an offspring of <code>vertex</code>
-		if (isAnchestorVertex(vertex.getName(), newParent)) {
+		// Moves usually come in long sequences, so don't rebuild the index for each of them.
+		boolean isOffspring;
+		if (hasCurrentIntervalIndex()) {
+			isOffspring = isAnchestorVertex(vertex.getName(), newParent);
+		} else {
+			isOffspring = !isRoot(newParent) && isAnchestorVertex_internal(vertex.getName(), newParent);
+		}
+		if (isOffspring) {
 			logger.warn("invalid moving of '" + vertex.toString() + "' to new parent '" + newParent.toString()
 					+ "'. New parent is offspring of vertex to move.");
 			return false;
@@ -441,9 +468,9 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		}
 
 		// get all partial tree-numbers of children of new parent ...
-		Set<String> partTreeNr = new LinkedHashSet<String>();
-		for (TreeVertex v : childVerticesOf(newParent)) {
-			partTreeNr.add(v.getPartialTreeNumber());
+		Set<String> partTreeNr = new HashSet<String>();
+		for (DefaultEdge e : outgoingEdgesOf(newParent)) {
+			partTreeNr.add(getEdgeTarget(e).getPartialTreeNumber());
 		}
 		// ... and calculate partial tree number for its new child (if
 		// necessary)
@@ -461,12 +488,151 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		removeEdge(incomingEdgeOf(vertex));
 		addEdge(newParent, vertex);
 
-		// reset height of everything in the moved branch
-		invalidateHeights(vertex);
+		// reset height of everything in the moved branch, unless all heights are recomputed at the end of the batch
+		if (batchDepth == 0) {
+			invalidateHeights(vertex);
+		}
 
 		return true;
 	}
 
+	/**
+	 * <p>
+	 * Starts a batch of modifications. Until the matching call of <code>endBatch()</code>, the heights of the vertices
+	 * are not invalidated and cached on each modification. Instead, <code>heightOf(TreeVertex)</code> determines them
+	 * from the parent vertices and all heights are computed once when the batch ends. Likewise, ancestor queries do
+	 * not create the interval index that would be outdated by the next modification.
+	 * </p>
+	 * <p>
+	 * Batches may be nested, only the end of the outermost batch computes the heights.
+	 * </p>
+	 * 
+	 * @see #endBatch()
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+
+	/**
+	 * Ends a batch of modifications started with <code>beginBatch()</code>. At the end of the outermost batch, the
+	 * heights of all vertices connected to the root are computed in a single traversal. Derived data like facet tables
+	 * and the interval index detect the modifications by the modification count and are created again on their next
+	 * use.
+	 */
+	public void endBatch() {
+		if (batchDepth == 0) {
+			throw new IllegalStateException("There is no batch of modifications to end in " + name + ".");
+		}
+		if (--batchDepth == 0) {
+			updateAllHeights();
+		}
+	}
+
+	/**
+	 * @return Returns true if a batch of modifications has been started and not ended yet.
+	 */
+	public boolean isInBatch() {
+		return batchDepth > 0;
+	}
+
+	/**
+	 * Sets the heights of all vertices by a single traversal from the root. Vertices not connected to the root are
+	 * left with an invalid height.
+	 */
+	private void updateAllHeights() {
+		for (TreeVertex v : vertexSet()) {
+			v.setHeightInvalid();
+		}
+		Deque<TreeVertex> stack = new ArrayDeque<TreeVertex>();
+		root.setHeight(0);
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			TreeVertex v = stack.pop();
+			for (DefaultEdge e : outgoingEdgesOf(v)) {
+				TreeVertex child = getEdgeTarget(e);
+				child.setHeight(v.getHeight() + 1);
+				stack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Creates an immutable snapshot of the current structure of this tree for the phase where the tree is only read.
+	 * Later modifications of this tree do not affect the snapshot. All vertices must be connected to the root vertex.
+	 * 
+	 * @return Returns the snapshot of this tree.
+	 * @see FrozenTree
+	 */
+	public FrozenTree freeze() {
+		if (batchDepth > 0) {
+			throw new IllegalStateException("The tree " + name + " cannot be frozen during a batch of modifications.");
+		}
+		// The order of child vertices depends on the cached heights, so make them valid first.
+		for (TreeVertex v : vertexSet()) {
+			heightOf(v);
+		}
+		return new FrozenTree(this);
+	}
+
+	/**
+	 * @return Returns a number that changes whenever vertices or edges are added or removed or vertices are renamed.
+	 *         Data derived from the tree structure is still valid as long as this number has not changed.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * @return Returns the interval index of this tree, creating it if the tree has been modified since its last
+	 *         creation.
+	 */
+	private TreeIntervalIndex getIntervalIndex() {
+		if (!hasCurrentIntervalIndex()) {
+			intervalIndex = new TreeIntervalIndex(this);
+		}
+		return intervalIndex;
+	}
+
+	private boolean hasCurrentIntervalIndex() {
+		return intervalIndex != null && intervalIndex.getModificationCount() == modificationCount;
+	}
+
+	@Override
+	public boolean addVertex(TreeVertex v) {
+		modificationCount++;
+		return super.addVertex(v);
+	}
+
+	@Override
+	public boolean removeVertex(TreeVertex v) {
+		modificationCount++;
+		return super.removeVertex(v);
+	}
+
+	@Override
+	public DefaultEdge addEdge(TreeVertex sourceVertex, TreeVertex targetVertex) {
+		modificationCount++;
+		return super.addEdge(sourceVertex, targetVertex);
+	}
+
+	@Override
+	public boolean addEdge(TreeVertex sourceVertex, TreeVertex targetVertex, DefaultEdge e) {
+		modificationCount++;
+		return super.addEdge(sourceVertex, targetVertex, e);
+	}
+
+	@Override
+	public boolean removeEdge(DefaultEdge e) {
+		modificationCount++;
+		return super.removeEdge(e);
+	}
+
+	@Override
+	public DefaultEdge removeEdge(TreeVertex sourceVertex, TreeVertex targetVertex) {
+		modificationCount++;
+		return super.removeEdge(sourceVertex, targetVertex);
+	}
+
 	/**
 	 * To determine the parent vertex of a given vertex. Note that in a tree, each vertex at most got one parent.
 	 * 
@@ -531,7 +697,19 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		if (v.getName().equals(root.getName())) {
 			return false;
 		}
-		return isAnchestorVertex_internal(anchestorName, v);
+		if (batchDepth > 0) {
+			// the index would have to be created again after each modification of the batch
+			return isAnchestorVertex_internal(anchestorName, v);
+		}
+		TreeIntervalIndex index = getIntervalIndex();
+		int vNumber = index.numberOf(v);
+		TreeVertex anchestor = getVertex(anchestorName);
+		if (vNumber < 0 || anchestor == null) {
+			// v is not connected to the root, only its parents can tell
+			return isAnchestorVertex_internal(anchestorName, v);
+		}
+		int anchestorNumber = index.numberOf(anchestor);
+		return anchestorNumber >= 0 && index.isAncestor(anchestorNumber, vNumber);
 	}
 
 	private boolean isAnchestorVertex_internal(String anchestorName, TreeVertex v) {
@@ -546,7 +724,7 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 			return false;
 		}
 
-		return isAnchestorVertex(anchestorName, parent);
+		return isAnchestorVertex_internal(anchestorName, parent);
 	}
 
 	/**
@@ -1119,6 +1297,9 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 	 * @return Returns the heights of vertex v. The heights of the root-vertex is 0.
 	 */
 	public int heightOf(TreeVertex v) {
+		if (batchDepth > 0) {
+			return uncachedHeightOf(v);
+		}
 		if (!v.hasValidHeight()) {
 			updateHeight(v);
 		}
@@ -1146,6 +1327,27 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		}
 	}
 
+	/**
+	 * Determines the height of a vertex by counting its ancestors, ignoring the cached heights which are not
+	 * maintained during a batch of modifications.
+	 * 
+	 * @param v
+	 *            A tree vertex.
+	 * @return Returns the height of v or <code>Integer.MIN_VALUE</code> if v is not connected to the root.
+	 */
+	private int uncachedHeightOf(TreeVertex v) {
+		int height = 0;
+		TreeVertex cur = v;
+		while (cur != root) {
+			if (!containsVertex(cur) || inDegreeOf(cur) == 0) {
+				return Integer.MIN_VALUE;
+			}
+			cur = getEdgeSource(incomingEdgeOf(cur));
+			height++;
+		}
+		return height;
+	}
+
 	private void updateHeight(TreeVertex v) {
 		TreeVertex parent = parentVertexOf(v);
 		if (parent != null) {
@@ -1204,7 +1406,7 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 		if (pendingVertices.containsKey(parentVertexName)) {
 			list = pendingVertices.get(parentVertexName);
 		} else {
-			list = new LinkedList<TreeVertex>();
+			list = new ArrayList<TreeVertex>();
 		}
 		list.add(v);
 		pendingVertices.put(parentVertexName, list);
@@ -1443,80 +1645,73 @@ public class Tree extends DefaultDirectedGraph<TreeVertex, DefaultEdge> {
 	}
 
 	/**
-	 * Uncompleted method that is to return the descriptor with lowest height which has a path in terms of tree vertices
-	 * to <code>descriptor</code>. The code is almost finished, however must be verified that the returned descriptor is
-	 * indeed the desired one. This is not too sure as its not clear in which order JGraphT returns the shortest paths
-	 * which are computed in this method.
+	 * Returns the descriptor of the vertex directly below the root vertex from which the shortest path leads to a tree
+	 * vertex of <code>descriptor</code>. For the MeSH, this is the top descriptor of the closest tree.
 	 * 
 	 * @param descriptor
-	 * @return
+	 *            A descriptor.
+	 * @return Returns the descriptor at the top of the closest branch below the root, <code>descriptor</code> itself
+	 *         if it has a vertex directly below the root, or null if <code>descriptor</code> has no vertex below the
+	 *         root.
 	 */
 	public Descriptor getDescriptorRootWithLowestHeight(Descriptor descriptor) {
-		Descriptor ret = null;
-
-		List<TreeVertex> descriptorVertices = descriptor.getTreeVertices();
-		List<TreeVertex> meshRootVertices = childVerticesOf(this.root);
-
-		List<DefaultEdge> shortestPath = null;
-		for (TreeVertex descVertex : descriptorVertices) {
-			for (TreeVertex rootVertex : meshRootVertices) {
-				List<DefaultEdge> path = DijkstraShortestPath.findPathBetween(this, descVertex, rootVertex);
-				if (path != null && (shortestPath == null || path.size() < shortestPath.size()))
-					shortestPath = path;
-			}
+		TreeIntervalIndex index = getIntervalIndex();
+		int closest = -1;
+		for (TreeVertex descVertex : descriptor.getTreeVertices()) {
+			int number = index.numberOf(descVertex);
+			if (number > 0 && (closest < 0 || index.depthOf(number) < index.depthOf(closest)))
+				closest = number;
 		}
-
-		System.out.println("From: " + descriptor.getUI());
-		if (shortestPath != null && shortestPath.size() > 0) {
-			System.out.println(descriptor.getName());
-			TreeVertex begin = getEdgeTarget(shortestPath.get(0));
-			TreeVertex end = getEdgeSource(shortestPath.get(shortestPath.size() - 1));
-			System.out.println("First on path: " + getDescriptorByVertex(begin).getUI());
-			System.out.println("Last on path: " + getDescriptorByVertex(end).getUI());
-			ret = getDescriptorByVertex(end);
-		} else if (shortestPath != null) {
-			System.out.println("Is root: " + descriptor.getTreeVertices().iterator().next().getName());
-			ret = descriptor;
-		} else
-			System.out.println("No path found.");
-
+		if (closest < 0) {
+			logger.debug("No path from {} to the root found.", descriptor.getUI());
+			return null;
+		}
+		Descriptor ret = getDescriptorByVertex(index.vertexOf(index.rootChildAncestorOf(closest)));
+		logger.debug("The branch of {} closest to the root begins at {}.", descriptor.getUI(), ret.getUI());
 		return ret;
 	}
 
 	/**
 	 * Returns a shortest sequence of descriptors so that each descriptor is associated with a tree vertex on a shortest
-	 * path between the vertices of descriptor1 and those of descriptor2.
+	 * path between the vertices of descriptor1 and those of descriptor2. The path between two vertices leads up to
+	 * their lowest common ancestor and down again. For vertices in different branches below the root, the lowest
+	 * common ancestor is the root vertex and the path contains the root descriptor.
 	 * 
 	 * @param descriptor1
 	 * @param descriptor2
-	 * @return
+	 * @return The descriptors on the path, beginning with <code>descriptor1</code> and ending with
+	 *         <code>descriptor2</code>. Empty if the descriptors share a tree vertex or have no vertices connected to the
+	 *         root.
 	 */
 	public List<Descriptor> getShortestDescriptorPath(Descriptor descriptor1, Descriptor descriptor2) {
-		List<DefaultEdge> shortestPath = null;
-
-		List<TreeVertex> desc1Vertices = descriptor1.getTreeVertices();
-		List<TreeVertex> desc2Vertices = descriptor2.getTreeVertices();
-
-		for (TreeVertex desc1Vertex : desc1Vertices) {
-			for (TreeVertex desc2Vertex : desc2Vertices) {
-				List<DefaultEdge> path = DijkstraShortestPath.findPathBetween(this, desc1Vertex, desc2Vertex);
-				if (shortestPath == null || path.size() < shortestPath.size() && path.size() != 0)
-					shortestPath = path;
+		TreeIntervalIndex index = getIntervalIndex();
+		int shortestFrom = -1;
+		int shortestTo = -1;
+		int shortestLength = Integer.MAX_VALUE;
+
+		for (TreeVertex desc1Vertex : descriptor1.getTreeVertices()) {
+			int from = index.numberOf(desc1Vertex);
+			if (from < 0)
+				continue;
+			for (TreeVertex desc2Vertex : descriptor2.getTreeVertices()) {
+				int to = index.numberOf(desc2Vertex);
+				if (to < 0)
+					continue;
+				int length = index.distance(from, to);
+				if (length < shortestLength) {
+					shortestFrom = from;
+					shortestTo = to;
+					shortestLength = length;
+				}
 			}
 		}
 
 		List<Descriptor> descriptorPath = new ArrayList<Descriptor>();
-		for (int i = 0; i < shortestPath.size(); i++) {
-			DefaultEdge edge = shortestPath.get(i);
-
-			TreeVertex src = getEdgeSource(edge);
-			descriptorPath.add(getDescriptorByVertex(src));
-			if (i == shortestPath.size() - 1) {
-				TreeVertex tgt = getEdgeTarget(edge);
-				descriptorPath.add(getDescriptorByVertex(tgt));
-			}
+		if (shortestLength == Integer.MAX_VALUE || shortestLength == 0)
+			return descriptorPath;
+		for (TreeVertex v : index.path(shortestFrom, shortestTo)) {
+			descriptorPath.add(getDescriptorByVertex(v));
 		}
-
 		return descriptorPath;
 	}
 
@@ -0,0 +1,205 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.graph.DefaultEdge;
+
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+
+/**
+ * <p>
+ * An index over the structure of a <code>Tree</code> for ancestor and lowest common ancestor queries.
+ * </p>
+ *
+ * <p>
+ * Each vertex reachable from the root is labelled with its pre-order and post-order number. A vertex <code>a</code> is
+ * an ancestor of a vertex <code>v</code> if and only if <code>a</code> comes before <code>v</code> in pre-order and
+ * after <code>v</code> in post-order. For lowest common ancestors, the index keeps the Euler tour of the tree and a
+ * sparse table of the minimum depth vertex in each range of the tour whose length is a power of two. Any range minimum,
+ * and thus any lowest common ancestor, is then found by looking at two overlapping ranges.
+ * </p>
+ *
+ * <p>
+ * The index reflects the tree at the time of its creation. <code>Tree</code> creates it on demand and creates it again
+ * when the tree has been modified since.
+ * </p>
+ *
+ */
+class TreeIntervalIndex {
+
+	private final int modificationCount;
+
+	/** The vertices in pre-order, i.e. the number of each vertex is its pre-order number. */
+	private final TreeVertex[] vertices;
+	private final Map<TreeVertex, Integer> vertex2number;
+	private final int[] parents;
+	private final int[] post;
+	private final int[] depths;
+	/** The pre-order numbers of the children of the root. */
+	private final int[] rootChildren;
+	/** The position of the first occurrence of each vertex in the Euler tour. */
+	private final int[] firstOccurrences;
+	/**
+	 * <code>sparseTable[k][i]</code> is the vertex with the smallest depth in the Euler tour range from <code>i</code>
+	 * of length <code>2^k</code>.
+	 */
+	private final int[][] sparseTable;
+
+	TreeIntervalIndex(Tree tree) {
+		modificationCount = tree.getModificationCount();
+		int maxVertices = tree.vertexSet().size();
+		vertices = new TreeVertex[maxVertices];
+		vertex2number = new IdentityHashMap<TreeVertex, Integer>(maxVertices);
+		parents = new int[maxVertices];
+		post = new int[maxVertices];
+		depths = new int[maxVertices];
+		firstOccurrences = new int[maxVertices];
+		int[] eulerTour = new int[Math.max(2 * maxVertices - 1, 1)];
+		int tourLength = 0;
+		int numVertices = 0;
+		int numPost = 0;
+
+		// Depth-first traversal with an explicit stack of child edge iterators.
+		int[] stack = new int[maxVertices];
+		List<Iterator<DefaultEdge>> childIterators = new ArrayList<Iterator<DefaultEdge>>();
+		int stackSize = 0;
+		TreeVertex root = tree.getRootVertex();
+		numVertices = enter(root, -1, 0, numVertices, tourLength);
+		eulerTour[tourLength++] = 0;
+		stack[stackSize++] = 0;
+		childIterators.add(tree.outgoingEdgesOf(root).iterator());
+		while (stackSize > 0) {
+			int top = stack[stackSize - 1];
+			Iterator<DefaultEdge> it = childIterators.get(stackSize - 1);
+			if (it.hasNext()) {
+				TreeVertex child = tree.getEdgeTarget(it.next());
+				if (vertex2number.containsKey(child) || numVertices == maxVertices)
+					throw new IllegalStateException("The tree " + tree.getName() + " contains vertices with multiple parents.");
+				int childNumber = numVertices;
+				numVertices = enter(child, top, depths[top] + 1, numVertices, tourLength);
+				eulerTour[tourLength++] = childNumber;
+				stack[stackSize++] = childNumber;
+				childIterators.add(tree.outgoingEdgesOf(child).iterator());
+			} else {
+				post[top] = numPost++;
+				childIterators.remove(--stackSize);
+				if (stackSize > 0)
+					eulerTour[tourLength++] = stack[stackSize - 1];
+			}
+		}
+
+		List<Integer> rootChildNumbers = new ArrayList<Integer>();
+		for (int i = 1; i < numVertices; i++) {
+			if (parents[i] == 0)
+				rootChildNumbers.add(i);
+		}
+		rootChildren = new int[rootChildNumbers.size()];
+		for (int i = 0; i < rootChildren.length; i++)
+			rootChildren[i] = rootChildNumbers.get(i);
+
+		int levels = 32 - Integer.numberOfLeadingZeros(tourLength);
+		sparseTable = new int[levels][];
+		sparseTable[0] = Arrays.copyOf(eulerTour, tourLength);
+		for (int k = 1; k < levels; k++) {
+			int[] previous = sparseTable[k - 1];
+			int half = 1 << (k - 1);
+			int[] level = new int[tourLength - (1 << k) + 1];
+			for (int i = 0; i < level.length; i++)
+				level[i] = shallower(previous[i], previous[i + half]);
+			sparseTable[k] = level;
+		}
+	}
+
+	private int enter(TreeVertex v, int parent, int depth, int number, int tourPosition) {
+		vertices[number] = v;
+		vertex2number.put(v, number);
+		parents[number] = parent;
+		depths[number] = depth;
+		firstOccurrences[number] = tourPosition;
+		return number + 1;
+	}
+
+	private int shallower(int a, int b) {
+		return depths[a] <= depths[b] ? a : b;
+	}
+
+	/**
+	 * @return The modification count of the tree at the time this index was created.
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * @return The pre-order number of <code>v</code> or -1 if <code>v</code> is not connected to the root.
+	 */
+	int numberOf(TreeVertex v) {
+		Integer number = vertex2number.get(v);
+		return number != null ? number : -1;
+	}
+
+	TreeVertex vertexOf(int number) {
+		return vertices[number];
+	}
+
+	/**
+	 * @return Whether vertex <code>a</code> is a proper ancestor of vertex <code>v</code>.
+	 */
+	boolean isAncestor(int a, int v) {
+		return a < v && post[v] < post[a];
+	}
+
+	/**
+	 * @return The lowest common ancestor of vertices <code>a</code> and <code>b</code>.
+	 */
+	int lowestCommonAncestor(int a, int b) {
+		int from = Math.min(firstOccurrences[a], firstOccurrences[b]);
+		int to = Math.max(firstOccurrences[a], firstOccurrences[b]);
+		int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+		return shallower(sparseTable[k][from], sparseTable[k][to - (1 << k) + 1]);
+	}
+
+	/**
+	 * @return The number of edges on the path between vertices <code>a</code> and <code>b</code>.
+	 */
+	int distance(int a, int b) {
+		return depths[a] + depths[b] - 2 * depths[lowestCommonAncestor(a, b)];
+	}
+
+	/**
+	 * @return The vertices on the path from vertex <code>a</code> up to the lowest common ancestor and down to vertex
+	 *         <code>b</code>, including both ends.
+	 */
+	List<TreeVertex> path(int a, int b) {
+		int lca = lowestCommonAncestor(a, b);
+		List<TreeVertex> path = new ArrayList<TreeVertex>(distance(a, b) + 1);
+		for (int v = a; v != lca; v = parents[v])
+			path.add(vertices[v]);
+		path.add(vertices[lca]);
+		int insertAt = path.size();
+		for (int v = b; v != lca; v = parents[v])
+			path.add(insertAt, vertices[v]);
+		return path;
+	}
+
+	/**
+	 * @return The child of the root that is an ancestor of vertex <code>v</code> or <code>v</code> itself, or -1 if
+	 *         <code>v</code> is the root.
+	 */
+	int rootChildAncestorOf(int v) {
+		// the children of the root are in pre-order, so the last one not after v is the ancestor
+		int i = Arrays.binarySearch(rootChildren, v);
+		if (i < 0)
+			i = -i - 2;
+		return i >= 0 ? rootChildren[i] : -1;
+	}
+
+	int depthOf(int v) {
+		return depths[v];
+	}
+}
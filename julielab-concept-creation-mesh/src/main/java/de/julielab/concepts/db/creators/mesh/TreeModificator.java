@@ -7,6 +7,7 @@ import java.util.Set;
 import org.slf4j.Logger;
 
 import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
 
 /**
  * Class that inherits from TreeModificationContainer and extends its functionality by allowing to apply the
@@ -83,11 +84,38 @@ public class TreeModificator extends TreeModificationContainer {
 	 * <li>descriptor deletions</li>
 	 * <li>vertex renamings</li>
 	 * </ol>
+	 * 
+	 * <p>
+	 * The modifications are first checked with <code>verify()</code>. If any modification cannot be applied cleanly,
+	 * nothing is applied and <code>data</code> is left unchanged. Otherwise, the modifications are applied one after
+	 * the other. Only the recomputation of the heights of the tree vertices is deferred until all modifications have
+	 * been applied, see <code>Tree.beginBatch()</code>.
+	 * </p>
+	 * 
+	 * @return Returns true if the modifications have been applied, false if they have been rejected by
+	 *         <code>verify()</code>.
 	 */
-	public void applyAll(boolean debug) {
+	public boolean applyAll(boolean debug) {
 		logger.info("# Applying all modifications to '" + data.getName() + "' ... ");
 
+		if (!verify()) {
+			logger.error("applyAll() : some modifications cannot be applied to '" + data.getName()
+					+ "', see the warnings above - aborting without modifying the tree!");
+			return false;
+		}
+
+		data.beginBatch();
+		try {
+			applyAllInBatch(debug);
+		} finally {
+			data.endBatch();
+		}
+
+		logger.info("# ... done applying all modifications.");
+		return true;
+	}
 
+	private void applyAllInBatch(boolean debug) {
 		descRenamings.apply(data);
 		if (debug)
 			data.verifyIntegrity();
@@ -122,23 +150,135 @@ public class TreeModificator extends TreeModificationContainer {
 		vertexRenamings.apply(data);
 		if (debug)
 			data.verifyIntegrity();
-
-		logger.info("# ... done applying all modifications.");
 	}
 
 
 	/**
 	 * Calls applyAll(false).
 	 */
-	public void applyAll() {
-		applyAll(false);
+	public boolean applyAll() {
+		return applyAll(false);
 	}
 
 	/**
+	 * <p>
+	 * Checks all modifications against <code>data</code> without modifying it. The descriptor UIs, descriptor names
+	 * and vertex names each modification refers to are tracked through the modifications in the order in which
+	 * <code>applyAll</code> applies them. Each modification that refers to something that does not exist at that
+	 * point or that would introduce a name that is already in use is logged.
+	 * </p>
+	 * <p>
+	 * Note: the vertices removed by vertex and descriptor deletions are not tracked since recursive deletions depend
+	 * on the structure of the tree. Also, it is not checked whether vertex movings would move a vertex into its own
+	 * branch.
+	 * </p>
+	 * 
 	 * @return Returns true if modifications could be applied to <code>data</code> without any problems, false
 	 *         otherwise.
 	 */
 	public boolean verify() {
-		return true;
+		int problems = 0;
+		Set<String> descUis = new HashSet<String>();
+		Set<String> descNames = new HashSet<String>();
+		for (Descriptor desc : data.getAllDescriptors()) {
+			descUis.add(desc.getUI());
+			descNames.add(desc.getName());
+		}
+		Set<String> vertexNames = new HashSet<String>();
+		for (TreeVertex v : data.vertexSet()) {
+			vertexNames.add(v.getName());
+		}
+
+		for (String descUi : descRenamings.getOldSet()) {
+			String newUi = descRenamings.getNew(descUi);
+			if (!descUis.remove(descUi)) {
+				problems += problem("descriptor renaming", descUi + " -> " + newUi, "the descriptor UI doesn't exist");
+			} else if (!descUis.add(newUi)) {
+				problems += problem("descriptor renaming", descUi + " -> " + newUi, "the new UI is already in use");
+			}
+		}
+		for (String descName : descRelabellings.getOldSet()) {
+			String newName = descRelabellings.getNew(descName);
+			if (!descNames.remove(descName)) {
+				problems += problem("descriptor relabelling", descName + " -> " + newName,
+						"the descriptor name doesn't exist");
+			} else if (!descNames.add(newName)) {
+				problems += problem("descriptor relabelling", descName + " -> " + newName,
+						"the new name is already in use");
+			}
+		}
+		for (Descriptor desc : descAdditions.keySet()) {
+			if (descUis.contains(desc.getUI())) {
+				problems += problem("descriptor addition", desc.getUI(), "the UI is already in use");
+			} else if (descNames.contains(desc.getName())) {
+				problems += problem("descriptor addition", desc.getUI(), "the name is already in use");
+			} else {
+				descUis.add(desc.getUI());
+				descNames.add(desc.getName());
+				for (String vertexName : descAdditions.get(desc).getVertexNameSet()) {
+					if (!vertexNames.add(vertexName)) {
+						problems += problem("descriptor addition", desc.getUI(), "the vertex name " + vertexName
+								+ " is already in use");
+					}
+				}
+			}
+		}
+		for (String vertexName : vertexAdditions.keySet()) {
+			if (!descUis.contains(vertexAdditions.getDescUi(vertexName))) {
+				problems += problem("vertex addition", vertexName, "the descriptor UI "
+						+ vertexAdditions.getDescUi(vertexName) + " doesn't exist");
+			} else if (!vertexNames.add(vertexName)) {
+				problems += problem("vertex addition", vertexName, "the vertex name is already in use");
+			}
+		}
+		// vertices may be added in any order, so check the parents after all vertices are known
+		for (String vertexName : vertexAdditions.keySet()) {
+			String parentVertexName = vertexAdditions.getParentVertexName(vertexName);
+			if (!vertexNames.contains(parentVertexName)) {
+				problems += problem("vertex addition", vertexName, "the parent vertex " + parentVertexName
+						+ " doesn't exist");
+			}
+		}
+		for (String vertexName : vertexMovings.keySet()) {
+			if (!vertexNames.contains(vertexName)) {
+				problems += problem("vertex moving", vertexName, "the vertex doesn't exist");
+			} else if (!vertexNames.contains(vertexMovings.getNewParent(vertexName))) {
+				problems += problem("vertex moving", vertexName, "the new parent vertex "
+						+ vertexMovings.getNewParent(vertexName) + " doesn't exist");
+			} else if (!descUis.contains(vertexMovings.getNewDescUi(vertexName))) {
+				problems += problem("vertex moving", vertexName, "the new descriptor UI "
+						+ vertexMovings.getNewDescUi(vertexName) + " doesn't exist");
+			}
+		}
+		for (String vertexName : vertexDeletions.keySet()) {
+			if (!vertexNames.contains(vertexName)) {
+				problems += problem("vertex deletion", vertexName, "the vertex doesn't exist");
+			}
+		}
+		for (String descUi : descDeletions) {
+			if (!descUis.remove(descUi)) {
+				problems += problem("descriptor deletion", descUi, "the descriptor UI doesn't exist");
+			}
+		}
+		for (String vertexName : vertexRenamings.getOldSet()) {
+			String newName = vertexRenamings.getNew(vertexName);
+			if (!vertexNames.remove(vertexName)) {
+				problems += problem("vertex renaming", vertexName + " -> " + newName, "the vertex doesn't exist");
+			} else if (!vertexNames.add(newName)) {
+				problems += problem("vertex renaming", vertexName + " -> " + newName,
+						"the new name is already in use");
+			}
+		}
+
+		if (problems > 0) {
+			logger.warn(problems + " modifications of '" + getName() + "' cannot be applied to '" + data.getName()
+					+ "'.");
+		}
+		return problems == 0;
+	}
+
+	private static int problem(String modification, String subject, String reason) {
+		logger.warn("Invalid " + modification + " '" + subject + "': " + reason + ".");
+		return 1;
 	}
 }
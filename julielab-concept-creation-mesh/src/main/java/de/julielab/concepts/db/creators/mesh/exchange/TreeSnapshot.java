@@ -0,0 +1,305 @@
+package de.julielab.concepts.db.creators.mesh.exchange;
+
+import static de.julielab.concepts.util.CacheIO.readCount;
+import static de.julielab.concepts.util.CacheIO.readString;
+import static de.julielab.concepts.util.CacheIO.writeString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+
+import de.julielab.concepts.db.creators.mesh.Tree;
+import de.julielab.concepts.db.creators.mesh.components.Concept;
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.Term;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+
+/**
+ * <p>
+ * Writes a <code>Tree</code> to a binary snapshot file and reads it back. Reading a snapshot is much faster than
+ * parsing the MeSH XML the tree was created from, thus snapshots serve as a cache of parsed trees.
+ * </p>
+ *
+ * <p>
+ * The snapshot contains the descriptors with their concepts, terms and scope notes and the tree vertices with their
+ * parents. All strings are stored once in a string table and referred to by their index. The descriptors and vertices
+ * are stored in the order in which they were added to the tree and are added to the restored tree in the same order.
+ * The file is read through a memory mapped buffer.
+ * </p>
+ *
+ * <p>
+ * Each snapshot carries a key, usually built from the checksums of the files the tree was created from. A snapshot is
+ * only read if its key matches the requested key.
+ * </p>
+ */
+public class TreeSnapshot {
+
+	private static Logger logger = org.slf4j.LoggerFactory.getLogger(TreeSnapshot.class);
+
+	private static final int MAGIC = 0x4d534854;
+	private static final int VERSION = 1;
+
+	private static final int NULL = -1;
+
+	private static final int PREFERRED = 1;
+	private static final int SEMEDICO_FACET = 2;
+
+	/**
+	 * Writes <code>tree</code> to <code>file</code>. The snapshot is written to a temporary file first which then
+	 * replaces <code>file</code>, so an interrupted write never leaves an incomplete snapshot.
+	 *
+	 * @param tree
+	 *            The tree to write. All vertices must be connected to the root vertex.
+	 * @param descriptorSources
+	 *            An optional label for each descriptor, e.g. the file it was read from, that is stored with the
+	 *            descriptor. May be <code>null</code>.
+	 * @param key
+	 *            The key that must be given to read the snapshot.
+	 * @param file
+	 *            The snapshot file.
+	 * @throws IOException
+	 *             If writing fails.
+	 * @throws IllegalArgumentException
+	 *             If <code>tree</code> has vertices that are not connected to its root.
+	 */
+	public static void write(Tree tree, Map<Descriptor, String> descriptorSources, String key, Path file)
+			throws IOException {
+		logger.info("# Writing a snapshot of '" + tree.getName() + "' to " + file + " ... ");
+		StringTable strings = new StringTable();
+		strings.indexOf(tree.getName());
+
+		// descriptors in the order they were added, without the root descriptor that each tree has from the start
+		List<Descriptor> descriptors = new ArrayList<Descriptor>(tree.getAllDescriptors());
+		descriptors.remove(tree.getRootDesc());
+		Map<Descriptor, Integer> descriptor2number = new IdentityHashMap<Descriptor, Integer>();
+		for (Descriptor desc : descriptors) {
+			descriptor2number.put(desc, descriptor2number.size());
+			strings.indexOf(desc.getUI());
+			strings.indexOf(desc.getScopeNote());
+			if (descriptorSources != null)
+				strings.indexOf(descriptorSources.get(desc));
+			for (Concept c : desc.getConcepts()) {
+				for (Term t : c.getTerms()) {
+					strings.indexOf(t.getName());
+					strings.indexOf(t.getID());
+				}
+			}
+		}
+
+		List<TreeVertex> vertices = new ArrayList<TreeVertex>(tree.vertexSet().size());
+		for (TreeVertex v : tree.vertexSet()) {
+			if (tree.isRoot(v))
+				continue;
+			if (tree.inDegreeOf(v) == 0)
+				throw new IllegalArgumentException("Cannot write a snapshot of " + tree.getName()
+						+ " because the vertex " + v.getName() + " is not connected to the root.");
+			vertices.add(v);
+			strings.indexOf(v.getName());
+			strings.indexOf(tree.parentVertexOf(v).getName());
+			strings.indexOf(v.getPartialTreeNumber());
+		}
+
+		Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile),
+				1 << 16))) {
+			dos.writeInt(MAGIC);
+			dos.writeInt(VERSION);
+			writeString(dos, key);
+
+			dos.writeInt(strings.size());
+			for (String s : strings.getStrings())
+				writeString(dos, s);
+
+			dos.writeInt(strings.indexOf(tree.getName()));
+			dos.writeInt(descriptors.size());
+			for (Descriptor desc : descriptors) {
+				dos.writeInt(strings.indexOf(desc.getUI()));
+				dos.writeInt(strings.indexOf(desc.getScopeNote()));
+				dos.writeInt(descriptorSources != null ? strings.indexOf(descriptorSources.get(desc)) : NULL);
+				dos.writeByte(desc.isSemedicoFacet() ? SEMEDICO_FACET : 0);
+				dos.writeInt(desc.getConcepts().size());
+				for (Concept c : desc.getConcepts()) {
+					dos.writeByte(c.isPreferred() ? PREFERRED : 0);
+					dos.writeInt(c.getTerms().size());
+					for (Term t : c.getTerms()) {
+						dos.writeInt(strings.indexOf(t.getName()));
+						dos.writeInt(strings.indexOf(t.getID()));
+						dos.writeByte(t.isPreferred() ? PREFERRED : 0);
+					}
+				}
+			}
+
+			dos.writeInt(vertices.size());
+			for (TreeVertex v : vertices) {
+				Descriptor desc = tree.getDescriptorByVertex(v);
+				dos.writeInt(tree.isRoot(desc) ? NULL : descriptor2number.get(desc));
+				dos.writeInt(strings.indexOf(v.getName()));
+				dos.writeInt(strings.indexOf(tree.parentVertexOf(v).getName()));
+				dos.writeInt(strings.indexOf(v.getPartialTreeNumber()));
+			}
+		}
+		Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		logger.info("# ... done writing " + descriptors.size() + " descriptors and " + vertices.size()
+				+ " vertices.");
+	}
+
+	/**
+	 * Reads a tree from a snapshot written by <code>write</code>.
+	 *
+	 * @param file
+	 *            The snapshot file.
+	 * @param key
+	 *            The key the snapshot must have been written with.
+	 * @param descriptorSources
+	 *            If not <code>null</code>, receives the labels stored with the descriptors.
+	 * @return Returns the tree or <code>null</code> if there is no snapshot at <code>file</code>, if it was written
+	 *         with another key or if it cannot be read.
+	 */
+	public static Tree read(Path file, String key, Map<Descriptor, String> descriptorSources) {
+		if (!Files.exists(file))
+			return null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (bb.getInt() != MAGIC || bb.getInt() != VERSION || !key.equals(readString(bb))) {
+				logger.info("The tree snapshot at " + file + " was written with another key.");
+				return null;
+			}
+			logger.info("# Reading a tree snapshot from " + file + " ... ");
+
+			String[] strings = new String[readCount(bb, 4)];
+			for (int i = 0; i < strings.length; i++)
+				strings[i] = readString(bb);
+
+			Tree tree = new Tree(strings[bb.getInt()]);
+			Descriptor[] descriptors = new Descriptor[readCount(bb, 17)];
+			String[] noVertexNames = new String[0];
+			for (int i = 0; i < descriptors.length; i++) {
+				Descriptor desc = new Descriptor();
+				desc.setUI(strings[bb.getInt()]);
+				desc.setScopeNote(stringAt(strings, bb.getInt()));
+				String source = stringAt(strings, bb.getInt());
+				desc.setSemedicoFacet((bb.get() & SEMEDICO_FACET) != 0);
+				int numConcepts = readCount(bb, 5);
+				for (int j = 0; j < numConcepts; j++) {
+					Concept c = new Concept((bb.get() & PREFERRED) != 0);
+					int numTerms = readCount(bb, 9);
+					// the terms have been checked for duplicates when they were added originally
+					List<Term> terms = new ArrayList<Term>(numTerms);
+					for (int k = 0; k < numTerms; k++) {
+						Term t = new Term(strings[bb.getInt()], false);
+						t.setID(stringAt(strings, bb.getInt()));
+						t.setPreferred((bb.get() & PREFERRED) != 0);
+						terms.add(t);
+					}
+					c.setTerms(terms);
+					desc.addConcept(c);
+				}
+				// the vertices are added below, in the order in which they were added to the original tree
+				if (!tree.addDescriptor(desc, noVertexNames, noVertexNames))
+					throw new IllegalArgumentException("The descriptor " + desc.getUI() + " could not be added.");
+				if (descriptorSources != null && source != null)
+					descriptorSources.put(desc, source);
+				descriptors[i] = desc;
+			}
+
+			int numVertices = readCount(bb, 16);
+			for (int i = 0; i < numVertices; i++) {
+				int descNumber = bb.getInt();
+				Descriptor desc = descNumber == NULL ? tree.getRootDesc() : descriptors[descNumber];
+				String vertexName = strings[bb.getInt()];
+				String parentVertexName = strings[bb.getInt()];
+				TreeVertex v = tree.addTreeVertexToDesc(desc, parentVertexName, vertexName);
+				if (v == null)
+					throw new IllegalArgumentException("The vertex " + vertexName + " could not be added.");
+				v.setPartialTreeNumber(strings[bb.getInt()]);
+			}
+			logger.info("# ... done reading " + descriptors.length + " descriptors and " + numVertices
+					+ " vertices.");
+			return tree;
+		} catch (IOException | RuntimeException e) {
+			// A corrupt snapshot may fail in many ways, e.g. with index or buffer underflow errors. The tree is then
+			// just read from its original sources.
+			logger.warn("Could not read the tree snapshot at " + file + ". Perhaps the snapshot is corrupt.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Computes a CRC32C checksum of a file or of all files in a directory, in the order of their names. The
+	 * checksums of the input files of a tree may serve as the key of its snapshot.
+	 *
+	 * @param file
+	 *            A file or directory.
+	 * @return Returns the checksum.
+	 * @throws IOException
+	 *             If reading fails.
+	 */
+	public static long checksum(File file) throws IOException {
+		CRC32C crc = new CRC32C();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+		File[] files = file.isDirectory() ? file.listFiles(File::isFile) : new File[] { file };
+		Arrays.sort(files);
+		for (File f : files) {
+			crc.update(f.getName().getBytes(UTF_8));
+			try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					crc.update(buffer);
+					buffer.clear();
+				}
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static String stringAt(String[] strings, int index) {
+		return index == NULL ? null : strings[index];
+	}
+
+	/**
+	 * Assigns each distinct string an index in the order of first occurrence. <code>null</code> has the index
+	 * <code>NULL</code>.
+	 */
+	private static class StringTable {
+		private final Map<String, Integer> string2index = new HashMap<String, Integer>();
+		private final List<String> strings = new ArrayList<String>();
+
+		int indexOf(String s) {
+			if (s == null)
+				return NULL;
+			Integer index = string2index.get(s);
+			if (index == null) {
+				index = strings.size();
+				string2index.put(s, index);
+				strings.add(s);
+			}
+			return index;
+		}
+
+		List<String> getStrings() {
+			return strings;
+		}
+
+		int size() {
+			return strings.size();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+import de.julielab.concepts.db.creators.mesh.exchange.DataImporter;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrozenTreeTest {
+    private static final String MESH_SNIPPET = "src/test/resources/mesh2017_snippet.xml";
+
+    @Test
+    public void testQueriesEqualTree() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        FrozenTree frozen = tree.freeze();
+
+        assertThat(frozen.getName()).isEqualTo(tree.getName());
+        assertThat(frozen.size()).isEqualTo(tree.vertexSet().size());
+        assertThat(frozen.vertexSet()).containsExactlyInAnyOrderElementsOf(tree.vertexSet());
+        assertThat(frozen.getRootVertex()).isSameAs(tree.getRootVertex());
+        assertThat(frozen.getRootDesc()).isSameAs(tree.getRootDesc());
+        for (TreeVertex v : tree.vertexSet()) {
+            assertThat(frozen.getVertex(v.getName())).isSameAs(v);
+            assertThat(frozen.isRoot(v)).isEqualTo(tree.isRoot(v));
+            assertThat(frozen.parentVertexOf(v)).isEqualTo(tree.isRoot(v) ? null : tree.parentVertexOf(v));
+            assertThat(frozen.childVerticesOf(v)).containsExactlyElementsOf(tree.childVerticesOf(v));
+            assertThat(frozen.heightOf(v)).isEqualTo(tree.heightOf(v));
+            assertThat(frozen.treeNumberOf(v)).isEqualTo(tree.treeNumberOf(v));
+            assertThat(frozen.getDescriptorByVertex(v)).isSameAs(tree.getDescriptorByVertex(v));
+            if (tree.isRoot(v))
+                continue;
+            assertThat(frozen.parentDescriptorOf(v)).isSameAs(tree.getDescriptorByVertex(tree.parentVertexOf(v)));
+            for (TreeVertex ancestor : tree.vertexSet())
+                assertThat(frozen.isAnchestorVertex(ancestor.getName(), v)).as(ancestor + " ancestor of " + v).isEqualTo(tree.isAnchestorVertex(ancestor.getName(), v));
+        }
+        for (Descriptor desc : tree.getAllDescriptors()) {
+            assertThat(frozen.getDescriptorByUi(desc.getUI())).isSameAs(desc);
+            assertThat(frozen.getDescriptorByName(desc.getName())).isSameAs(desc);
+            assertThat(frozen.isRoot(desc)).isEqualTo(tree.isRoot(desc));
+            assertThat(frozen.heightOf(desc)).isEqualTo(tree.heightOf(desc));
+            assertThat(frozen.getBestTreeVertexOf(desc)).isSameAs(tree.getBestTreeVertexOf(desc));
+            assertThat(frozen.allTreeNumbersOf(desc)).isEqualTo(tree.allTreeNumbersOf(desc));
+            assertThat(new HashSet<>(frozen.childDescriptorsOf(desc))).isEqualTo(new HashSet<>(tree.childDescriptorsOf(desc)));
+            if (!tree.isRoot(desc))
+                assertThat(frozen.parentDescriptorsOf(desc)).containsExactlyElementsOf(tree.parentDescriptorsOf(desc));
+        }
+        assertThat(frozen.getAllDescriptors()).containsExactlyInAnyOrderElementsOf(tree.getAllDescriptors());
+        assertThat(frozen.getAllDescriptorsByHeight()).containsExactlyElementsOf(tree.getAllDescriptorsByHeight());
+    }
+
+    @Test
+    public void testSnapshotIsIndependentOfTree() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        FrozenTree frozen = tree.freeze();
+        TreeVertex leaf = null;
+        for (TreeVertex v : tree.vertexSet()) {
+            if (!tree.isRoot(v) && tree.childVerticesOf(v).isEmpty() && !tree.isRoot(tree.parentVertexOf(v)))
+                leaf = v;
+        }
+        assertThat(leaf).isNotNull();
+        TreeVertex parent = tree.parentVertexOf(leaf);
+
+        tree.cutBranch(leaf);
+
+        assertThat(tree.hasVertex(leaf.getName())).isFalse();
+        assertThat(frozen.hasVertex(leaf.getName())).isTrue();
+        assertThat(frozen.parentVertexOf(leaf)).isSameAs(parent);
+        assertThat(frozen.childVerticesOf(parent)).contains(leaf);
+    }
+}
@@ -1,5 +1,7 @@
 package de.julielab.concepts.db.creators.mesh;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 
 import de.julielab.concepts.db.creators.mesh.components.Descriptor;
@@ -67,6 +69,52 @@ extends TestBase {
     	
 	}
 	
+	@Test
+	public void testFacetTableFollowsModifications() throws Exception {
+		Tree tree = new Tree("MeSH snippet");
+		DataImporter.fromOriginalMeshXml("src/test/resources/mesh2017_snippet.xml", tree, true);
+		FacetsProvider facets = new FacetsProvider(tree);
+		assertFacets(tree, facets);
+
+		// move a branch from one facet into another
+		List<TreeVertex> facetVertices = tree.childVerticesOf(tree.getRootVertex());
+		assertTrue("The snippet should have at least two facets", facetVertices.size() > 1);
+		TreeVertex sourceFacet = null;
+		for (TreeVertex facetVertex : facetVertices) {
+			if (sourceFacet == null && !tree.childVerticesOf(facetVertex).isEmpty())
+				sourceFacet = facetVertex;
+		}
+		TreeVertex targetFacet = facetVertices.get(facetVertices.get(0) == sourceFacet ? 1 : 0);
+		TreeVertex branch = tree.childVerticesOf(sourceFacet).get(0);
+		assertEquals(sourceFacet.getName(), facets.getFacet(branch));
+		int modificationCount = tree.getModificationCount();
+		assertTrue(tree.moveBranch(branch, targetFacet));
+		assertTrue(tree.getModificationCount() != modificationCount);
+		assertEquals(targetFacet.getName(), facets.getFacet(branch));
+		assertFacets(tree, facets);
+
+		// the facet names are the names of the facet vertices
+		modificationCount = tree.getModificationCount();
+		assertTrue(tree.renameVertex(targetFacet, "renamed facet"));
+		assertTrue(tree.getModificationCount() != modificationCount);
+		assertEquals("renamed facet", facets.getFacet(branch));
+		assertFacets(tree, facets);
+	}
+
+	/**
+	 * Checks the facet of each vertex of <code>tree</code> against the child of the root vertex it descends from.
+	 */
+	private void assertFacets(Tree tree, FacetsProvider facets) {
+		for (TreeVertex v : tree.vertexSet()) {
+			TreeVertex facetVertex = null;
+			for (TreeVertex u = v; !tree.isRoot(u); u = tree.parentVertexOf(u)) {
+				facetVertex = u;
+			}
+			String expectedFacet = facetVertex != null ? facetVertex.getName() : null;
+			assertEquals("Facet of " + v.getName(), expectedFacet, facets.getFacet(v));
+		}
+	}
+
 	private boolean testDescriptorFacet (String[] facetNames, String dUi, Tree tree, FacetsProvider facets) {
 		Descriptor desc = tree.getDescriptorByUi(dUi);
 
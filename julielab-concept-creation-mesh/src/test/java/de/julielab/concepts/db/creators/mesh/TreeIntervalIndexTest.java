@@ -0,0 +1,100 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+import de.julielab.concepts.db.creators.mesh.exchange.DataImporter;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeIntervalIndexTest {
+    private static final String MESH_SNIPPET = "src/test/resources/mesh2017_snippet.xml";
+
+    @Test
+    public void testQueriesEqualParentWalk() throws Exception {
+        Tree tree = readSnippet();
+        TreeIntervalIndex index = new TreeIntervalIndex(tree);
+        for (TreeVertex a : tree.vertexSet()) {
+            int aNumber = index.numberOf(a);
+            assertThat(aNumber).isGreaterThanOrEqualTo(0);
+            assertThat(index.vertexOf(aNumber)).isSameAs(a);
+            List<TreeVertex> aAncestors = ancestorsOf(tree, a);
+            assertThat(index.depthOf(aNumber)).isEqualTo(aAncestors.size() - 1);
+            TreeVertex rootChild = aAncestors.size() > 1 ? aAncestors.get(aAncestors.size() - 2) : null;
+            assertThat(index.rootChildAncestorOf(aNumber)).isEqualTo(rootChild != null ? index.numberOf(rootChild) : -1);
+            for (TreeVertex b : tree.vertexSet()) {
+                int bNumber = index.numberOf(b);
+                List<TreeVertex> expectedPath = walkPath(tree, a, b);
+                assertThat(index.isAncestor(aNumber, bNumber)).as(a + " ancestor of " + b).isEqualTo(a != b && ancestorsOf(tree, b).contains(a));
+                assertThat(index.distance(aNumber, bNumber)).as("distance " + a + " " + b).isEqualTo(expectedPath.size() - 1);
+                assertThat(index.path(aNumber, bNumber)).as("path " + a + " " + b).containsExactlyElementsOf(expectedPath);
+                if (!tree.isRoot(b))
+                    assertThat(tree.isAnchestorVertex(a.getName(), b)).isEqualTo(a != b && ancestorsOf(tree, b).contains(a));
+            }
+        }
+    }
+
+    @Test
+    public void testPathThroughRoot() throws Exception {
+        Tree tree = readSnippet();
+        Descriptor anatomy = tree.getDescriptorByVertex(tree.getVertex("A01.378.610"));
+        Descriptor organism = tree.getDescriptorByVertex(tree.getVertex("B02"));
+        Descriptor anatomyFacet = tree.getDescriptorByVertex(tree.getVertex("A"));
+        Descriptor organismFacet = tree.getDescriptorByVertex(tree.getVertex("B"));
+
+        // The lowest common ancestor of vertices in different facets is the root vertex, so the root descriptor is
+        // on the path.
+        List<Descriptor> path = tree.getShortestDescriptorPath(anatomy, organism);
+        assertThat(path).containsExactly(anatomy, tree.getDescriptorByVertex(tree.getVertex("A01.378")),
+                tree.getDescriptorByVertex(tree.getVertex("A01")), anatomyFacet, tree.getRootDesc(), organismFacet, organism);
+        assertThat(tree.getShortestDescriptorPath(anatomyFacet, tree.getRootDesc())).containsExactly(anatomyFacet, tree.getRootDesc());
+        assertThat(tree.getShortestDescriptorPath(anatomy, anatomy)).isEmpty();
+
+        TreeIntervalIndex index = new TreeIntervalIndex(tree);
+        int root = index.numberOf(tree.getRootVertex());
+        assertThat(index.path(root, root)).containsExactly(tree.getRootVertex());
+        assertThat(index.rootChildAncestorOf(root)).isEqualTo(-1);
+
+        assertThat(tree.getDescriptorRootWithLowestHeight(tree.getRootDesc())).isNull();
+        assertThat(tree.getDescriptorRootWithLowestHeight(anatomyFacet)).isSameAs(anatomyFacet);
+        assertThat(tree.getDescriptorRootWithLowestHeight(anatomy)).isSameAs(anatomyFacet);
+        assertThat(tree.getDescriptorRootWithLowestHeight(organism)).isSameAs(organismFacet);
+    }
+
+    private Tree readSnippet() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        return tree;
+    }
+
+    /**
+     * @return <code>v</code> and its ancestors up to the root vertex, found by following the parents.
+     */
+    private List<TreeVertex> ancestorsOf(Tree tree, TreeVertex v) {
+        List<TreeVertex> ancestors = new ArrayList<>();
+        for (TreeVertex cur = v; cur != null; cur = tree.isRoot(cur) ? null : tree.parentVertexOf(cur))
+            ancestors.add(cur);
+        return ancestors;
+    }
+
+    private List<TreeVertex> walkPath(Tree tree, TreeVertex a, TreeVertex b) {
+        List<TreeVertex> aAncestors = ancestorsOf(tree, a);
+        List<TreeVertex> bAncestors = ancestorsOf(tree, b);
+        TreeVertex lca = null;
+        for (TreeVertex ancestor : aAncestors) {
+            if (bAncestors.contains(ancestor)) {
+                lca = ancestor;
+                break;
+            }
+        }
+        List<TreeVertex> path = new ArrayList<>(aAncestors.subList(0, aAncestors.indexOf(lca) + 1));
+        List<TreeVertex> down = new ArrayList<>(bAncestors.subList(0, bAncestors.indexOf(lca)));
+        Collections.reverse(down);
+        path.addAll(down);
+        return path;
+    }
+}
@@ -0,0 +1,146 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+import de.julielab.concepts.db.creators.mesh.exchange.DataImporter;
+import de.julielab.concepts.db.creators.mesh.modifications.DescDeletions;
+import de.julielab.concepts.db.creators.mesh.modifications.VertexAdditions;
+import de.julielab.concepts.db.creators.mesh.modifications.VertexDeletions;
+import de.julielab.concepts.db.creators.mesh.modifications.VertexMovings;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeModificatorTest {
+    private static final String MESH_SNIPPET = "src/test/resources/mesh2017_snippet.xml";
+
+    @Test
+    public void testBatchedEqualsOneAtATime() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            Tree batched = readSnippet();
+            Tree oneAtATime = readSnippet();
+            TreeModificator batchedModificator = createModifications(batched, seed);
+            TreeModificator oneAtATimeModificator = createModifications(oneAtATime, seed);
+
+            assertThat(batchedModificator.applyAll()).isTrue();
+            // the order of applyAll(), but each modification is applied with immediate height maintenance
+            oneAtATimeModificator.getDescRenamings().apply(oneAtATime);
+            oneAtATimeModificator.getDescRelabellings().apply(oneAtATime);
+            oneAtATimeModificator.getDescAdditions().apply(oneAtATime);
+            oneAtATimeModificator.getVertexAdditions().apply(oneAtATime);
+            oneAtATimeModificator.getVertexMovings().apply(oneAtATime);
+            oneAtATimeModificator.getVertexDeletions().apply(oneAtATime);
+            oneAtATimeModificator.getDescDeletions().apply(oneAtATime);
+            oneAtATimeModificator.getVertexRenamings().apply(oneAtATime);
+
+            assertThat(batched.isInBatch()).isFalse();
+            assertThat(describe(batched)).isEqualTo(describe(oneAtATime));
+            assertThat(batched.verifyIntegrity()).isTrue();
+        }
+    }
+
+    @Test
+    public void testVerifyDescDeletions() throws Exception {
+        Tree tree = readSnippet();
+        TreeModificator modificator = new TreeModificator(tree, "deletions");
+        DescDeletions deletions = new DescDeletions();
+        deletions.add("D001829");
+        modificator.putModification(deletions);
+        assertThat(modificator.verify()).isTrue();
+
+        deletions.add("D999999");
+        assertThat(modificator.verify()).isFalse();
+    }
+
+    @Test
+    public void testInvalidModificationsAreNotApplied() throws Exception {
+        Tree tree = readSnippet();
+        Map<String, String> before = describe(tree);
+        TreeModificator modificator = new TreeModificator(tree, "invalid");
+        TreeVertex vertex = tree.vertexSet().stream().filter(v -> !tree.isRoot(tree.getDescriptorByVertex(v))).findAny().get();
+        VertexAdditions additions = new VertexAdditions();
+        additions.put("added", vertex.getName(), vertex.getDescUi());
+        modificator.putModification(additions);
+        // the valid addition is not applied either because the deletion refers to a vertex that doesn't exist
+        VertexDeletions deletions = new VertexDeletions();
+        deletions.put("nonexistent", false);
+        modificator.putModification(deletions);
+
+        assertThat(modificator.applyAll()).isFalse();
+        assertThat(tree.getVertex("added")).isNull();
+        assertThat(describe(tree)).isEqualTo(before);
+    }
+
+    private Tree readSnippet() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        // cache the heights so that stale heights after the modifications would be noticed
+        for (TreeVertex v : tree.vertexSet())
+            tree.heightOf(v);
+        return tree;
+    }
+
+    /**
+     * Grows the snippet tree by vertex additions and then moves and deletes vertices at random.
+     */
+    private TreeModificator createModifications(Tree tree, long seed) {
+        Random random = new Random(seed);
+        TreeModificator modificator = new TreeModificator(tree, "random modifications " + seed);
+        List<String> descUis = new ArrayList<>();
+        for (Descriptor desc : tree.getAllDescriptors())
+            descUis.add(desc.getUI());
+        descUis.sort(Comparator.naturalOrder());
+        List<String> vertexNames = new ArrayList<>();
+        for (TreeVertex v : tree.vertexSet()) {
+            if (!tree.isRoot(tree.getDescriptorByVertex(v)))
+                vertexNames.add(v.getName());
+        }
+        vertexNames.sort(Comparator.naturalOrder());
+
+        VertexAdditions additions = new VertexAdditions();
+        List<String> parentNames = new ArrayList<>(vertexNames);
+        for (int i = 0; i < 60; i++) {
+            String vertexName = "added" + i;
+            additions.put(vertexName, parentNames.get(random.nextInt(parentNames.size())), descUis.get(random.nextInt(descUis.size())));
+            parentNames.add(vertexName);
+        }
+        modificator.putModification(additions);
+
+        Map<String, String> parents = new TreeMap<>();
+        for (String vertexName : vertexNames)
+            parents.put(vertexName, tree.parentVertexOf(tree.getVertex(vertexName)).getName());
+        for (int i = 0; i < 60; i++)
+            parents.put("added" + i, additions.getParentVertexName("added" + i));
+
+        VertexMovings movings = new VertexMovings();
+        for (int i = 0; i < 40; i++) {
+            String vertexName = parentNames.get(random.nextInt(parentNames.size()));
+            String newParentName = parentNames.get(random.nextInt(parentNames.size()));
+            String descUi = vertexName.startsWith("added") ? additions.getDescUi(vertexName) : tree.getVertex(vertexName).getDescUi();
+            movings.put(vertexName, parents.get(vertexName), newParentName, descUi, descUi);
+        }
+        modificator.putModification(movings);
+
+        VertexDeletions deletions = new VertexDeletions();
+        for (int i = 0; i < 5; i++)
+            deletions.put("added" + random.nextInt(60), random.nextBoolean());
+        modificator.putModification(deletions);
+        return modificator;
+    }
+
+    private Map<String, String> describe(Tree tree) {
+        Map<String, String> vertices = new TreeMap<>();
+        for (TreeVertex v : tree.vertexSet()) {
+            TreeVertex parent = tree.parentVertexOf(v);
+            vertices.put(v.getName(), (parent != null ? parent.getName() : null) + " " + tree.heightOf(v) + " " + v.getDescUi() + " " + v.getPartialTreeNumber());
+        }
+        return vertices;
+    }
+}
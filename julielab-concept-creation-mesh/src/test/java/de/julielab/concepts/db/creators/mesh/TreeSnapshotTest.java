@@ -0,0 +1,101 @@
+package de.julielab.concepts.db.creators.mesh;
+
+import de.julielab.concepts.db.creators.mesh.components.Concept;
+import de.julielab.concepts.db.creators.mesh.components.Descriptor;
+import de.julielab.concepts.db.creators.mesh.components.Term;
+import de.julielab.concepts.db.creators.mesh.components.TreeVertex;
+import de.julielab.concepts.db.creators.mesh.exchange.DataImporter;
+import de.julielab.concepts.db.creators.mesh.exchange.TreeSnapshot;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeSnapshotTest {
+    private static final String MESH_SNIPPET = "src/test/resources/mesh2017_snippet.xml";
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        List<Descriptor> descriptors = DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        Map<Descriptor, String> desc2File = new HashMap<>();
+        descriptors.forEach(d -> desc2File.put(d, MESH_SNIPPET));
+        String key = String.valueOf(TreeSnapshot.checksum(new File(MESH_SNIPPET)));
+
+        Path snapshotFile = Files.createTempFile("meshTreeSnapshot", ".bin");
+        try {
+            TreeSnapshot.write(tree, desc2File, key, snapshotFile);
+            Map<Descriptor, String> restoredDesc2File = new HashMap<>();
+            Tree restored = TreeSnapshot.read(snapshotFile, key, restoredDesc2File);
+
+            assertThat(restored).isNotNull();
+            assertThat(restored.getName()).isEqualTo(tree.getName());
+            assertThat(describe(restored, restoredDesc2File)).containsExactlyElementsOf(describe(tree, desc2File));
+            assertThat(restored.verifyIntegrity()).isTrue();
+
+            assertThat(TreeSnapshot.read(snapshotFile, key + "x", null)).isNull();
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void testReadCorrupt() throws Exception {
+        Tree tree = new Tree("Concepts Tree");
+        DataImporter.fromOriginalMeshXml(MESH_SNIPPET, tree, true);
+        String key = "key";
+
+        Path snapshotFile = Files.createTempFile("meshTreeSnapshot", ".bin");
+        try {
+            TreeSnapshot.write(tree, null, key, snapshotFile);
+            byte[] snapshot = Files.readAllBytes(snapshotFile);
+            // magic, version, key length and key are followed by the number of strings
+            int stringCountPosition = 12 + key.length();
+            for (int corruptCount : new int[]{-1, Integer.MAX_VALUE, snapshot.length}) {
+                byte[] corrupt = snapshot.clone();
+                ByteBuffer.wrap(corrupt).putInt(stringCountPosition, corruptCount);
+                Files.write(snapshotFile, corrupt);
+                assertThat(TreeSnapshot.read(snapshotFile, key, null)).isNull();
+            }
+            // the first string length
+            byte[] corrupt = snapshot.clone();
+            ByteBuffer.wrap(corrupt).putInt(stringCountPosition + 4, -7);
+            Files.write(snapshotFile, corrupt);
+            assertThat(TreeSnapshot.read(snapshotFile, key, null)).isNull();
+
+            Files.write(snapshotFile, Arrays.copyOf(snapshot, snapshot.length / 2));
+            assertThat(TreeSnapshot.read(snapshotFile, key, null)).isNull();
+
+            Files.write(snapshotFile, snapshot);
+            assertThat(TreeSnapshot.read(snapshotFile, key, null)).isNotNull();
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    private List<String> describe(Tree tree, Map<Descriptor, String> desc2File) {
+        List<String> lines = new ArrayList<>();
+        for (Descriptor desc : tree.getAllDescriptors()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(desc.getUI()).append(" ").append(desc.getName()).append(" ").append(desc.getScopeNote()).append(" ").append(desc.isSemedicoFacet()).append(" ").append(desc2File.get(desc));
+            for (Concept c : desc.getConcepts()) {
+                sb.append(" concept ").append(c.isPreferred());
+                for (Term t : c.getTerms())
+                    sb.append(" term ").append(t.getName()).append(" ").append(t.getID()).append(" ").append(t.isPreferred());
+            }
+            for (TreeVertex v : desc.getTreeVertices())
+                sb.append(" vertex ").append(v.getName()).append(" ").append(v.getPartialTreeNumber()).append(" ").append(tree.parentVertexOf(v) != null ? tree.parentVertexOf(v).getName() : null);
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+}
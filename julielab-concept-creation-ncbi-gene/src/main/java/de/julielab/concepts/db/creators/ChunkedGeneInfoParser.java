@@ -0,0 +1,156 @@
+package de.julielab.concepts.db.creators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Parses an uncompressed file in the <tt>gene_info</tt> format on multiple threads. The file is split into chunks of
+ * complete lines which are parsed on a fork-join pool. The parsed chunks are delivered in the order of the file, thus
+ * the result is the same as for sequential parsing.
+ * </p>
+ * <p>
+ * Processing steps that do not depend on the order of the records can be applied within the chunks and are
+ * parallelized as well. The returned stream itself is sequential so that it can be consumed by iterators. Only a
+ * bounded number of chunks is parsed ahead of the consumer.
+ * </p>
+ */
+public class ChunkedGeneInfoParser {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+    private final Path file;
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * @param file        An uncompressed file in gene_info format.
+     * @param parallelism The number of threads to parse with.
+     */
+    public ChunkedGeneInfoParser(Path file, int parallelism) {
+        this(file, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param file        An uncompressed file in gene_info format.
+     * @param parallelism The number of threads to parse with.
+     * @param chunkSize   The approximate number of bytes per chunk. Chunks are extended to the next line break.
+     */
+    public ChunkedGeneInfoParser(Path file, int parallelism, int chunkSize) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1 but was " + parallelism + ".");
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("The chunk size must be at least 1 but was " + chunkSize + ".");
+        this.file = file;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the converted records of the file in file order.
+     *
+     * @param converter   Converts a record into an element. Called concurrently for records of different chunks.
+     * @param chunkStages Further processing applied to the elements of each chunk. Applied concurrently to different
+     *                    chunks.
+     * @param <T>         The element type.
+     * @return A sequential stream of the processed elements. Closing the stream stops the parsing threads.
+     * @throws IOException If the file cannot be opened.
+     */
+    public <T> Stream<T> parse(Function<GeneInfoRecord, T> converter, UnaryOperator<Stream<T>> chunkStages) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Iterator<List<T>> chunkIterator = new Iterator<>() {
+            private final Deque<ForkJoinTask<List<T>>> pendingChunks = new ArrayDeque<>();
+            private final long fileSize = channel.size();
+            private long nextChunkStart;
+
+            private void submitChunks() {
+                try {
+                    while (pendingChunks.size() < 2 * parallelism && nextChunkStart < fileSize) {
+                        long chunkStart = nextChunkStart;
+                        long chunkEnd = findChunkEnd(channel, Math.min(chunkStart + chunkSize, fileSize) - 1, fileSize);
+                        nextChunkStart = chunkEnd;
+                        pendingChunks.add(pool.submit(() -> parseChunk(channel, chunkStart, chunkEnd, converter, chunkStages)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                submitChunks();
+                if (pendingChunks.isEmpty())
+                    close(channel, pool);
+                return !pendingChunks.isEmpty();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return pendingChunks.poll().join();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunkIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(List::stream)
+                .onClose(() -> close(channel, pool));
+    }
+
+    private static void close(FileChannel channel, ForkJoinPool pool) {
+        pool.shutdownNow();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The offset after the first line break at or after <tt>from</tt>, or <tt>fileSize</tt>.
+     */
+    private static long findChunkEnd(FileChannel channel, long from, long fileSize) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(1 << 12);
+        long position = from;
+        while (position < fileSize) {
+            bb.clear();
+            int read = channel.read(bb, position);
+            if (read < 0)
+                break;
+            for (int i = 0; i < read; i++) {
+                if (bb.get(i) == '\n')
+                    return position + i + 1;
+            }
+            position += read;
+        }
+        return fileSize;
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end, Function<GeneInfoRecord, T> converter, UnaryOperator<Stream<T>> chunkStages) throws IOException {
+        byte[] data = new byte[Math.toIntExact(end - start)];
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, start + bb.position()) < 0)
+                throw new IOException("Unexpected end of file at offset " + (start + bb.position()) + ".");
+        }
+        GeneInfoReader reader = new GeneInfoReader(data, data.length);
+        List<T> elements = new ArrayList<>();
+        GeneInfoRecord record;
+        while ((record = reader.next()) != null)
+            elements.add(converter.apply(record));
+        List<T> processed = new ArrayList<>(elements.size());
+        try (Stream<T> processedStream = chunkStages.apply(elements.stream())) {
+            processedStream.forEachOrdered(processed::add);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,79 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.Arrays;
+
+/**
+ * A union-find structure over the dense elements <tt>0..size()-1</tt>. Uses union by size and path halving so that a
+ * sequence of operations runs in practically linear time. No recursion is involved, thus arbitrarily large sets do
+ * not exhaust the stack.
+ */
+public class DisjointSets {
+    private int[] parents;
+    private int[] sizes;
+    private int size;
+
+    public DisjointSets() {
+        this(16);
+    }
+
+    public DisjointSets(int expectedSize) {
+        parents = new int[Math.max(expectedSize, 1)];
+        sizes = new int[parents.length];
+    }
+
+    /**
+     * Adds a new singleton set.
+     *
+     * @return The element of the new set.
+     */
+    public int add() {
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            sizes = Arrays.copyOf(sizes, size * 2);
+        }
+        parents[size] = size;
+        sizes[size] = 1;
+        return size++;
+    }
+
+    /**
+     * @param element An element.
+     * @return The representative element of the set containing <tt>element</tt>.
+     */
+    public int find(int element) {
+        if (element < 0 || element >= size)
+            throw new IndexOutOfBoundsException("Element " + element + " is not in the range [0, " + size + ").");
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets of the two elements.
+     *
+     * @return The representative element of the merged set.
+     */
+    public int union(int element1, int element2) {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2)
+            return root1;
+        if (sizes[root1] < sizes[root2]) {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        parents[root2] = root1;
+        sizes[root1] += sizes[root2];
+        return root1;
+    }
+
+    /**
+     * @return The number of elements.
+     */
+    public int size() {
+        return size;
+    }
+}
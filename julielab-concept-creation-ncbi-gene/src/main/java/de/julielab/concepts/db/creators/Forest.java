@@ -4,10 +4,14 @@ import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
 import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class Forest {
     private Map<ConceptCoordinates, Node> id2node = new HashMap<>();
+    /**
+     * The root sets computed by {@link #getRoots(ConceptCoordinates)} for all nodes visited so far. Cleared when a
+     * parent is added to any node of this forest. Nodes on a common path to the same roots share the same set.
+     */
+    private Map<Node, Set<Node>> rootCache = new HashMap<>();
 
     /**
      * Adds a new node with the given ID if there is not yet a node with that ID.
@@ -19,6 +23,7 @@ public class Forest {
         Node n = id2node.get(id);
         if (n == null) {
             n = new Node(id);
+            n.setForest(this);
             id2node.put(id, n);
         }
         return n;
@@ -49,13 +54,117 @@ public class Forest {
         return n;
     }
 
+    /**
+     * Called by the nodes of this forest when they get a new parent.
+     */
+    void invalidateRoots() {
+        if (!rootCache.isEmpty())
+            rootCache.clear();
+    }
+
+    /**
+     * Returns the nodes without parents that are reachable from the node with the given ID. The result is cached
+     * until the next change of the forest structure. The parents are visited iteratively, thus arbitrarily deep
+     * hierarchies are supported.
+     *
+     * @param id The ID of the node to get the roots for.
+     * @return An unmodifiable set of the roots of the node, the node itself if it has no parents.
+     */
     public Set<Node> getRoots(ConceptCoordinates id) {
         Node n = id2node.get(id);
         if (n == null)
             return Collections.emptySet();
-        if (n.getParents() == null || n.getParents().isEmpty())
-            return Set.of(n);
-        return n.getParents().stream().map(Node::getId).map(this::getRoots).flatMap(Collection::stream).collect(Collectors.toSet());
+        Set<Node> roots = rootCache.get(n);
+        return roots != null ? roots : computeRoots(n);
+    }
+
+    private Set<Node> computeRoots(Node start) {
+        Deque<Node> stack = new ArrayDeque<>();
+        // Nodes whose parents are currently being resolved. Parents that are in progress lie on a cycle.
+        Set<Node> inProgress = new HashSet<>();
+        // Nodes on a cycle or with an ancestor on a cycle. Their roots would depend on where the walk entered the
+        // cycle, thus they are not cached.
+        Set<Node> cyclic = new HashSet<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node n = stack.peek();
+            if (rootCache.containsKey(n) || cyclic.contains(n)) {
+                stack.pop();
+            } else if (n.getNumParents() == 0) {
+                rootCache.put(n, Set.of(n));
+                stack.pop();
+            } else if (inProgress.add(n)) {
+                for (int i = 0; i < n.getNumParents(); i++) {
+                    Node parent = n.getParent(i);
+                    if (!rootCache.containsKey(parent) && !cyclic.contains(parent) && !inProgress.contains(parent))
+                        stack.push(parent);
+                }
+            } else {
+                // all parents have been resolved
+                if (allParentRootsCached(n))
+                    rootCache.put(n, unionOfParentRoots(n));
+                else
+                    cyclic.add(n);
+                inProgress.remove(n);
+                stack.pop();
+            }
+        }
+        Set<Node> roots = rootCache.get(start);
+        if (roots == null) {
+            roots = reachableRoots(start);
+            rootCache.put(start, roots);
+        }
+        return roots;
+    }
+
+    private boolean allParentRootsCached(Node n) {
+        for (int i = 0; i < n.getNumParents(); i++) {
+            if (!rootCache.containsKey(n.getParent(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collects the roots of <tt>start</tt> by visiting every ancestor once. Used for nodes with a cycle among their
+     * ancestors.
+     */
+    private Set<Node> reachableRoots(Node start) {
+        Set<Node> roots = new HashSet<>();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            if (n.getNumParents() == 0)
+                roots.add(n);
+            for (int i = 0; i < n.getNumParents(); i++) {
+                if (visited.add(n.getParent(i)))
+                    stack.push(n.getParent(i));
+            }
+        }
+        return Collections.unmodifiableSet(roots);
+    }
+
+    private Set<Node> unionOfParentRoots(Node n) {
+        Set<Node> union = null;
+        Set<Node> shared = null;
+        for (int i = 0; i < n.getNumParents(); i++) {
+            Set<Node> parentRoots = rootCache.get(n.getParent(i));
+            if (parentRoots == null || parentRoots == shared)
+                continue;
+            if (shared == null && union == null) {
+                shared = parentRoots;
+            } else {
+                if (union == null)
+                    union = new HashSet<>(shared);
+                union.addAll(parentRoots);
+            }
+        }
+        if (union != null)
+            return Collections.unmodifiableSet(union);
+        return shared != null ? shared : Collections.emptySet();
     }
 
     public Optional<Node> getRoot(ConceptCoordinates geneId) {
@@ -0,0 +1,90 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Maps NCBI Gene IDs to <tt>int</tt> values so that they can be stored in primitive collections. Numerical IDs - which
+ * are all official NCBI Gene IDs - are represented by their value. Other IDs, e.g. in synthetic test data, are
+ * assigned negative codes in the order they are encountered.
+ * </p>
+ * <p>
+ * The codec is thread-safe. Numerical IDs are converted without locking.
+ * </p>
+ */
+public class GeneIdCodec {
+    /**
+     * Returned by {@link #lookup(String)} for unknown non-numerical IDs.
+     */
+    public static final int NO_ID = Integer.MIN_VALUE;
+    private final Map<String, Integer> nonNumericCodes = new HashMap<>();
+    private final List<String> nonNumericIds = new ArrayList<>();
+
+    /**
+     * @return The value of <tt>id</tt> if it is a non-negative <tt>int</tt> number without a sign or leading zeros,
+     * -1 otherwise.
+     */
+    public static int parseNumeric(CharSequence id) {
+        int length = id.length();
+        if (length == 0 || length > 10 || (length > 1 && id.charAt(0) == '0'))
+            return -1;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    /**
+     * Returns the code of <tt>id</tt>. Unknown non-numerical IDs are assigned a new code.
+     */
+    public int encode(String id) {
+        int numeric = parseNumeric(id);
+        return numeric >= 0 ? numeric : encodeNonNumeric(id);
+    }
+
+    private synchronized int encodeNonNumeric(String id) {
+        Integer code = nonNumericCodes.get(id);
+        if (code == null) {
+            nonNumericIds.add(id);
+            code = -nonNumericIds.size();
+            nonNumericCodes.put(id, code);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of <tt>id</tt> or {@link #NO_ID} if <tt>id</tt> is a non-numerical ID that has never been
+     * encoded.
+     */
+    public int lookup(String id) {
+        int numeric = parseNumeric(id);
+        return numeric >= 0 ? numeric : lookupNonNumeric(id);
+    }
+
+    private synchronized int lookupNonNumeric(String id) {
+        return nonNumericCodes.getOrDefault(id, NO_ID);
+    }
+
+    public String decode(int code) {
+        return code >= 0 ? String.valueOf(code) : decodeNonNumeric(code);
+    }
+
+    private synchronized String decodeNonNumeric(int code) {
+        return nonNumericIds.get(-code - 1);
+    }
+
+    /**
+     * @return The non-numerical IDs in the order of their codes, i.e. the ID with code <tt>-i-1</tt> at index
+     * <tt>i</tt>.
+     */
+    synchronized List<String> getNonNumericIds() {
+        return new ArrayList<>(nonNumericIds);
+    }
+}
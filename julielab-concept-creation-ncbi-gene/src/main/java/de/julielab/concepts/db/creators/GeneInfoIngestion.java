@@ -0,0 +1,222 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.java.utilities.FileUtilities;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static de.julielab.concepts.util.CacheIO.readCount;
+import static de.julielab.concepts.util.CacheIO.readString;
+import static de.julielab.concepts.util.CacheIO.writeString;
+
+/**
+ * <p>
+ * Reads the <tt>gene_info</tt> file in a single pass. While reading, the IDs of the genes of the selected organisms are
+ * collected, the dbXrefs that will become concepts of their own are counted and the records of the selected organisms
+ * are copied into a record buffer file in the cache directory. The concept creation then reads the record buffer
+ * instead of <tt>gene_info</tt>. If no organisms are selected, the buffer would just be a copy of <tt>gene_info</tt>;
+ * then no buffer is written and the concept creation reads <tt>gene_info</tt> itself.
+ * </p>
+ * <p>
+ * The results are cached. As long as <tt>gene_info</tt> and the organism selection do not change, repeated imports do
+ * not read <tt>gene_info</tt> at all.
+ * </p>
+ * <p>
+ * When an uncompressed <tt>gene_info</tt> is read completely, a {@link GeneInfoTaxIndex} is built and cached as well.
+ * If only the organism selection changes, just the records of the selected organisms are read using that index.
+ * </p>
+ */
+public class GeneInfoIngestion {
+    private static final Logger log = LoggerFactory.getLogger(GeneInfoIngestion.class);
+    private static final String RECORDS_FILE = "gene_info.records";
+    private static final String GENE_IDS_FILE = "totalGeneIds.bin";
+    private static final String TAX_INDEX_FILE = "gene_info.taxindex";
+    /**
+     * The cache file of earlier versions, replaced by {@link #GENE_IDS_FILE}.
+     */
+    private static final String LEGACY_GENE_IDS_FILE = "totalGeneIds.ser.gz";
+    private static final int MAGIC = 0x47494944;
+    private static final int VERSION = 1;
+    private final IntSet geneIds;
+    private final GeneIdCodec geneIdCodec;
+    private final int dbXrefCount;
+    private final Path records;
+
+    private GeneInfoIngestion(IntSet geneIds, GeneIdCodec geneIdCodec, int dbXrefCount, Path records) {
+        this.geneIds = geneIds;
+        this.geneIdCodec = geneIdCodec;
+        this.dbXrefCount = dbXrefCount;
+        this.records = records;
+    }
+
+    /**
+     * Returns the gene_info data for the given organisms, either from the cache or by reading <tt>geneInfo</tt>.
+     *
+     * @param geneInfo    The gene_info file, possibly gzipped.
+     * @param organismSet The taxonomy IDs of the organisms to import. An empty set selects all organisms.
+     * @param cacheDir    The directory for the record buffer, the gene ID cache and the taxonomy index.
+     * @return The ingested gene_info data.
+     * @throws IOException If reading or writing fails.
+     */
+    public static GeneInfoIngestion ingest(File geneInfo, Set<String> organismSet, Path cacheDir) throws IOException {
+        Files.createDirectories(cacheDir);
+        Files.deleteIfExists(cacheDir.resolve(LEGACY_GENE_IDS_FILE));
+        boolean bufferRecords = !organismSet.isEmpty();
+        Path records = bufferRecords ? cacheDir.resolve(RECORDS_FILE) : geneInfo.toPath();
+        Path geneIdsCacheFile = cacheDir.resolve(GENE_IDS_FILE);
+        String cacheKey = getCacheKey(geneInfo, organismSet);
+        if (!bufferRecords)
+            Files.deleteIfExists(cacheDir.resolve(RECORDS_FILE));
+        if (Files.exists(records) && Files.exists(geneIdsCacheFile)) {
+            GeneInfoIngestion cached = readCache(geneIdsCacheFile, cacheKey, records);
+            if (cached != null)
+                return cached;
+            log.info("The gene_info cache at {} does not match gene_info file {} and the organism list. Reading gene_info file from scratch.", cacheDir, geneInfo);
+        }
+        FileUtils.deleteQuietly(geneIdsCacheFile.toFile());
+        IntHashSet geneIds = new IntHashSet(1 << 16);
+        GeneIdCodec geneIdCodec = new GeneIdCodec();
+        int dbXrefCount = 0;
+        Path tmpRecords = cacheDir.resolve(RECORDS_FILE + ".tmp");
+        if (bufferRecords)
+            log.info("Reading gene_info file {} and buffering the records of the selected organisms at {}", geneInfo, records);
+        else
+            log.info("Reading gene_info file {}", geneInfo);
+        TaxIdFilter taxIdFilter = new TaxIdFilter(organismSet);
+        Path taxIndexFile = cacheDir.resolve(TAX_INDEX_FILE);
+        GeneInfoTaxIndex taxIndex = organismSet.isEmpty() ? null : GeneInfoTaxIndex.load(taxIndexFile, geneInfo);
+        GeneInfoTaxIndex.Builder taxIndexBuilder = null;
+        InputStream geneInfoStream;
+        if (taxIndex != null) {
+            log.info("Reading only the {} bytes of the selected organisms from {} using the taxonomy index", taxIndex.getNumBytes(organismSet), geneInfo);
+            geneInfoStream = taxIndex.open(geneInfo, organismSet);
+        } else {
+            if (GeneInfoTaxIndex.isIndexable(geneInfo))
+                taxIndexBuilder = new GeneInfoTaxIndex.Builder();
+            geneInfoStream = FileUtilities.getInputStreamFromFile(geneInfo);
+        }
+        try (GeneInfoReader reader = new GeneInfoReader(geneInfoStream);
+             OutputStream os = bufferRecords ? new BufferedOutputStream(Files.newOutputStream(tmpRecords), 1 << 16) : OutputStream.nullOutputStream()) {
+            GeneInfoRecord record;
+            while ((record = reader.next()) != null) {
+                if (taxIndexBuilder != null)
+                    taxIndexBuilder.add(record, reader.getRecordOffset(), reader.getOffset());
+                if (!record.hasTaxId(taxIdFilter))
+                    continue;
+                int geneId = record.numericField(GeneInfoRecord.GENE_ID);
+                geneIds.add(geneId >= 0 ? geneId : geneIdCodec.encode(record.field(GeneInfoRecord.GENE_ID)));
+                // This list of dbXref items must correspond to the items actually read in createDbXRefMappings()
+                dbXrefCount += record.countValuesWithPrefix(GeneInfoRecord.DB_XREFS, NCBIGeneConceptCreator.IMPORTED_DBXREF_PREFIXES);
+                if (bufferRecords)
+                    record.writeTo(os);
+            }
+        }
+        if (bufferRecords)
+            Files.move(tmpRecords, records, StandardCopyOption.REPLACE_EXISTING);
+        if (taxIndexBuilder != null)
+            taxIndexBuilder.write(taxIndexFile, geneInfo);
+        log.info("Received {} gene IDs and {} dbXref IDs which will result in additional concepts for the ID mapping", geneIds.size(), dbXrefCount);
+        log.info("Caching geneId set read from {} at {}", geneInfo, geneIdsCacheFile);
+        writeCache(geneIdsCacheFile, cacheKey, geneIds, geneIdCodec, dbXrefCount);
+        return new GeneInfoIngestion(geneIds, geneIdCodec, dbXrefCount, records);
+    }
+
+    /**
+     * Writes the cache file. The gene IDs are stored as a sorted array of 4-byte integers at the end of the file so
+     * that they can be memory-mapped and searched in place.
+     */
+    private static void writeCache(Path geneIdsCacheFile, String cacheKey, IntHashSet geneIds, GeneIdCodec geneIdCodec, int dbXrefCount) throws IOException {
+        Path tmpFile = geneIdsCacheFile.resolveSibling(geneIdsCacheFile.getFileName() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            writeString(dos, cacheKey);
+            dos.writeInt(dbXrefCount);
+            List<String> nonNumericIds = geneIdCodec.getNonNumericIds();
+            dos.writeInt(nonNumericIds.size());
+            for (String id : nonNumericIds)
+                writeString(dos, id);
+            // align the ID array to 4 bytes
+            while (dos.size() % 4 != 0)
+                dos.writeByte(0);
+            int[] sortedIds = geneIds.toSortedArray();
+            dos.writeInt(sortedIds.length);
+            for (int id : sortedIds)
+                dos.writeInt(id);
+        }
+        Files.move(tmpFile, geneIdsCacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static GeneInfoIngestion readCache(Path geneIdsCacheFile, String cacheKey, Path records) {
+        log.info("Loading set of gene IDs in gene_info from cache at {}", geneIdsCacheFile);
+        try (FileChannel channel = FileChannel.open(geneIdsCacheFile, StandardOpenOption.READ)) {
+            MappedByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (bb.getInt() != MAGIC || bb.getInt() != VERSION || !cacheKey.equals(readString(bb)))
+                return null;
+            int dbXrefCount = bb.getInt();
+            GeneIdCodec geneIdCodec = new GeneIdCodec();
+            int numNonNumericIds = readCount(bb, 4);
+            for (int i = 0; i < numNonNumericIds; i++)
+                geneIdCodec.encode(readString(bb));
+            bb.position((bb.position() + 3) & ~3);
+            int numGeneIds = bb.getInt();
+            IntBuffer geneIdBuffer = bb.slice().asIntBuffer();
+            if (geneIdBuffer.limit() != numGeneIds)
+                return null;
+            log.info("Obtained {} gene IDs and {} dbXref IDs in the cache.", numGeneIds, dbXrefCount);
+            return new GeneInfoIngestion(new MappedSortedIntSet(geneIdBuffer), geneIdCodec, dbXrefCount, records);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Could not read the gene ID cache from {}. Perhaps the cache is corrupt.", geneIdsCacheFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * The cache is valid for a specific version of a specific gene_info file and a specific organism selection.
+     */
+    private static String getCacheKey(File geneInfo, Set<String> organismSet) {
+        return geneInfo.getAbsolutePath() + "|" + geneInfo.length() + "|" + geneInfo.lastModified() + "|" + String.join(",", new TreeSet<>(organismSet));
+    }
+
+    /**
+     * @return The IDs of the genes of the selected organisms, encoded by {@link #getGeneIdCodec()}.
+     */
+    public IntSet getGeneIds() {
+        return geneIds;
+    }
+
+    /**
+     * @return The codec for the gene IDs. Contains the codes of all non-numerical gene IDs of the selected organisms.
+     */
+    public GeneIdCodec getGeneIdCodec() {
+        return geneIdCodec;
+    }
+
+    /**
+     * @return The number of dbXrefs of the selected genes that are imported as concepts of their own.
+     */
+    public int getDbXrefCount() {
+        return dbXrefCount;
+    }
+
+    /**
+     * @return The file with the gene_info records of the selected organisms. The records have the gene_info format.
+     * If no organisms are selected, this is the original gene_info file which may be gzipped.
+     */
+    public Path getRecords() {
+        return records;
+    }
+}
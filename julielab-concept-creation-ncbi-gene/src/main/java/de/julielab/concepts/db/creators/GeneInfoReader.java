@@ -0,0 +1,132 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.java.utilities.FileUtilities;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a file in the <tt>gene_info</tt> format into a reusable byte buffer and presents them as
+ * {@link GeneInfoRecord}s. No objects are allocated per line. Comment lines are skipped.
+ */
+public class GeneInfoReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private final InputStream is;
+    private final GeneInfoRecord record = new GeneInfoRecord();
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private long recordOffset;
+    private boolean eof;
+
+    public GeneInfoReader(InputStream is) {
+        this.is = is;
+    }
+
+    /**
+     * Reads the lines in the first <tt>length</tt> bytes of <tt>data</tt>. The array is used as the buffer of this
+     * reader without copying.
+     *
+     * @param data   Data in gene_info format.
+     * @param length The number of bytes of <tt>data</tt> to read.
+     */
+    public GeneInfoReader(byte[] data, int length) {
+        this.is = null;
+        this.buffer = data;
+        this.limit = length;
+        this.eof = true;
+    }
+
+    /**
+     * @param geneInfo A file in gene_info format, possibly gzipped.
+     */
+    public GeneInfoReader(File geneInfo) throws IOException {
+        this(FileUtilities.getInputStreamFromFile(geneInfo));
+    }
+
+    /**
+     * Advances to the next record that is not a comment.
+     *
+     * @return The next record or <tt>null</tt> if the end of the input has been reached. The record is only valid
+     * until the next call.
+     * @throws IOException If reading fails.
+     */
+    public GeneInfoRecord next() throws IOException {
+        while (true) {
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0)
+                return null;
+            int lineStart = position;
+            position = lineEnd < limit ? lineEnd + 1 : lineEnd;
+            recordOffset = bufferOffset + lineStart;
+            int contentEnd = lineEnd > lineStart && buffer[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd == lineStart)
+                continue;
+            record.set(buffer, lineStart, contentEnd);
+            if (!record.isComment())
+                return record;
+        }
+    }
+
+    /**
+     * @return The position of the line break ending the line at {@link #position} or {@link #limit} if the last
+     * line is not terminated. -1 if there is no more line.
+     */
+    private int findLineEnd() throws IOException {
+        int searchFrom = position;
+        while (true) {
+            for (int i = searchFrom; i < limit; i++) {
+                if (buffer[i] == '\n')
+                    return i;
+            }
+            if (eof)
+                return position < limit ? limit : -1;
+            searchFrom = limit - position;
+            fill();
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer, grows the buffer for long lines and reads more input.
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            bufferOffset += position;
+            position = 0;
+            limit = remaining;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = is.read(buffer, limit, buffer.length - limit);
+        if (read < 0)
+            eof = true;
+        else
+            limit += read;
+    }
+
+    /**
+     * @return The byte offset of the line of the record last returned by {@link #next()}.
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * @return The byte offset of the next line, i.e. the end offset of the line last returned by {@link #next()}.
+     */
+    public long getOffset() {
+        return bufferOffset + position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (is != null)
+            is.close();
+    }
+}
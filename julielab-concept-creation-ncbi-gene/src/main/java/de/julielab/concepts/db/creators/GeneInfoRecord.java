@@ -0,0 +1,247 @@
+package de.julielab.concepts.db.creators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>
+ * An index-based view on a single line of the NCBI Gene <tt>gene_info</tt> file. The line is not copied; the record
+ * points into the byte buffer of a {@link GeneInfoReader} and is only valid until the reader advances.
+ * </p>
+ * <p>
+ * The columns are located lazily and only the requested fields are decoded into strings. The taxonomy ID is the first
+ * column, thus {@link #hasTaxId(TaxIdFilter)} can reject the records of unwanted organisms without looking at the rest
+ * of the line. Since all delimiters are ASCII characters, working on the UTF-8 encoded bytes is safe.
+ * </p>
+ * <p>
+ * The other tab-separated files of NCBI Gene, e.g. <tt>gene_orthologs</tt> and <tt>gene2go</tt>, can be read with this
+ * class as well, using their respective column indices.
+ * </p>
+ */
+public class GeneInfoRecord {
+    public static final int TAX_ID = 0;
+    public static final int GENE_ID = 1;
+    public static final int SYMBOL = 2;
+    public static final int SYNONYMS = 4;
+    public static final int DB_XREFS = 5;
+    public static final int DESCRIPTION = 8;
+    public static final int FULL_NAME = 11;
+    public static final int OTHER_DESIGNATIONS = 13;
+    private static final int MAX_COLUMNS = 16;
+    private final int[] fieldStarts = new int[MAX_COLUMNS];
+    private final int[] fieldEnds = new int[MAX_COLUMNS];
+    private byte[] buffer;
+    private int start;
+    private int end;
+    private int numFields = -1;
+
+    /**
+     * Creates a record for a single gene_info line given as string.
+     *
+     * @param line A line of gene_info without the line break.
+     * @return The record view on <tt>line</tt>.
+     */
+    public static GeneInfoRecord of(String line) {
+        GeneInfoRecord record = new GeneInfoRecord();
+        byte[] bytes = line.getBytes(UTF_8);
+        record.set(bytes, 0, bytes.length);
+        return record;
+    }
+
+    void set(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        this.numFields = -1;
+    }
+
+    public boolean isComment() {
+        return start < end && buffer[start] == '#';
+    }
+
+    /**
+     * Checks the taxonomy ID column without locating the other columns.
+     *
+     * @param filter The accepted taxonomy IDs.
+     * @return Whether the taxonomy ID of this record is accepted by <tt>filter</tt>.
+     */
+    public boolean hasTaxId(TaxIdFilter filter) {
+        if (filter.acceptsAll())
+            return true;
+        return filter.accepts(buffer, start, taxIdEnd());
+    }
+
+    /**
+     * Compares the taxonomy ID column without locating the other columns.
+     *
+     * @param taxId An ASCII taxonomy ID.
+     * @return Whether this record has the taxonomy ID <tt>taxId</tt>.
+     */
+    public boolean hasTaxId(String taxId) {
+        return taxIdEnd() - start == taxId.length() && startsWith(start, end, taxId);
+    }
+
+    /**
+     * Decodes the taxonomy ID column without locating the other columns.
+     *
+     * @return The taxonomy ID of this record.
+     */
+    public String taxId() {
+        return new String(buffer, start, taxIdEnd() - start, UTF_8);
+    }
+
+    private int taxIdEnd() {
+        int taxIdEnd = start;
+        while (taxIdEnd < end && buffer[taxIdEnd] != '\t')
+            ++taxIdEnd;
+        return taxIdEnd;
+    }
+
+    private void tokenize() {
+        if (numFields >= 0)
+            return;
+        numFields = 0;
+        int fieldStart = start;
+        for (int i = start; i < end && numFields < MAX_COLUMNS - 1; i++) {
+            if (buffer[i] == '\t') {
+                fieldStarts[numFields] = fieldStart;
+                fieldEnds[numFields++] = i;
+                fieldStart = i + 1;
+            }
+        }
+        fieldStarts[numFields] = fieldStart;
+        fieldEnds[numFields++] = end;
+    }
+
+    private void checkField(int field) {
+        tokenize();
+        if (field >= numFields)
+            throw new IllegalArgumentException("The gene_info record " + this + " does not have the required column " + (field + 1) + ".");
+    }
+
+    /**
+     * @param field The 0-based column index.
+     * @return The decoded column value.
+     */
+    public String field(int field) {
+        checkField(field);
+        return new String(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field], UTF_8);
+    }
+
+    /**
+     * @param field The 0-based column index.
+     * @param value An ASCII string.
+     * @return Whether the column equals <tt>value</tt>. The column is not decoded.
+     */
+    public boolean fieldEquals(int field, String value) {
+        checkField(field);
+        return fieldEnds[field] - fieldStarts[field] == value.length() && startsWith(fieldStarts[field], fieldEnds[field], value);
+    }
+
+    /**
+     * @param field  The 0-based column index.
+     * @param prefix An ASCII string.
+     * @return Whether the column starts with <tt>prefix</tt>. The column is not decoded.
+     */
+    public boolean fieldStartsWith(int field, String prefix) {
+        checkField(field);
+        return startsWith(fieldStarts[field], fieldEnds[field], prefix);
+    }
+
+    /**
+     * Parses a numerical column without decoding it.
+     *
+     * @param field The 0-based column index.
+     * @return The column value as defined by {@link GeneIdCodec#parseNumeric(CharSequence)}, -1 if the value is not a
+     * non-negative <tt>int</tt> number.
+     */
+    public int numericField(int field) {
+        checkField(field);
+        int fieldStart = fieldStarts[field];
+        int length = fieldEnds[field] - fieldStart;
+        if (length == 0 || length > 10 || (length > 1 && buffer[fieldStart] == '0'))
+            return -1;
+        long value = 0;
+        for (int i = fieldStart; i < fieldEnds[field]; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9')
+                return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    /**
+     * Passes the decoded values of a <tt>|</tt> separated column to <tt>consumer</tt>.
+     *
+     * @param field    The 0-based column index.
+     * @param consumer The receiver of the values.
+     */
+    public void forEachValue(int field, Consumer<String> consumer) {
+        checkField(field);
+        int valueStart = fieldStarts[field];
+        int fieldEnd = fieldEnds[field];
+        for (int i = valueStart; i <= fieldEnd; i++) {
+            if (i == fieldEnd || buffer[i] == '|') {
+                consumer.accept(new String(buffer, valueStart, i - valueStart, UTF_8));
+                valueStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Counts the values of a <tt>|</tt> separated column that start with one of the given ASCII prefixes. No values
+     * are decoded.
+     *
+     * @param field    The 0-based column index.
+     * @param prefixes The ASCII prefixes to look for.
+     * @return The number of values with one of the prefixes.
+     */
+    public int countValuesWithPrefix(int field, String... prefixes) {
+        checkField(field);
+        int count = 0;
+        int valueStart = fieldStarts[field];
+        int fieldEnd = fieldEnds[field];
+        for (int i = valueStart; i <= fieldEnd; i++) {
+            if (i == fieldEnd || buffer[i] == '|') {
+                for (String prefix : prefixes) {
+                    if (startsWith(valueStart, i, prefix)) {
+                        ++count;
+                        break;
+                    }
+                }
+                valueStart = i + 1;
+            }
+        }
+        return count;
+    }
+
+    private boolean startsWith(int from, int to, String prefix) {
+        if (to - from < prefix.length())
+            return false;
+        for (int j = 0; j < prefix.length(); j++) {
+            if (buffer[from + j] != prefix.charAt(j))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the record line including a trailing line break.
+     *
+     * @param os The output.
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        os.write(buffer, start, end - start);
+        os.write('\n');
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, start, end - start, UTF_8);
+    }
+}
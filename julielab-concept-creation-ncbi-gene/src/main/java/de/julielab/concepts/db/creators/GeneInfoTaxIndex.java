@@ -0,0 +1,259 @@
+package de.julielab.concepts.db.creators;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static de.julielab.concepts.util.CacheIO.readCount;
+import static de.julielab.concepts.util.CacheIO.readString;
+import static de.julielab.concepts.util.CacheIO.writeString;
+
+/**
+ * <p>
+ * An index from taxonomy IDs to the byte ranges of their records in an uncompressed <tt>gene_info</tt> file.
+ * </p>
+ * <p>
+ * The records in <tt>gene_info</tt> are grouped by taxonomy ID. Thus, the index has only few ranges per organism and
+ * allows to read the records of a small selection of organisms without scanning the whole file. The index is built
+ * while <tt>gene_info</tt> is read from beginning to end and is only valid for the exact file it was built from.
+ * Gzipped files cannot be indexed because they do not allow random access.
+ * </p>
+ */
+public class GeneInfoTaxIndex {
+    private static final Logger log = LoggerFactory.getLogger(GeneInfoTaxIndex.class);
+    private static final int MAGIC = 0x47495849;
+    private static final int VERSION = 1;
+    /**
+     * The maximum size of a single memory mapping when reading the indexed ranges.
+     */
+    private static final int MAX_MAPPING_SIZE = 1 << 30;
+    private final Map<String, long[]> taxId2Ranges;
+
+    private GeneInfoTaxIndex(Map<String, long[]> taxId2Ranges) {
+        this.taxId2Ranges = taxId2Ranges;
+    }
+
+    /**
+     * @param geneInfo The gene_info file.
+     * @return Whether <tt>geneInfo</tt> is read without decompression and can thus be indexed.
+     */
+    public static boolean isIndexable(File geneInfo) {
+        String name = geneInfo.getName().toLowerCase();
+        return !name.contains(".gz") && !name.contains(".gzip");
+    }
+
+    /**
+     * Loads the index from <tt>indexFile</tt> if it exists and has been built for the current version of
+     * <tt>geneInfo</tt>.
+     *
+     * @param indexFile The index file.
+     * @param geneInfo  The gene_info file the index should belong to.
+     * @return The index or <tt>null</tt> if there is no valid index.
+     */
+    public static GeneInfoTaxIndex load(Path indexFile, File geneInfo) {
+        if (!isIndexable(geneInfo) || !Files.exists(indexFile))
+            return null;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (bb.getInt() != MAGIC || bb.getInt() != VERSION || !getIndexKey(geneInfo).equals(readString(bb)))
+                return null;
+            // each organism has at least the lengths of its ID and its ranges
+            int numTaxIds = readCount(bb, 8);
+            Map<String, long[]> taxId2Ranges = new HashMap<>(numTaxIds * 2);
+            for (int i = 0; i < numTaxIds; i++) {
+                String taxId = readString(bb);
+                long[] ranges = new long[readCount(bb, 16) * 2];
+                for (int j = 0; j < ranges.length; j++)
+                    ranges[j] = bb.getLong();
+                taxId2Ranges.put(taxId, ranges);
+            }
+            log.info("Loaded the taxonomy index of {} with {} organisms from {}", geneInfo, numTaxIds, indexFile);
+            return new GeneInfoTaxIndex(taxId2Ranges);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Could not read the taxonomy index of {} from {}. Perhaps the index is corrupt.", geneInfo, indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * The index is valid for a specific version of a specific gene_info file.
+     */
+    private static String getIndexKey(File geneInfo) {
+        return geneInfo.getAbsolutePath() + "|" + geneInfo.length() + "|" + geneInfo.lastModified();
+    }
+
+    /**
+     * @param taxIds The taxonomy IDs to get the records for.
+     * @return The number of bytes of the records of the given organisms.
+     */
+    public long getNumBytes(Set<String> taxIds) {
+        long[] ranges = getRanges(taxIds);
+        long numBytes = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+            numBytes += ranges[i + 1] - ranges[i];
+        return numBytes;
+    }
+
+    /**
+     * @return The start and end offsets of the byte ranges of the given organisms, sorted and with adjacent ranges
+     * merged.
+     */
+    private long[] getRanges(Set<String> taxIds) {
+        List<long[]> ranges = new ArrayList<>();
+        for (String taxId : taxIds) {
+            long[] taxRanges = taxId2Ranges.get(taxId.trim());
+            if (taxRanges != null) {
+                for (int i = 0; i < taxRanges.length; i += 2)
+                    ranges.add(new long[]{taxRanges[i], taxRanges[i + 1]});
+            }
+        }
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        long[] merged = new long[ranges.size() * 2];
+        int numMerged = 0;
+        for (long[] range : ranges) {
+            if (numMerged > 0 && merged[numMerged - 1] == range[0]) {
+                merged[numMerged - 1] = range[1];
+            } else {
+                merged[numMerged++] = range[0];
+                merged[numMerged++] = range[1];
+            }
+        }
+        return Arrays.copyOf(merged, numMerged);
+    }
+
+    /**
+     * Opens a stream of the records of the given organisms in <tt>geneInfo</tt>. Only the indexed byte ranges are
+     * read, using memory mappings of the file.
+     *
+     * @param geneInfo The gene_info file this index has been built for.
+     * @param taxIds   The taxonomy IDs to read the records of.
+     * @return A stream of the records of the given organisms in the order of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public InputStream open(File geneInfo, Set<String> taxIds) throws IOException {
+        return new RangesInputStream(FileChannel.open(geneInfo.toPath(), StandardOpenOption.READ), getRanges(taxIds));
+    }
+
+    /**
+     * Collects the byte ranges of the taxonomy IDs while <tt>gene_info</tt> is read from beginning to end.
+     */
+    public static class Builder {
+        private final Map<String, List<Long>> taxId2Ranges = new LinkedHashMap<>();
+        private String currentTaxId;
+        private List<Long> currentRanges;
+
+        /**
+         * Adds a record to the index. Records must be added in the order of the file.
+         *
+         * @param record The record.
+         * @param start  The byte offset of the record line.
+         * @param end    The byte offset after the record line, including the line break.
+         */
+        public void add(GeneInfoRecord record, long start, long end) {
+            if (currentTaxId == null || !record.hasTaxId(currentTaxId)) {
+                currentTaxId = record.taxId();
+                currentRanges = taxId2Ranges.computeIfAbsent(currentTaxId, taxId -> new ArrayList<>(2));
+            }
+            int numRanges = currentRanges.size();
+            if (numRanges > 0 && currentRanges.get(numRanges - 1) == start) {
+                currentRanges.set(numRanges - 1, end);
+            } else {
+                currentRanges.add(start);
+                currentRanges.add(end);
+            }
+        }
+
+        /**
+         * Writes the index for <tt>geneInfo</tt> to <tt>indexFile</tt>.
+         *
+         * @param indexFile The index file.
+         * @param geneInfo  The indexed file.
+         * @throws IOException If writing fails.
+         */
+        public void write(Path indexFile, File geneInfo) throws IOException {
+            Path tmpFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(VERSION);
+                writeString(dos, getIndexKey(geneInfo));
+                dos.writeInt(taxId2Ranges.size());
+                for (Map.Entry<String, List<Long>> taxRanges : taxId2Ranges.entrySet()) {
+                    writeString(dos, taxRanges.getKey());
+                    dos.writeInt(taxRanges.getValue().size() / 2);
+                    for (long offset : taxRanges.getValue())
+                        dos.writeLong(offset);
+                }
+            }
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Wrote the taxonomy index of {} with {} organisms to {}", geneInfo, taxId2Ranges.size(), indexFile);
+        }
+    }
+
+    /**
+     * Reads a sequence of byte ranges of a file through memory mappings of at most {@link #MAX_MAPPING_SIZE} bytes.
+     */
+    private static class RangesInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long[] ranges;
+        private int currentRange;
+        private long position;
+        private MappedByteBuffer mapping;
+
+        RangesInputStream(FileChannel channel, long[] ranges) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.position = ranges.length > 0 ? ranges[0] : 0;
+        }
+
+        /**
+         * @return Whether there are more bytes to read in {@link #mapping}.
+         */
+        private boolean ensureMapping() throws IOException {
+            while (mapping == null || !mapping.hasRemaining()) {
+                if (currentRange >= ranges.length)
+                    return false;
+                long rangeEnd = ranges[currentRange + 1];
+                if (position >= rangeEnd) {
+                    currentRange += 2;
+                    if (currentRange < ranges.length)
+                        position = ranges[currentRange];
+                    continue;
+                }
+                long size = Math.min(rangeEnd - position, MAX_MAPPING_SIZE);
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                position += size;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureMapping() ? mapping.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!ensureMapping())
+                return -1;
+            int read = Math.min(len, mapping.remaining());
+            mapping.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
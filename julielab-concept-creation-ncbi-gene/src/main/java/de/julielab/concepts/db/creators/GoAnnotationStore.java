@@ -0,0 +1,127 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * A compact, read-only store of the GO annotations of genes from the NCBI Gene <tt>gene2go</tt> file.
+ * </p>
+ * <p>
+ * GO IDs and qualifiers are dictionary-encoded to <tt>int</tt> codes. The annotations are grouped by gene in a
+ * compressed sparse row layout: the sorted gene IDs, the start index of each gene's annotations and one column array
+ * each for the GO ID and qualifier codes. Thus, the whole store consists of a few arrays instead of an object per
+ * annotation. The annotations of a gene keep the order in which they were added.
+ * </p>
+ */
+public class GoAnnotationStore {
+    private final int[] geneIds;
+    private final int[] starts;
+    private final int[] goIdCodes;
+    private final int[] qualifierCodes;
+    private final String[] goIds;
+    private final String[] qualifiers;
+
+    private GoAnnotationStore(int[] geneIds, int[] starts, int[] goIdCodes, int[] qualifierCodes, String[] goIds, String[] qualifiers) {
+        this.geneIds = geneIds;
+        this.starts = starts;
+        this.goIdCodes = goIdCodes;
+        this.qualifierCodes = qualifierCodes;
+        this.goIds = goIds;
+        this.qualifiers = qualifiers;
+    }
+
+    /**
+     * Passes the GO ID and qualifier of each annotation of the given gene to <tt>consumer</tt>.
+     *
+     * @param geneId   The gene ID as encoded by the {@link GeneIdCodec}.
+     * @param consumer Receives the GO ID and the qualifier of each annotation.
+     * @return Whether the gene has annotations.
+     */
+    public boolean forEachAnnotation(int geneId, BiConsumer<String, String> consumer) {
+        int index = Arrays.binarySearch(geneIds, geneId);
+        if (index < 0)
+            return false;
+        for (int i = starts[index]; i < starts[index + 1]; i++)
+            consumer.accept(goIds[goIdCodes[i]], qualifiers[qualifierCodes[i]]);
+        return true;
+    }
+
+    /**
+     * @return The number of annotated genes.
+     */
+    public int getNumGenes() {
+        return geneIds.length;
+    }
+
+    /**
+     * @return The total number of annotations.
+     */
+    public int getNumAnnotations() {
+        return goIdCodes.length;
+    }
+
+    /**
+     * Collects annotations in arbitrary gene order and creates the store.
+     */
+    public static class Builder {
+        private final Map<String, Integer> goIdDictionary = new HashMap<>();
+        private final Map<String, Integer> qualifierDictionary = new HashMap<>();
+        private int[] geneIds = new int[1 << 12];
+        private int[] goIdCodes = new int[1 << 12];
+        private int[] qualifierCodes = new int[1 << 12];
+        private int size;
+
+        private static int encode(Map<String, Integer> dictionary, String value) {
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put(value, code);
+            }
+            return code;
+        }
+
+        private static String[] decodingTable(Map<String, Integer> dictionary) {
+            String[] values = new String[dictionary.size()];
+            dictionary.forEach((value, code) -> values[code] = value);
+            return values;
+        }
+
+        public void add(int geneId, String goId, String qualifier) {
+            if (size == geneIds.length) {
+                geneIds = Arrays.copyOf(geneIds, size * 2);
+                goIdCodes = Arrays.copyOf(goIdCodes, size * 2);
+                qualifierCodes = Arrays.copyOf(qualifierCodes, size * 2);
+            }
+            geneIds[size] = geneId;
+            goIdCodes[size] = encode(goIdDictionary, goId);
+            qualifierCodes[size] = encode(qualifierDictionary, qualifier);
+            ++size;
+        }
+
+        public GoAnnotationStore build() {
+            // Sort the annotation indices by gene ID. The index in the lower bits keeps the sort stable.
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++)
+                order[i] = (long) geneIds[i] << 32 | i;
+            Arrays.sort(order);
+            int[] sortedGoIdCodes = new int[size];
+            int[] sortedQualifierCodes = new int[size];
+            int[] distinctGeneIds = new int[size];
+            int[] starts = new int[size + 1];
+            int numGenes = 0;
+            for (int i = 0; i < size; i++) {
+                int annotation = (int) order[i];
+                int geneId = geneIds[annotation];
+                if (numGenes == 0 || distinctGeneIds[numGenes - 1] != geneId) {
+                    distinctGeneIds[numGenes] = geneId;
+                    starts[numGenes++] = i;
+                }
+                sortedGoIdCodes[i] = goIdCodes[annotation];
+                sortedQualifierCodes[i] = qualifierCodes[annotation];
+            }
+            starts[numGenes] = size;
+            return new GoAnnotationStore(Arrays.copyOf(distinctGeneIds, numGenes), Arrays.copyOf(starts, numGenes + 1), sortedGoIdCodes, sortedQualifierCodes, decodingTable(goIdDictionary), decodingTable(qualifierDictionary));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An open-addressing hash set of <tt>int</tt> values with linear probing. {@link Integer#MIN_VALUE} marks empty slots
+ * and cannot be added.
+ */
+public class IntHashSet implements IntSet {
+    static final int EMPTY = Integer.MIN_VALUE;
+    private int[] slots;
+    private int size;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        slots = new int[capacityFor(expectedSize)];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2L && capacity < 1 << 30)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int value) {
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+        while (slots[i] != EMPTY && slots[i] != value)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * @param value The value to add.
+     * @return Whether the value was not contained before.
+     */
+    public boolean add(int value) {
+        if (value == EMPTY)
+            throw new IllegalArgumentException("The value " + EMPTY + " cannot be added to an " + getClass().getSimpleName());
+        int i = slot(value);
+        if (slots[i] == value)
+            return false;
+        slots[i] = value;
+        if (++size * 2 > slots.length)
+            rehash();
+        return true;
+    }
+
+    private void rehash() {
+        int[] oldSlots = slots;
+        slots = new int[oldSlots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        for (int value : oldSlots) {
+            if (value != EMPTY)
+                slots[slot(value)] = value;
+        }
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return value != EMPTY && slots[slot(value)] == value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(IntConsumer consumer) {
+        for (int value : slots) {
+            if (value != EMPTY)
+                consumer.accept(value);
+        }
+    }
+
+    /**
+     * @return The values of this set in ascending order.
+     */
+    public int[] toSortedArray() {
+        int[] values = new int[size];
+        int i = 0;
+        for (int value : slots) {
+            if (value != EMPTY)
+                values[i++] = value;
+        }
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,119 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * An open-addressing hash map from <tt>int</tt> keys to objects with linear probing. {@link Integer#MIN_VALUE} cannot
+ * be used as a key.
+ *
+ * @param <V> The value type.
+ */
+public class IntObjectHashMap<V> {
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    public IntObjectHashMap() {
+        this(16);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = IntHashSet.capacityFor(expectedSize);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        Arrays.fill(keys, IntHashSet.EMPTY);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = IntHashSet.hash(key) & mask;
+        while (keys[i] != IntHashSet.EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == IntHashSet.EMPTY)
+            return null;
+        return (V) values[slot(key)];
+    }
+
+    public boolean containsKey(int key) {
+        return key != IntHashSet.EMPTY && keys[slot(key)] == key;
+    }
+
+    /**
+     * @return The previous value of <tt>key</tt> or <tt>null</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == IntHashSet.EMPTY)
+            throw new IllegalArgumentException("The key " + IntHashSet.EMPTY + " cannot be used in an " + getClass().getSimpleName());
+        int i = slot(key);
+        V previous = (V) values[i];
+        values[i] = value;
+        if (keys[i] != key) {
+            keys[i] = key;
+            if (++size * 2 > keys.length)
+                rehash();
+        }
+        return previous;
+    }
+
+    public V computeIfAbsent(int key, IntFunction<V> valueFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = valueFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        Arrays.fill(keys, IntHashSet.EMPTY);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != IntHashSet.EMPTY) {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The keys of this map in ascending order.
+     */
+    public int[] sortedKeys() {
+        int[] sortedKeys = new int[size];
+        int i = 0;
+        for (int key : keys) {
+            if (key != IntHashSet.EMPTY)
+                sortedKeys[i++] = key;
+        }
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != IntHashSet.EMPTY)
+                consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface IntObjectConsumer<V> {
+        void accept(int key, V value);
+    }
+}
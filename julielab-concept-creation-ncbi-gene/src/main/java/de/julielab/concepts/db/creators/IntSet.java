@@ -0,0 +1,14 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A set of primitive <tt>int</tt> values.
+ */
+public interface IntSet {
+    boolean contains(int value);
+
+    int size();
+
+    void forEach(IntConsumer consumer);
+}
@@ -0,0 +1,47 @@
+package de.julielab.concepts.db.creators;
+
+import java.nio.IntBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link IntSet} on a sorted sequence of <tt>int</tt> values, usually a memory-mapped region of a file. Membership
+ * is checked by binary search; the values are not copied onto the heap.
+ */
+public class MappedSortedIntSet implements IntSet {
+    private final IntBuffer values;
+
+    /**
+     * @param values The set values in ascending order without duplicates.
+     */
+    public MappedSortedIntSet(IntBuffer values) {
+        this.values = values;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        int low = 0;
+        int high = values.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midValue = values.get(mid);
+            if (midValue < value)
+                low = mid + 1;
+            else if (midValue > value)
+                high = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return values.limit();
+    }
+
+    @Override
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < values.limit(); i++)
+            consumer.accept(values.get(i));
+    }
+}
@@ -1,7 +1,5 @@
 package de.julielab.concepts.db.creators;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import de.julielab.concepts.db.core.DefaultFacetCreator;
 import de.julielab.concepts.db.core.services.FacetCreationService;
 import de.julielab.concepts.db.core.spi.ConceptCreator;
@@ -9,15 +7,12 @@ import de.julielab.concepts.util.ConceptCreationException;
 import de.julielab.concepts.util.FacetCreationException;
 import de.julielab.java.utilities.ConfigurationUtilities;
 import de.julielab.java.utilities.FileUtilities;
-import de.julielab.java.utilities.index.IndexCreationException;
-import de.julielab.java.utilities.index.PersistentLuceneIndexStringArrayMapProvider;
 import de.julielab.neo4j.plugins.datarepresentation.*;
 import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
 import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.neo4j.graphdb.Label;
 import org.slf4j.Logger;
@@ -27,12 +22,10 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
 import static de.julielab.java.utilities.ConfigurationUtilities.slash;
@@ -51,6 +44,7 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
     public static final String GENE_2_GO = "gene2go";
     public static final String GO_DB_ORIGINAL_SOURCE_NAME = "go_db_original_source_name";
     public static final String CACHE_DIR = "cache_dir";
+    public static final String PARSING_THREADS = "parsing_threads";
     /**
      * "gene_group" is the name of the file specifying the ortholog relationships
      * between genes. Also, NCBI Gene, searching for a specific ortholog group works
@@ -60,6 +54,15 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
     public static final String GENE_GROUP_PREFIX = "genegroup";
     public static final String TOP_ORTHOLOGY_PREFIX = "toporthology";
     public static final String TOP_HOMOLOGY_PREFIX = "tophomology";
+    /**
+     * The subdirectory of the cache directory holding the {@link UniProtIdMappingTable}.
+     */
+    private static final String UNIPROT_ID_MAPPING_TABLE_DIR = "uniprot-idmapping";
+    private static final String TAXONOMY_NAMES_CACHE_FILE = "taxonomyNames.bin";
+    /**
+     * The dbXrefs of gene_info that are imported as concepts of their own by {@link #createDbXRefMappings(Stream)}.
+     */
+    static final String[] IMPORTED_DBXREF_PREFIXES = {"Ensembl:", "HGNC:"};
     private Path cacheDir = Path.of("concept-manager-caches", "ncbi-gene-concepts");
     private int homologeneAggregateCounter;
     private int orthologAggregateCounter;
@@ -68,6 +71,7 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
     private int uniProtConceptCounter;
     private int goConceptCounter;
     private int dbXRefCounter;
+    private GeneIdCodec geneIdCodec = new GeneIdCodec();
     private Logger log = LoggerFactory.getLogger(NCBIGeneConceptCreator.class);
 
     public NCBIGeneConceptCreator() {
@@ -95,8 +99,8 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
      * @return
      * @throws IOException
      */
-    private Stream<ImportConcept> createHomologyAggregates(Stream<ImportConcept> conceptStream, Set<String> totalGeneIds, Map<ConceptCoordinates, ImportConcept> termsByGeneId, File geneGroup) throws IOException {
-        Multimap<String, ConceptCoordinates> genes2Aggregate = HashMultimap.create();
+    private Stream<ImportConcept> createHomologyAggregates(Stream<ImportConcept> conceptStream, IntSet totalGeneIds, Map<ConceptCoordinates, ImportConcept> termsByGeneId, File geneGroup) throws IOException {
+        IntObjectHashMap<List<ConceptCoordinates>> genes2Aggregate = new IntObjectHashMap<>();
         Forest geneHierarchy = new Forest();
 
         List<String> aggregateCopyProperties = Arrays.asList(ConceptConstants.PROP_PREF_NAME, ConceptConstants.PROP_FACETS);
@@ -112,11 +116,12 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         }
     }
 
-    private Stream<ImportConcept> createTopHomologyAggregates(Stream<ImportConcept> processedConceptStream, Forest geneHierarchy, Multimap<String, ConceptCoordinates> genes2Aggregate, List<String> aggregateCopyProperties) {
+    private Stream<ImportConcept> createTopHomologyAggregates(Stream<ImportConcept> processedConceptStream, Forest geneHierarchy, IntObjectHashMap<List<ConceptCoordinates>> genes2Aggregate, List<String> aggregateCopyProperties) {
         // Now create top homology aggregates where necessary and connect the
         // top homology aggregate to the gene group and homology aggregates.
         Stream.Builder<ImportConcept> topHomologyStreamBuilder = Stream.builder();
-        for (String geneId : genes2Aggregate.keySet()) {
+        for (int geneCode : genes2Aggregate.sortedKeys()) {
+            String geneId = geneIdCodec.decode(geneCode);
             Optional<Node> topHomologyAggregateOpt = geneHierarchy.getRoots(getGeneCoordinates(geneId)).stream().filter(c -> c.getConcept() != null).filter(c -> c.getConcept().coordinates.sourceId.startsWith(TOP_HOMOLOGY_PREFIX)).findAny();
             if (!topHomologyAggregateOpt.isPresent() || topHomologyAggregateOpt.get().getId().sourceId.startsWith(TOP_HOMOLOGY_PREFIX)) {
                 Set<ImportConcept> topAggregates = findTopOrthologsAndHomologyAggregates(geneId, geneHierarchy);
@@ -146,30 +151,20 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         return roots.stream().map(Node::getConcept).filter(Objects::nonNull).filter(c -> c.coordinates.sourceId.startsWith(GENE_GROUP_PREFIX)).collect(Collectors.toSet());
     }
 
-    private Stream<ImportConcept> createGeneOrthologyAggregates(Stream<ImportConcept> conceptStream, Set<String> totalGeneIds, Multimap<String, ConceptCoordinates> genes2Aggregate, Forest geneHierarchy, File geneGroup, Map<ConceptCoordinates, ImportConcept> termsByGeneId, List<String> aggregateCopyProperties) throws IOException {
+    private Stream<ImportConcept> createGeneOrthologyAggregates(Stream<ImportConcept> conceptStream, IntSet totalGeneIds, IntObjectHashMap<List<ConceptCoordinates>> genes2Aggregate, Forest geneHierarchy, File geneGroup, Map<ConceptCoordinates, ImportConcept> termsByGeneId, List<String> aggregateCopyProperties) throws IOException {
         // add the orthology information from gene group to make gene group aggregates
-        Map<String, Set<String>> geneGroupOrthologs = new HashMap<>();
-        final Iterator<String> iterator = FileUtilities.getReaderFromFile(geneGroup).lines().iterator();
+        IntObjectHashMap<IntHashSet> geneGroupOrthologs = new IntObjectHashMap<>();
         // Format: tax_id GeneID relationship Other_tax_id Other_GeneID (tab is
         // used as a separator, pound sign - start of a comment)
-        while (iterator.hasNext()) {
-            String geneGroupLine = iterator.next();
-            if (geneGroupLine.startsWith("#"))
-                continue;
-            String[] geneGroupRecord = geneGroupLine.split("\t");
-            if (geneGroupRecord.length < 5)
-                throw new IllegalArgumentException("The line " + geneGroupLine + " does not have at least 5 tab-separated columns.");
-            String relationship = geneGroupRecord[2];
-            if (!relationship.equals("Ortholog"))
-                continue;
-            String gene1 = geneGroupRecord[1].intern();
-            String gene2 = geneGroupRecord[4].intern();
-            geneGroupOrthologs.compute(gene1, (gene, set) -> {
-                Set<String> newset = set;
-                if (newset == null) newset = new HashSet<>();
-                newset.add(gene2);
-                return newset;
-            });
+        try (GeneInfoReader reader = new GeneInfoReader(geneGroup)) {
+            GeneInfoRecord geneGroupRecord;
+            while ((geneGroupRecord = reader.next()) != null) {
+                if (!geneGroupRecord.fieldEquals(2, "Ortholog"))
+                    continue;
+                int gene1 = encodeGeneId(geneGroupRecord, 1);
+                int gene2 = encodeGeneId(geneGroupRecord, 4);
+                geneGroupOrthologs.computeIfAbsent(gene1, gene -> new IntHashSet(4)).add(gene2);
+            }
         }
         log.info("Got {} orthology groups from gene_ortholog file {}", geneGroupOrthologs.size(), geneGroup);
 
@@ -179,30 +174,30 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         // orthology aggregate elements, create a top homology aggregate
         // 4. set the new top homology aggregate as parent of the homologene and
         // (top) group aggregate nodes
-        Multimap<String, ImportConcept> genes2OrthoAggregate = HashMultimap.create();
+        // The orthology clusters are numbered in the order of creation. Clusters that share a gene are united in
+        // orthologyComponents; each connected component of more than one cluster gets a top orthology aggregate.
+        List<ImportConcept> orthologyClusters = new ArrayList<>();
+        DisjointSets orthologyComponents = new DisjointSets(geneGroupOrthologs.size());
+        IntObjectHashMap<int[]> genes2OrthoClusters = new IntObjectHashMap<>();
         Stream.Builder<ImportConcept> aggregatesStreamBuilder = Stream.builder();
-        for (String geneGroupId : geneGroupOrthologs.keySet()) {
-            Collection<String> mappingTargets = geneGroupOrthologs.get(geneGroupId);
-            List<String> groupGeneIds = new ArrayList<>(mappingTargets.size() + 1);
+        for (int geneGroupCode : geneGroupOrthologs.sortedKeys()) {
+            IntHashSet mappingTargets = geneGroupOrthologs.get(geneGroupCode);
+            String geneGroupId = geneIdCodec.decode(geneGroupCode);
+            IntHashSet groupGeneIds = new IntHashSet(mappingTargets.size() + 1);
             List<ConceptCoordinates> groupGeneCoords = new ArrayList<>(mappingTargets.size() + 1);
             // Create coordinates for this gene cluster's genes
-            for (String geneId : mappingTargets) {
+            for (int geneId : mappingTargets.toSortedArray()) {
                 // it is possible that some elements of a gene group are not in
                 // our version of gene_info (e.g. due to species filtering)
-                if (!totalGeneIds.contains(geneId)) {
-                    continue;
-                }
-                groupGeneIds.add(geneId);
-                groupGeneCoords.add(getGeneCoordinates(geneId));
+                if (totalGeneIds.contains(geneId) && groupGeneIds.add(geneId))
+                    groupGeneCoords.add(getGeneCoordinates(geneIdCodec.decode(geneId)));
             }
             // The gene group ID is also a valid gene. Most of the time the
             // human version. It has to be added to the resulting aggregate
             // node as well.
             // But here also we should check if we even know a gene with this ID
-            if (totalGeneIds.contains(geneGroupId)) {
-                groupGeneIds.add(geneGroupId);
+            if (totalGeneIds.contains(geneGroupCode) && groupGeneIds.add(geneGroupCode))
                 groupGeneCoords.add(getGeneCoordinates(geneGroupId));
-            }
 
             // Create the aggregate for this orthology gene cluster.
             // The set of genes participating in this gene group might be empty or only
@@ -221,46 +216,57 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
 //                        orthologyCluster);
                 aggregatesStreamBuilder.accept(orthologyCluster);
                 ++orthologAggregateCounter;
-
-                for (String geneId : groupGeneIds) {
-                    genes2OrthoAggregate.put(geneId, orthologyCluster);
-                    ConceptCoordinates clusterCoordinates = new ConceptCoordinates(orthologyCluster.coordinates.sourceId, orthologyCluster.coordinates.source, true);
-                    genes2Aggregate.put(geneId,
-                            clusterCoordinates);
-                    geneHierarchy.addNode(getGeneCoordinates(geneId), geneHierarchy.addNode(clusterCoordinates));
-                }
+                int clusterIndex = orthologyComponents.add();
+                orthologyClusters.add(orthologyCluster);
+
+                ConceptCoordinates clusterCoordinates = new ConceptCoordinates(orthologyCluster.coordinates.sourceId, orthologyCluster.coordinates.source, true);
+                groupGeneIds.forEach(geneId -> {
+                    int[] geneClusters = genes2OrthoClusters.get(geneId);
+                    if (geneClusters == null) {
+                        genes2OrthoClusters.put(geneId, new int[]{clusterIndex});
+                    } else {
+                        // The gene connects this cluster with its other clusters
+                        orthologyComponents.union(geneClusters[0], clusterIndex);
+                        geneClusters = Arrays.copyOf(geneClusters, geneClusters.length + 1);
+                        geneClusters[geneClusters.length - 1] = clusterIndex;
+                        genes2OrthoClusters.put(geneId, geneClusters);
+                    }
+                    List<ConceptCoordinates> aggregates = genes2Aggregate.computeIfAbsent(geneId, k -> new ArrayList<>(1));
+                    if (!aggregates.contains(clusterCoordinates))
+                        aggregates.add(clusterCoordinates);
+                    geneHierarchy.addNode(getGeneCoordinates(geneIdCodec.decode(geneId)), geneHierarchy.addNode(clusterCoordinates));
+                });
             }
         }
 
         // Connect the genes to their orthology clusters
         conceptStream = conceptStream.map(gene -> {
-            Collection<ImportConcept> orthoAggregates = genes2OrthoAggregate.get(gene.coordinates.originalId);
-            for (ImportConcept orthoAggregate : orthoAggregates) {
-                gene.addParent(orthoAggregate.coordinates);
-                // If we actually aggregate multiple genes into one, the
-                // elements should disappear behind the aggregate and as such
-                // should not be present in the query dictionary or suggestions.
-                if (orthoAggregates.size() > 1)
-                    gene.addGeneralLabel(ConceptLabels.NO_QUERY_DICTIONARY.name(),
-                            ConceptLabels.NO_SUGGESTIONS.name());
+            int[] geneClusters = genes2OrthoClusters.get(geneIdCodec.lookup(gene.coordinates.originalId));
+            if (geneClusters != null) {
+                for (int clusterIndex : geneClusters) {
+                    gene.addParent(orthologyClusters.get(clusterIndex).coordinates);
+                    // If we actually aggregate multiple genes into one, the
+                    // elements should disappear behind the aggregate and as such
+                    // should not be present in the query dictionary or suggestions.
+                    if (geneClusters.length > 1)
+                        gene.addGeneralLabel(ConceptLabels.NO_QUERY_DICTIONARY.name(),
+                                ConceptLabels.NO_SUGGESTIONS.name());
+                }
             }
             return gene;
         });
 
-        // Create top-orthology aggregates for genes taking part in multiple orthology clusters
-        Map<ConceptCoordinates, ImportConcept> orthoAgg2TopOrtho = new HashMap<>();
-        for (String geneid : genes2OrthoAggregate.keySet()) {
-            final Collection<ImportConcept> clusters = genes2OrthoAggregate.get(geneid);
+        // Create top-orthology aggregates for genes taking part in multiple orthology clusters. All clusters of a
+        // connected component share the same top-orthology aggregate. The components are complete at this point,
+        // thus the aggregate is found by the representative cluster of the component without any graph traversal.
+        IntObjectHashMap<ImportConcept> component2TopOrtho = new IntObjectHashMap<>();
+        BitSet clustersWithTopOrtho = new BitSet(orthologyClusters.size());
+        for (int geneid : genes2OrthoClusters.sortedKeys()) {
+            final int[] clusters = genes2OrthoClusters.get(geneid);
             // If there is only one cluster associated with the current gene, we don't need to do anything here
-            if (clusters.size() > 1) {
-                ImportConcept topOrthologyAggregate = null;
-                // Find an already existing top orthology cluster, if possible
-                Set<ImportConcept> seenOrthologyClusters = new TreeSet<>(Comparator.comparingLong(System::identityHashCode));
-                for (ImportConcept cluster : clusters) {
-                    topOrthologyAggregate = findTopOrtholog(cluster, seenOrthologyClusters, genes2OrthoAggregate, orthoAgg2TopOrtho);
-                    if (topOrthologyAggregate != null)
-                        break;
-                }
+            if (clusters.length > 1) {
+                int component = orthologyComponents.find(clusters[0]);
+                ImportConcept topOrthologyAggregate = component2TopOrtho.get(component);
                 // If there is not yet a top orthology aggregate, create it now
                 if (topOrthologyAggregate == null) {
                     topOrthologyAggregate = new ImportConcept(new ArrayList<>(), aggregateCopyProperties);
@@ -272,14 +278,16 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
 //                    termsByGeneId.put(topOrthologyAggregate.coordinates,
 //                            topOrthologyAggregate);
                     aggregatesStreamBuilder.accept(topOrthologyAggregate);
+                    component2TopOrtho.put(component, topOrthologyAggregate);
                     ++topOrthologAggregateCounter;
                 }
                 // Connect the current gene orthology clusters to the top orthology aggregate
-                for (ImportConcept cluster : clusters) {
-                    ConceptCoordinates clusterCoordinates = cluster.coordinates;
-                    if (!topOrthologyAggregate.elementCoordinates.contains(clusterCoordinates))
-                        topOrthologyAggregate.elementCoordinates.add(clusterCoordinates);
-                    orthoAgg2TopOrtho.put(clusterCoordinates, topOrthologyAggregate);
+                for (int clusterIndex : clusters) {
+                    if (clustersWithTopOrtho.get(clusterIndex))
+                        continue;
+                    clustersWithTopOrtho.set(clusterIndex);
+                    ImportConcept cluster = orthologyClusters.get(clusterIndex);
+                    topOrthologyAggregate.elementCoordinates.add(cluster.coordinates);
                     cluster.addParent(topOrthologyAggregate.coordinates);
                     geneHierarchy.addNode(cluster.coordinates).addParent(geneHierarchy.addNode(topOrthologyAggregate.coordinates));
                 }
@@ -289,29 +297,9 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         return Stream.concat(conceptStream, aggregatesStreamBuilder.build());
     }
 
-    private ImportConcept findTopOrtholog(ImportConcept orthologyCluster, Set<ImportConcept> seenOrthologyClusters, Multimap<String, ImportConcept> genes2OrthoAggregate, Map<ConceptCoordinates, ImportConcept> orthoAgg2TopOrtho) {
-        // First check if the orthology cluster is already connected to a top orthology aggregate
-        ImportConcept topOrtholog = orthoAgg2TopOrtho.get(orthologyCluster.coordinates);
-        seenOrthologyClusters.add(orthologyCluster);
-        if (topOrtholog == null) {
-            // Try to find a top orthology aggregate that is connected - perhaps indirectly - through one of the orthology cluster's gene elements
-            for (ConceptCoordinates element : orthologyCluster.elementCoordinates) {
-                final Collection<ImportConcept> orthologyClustersOfElement = genes2OrthoAggregate.get(element.originalId);
-                for (ImportConcept orthologyClusterOfElement : orthologyClustersOfElement) {
-                    // Do not make a recursive call to the original orthology cluster because then we would never terminate
-                    if (seenOrthologyClusters.contains(orthologyClusterOfElement))
-                        continue;
-                    seenOrthologyClusters.add(orthologyClusterOfElement);
-                    // Make a recursive call to all of the other orthology clusters of the current gene element.
-                    // Through the recursion we will follow the connections from gene elements to their orthology clusters, to their elements until there is nothing more to go to.
-                    // In order to not go back the cluster where the search started, we pass the current gene's element id
-                    topOrtholog = findTopOrtholog(orthologyClusterOfElement, seenOrthologyClusters, genes2OrthoAggregate, orthoAgg2TopOrtho);
-                    if (topOrtholog != null)
-                        return topOrtholog;
-                }
-            }
-        }
-        return topOrtholog;
+    private int encodeGeneId(GeneInfoRecord record, int field) {
+        int geneId = record.numericField(field);
+        return geneId >= 0 ? geneId : geneIdCodec.encode(record.field(field));
     }
 
     /**
@@ -320,56 +308,29 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
      * we don't use the full official symbol but just the symbol to keep it a bit
      * shorter.
      *
-     * @param conceptStream
      * @param ncbiTaxNames
+     * @param organismSet The taxonomy IDs of the imported organisms. Names of other organisms are not loaded.
      * @param geneId2Tax
      * @param geneTerms
-     * @return
+     * @return The stage setting the qualifiers on a stream of concepts.
      * @throws IOException
      */
-    private Stream<ImportConcept> setSpeciesQualifier(Stream<ImportConcept> conceptStream, File ncbiTaxNames, @Deprecated Map<String, String> geneId2Tax,
-                                                      @Deprecated Collection<ImportConcept> geneTerms) throws IOException {
+    private UnaryOperator<Stream<ImportConcept>> setSpeciesQualifier(File ncbiTaxNames, Set<String> organismSet, @Deprecated Map<String, String> geneId2Tax,
+                                                                     @Deprecated Collection<ImportConcept> geneTerms) throws IOException {
         if (ncbiTaxNames != null) {
             log.info("Setting species qualifiers from file {}", ncbiTaxNames);
-            Map<String, TaxonomyRecord> taxNameRecords = new HashMap<>();
-            Iterator<String> lineIt = FileUtilities.getReaderFromFile(ncbiTaxNames).lines().iterator();
-            while (lineIt.hasNext()) {
-                String recordString = lineIt.next();
-                // at the end of the line there is no more tab, thus we have
-                // actually
-                // two record seperators
-                String[] split = recordString.split("(\t\\|\t)|(\t\\|)");
-                String taxId = split[0].intern();
-                String name = split[1].intern();
-                String nameClass = split[3].intern();
-
-                TaxonomyRecord record = taxNameRecords.get(taxId);
-                if (null == record) {
-                    record = new TaxonomyRecord(taxId);
-                    taxNameRecords.put(taxId, record);
-                }
-                if (nameClass.equals("scientific name"))
-                    record.scientificName = name;
-                else if (nameClass.equals("genbank common name"))
-                    record.geneBankCommonName = name;
-            }
+            TaxonomyNames taxonomyNames = TaxonomyNames.load(ncbiTaxNames, organismSet, cacheDir.resolve(TAXONOMY_NAMES_CACHE_FILE));
 
-            return conceptStream.map(gene -> {
+            return conceptStream -> conceptStream.map(gene -> {
                 String taxId = (String) gene.getAuxProperty("taxId");
-                TaxonomyRecord taxonomyRecord = taxNameRecords.get(taxId);
+                String speciesName = taxonomyNames.getSpeciesName(taxId);
 
-                if (null != taxonomyRecord) {
+                if (null != speciesName) {
                     // Set the species as a qualifier
-                    String speciesQualifier = taxonomyRecord.scientificName;
-                    if (null != taxonomyRecord.geneBankCommonName)
-                        speciesQualifier += (" (" + taxonomyRecord.geneBankCommonName + ")").intern();
-                    gene.addQualifier(speciesQualifier);
+                    gene.addQualifier(speciesName);
 
                     // Set an NCBI Gene like species-related display name.
-                    gene.displayName = gene.prefName + " [" + taxonomyRecord.scientificName;
-                    if (null != taxonomyRecord.geneBankCommonName)
-                        gene.displayName += " (" + taxonomyRecord.geneBankCommonName + ")";
-                    gene.displayName += "]";
+                    gene.displayName = gene.prefName + " [" + speciesName + "]";
                 } else {
                     log.warn("No NCBI Taxonomy name record was found for the taxonomy ID {}", taxId);
 
@@ -378,63 +339,102 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
                 return gene;
             });
         }
-        return conceptStream;
+        return UnaryOperator.identity();
     }
 
-    protected Stream<ImportConcept> convertGeneInfoToImportConcepts(File geneInfo, Set<String> organismSet, File geneDescriptions) throws IOException {
+    private Map<String, String> readGeneDescriptions(File geneDescriptions) throws IOException {
         Map<String, String> gene2Summary = new HashMap<>();
         if (geneDescriptions != null) {
             log.info("Reading gene descriptions from {}", geneDescriptions);
-            Iterator<String> lineIt = FileUtilities.getReaderFromFile(geneDescriptions).lines().iterator();
-            while (lineIt.hasNext()) {
-                String line = lineIt.next();
-                String[] split = line.split("\t");
-                String geneId = split[0].intern();
-                String summary = split[1].intern();
-                gene2Summary.put(geneId, summary);
+            try (BufferedReader br = FileUtilities.getReaderFromFile(geneDescriptions)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    int tabIndex = line.indexOf('\t');
+                    if (tabIndex < 0)
+                        continue;
+                    int summaryEnd = line.indexOf('\t', tabIndex + 1);
+                    gene2Summary.put(line.substring(0, tabIndex), line.substring(tabIndex + 1, summaryEnd < 0 ? line.length() : summaryEnd));
+                }
             }
         }
+        return gene2Summary;
+    }
 
-        BufferedReader bw = FileUtilities.getReaderFromFile(geneInfo);
-        Iterator<String> it = bw.lines().filter(record -> !record.startsWith("#")).iterator();
-        Iterator<ImportConcept> geneIterator = new Iterator<>() {
+    /**
+     * Converts the records of an uncompressed gene_info file on multiple threads using a {@link ChunkedGeneInfoParser}.
+     * The <tt>geneStages</tt> are applied to the gene concepts within the parsed chunks and thus run in parallel as
+     * well. The concepts are returned in the order of the file.
+     *
+     * @param geneInfo         An uncompressed gene_info file.
+     * @param geneDescriptions The optional gene descriptions.
+     * @param geneStages       Processing of the gene concepts that does not depend on their order.
+     * @param parsingThreads   The number of threads to use.
+     * @return The processed gene concepts.
+     * @throws IOException If reading fails.
+     */
+    protected Stream<ImportConcept> convertGeneInfoToImportConcepts(File geneInfo, File geneDescriptions, UnaryOperator<Stream<ImportConcept>> geneStages, int parsingThreads) throws IOException {
+        return convertGeneInfoToImportConcepts(geneInfo, geneDescriptions, geneStages, parsingThreads, ChunkedGeneInfoParser.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Like {@link #convertGeneInfoToImportConcepts(File, File, UnaryOperator, int)} but with a given chunk size for the
+     * {@link ChunkedGeneInfoParser}. Small chunks allow tests to split small files into many chunks.
+     */
+    Stream<ImportConcept> convertGeneInfoToImportConcepts(File geneInfo, File geneDescriptions, UnaryOperator<Stream<ImportConcept>> geneStages, int parsingThreads, int chunkSize) throws IOException {
+        Map<String, String> gene2Summary = readGeneDescriptions(geneDescriptions);
+        log.info("Returning stream for gene concept creation with {} parsing threads.", parsingThreads);
+        return new ChunkedGeneInfoParser(geneInfo.toPath(), parsingThreads, chunkSize).parse(record -> createGeneConcept(record, gene2Summary), geneStages);
+    }
+
+    /**
+     * Converts all records of a gene_info file on the calling thread. The records must already be restricted to the
+     * selected organisms, see {@link GeneInfoIngestion}.
+     *
+     * @param geneInfo         A gene_info file, possibly gzipped.
+     * @param geneDescriptions The optional gene descriptions.
+     * @return The gene concepts in the order of the file.
+     * @throws IOException If reading fails.
+     */
+    protected Stream<ImportConcept> convertGeneInfoToImportConcepts(File geneInfo, File geneDescriptions) throws IOException {
+        Map<String, String> gene2Summary = readGeneDescriptions(geneDescriptions);
 
+        GeneInfoReader reader = new GeneInfoReader(geneInfo);
+        Iterator<ImportConcept> geneIterator = new Iterator<>() {
+            private ImportConcept next;
             private boolean closed = false;
 
             @Override
             public boolean hasNext() {
-                boolean hasNext = closed ? false : it.hasNext();
-                if (!hasNext) {
-                    try {
-                        bw.close();
-                        closed = true;
-                    } catch (IOException e) {
-                        throw new IllegalStateException(e);
+                try {
+                    while (next == null && !closed) {
+                        GeneInfoRecord record = reader.next();
+                        if (record == null) {
+                            reader.close();
+                            closed = true;
+                        } else {
+                            next = createGeneConcept(record, gene2Summary);
+                        }
                     }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
                 }
-                return hasNext;
+                return next != null;
             }
 
             @Override
             public ImportConcept next() {
-                if (hasNext()) {
-                    String record = it.next();
-                    ImportConcept geneconcept = createGeneConcept(record, gene2Summary);
-                    String[] split = record.split("\t", 2);
-                    String taxId = split[0].intern();
-                    if (organismSet.contains(taxId) || organismSet.isEmpty()) {
-                        geneconcept.putAuxProperty("taxId", taxId);
-                        return geneconcept;
-                    }
-                }
-                return null;
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                ImportConcept geneConcept = next;
+                next = null;
+                return geneConcept;
             }
         };
         log.info("Returning stream for gene concept creation.");
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(geneIterator, 0), false).filter(Objects::nonNull);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(geneIterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
-    private ImportConcept createGeneConcept(String record, Map<String, String> gene2Summary) {
+    private ImportConcept createGeneConcept(GeneInfoRecord record, Map<String, String> gene2Summary) {
         // 0: tax_id
         // 1: GeneID
         // 2: Symbol
@@ -450,10 +450,9 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         // 12: Nomenclature_status
         // 13: Other_designations
         // 14: Modification_date
-        String[] split = record.split("\t");
         List<String> synonyms = new ArrayList<>();
-        String prefName = split[2];
-        String fullname = split[11];
+        String prefName = record.field(GeneInfoRecord.SYMBOL);
+        String fullname = record.field(GeneInfoRecord.FULL_NAME);
         // It happens that genes have the official symbol 'e' or 'C' or 'N'; but
         // it seems those are kind of errorneous.
         // It's about 70 cases so not a big deal. We just use the full name,
@@ -464,41 +463,31 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         } else {
             synonyms.add(fullname);
         }
-        String ncbiDescription = split[8];
-        if (prefName.length() < 3 && ncbiDescription.length() > 2)
-            prefName = ncbiDescription;
-        String originalId = split[1].intern();
-        String synonymString = split[4];
-        String otherDesignations = split[13];
+        if (prefName.length() < 3) {
+            String ncbiDescription = record.field(GeneInfoRecord.DESCRIPTION);
+            if (ncbiDescription.length() > 2)
+                prefName = ncbiDescription;
+        }
+        String originalId = record.field(GeneInfoRecord.GENE_ID);
         // synonyms:
         // 1. official full name (if not used as preferred name)
         // 2. synonyms
         // 3. other designations
-        String[] synonymSplit = synonymString.split("\\|");
-        for (int i = 0; i < synonymSplit.length; i++) {
-            String synonym = synonymSplit[i].intern();
-            synonyms.add(synonym);
-        }
-        String[] otherDesignationsSplit = otherDesignations.split("\\|");
-        for (int i = 0; i < otherDesignationsSplit.length; i++) {
-            String synonym = otherDesignationsSplit[i];
-            synonyms.add(synonym.intern());
-        }
+        record.forEachValue(GeneInfoRecord.SYNONYMS, synonyms::add);
+        record.forEachValue(GeneInfoRecord.OTHER_DESIGNATIONS, synonyms::add);
         String description = gene2Summary.get(originalId);
-        if (description != null)
-            description = description.intern();
 
         // remove synonyms that are too short
-        for (Iterator<String> synonymIt = synonyms.iterator(); synonymIt.hasNext(); ) {
-            if (synonymIt.next().length() < 2)
-                synonymIt.remove();
-        }
+        synonyms.removeIf(synonym -> synonym.length() < 2);
         ImportConcept geneTerm = new ImportConcept(prefName, synonyms, description,
                 getGeneCoordinates(originalId));
         geneTerm.additionalProperties = new HashMap<>();
-        geneTerm.additionalProperties.put("taxId", split[0]);
+        geneTerm.additionalProperties.put("taxId", record.field(GeneInfoRecord.TAX_ID));
+        geneTerm.putAuxProperty("taxId", geneTerm.additionalProperties.get("taxId"));
         // this property is meant to be read - and removed - in createDbXRefMappings()
-        geneTerm.additionalProperties.put("dbXrefs", split[5]);
+        List<String> dbXrefs = new ArrayList<>();
+        record.forEachValue(GeneInfoRecord.DB_XREFS, dbXrefs::add);
+        geneTerm.additionalProperties.put("dbXrefs", dbXrefs);
 
         /**
          * Gene IDs are given by a Gene Normalization component like GeNo. Thus, genes
@@ -587,6 +576,7 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         File gene2go = resolvePath(basepath, importConfig.getString(slash(confPath, GENE_2_GO)));
         String goOriginalSourceName = importConfig.getString(slash(confPath, GO_DB_ORIGINAL_SOURCE_NAME));
         File cacheDirFile = resolvePath(basepath, importConfig.getString(slash(confPath, CACHE_DIR)));
+        int parsingThreads = importConfig.getInt(slash(confPath, PARSING_THREADS), 1);
 
 
         try {
@@ -605,16 +595,32 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
             else
                 log.info("Retrieved {} taxonomy IDs. No restrictions on species is imposed.", organismSet.size());
             log.info("Reading the set of valid gene IDs from {}.", geneInfo);
-            Set<String> totalGeneIds = getTotalGeneIds(geneInfo, organismSet);
+            GeneInfoIngestion geneInfoIngestion = GeneInfoIngestion.ingest(geneInfo, organismSet, cacheDir);
+            IntSet totalGeneIds = geneInfoIngestion.getGeneIds();
+            geneIdCodec = geneInfoIngestion.getGeneIdCodec();
+            dbXRefCounter = geneInfoIngestion.getDbXrefCount();
             log.info("Got {} gene IDs.", totalGeneIds.size());
             Map<String, String> geneId2Tax = new HashMap<>();
             Map<ConceptCoordinates, ImportConcept> conceptsByGeneId = new HashMap<>();
-            log.info("Creating a stream converting NCBI Gene's gene_info file into nodes for the concept graph.");
-            Stream<ImportConcept> conceptStream = convertGeneInfoToImportConcepts(geneInfo, organismSet, geneDescriptions);
-            conceptStream = setSpeciesQualifier(conceptStream, ncbiTaxNames, geneId2Tax, conceptsByGeneId.values());
-            conceptStream = createUniProtIdMappings(conceptStream, uniprotIdMapping, totalGeneIds);
-            conceptStream = createDbXRefMappings(conceptStream);
-            conceptStream = createGoAnnotationLinks(conceptStream, gene2go, goOriginalSourceName, totalGeneIds);
+            log.info("Creating a stream converting NCBI Gene's gene_info records into nodes for the concept graph.");
+            UnaryOperator<Stream<ImportConcept>> speciesQualifierStage = setSpeciesQualifier(ncbiTaxNames, organismSet, geneId2Tax, conceptsByGeneId.values());
+            UnaryOperator<Stream<ImportConcept>> uniProtStage = createUniProtIdMappings(uniprotIdMapping, totalGeneIds);
+            UnaryOperator<Stream<ImportConcept>> dbXrefStage = createDbXRefMappings();
+            UnaryOperator<Stream<ImportConcept>> goStage = createGoAnnotationLinks(gene2go, goOriginalSourceName, totalGeneIds);
+            // The stages only depend on the individual gene concepts, thus they may run concurrently on chunks of genes
+            UnaryOperator<Stream<ImportConcept>> geneStages = genes -> goStage.apply(dbXrefStage.apply(uniProtStage.apply(speciesQualifierStage.apply(genes))));
+            // The records are already restricted to the selected organisms.
+            File records = geneInfoIngestion.getRecords().toFile();
+            Stream<ImportConcept> conceptStream;
+            if (parsingThreads > 1 && GeneInfoTaxIndex.isIndexable(records)) {
+                conceptStream = convertGeneInfoToImportConcepts(records, geneDescriptions, geneStages, parsingThreads);
+            } else {
+                if (parsingThreads > 1)
+                    log.info("The gene_info file {} is compressed and is thus parsed on a single thread.", records);
+                conceptStream = geneStages.apply(convertGeneInfoToImportConcepts(records, geneDescriptions));
+            }
+            if (uniprotIdMapping != null)
+                conceptStream = removeDuplicateUniProtConcepts(conceptStream);
             log.info("Creating homology aggregates");
             conceptStream = createHomologyAggregates(conceptStream, totalGeneIds, conceptsByGeneId, geneOrthologs);
             log.info("Created {} homology aggregates", homologeneAggregateCounter);
@@ -632,78 +638,64 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
             log.info("Created a total of {} concepts.", importConcepts.getNumConcepts());
             importConcepts.setImportOptions(options);
             return Stream.of(importConcepts);
-        } catch (IOException | IndexCreationException e) {
+        } catch (IOException e) {
             throw new ConceptCreationException(e);
         }
 
     }
 
-    private Stream<ImportConcept> createGoAnnotationLinks(Stream<ImportConcept> conceptStream, File gene2go, String goOriginalSourceName, Set<String> totalGeneIds) throws IOException {
+    private UnaryOperator<Stream<ImportConcept>> createGoAnnotationLinks(File gene2go, String goOriginalSourceName, IntSet totalGeneIds) throws IOException {
         if (gene2go != null) {
             if (StringUtils.isBlank(goOriginalSourceName))
                 throw new IllegalArgumentException("Found GO gene annotation file. But the " + GO_DB_ORIGINAL_SOURCE_NAME + " parameter is not given. It needs to be set to the original source used by the concept creator that has imported the GO terms. When in doubt, use the GO concept importer individually and then check the database for the source name.");
-            Multimap<String, String[]> geneAnnotations = HashMultimap.create();
+            GoAnnotationStore.Builder annotationsBuilder = new GoAnnotationStore.Builder();
             log.info("Reading gene GO annotations from {} while excluding qualifiers beginning with NOT.", gene2go);
-            int numAnnotations = 0;
-            try (final BufferedReader br = FileUtilities.getReaderFromFile(gene2go)) {
-                final Iterator<String> lineIt = br.lines().iterator();
-                while (lineIt.hasNext()) {
-                    String line = lineIt.next();
-                    if (line.startsWith("#"))
-                        continue;
+            try (GeneInfoReader reader = new GeneInfoReader(gene2go)) {
+                GeneInfoRecord record;
+                while ((record = reader.next()) != null) {
                     // #tax_id GeneID  GO_ID   Evidence        Qualifier       GO_term PubMed  Category
                     // 3702    814630  GO:0003700      ISS     enables DNA-binding transcription factor activity       11118137        Function
                     // 3702    814652  GO:0005794      RCA     NOT located_in  Golgi apparatus 22430844        Component
-                    final String[] split = line.split("\\t", 6);
-                    String geneId = split[1].intern();
-                    if (totalGeneIds.contains(geneId)) {
-                        String goId = split[2];
-                        String qualifier = split[4];
-                        if (!qualifier.startsWith("NOT")) {
-                            geneAnnotations.put(geneId, new String[]{goId, qualifier});
-                            ++numAnnotations;
-                        }
-                    }
+                    int geneId = record.numericField(1);
+                    if (geneId < 0)
+                        geneId = geneIdCodec.lookup(record.field(1));
+                    if (totalGeneIds.contains(geneId) && !record.fieldStartsWith(4, "NOT"))
+                        annotationsBuilder.add(geneId, record.field(2), record.field(4));
                 }
             }
-            log.info("Received {} GO annotations for {} genes.", numAnnotations, geneAnnotations.keySet().size());
-            return conceptStream.map(concept -> {
+            GoAnnotationStore geneAnnotations = annotationsBuilder.build();
+            log.info("Received {} GO annotations for {} genes.", geneAnnotations.getNumAnnotations(), geneAnnotations.getNumGenes());
+            return conceptStream -> conceptStream.map(concept -> {
                         if (concept.generalLabels != null && concept.generalLabels.contains(ConceptLabels.ID_MAP_NCBI_GENES.name())) {
-                            final Collection<String[]> annotations = geneAnnotations.get(concept.coordinates.originalId);
-                            if (annotations != null) {
-                                log.trace("Retrieved GO annotation {} for gene {}", annotations, concept.coordinates.originalId);
-                                for (String[] annotation : annotations) {
-                                    String goId = annotation[0];
-                                    String qualifier = annotation[1];
-                                    final ImportConceptRelationship annotatedWith = new ImportConceptRelationship(new ConceptCoordinates(goId, goOriginalSourceName, CoordinateType.OSRC), "IS_ANNOTATED_WITH");
-                                    annotatedWith.addProperty("qualifier", qualifier);
-                                    concept.addRelationship(annotatedWith);
-                                }
-                            }
+                            geneAnnotations.forEachAnnotation(geneIdCodec.lookup(concept.coordinates.originalId), (goId, qualifier) -> {
+                                log.trace("Retrieved GO annotation {} with qualifier {} for gene {}", goId, qualifier, concept.coordinates.originalId);
+                                final ImportConceptRelationship annotatedWith = new ImportConceptRelationship(new ConceptCoordinates(goId, goOriginalSourceName, CoordinateType.OSRC), "IS_ANNOTATED_WITH");
+                                annotatedWith.addProperty("qualifier", qualifier);
+                                concept.addRelationship(annotatedWith);
+                            });
                         }
                         return concept;
                     }
             );
         }
-        return conceptStream;
+        return UnaryOperator.identity();
     }
 
-    private Stream<ImportConcept> createDbXRefMappings(Stream<ImportConcept> conceptStream) {
+    private UnaryOperator<Stream<ImportConcept>> createDbXRefMappings() {
         log.info("Adding dbXref items to the concept stream.");
-        return conceptStream.flatMap(concept -> {
+        return conceptStream -> conceptStream.flatMap(concept -> {
             List<ImportConcept> returnedConcepts = new ArrayList<>();
             returnedConcepts.add(concept);
             // this concept could also be a non-ncbi-gene-concept but UniProt for the UniProt ID mapping
             if (concept.generalLabels != null && concept.generalLabels.contains(ConceptLabels.ID_MAP_NCBI_GENES.name())) {
                 // we read this property from gene_info in createGeneConcept()
-                final String dbXrefsString = (String) concept.additionalProperties.get("dbXrefs");
-                concept.additionalProperties.remove("dbXrefs");
-                final String[] dbXrefs = dbXrefsString.split("\\|");
+                @SuppressWarnings("unchecked")
+                final List<String> dbXrefs = (List<String>) concept.additionalProperties.remove("dbXrefs");
                 for (String dbXref : dbXrefs) {
                     String refId = null;
                     String refSource = null;
                     String refLabel = null;
-                    // All items read here need to be taken into account in getTotalGeneIds() for the count of concepts reported to the concept importer
+                    // All items read here need to be listed in IMPORTED_DBXREF_PREFIXES for the count of concepts reported to the concept importer
                     if (dbXref.startsWith("Ensembl:")) {
                         refId = dbXref.substring(8);
                         refSource = "Ensembl";
@@ -727,42 +719,40 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         });
     }
 
-    private Stream<ImportConcept> createUniProtIdMappings(Stream<ImportConcept> conceptStream, File uniprotIdMappingFile, Set<String> totalGeneIds) throws IOException, IndexCreationException {
+    /**
+     * Creates the stage adding UniProt concepts mapped to the gene concepts. A UniProt concept is created for each
+     * gene it is mapped to; {@link #removeDuplicateUniProtConcepts(Stream)} keeps only the first one. This way, the
+     * stage does not depend on the order of the genes.
+     */
+    private UnaryOperator<Stream<ImportConcept>> createUniProtIdMappings(File uniprotIdMappingFile, IntSet totalGeneIds) throws IOException {
         if (uniprotIdMappingFile != null) {
-            log.info("Creating index for UniProt ID mapping file {} to save memory.", uniprotIdMappingFile);
-            final PersistentLuceneIndexStringArrayMapProvider mappingIndex = new PersistentLuceneIndexStringArrayMapProvider();
-            mappingIndex.setIndexDirectoryPath(cacheDir);
-            mappingIndex.setEligibleKeys(totalGeneIds);
-            // in the UniProt mapping file, gene IDs appear in the third column
-            mappingIndex.setKeyIndices(2);
-            // the first column is the UP Accession, the second the mnemonic
-            mappingIndex.setValueIndices(0, 1);
-            mappingIndex.load(uniprotIdMappingFile.toURI());
-            final Map<String, String[]> indexMap = mappingIndex.getMap();
-            uniProtConceptCounter += indexMap.size();
-            Set<String> seenUpAcs = new HashSet<>();
+            final UniProtIdMappingTable mappingTable = UniProtIdMappingTable.open(uniprotIdMappingFile, cacheDir.resolve(UNIPROT_ID_MAPPING_TABLE_DIR));
+            int[] genesWithMappings = new int[1];
+            totalGeneIds.forEach(geneId -> {
+                if (mappingTable.contains(geneId))
+                    ++genesWithMappings[0];
+            });
+            uniProtConceptCounter += genesWithMappings[0];
             log.info("Creating updated gene concept stream with additional IDs.");
-            return conceptStream.flatMap(concept -> {
+            return conceptStream -> conceptStream.flatMap(concept -> {
                 List<ImportConcept> returnedConcepts = new ArrayList<>();
                 returnedConcepts.add(concept);
                 // Not every gene ID corresponds to some UniProt entry
-                final String[] upIds = indexMap.get(concept.coordinates.originalId);
+                final String[] upIds = mappingTable.getAcsAndIds(concept.coordinates.originalId);
                 if (upIds != null) {
                     if (upIds.length % 2 == 1)
                         throw new IllegalStateException("An uneven number of UniProt ACs/IDs was returned but there should be pairs of ACs and IDs.");
 
-                    for (int i = 1; i < upIds.length; i++) {
+                    for (int i = 1; i < upIds.length; i += 2) {
                         String upAc = upIds[i-1];
-                        if (seenUpAcs.add(upAc)) {
-                            String upId = upIds[i];
-                            final ImportConcept upConcept = new ImportConcept(new ConceptCoordinates(upAc, "UniProtKB-AC", upAc, "UniProtKB-AC"));
-                            upConcept.addGeneralLabel("UNIPROT");
-                            upConcept.eligibleForFacetRoot = false;
-                            upConcept.addAdditionalCoordinates(new ConceptCoordinates( upId,"UniProtKB-ID", CoordinateType.SRC));
-                            upConcept.addAdditionalProperty("UniProtKB-ID", upId);
-                            upConcept.addRelationship(new ImportConceptRelationship(concept.coordinates, "IS_MAPPED_TO"));
-                            returnedConcepts.add(upConcept);
-                        }
+                        String upId = upIds[i];
+                        final ImportConcept upConcept = new ImportConcept(new ConceptCoordinates(upAc, "UniProtKB-AC", upAc, "UniProtKB-AC"));
+                        upConcept.addGeneralLabel("UNIPROT");
+                        upConcept.eligibleForFacetRoot = false;
+                        upConcept.addAdditionalCoordinates(new ConceptCoordinates( upId,"UniProtKB-ID", CoordinateType.SRC));
+                        upConcept.addAdditionalProperty("UniProtKB-ID", upId);
+                        upConcept.addRelationship(new ImportConceptRelationship(concept.coordinates, "IS_MAPPED_TO"));
+                        returnedConcepts.add(upConcept);
                     }
                 }
 
@@ -771,52 +761,16 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
         } else {
             log.info("UniProt ID mapping file not specified or not found, skipping UniProt ID mappings.");
         }
-        return conceptStream;
+        return UnaryOperator.identity();
     }
 
-    private Set<String> getTotalGeneIds(File geneInfo, Set<String> organismSet) throws IOException {
-        Set<String> geneIdSet = Collections.emptySet();
-        Path genesetCacheFile = Path.of(cacheDir.toString(), "totalGeneIds.ser.gz");
-        boolean geneInfoNewerThanCache = Files.exists(genesetCacheFile) && geneInfo.lastModified() > Files.getLastModifiedTime(genesetCacheFile).toMillis();
-        if (geneInfoNewerThanCache) {
-            log.info("gene_info file at {} is newer than cache at {}. Clearing cache and reading gene_info file from scratch.", geneInfoNewerThanCache, genesetCacheFile);
-            FileUtils.deleteQuietly(genesetCacheFile.toFile());
-        }
-        boolean readFromCache = Files.exists(genesetCacheFile) && !geneInfoNewerThanCache;
-        if (readFromCache) {
-            log.info("Loading set of gene IDs in gene_info from cache at {}", genesetCacheFile);
-            try (final ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(FileUtilities.getInputStreamFromFile(genesetCacheFile.toFile())))) {
-                geneIdSet = (Set<String>) ois.readObject();
-                dbXRefCounter = (int) ois.readObject();
-                log.info("Obtained {} gene IDs and {} dbXref IDs in the cache.", geneIdSet.size(), dbXRefCounter);
-            } catch (ClassNotFoundException e) {
-                // this should really not happen with Java built-in classes
-                log.error("Unexpected error when trying to read gene ID set cache from {}. Perhaps the cache is corrupt. Trying to delete it and start again.");
-                FileUtils.deleteQuietly(genesetCacheFile.toFile());
-                readFromCache = true;
-            }
-        }
-        if (!readFromCache) {
-            try (BufferedReader bw = FileUtilities.getReaderFromFile(geneInfo)) {
-                final AtomicInteger dbXrefAtomicCounter = new AtomicInteger();
-                geneIdSet = bw.lines()
-                        .filter(record -> !record.startsWith("#"))
-                        .map(record -> record.split("\t", 6))
-                        .filter(split -> organismSet.contains(split[0]) || organismSet.isEmpty())
-                        // This list of dbXref items must correspond to the items actually read in createDbXRefMappings()
-                        .peek(split -> dbXrefAtomicCounter.addAndGet((int) Arrays.stream(split[5].split("\\|")).filter(dbXref -> dbXref.startsWith("Ensembl:") || dbXref.startsWith("HGNC:")).count()))
-                        .map(split -> split[1].intern())
-                        .collect(Collectors.toSet());
-                dbXRefCounter += dbXrefAtomicCounter.get();
-                log.info("Received {} dbXref IDs which will result in additional concepts for the ID mapping", dbXRefCounter);
-            }
-            try (final ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(FileUtilities.getOutputStreamToFile(genesetCacheFile.toFile())))) {
-                log.info("Caching geneId set read from {} at {}", geneInfo, genesetCacheFile);
-                oos.writeObject(geneIdSet);
-                oos.writeObject(dbXRefCounter);
-            }
-        }
-        return geneIdSet;
+    /**
+     * Removes all but the first UniProt concept for each UniProt accession. Must be applied to the ordered, sequential
+     * concept stream.
+     */
+    private Stream<ImportConcept> removeDuplicateUniProtConcepts(Stream<ImportConcept> conceptStream) {
+        Set<String> seenUpAcs = new HashSet<>();
+        return conceptStream.filter(concept -> concept.generalLabels == null || !concept.generalLabels.contains("UNIPROT") || seenUpAcs.add(concept.coordinates.originalId));
     }
 
     /**
@@ -843,17 +797,6 @@ public class NCBIGeneConceptCreator implements ConceptCreator {
     // This connection was loosened for less cumbersome dependencies.
     public enum ConceptLabels implements Label {NO_PROCESSING_GAZETTEER, NO_SUGGESTIONS, NO_QUERY_DICTIONARY, ID_MAP_NCBI_GENES}
 
-    private class TaxonomyRecord {
-        @SuppressWarnings("unused")
-        String taxId;
-        String scientificName;
-        String geneBankCommonName;
-
-        public TaxonomyRecord(String taxId) {
-            this.taxId = taxId.intern();
-        }
-    }
-
     private class HomologeneRecord {
         @SuppressWarnings("unused")
         String taxId;
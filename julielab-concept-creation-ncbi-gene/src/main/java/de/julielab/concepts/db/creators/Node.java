@@ -3,31 +3,73 @@ package de.julielab.concepts.db.creators;
 import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
 import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class Node {
-    private Set<Node> parents;
+    private static final Node[] NO_PARENTS = new Node[0];
+    /**
+     * The distinct parents of this node. Most nodes have no or a single parent, thus an exactly sized array is used
+     * instead of a set. Nodes without parents share the same empty array.
+     */
+    private Node[] parents = NO_PARENTS;
     private ImportConcept concept;
     private ConceptCoordinates id;
+    /**
+     * The forest this node belongs to, notified about new parents so it can invalidate its cached roots.
+     */
+    private Forest forest;
 
 
     public Node(ConceptCoordinates id) {
         this.id = id;
     }
 
-    public void addParent(Node parent) {
-        if (parents == null)
-            parents = new HashSet<>();
-        parents.add(parent);
+    /**
+     * Adds <tt>parent</tt> if it is not already a parent of this node.
+     *
+     * @param parent The new parent.
+     * @return <tt>true</tt> if <tt>parent</tt> has been added, <tt>false</tt> if it was already a parent.
+     */
+    public boolean addParent(Node parent) {
+        for (Node p : parents) {
+            if (p == parent)
+                return false;
+        }
+        parents = Arrays.copyOf(parents, parents.length + 1);
+        parents[parents.length - 1] = parent;
+        if (forest != null)
+            forest.invalidateRoots();
+        return true;
     }
 
-    public Set<Node> getParents() {
-        return parents;
+    /**
+     * @return An unmodifiable view on the parents of this node, empty if there are none.
+     */
+    public List<Node> getParents() {
+        return Collections.unmodifiableList(Arrays.asList(parents));
     }
 
-    public void setParents(Set<Node> parents) {
-        this.parents = parents;
+    public void setParents(Collection<Node> parents) {
+        this.parents = NO_PARENTS;
+        if (forest != null)
+            forest.invalidateRoots();
+        if (parents != null)
+            parents.forEach(this::addParent);
+    }
+
+    int getNumParents() {
+        return parents.length;
+    }
+
+    Node getParent(int index) {
+        return parents[index];
+    }
+
+    void setForest(Forest forest) {
+        this.forest = forest;
     }
 
     public ImportConcept getConcept() {
@@ -0,0 +1,73 @@
+package de.julielab.concepts.db.creators;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A set of NCBI Taxonomy IDs that can be matched against the raw bytes of a file without decoding them. IDs of up to
+ * eight ASCII characters - this includes all numerical taxonomy IDs - are packed into a <tt>long</tt> and found by
+ * binary search. Longer IDs are compared as strings.
+ */
+public class TaxIdFilter {
+    private final boolean acceptsAll;
+    private final long[] packedIds;
+    private final Set<String> longIds = new HashSet<>();
+
+    /**
+     * @param taxIds The accepted taxonomy IDs. An empty set accepts all IDs.
+     */
+    public TaxIdFilter(Set<String> taxIds) {
+        acceptsAll = taxIds.isEmpty();
+        long[] packed = new long[taxIds.size()];
+        int numPacked = 0;
+        for (String taxId : taxIds) {
+            byte[] bytes = taxId.trim().getBytes(UTF_8);
+            long packedId = pack(bytes, 0, bytes.length);
+            if (packedId >= 0)
+                packed[numPacked++] = packedId;
+            else
+                longIds.add(taxId.trim());
+        }
+        packedIds = Arrays.copyOf(packed, numPacked);
+        Arrays.sort(packedIds);
+    }
+
+    /**
+     * @return A packed representation of the given bytes or -1 if they are too long to be packed.
+     */
+    private static long pack(byte[] bytes, int start, int end) {
+        if (end - start > 8 || (end - start == 8 && bytes[start] < 0))
+            return -1;
+        long packed = 0;
+        for (int i = start; i < end; i++)
+            packed = packed << 8 | (bytes[i] & 0xff);
+        return packed;
+    }
+
+    public boolean acceptsAll() {
+        return acceptsAll;
+    }
+
+    /**
+     * @param buffer A buffer containing a taxonomy ID.
+     * @param start  The start offset of the ID in <tt>buffer</tt>.
+     * @param end    The end offset of the ID in <tt>buffer</tt>, exclusive.
+     * @return Whether the ID is accepted.
+     */
+    public boolean accepts(byte[] buffer, int start, int end) {
+        if (acceptsAll)
+            return true;
+        long packed = pack(buffer, start, end);
+        if (packed >= 0)
+            return Arrays.binarySearch(packedIds, packed) >= 0;
+        return !longIds.isEmpty() && longIds.contains(new String(buffer, start, end - start, UTF_8));
+    }
+
+    public boolean accepts(String taxId) {
+        byte[] bytes = taxId.getBytes(UTF_8);
+        return accepts(bytes, 0, bytes.length);
+    }
+}
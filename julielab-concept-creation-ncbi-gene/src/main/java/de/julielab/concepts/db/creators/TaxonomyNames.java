@@ -0,0 +1,144 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.java.utilities.FileUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static de.julielab.concepts.util.CacheIO.readCount;
+import static de.julielab.concepts.util.CacheIO.readString;
+import static de.julielab.concepts.util.CacheIO.writeString;
+
+/**
+ * <p>
+ * The species names of the selected organisms from the NCBI Taxonomy <tt>names.dmp</tt> file.
+ * </p>
+ * <p>
+ * <tt>names.dmp</tt> has millions of lines. Its fields are separated by <tt>\t|\t</tt>, thus it is read with the
+ * {@link GeneInfoReader} where the field separators become fields of their own. Lines of taxa that are not selected
+ * are discarded by their raw bytes. The species names of the selected taxa are cached in a small binary file and
+ * reused as long as <tt>names.dmp</tt> and the organism selection do not change.
+ * </p>
+ */
+public class TaxonomyNames {
+    private static final Logger log = LoggerFactory.getLogger(TaxonomyNames.class);
+    private static final int MAGIC = 0x54584e4d;
+    private static final int VERSION = 1;
+    // The field indices in names.dmp, counting the '|' separators as fields.
+    private static final int NAME = 2;
+    private static final int NAME_CLASS = 6;
+    private final Map<String, String> taxId2SpeciesName;
+
+    private TaxonomyNames(Map<String, String> taxId2SpeciesName) {
+        this.taxId2SpeciesName = taxId2SpeciesName;
+    }
+
+    /**
+     * Returns the names of the given organisms, either from the cache or by reading <tt>namesDmp</tt>.
+     *
+     * @param namesDmp    The names.dmp file, possibly gzipped.
+     * @param organismSet The taxonomy IDs of the organisms to get the names for. An empty set selects all organisms.
+     * @param cacheFile   The cache file.
+     * @return The names of the selected organisms.
+     * @throws IOException If reading or writing fails.
+     */
+    public static TaxonomyNames load(File namesDmp, Set<String> organismSet, Path cacheFile) throws IOException {
+        String cacheKey = getCacheKey(namesDmp, organismSet);
+        if (Files.exists(cacheFile)) {
+            TaxonomyNames cached = readCache(cacheFile, cacheKey);
+            if (cached != null)
+                return cached;
+            log.info("The taxonomy names cache at {} does not match {} and the organism list. Reading the names from scratch.", cacheFile, namesDmp);
+        }
+        TaxIdFilter taxIdFilter = new TaxIdFilter(organismSet);
+        Map<String, String> scientificNames = new HashMap<>();
+        Map<String, String> commonNames = new HashMap<>();
+        try (GeneInfoReader reader = new GeneInfoReader(FileUtilities.getInputStreamFromFile(namesDmp))) {
+            GeneInfoRecord record;
+            while ((record = reader.next()) != null) {
+                // 9606	|	Homo sapiens	|		|	scientific name	|
+                // 9606	|	human	|		|	genbank common name	|
+                if (!record.hasTaxId(taxIdFilter))
+                    continue;
+                if (record.fieldEquals(NAME_CLASS, "scientific name"))
+                    scientificNames.put(record.taxId(), record.field(NAME));
+                else if (record.fieldEquals(NAME_CLASS, "genbank common name"))
+                    commonNames.put(record.taxId(), record.field(NAME));
+            }
+        }
+        Map<String, String> taxId2SpeciesName = new HashMap<>(scientificNames.size() * 2);
+        for (String taxId : scientificNames.keySet()) {
+            String commonName = commonNames.get(taxId);
+            taxId2SpeciesName.put(taxId, commonName != null ? scientificNames.get(taxId) + " (" + commonName + ")" : scientificNames.get(taxId));
+        }
+        log.info("Read the names of {} organisms from {}", taxId2SpeciesName.size(), namesDmp);
+        writeCache(cacheFile, cacheKey, taxId2SpeciesName);
+        return new TaxonomyNames(taxId2SpeciesName);
+    }
+
+    /**
+     * The cache is valid for a specific version of a specific names.dmp file and a specific organism selection.
+     */
+    private static String getCacheKey(File namesDmp, Set<String> organismSet) {
+        return namesDmp.getAbsolutePath() + "|" + namesDmp.length() + "|" + namesDmp.lastModified() + "|" + String.join(",", new TreeSet<>(organismSet));
+    }
+
+    private static void writeCache(Path cacheFile, String cacheKey, Map<String, String> taxId2SpeciesName) throws IOException {
+        Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            writeString(dos, cacheKey);
+            dos.writeInt(taxId2SpeciesName.size());
+            for (Map.Entry<String, String> entry : taxId2SpeciesName.entrySet()) {
+                writeString(dos, entry.getKey());
+                writeString(dos, entry.getValue());
+            }
+        }
+        Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static TaxonomyNames readCache(Path cacheFile, String cacheKey) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(cacheFile));
+            if (bb.getInt() != MAGIC || bb.getInt() != VERSION || !cacheKey.equals(readString(bb)))
+                return null;
+            // each organism has at least the lengths of its ID and its name
+            int numTaxa = readCount(bb, 8);
+            Map<String, String> taxId2SpeciesName = new HashMap<>(numTaxa * 2);
+            for (int i = 0; i < numTaxa; i++)
+                taxId2SpeciesName.put(readString(bb), readString(bb));
+            log.info("Loaded the names of {} organisms from the cache at {}", numTaxa, cacheFile);
+            return new TaxonomyNames(taxId2SpeciesName);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Could not read the taxonomy names cache from {}. Perhaps the cache is corrupt.", cacheFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param taxId A taxonomy ID.
+     * @return The scientific name of the organism, followed by its GenBank common name in parentheses, if it has
+     * one. <tt>null</tt> if the organism is unknown or was not selected.
+     */
+    public String getSpeciesName(String taxId) {
+        return taxId2SpeciesName.get(taxId);
+    }
+
+    /**
+     * @return The number of organisms with a name.
+     */
+    public int size() {
+        return taxId2SpeciesName.size();
+    }
+}
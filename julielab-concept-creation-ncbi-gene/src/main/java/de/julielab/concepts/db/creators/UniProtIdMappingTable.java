@@ -0,0 +1,374 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.java.utilities.FileUtilities;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>
+ * A lookup table from NCBI Gene IDs to the UniProt accessions and entry names mapped to them, built from the UniProt
+ * <tt>idmapping_selected.tab</tt> file. The first three columns of that file are the UniProtKB-AC, the UniProtKB-ID
+ * and the NCBI Gene IDs of an entry, where multiple gene IDs are separated by semicolons.
+ * </p>
+ * <p>
+ * The table is stored in a directory of three files that are memory-mapped for lookup:
+ * </p>
+ * <ul>
+ *     <li><tt>keys</tt>: the sorted gene IDs as 4-byte integers,</li>
+ *     <li><tt>offsets</tt>: for each gene ID the start offset of its entries in <tt>values</tt> as 8-byte integers,
+ *     followed by the end offset of the last gene's entries,</li>
+ *     <li><tt>values</tt>: the UniProt entries grouped by gene ID, each entry consisting of the length-prefixed UTF-8
+ *     bytes of its accession and name.</li>
+ * </ul>
+ * <p>
+ * Genes are found by binary search in <tt>keys</tt>. The entries of a gene are in the order of the mapping file. The
+ * table is built with an external merge sort and thus needs only bounded memory. A <tt>header</tt> file holds the
+ * CRC32C checksum of the mapping file. When the checksum changes, the table is rebuilt. Only numerical gene IDs, i.e.
+ * all official NCBI Gene IDs, are stored. The table is safe to use from multiple threads.
+ * </p>
+ */
+public class UniProtIdMappingTable {
+    private static final Logger log = LoggerFactory.getLogger(UniProtIdMappingTable.class);
+    private static final int MAGIC = 0x55504d54;
+    private static final int VERSION = 1;
+    private static final String HEADER_FILE = "header";
+    private static final String KEYS_FILE = "keys";
+    private static final String OFFSETS_FILE = "offsets";
+    private static final String VALUES_FILE = "values";
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    /**
+     * The number of mapping records sorted in memory before they are written to a sorted run file.
+     */
+    private static final int RUN_SIZE = 1 << 22;
+    private final IntBuffer keys;
+    private final LongBuffer offsets;
+    private final ByteBuffer[] valueSegments;
+    private final int numKeys;
+
+    private UniProtIdMappingTable(Path tableDir) throws IOException {
+        // The mappings stay valid after the channels are closed
+        try (FileChannel keysChannel = FileChannel.open(tableDir.resolve(KEYS_FILE), StandardOpenOption.READ);
+             FileChannel offsetsChannel = FileChannel.open(tableDir.resolve(OFFSETS_FILE), StandardOpenOption.READ);
+             FileChannel valuesChannel = FileChannel.open(tableDir.resolve(VALUES_FILE), StandardOpenOption.READ)) {
+            keys = keysChannel.map(FileChannel.MapMode.READ_ONLY, 0, keysChannel.size()).asIntBuffer();
+            offsets = offsetsChannel.map(FileChannel.MapMode.READ_ONLY, 0, offsetsChannel.size()).asLongBuffer();
+            numKeys = keys.limit();
+            if (offsets.limit() != numKeys + 1)
+                throw new IOException("The UniProt ID mapping table at " + tableDir + " is corrupt: there are " + numKeys + " keys but " + offsets.limit() + " offsets.");
+            long valuesSize = valuesChannel.size();
+            valueSegments = new ByteBuffer[(int) ((valuesSize + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < valueSegments.length; i++) {
+                long segmentStart = (long) i << SEGMENT_BITS;
+                valueSegments[i] = valuesChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart, Math.min(SEGMENT_MASK + 1, valuesSize - segmentStart));
+            }
+        }
+    }
+
+    /**
+     * Opens the table for <tt>idMapping</tt> in <tt>tableDir</tt>. If there is no table or it has been built from
+     * a file with a different checksum, the table is built first.
+     *
+     * @param idMapping The UniProt ID mapping file, possibly gzipped.
+     * @param tableDir  The directory of the table.
+     * @return The opened table.
+     * @throws IOException If reading or building the table fails.
+     */
+    public static UniProtIdMappingTable open(File idMapping, Path tableDir) throws IOException {
+        return open(idMapping, tableDir, RUN_SIZE);
+    }
+
+    /**
+     * Like {@link #open(File, Path)} but sorts the given number of records in memory when building the table. Small
+     * run sizes allow tests to build tables from multiple runs.
+     */
+    static UniProtIdMappingTable open(File idMapping, Path tableDir, int runSize) throws IOException {
+        long checksum = checksum(idMapping);
+        if (!hasValidHeader(tableDir, checksum)) {
+            log.info("Building the UniProt ID mapping table for {} at {}", idMapping, tableDir);
+            build(idMapping, tableDir, checksum, runSize);
+        } else {
+            log.info("Using the existing UniProt ID mapping table for {} at {}", idMapping, tableDir);
+        }
+        return new UniProtIdMappingTable(tableDir);
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static boolean hasValidHeader(Path tableDir, long checksum) {
+        Path header = tableDir.resolve(HEADER_FILE);
+        if (!Files.exists(header))
+            return false;
+        try (DataInputStream dis = new DataInputStream(Files.newInputStream(header))) {
+            return dis.readInt() == MAGIC && dis.readInt() == VERSION && dis.readLong() == checksum;
+        } catch (IOException e) {
+            log.warn("Could not read the header of the UniProt ID mapping table at {}. The table is rebuilt.", tableDir, e);
+            return false;
+        }
+    }
+
+    private static void build(File idMapping, Path tableDir, long checksum, int runSize) throws IOException {
+        // Remove the header first so that an interrupted build is not taken for a valid table
+        Files.deleteIfExists(tableDir.resolve(HEADER_FILE));
+        Files.createDirectories(tableDir);
+        Path runDir = Files.createTempDirectory(tableDir, "runs");
+        try {
+            List<Path> runs = writeSortedRuns(idMapping, runDir, runSize);
+            mergeRuns(runs, tableDir);
+        } finally {
+            FileUtils.deleteQuietly(runDir.toFile());
+        }
+        try (DataOutputStream dos = new DataOutputStream(Files.newOutputStream(tableDir.resolve(HEADER_FILE)))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeLong(checksum);
+        }
+    }
+
+    /**
+     * Reads the mapping file and writes its (gene ID, entry) records in sorted runs of at most <tt>runSize</tt>
+     * records. Within a run, records with the same gene ID keep the order of the file.
+     */
+    private static List<Path> writeSortedRuns(File idMapping, Path runDir, int runSize) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream(1 << 20);
+        int[] entryOffsets = new int[runSize + 1];
+        long[] sortKeys = new long[runSize];
+        int numRecords = 0;
+        long numLines = 0;
+        try (GeneInfoReader reader = new GeneInfoReader(FileUtilities.getInputStreamFromFile(idMapping))) {
+            GeneInfoRecord record;
+            while ((record = reader.next()) != null) {
+                ++numLines;
+                String geneIds = record.field(2);
+                if (geneIds.isEmpty())
+                    continue;
+                int entryOffset = entries.size();
+                writeEntry(entries, record.field(0), record.field(1));
+                for (String geneIdString : geneIds.split("[|,;]")) {
+                    int geneId = GeneIdCodec.parseNumeric(geneIdString.trim());
+                    if (geneId < 0)
+                        continue;
+                    if (numRecords == runSize) {
+                        runs.add(writeRun(runDir, runs.size(), entries.toByteArray(), entryOffsets, sortKeys, numRecords));
+                        // Keep the current entry for the remaining gene IDs of this line
+                        byte[] currentEntry = Arrays.copyOfRange(entries.toByteArray(), entryOffset, entries.size());
+                        entries.reset();
+                        entries.write(currentEntry);
+                        entryOffset = 0;
+                        numRecords = 0;
+                    }
+                    entryOffsets[numRecords] = entryOffset;
+                    // the record index keeps the sort stable
+                    sortKeys[numRecords] = (long) geneId << 32 | numRecords;
+                    ++numRecords;
+                }
+            }
+        }
+        if (numRecords > 0)
+            runs.add(writeRun(runDir, runs.size(), entries.toByteArray(), entryOffsets, sortKeys, numRecords));
+        log.info("Read {} lines of the UniProt ID mapping, sorted in {} runs.", numLines, runs.size());
+        return runs;
+    }
+
+    private static void writeEntry(OutputStream os, String ac, String id) throws IOException {
+        byte[] acBytes = ac.getBytes(UTF_8);
+        byte[] idBytes = id.getBytes(UTF_8);
+        if (acBytes.length > 255 || idBytes.length > 255)
+            throw new IllegalArgumentException("The UniProt accession " + ac + " or name " + id + " is too long.");
+        os.write(acBytes.length);
+        os.write(acBytes);
+        os.write(idBytes.length);
+        os.write(idBytes);
+    }
+
+    private static int entryLength(byte[] entries, int offset) {
+        int acLength = entries[offset] & 0xff;
+        return 2 + acLength + (entries[offset + 1 + acLength] & 0xff);
+    }
+
+    private static Path writeRun(Path runDir, int runNumber, byte[] entries, int[] entryOffsets, long[] sortKeys, int numRecords) throws IOException {
+        Arrays.sort(sortKeys, 0, numRecords);
+        Path run = runDir.resolve("run" + runNumber);
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < numRecords; i++) {
+                int entryOffset = entryOffsets[(int) sortKeys[i]];
+                dos.writeInt((int) (sortKeys[i] >>> 32));
+                dos.write(entries, entryOffset, entryLength(entries, entryOffset));
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the sorted runs into the table files. Records with the same gene ID from different runs are ordered by
+     * run number, thus the order of the mapping file is kept.
+     */
+    private static void mergeRuns(List<Path> runs, Path tableDir) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((r1, r2) -> r1.geneId != r2.geneId ? Integer.compare(r1.geneId, r2.geneId) : Integer.compare(r1.runNumber, r2.runNumber));
+        try (DataOutputStream keysOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableDir.resolve(KEYS_FILE)), 1 << 16));
+             DataOutputStream offsetsOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableDir.resolve(OFFSETS_FILE)), 1 << 16));
+             OutputStream valuesOs = new BufferedOutputStream(Files.newOutputStream(tableDir.resolve(VALUES_FILE)), 1 << 16)) {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader runReader = new RunReader(runs.get(i), i);
+                if (runReader.advance())
+                    queue.add(runReader);
+                else
+                    runReader.close();
+            }
+            long valuesOffset = 0;
+            int numKeys = 0;
+            int lastGeneId = -1;
+            while (!queue.isEmpty()) {
+                RunReader runReader = queue.poll();
+                if (runReader.geneId != lastGeneId) {
+                    keysOs.writeInt(runReader.geneId);
+                    offsetsOs.writeLong(valuesOffset);
+                    lastGeneId = runReader.geneId;
+                    ++numKeys;
+                }
+                valuesOs.write(runReader.entry, 0, runReader.entryLength);
+                valuesOffset += runReader.entryLength;
+                if (runReader.advance())
+                    queue.add(runReader);
+                else
+                    runReader.close();
+            }
+            offsetsOs.writeLong(valuesOffset);
+            log.info("Wrote UniProt ID mappings of {} genes with {} bytes of UniProt entries.", numKeys, valuesOffset);
+        } finally {
+            for (RunReader runReader : queue)
+                runReader.close();
+        }
+    }
+
+    private int findKey(int geneId) {
+        int low = 0;
+        int high = numKeys - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int key = keys.get(mid);
+            if (key < geneId)
+                low = mid + 1;
+            else if (key > geneId)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    private byte get(long position) {
+        return valueSegments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private String getString(long position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = get(position + i);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @param geneId An NCBI Gene ID.
+     * @return Whether there are UniProt entries mapped to the gene.
+     */
+    public boolean contains(int geneId) {
+        return findKey(geneId) >= 0;
+    }
+
+    /**
+     * @param geneId An NCBI Gene ID.
+     * @return The UniProt accessions and entry names mapped to the gene as alternating array elements, i.e.
+     * <tt>[AC1, ID1, AC2, ID2, ...]</tt>, or <tt>null</tt> if there are none.
+     */
+    public String[] getAcsAndIds(String geneId) {
+        int index = findKey(GeneIdCodec.parseNumeric(geneId));
+        if (index < 0)
+            return null;
+        long position = offsets.get(index);
+        long end = offsets.get(index + 1);
+        List<String> acsAndIds = new ArrayList<>(2);
+        while (position < end) {
+            int acLength = get(position++) & 0xff;
+            acsAndIds.add(getString(position, acLength));
+            position += acLength;
+            int idLength = get(position++) & 0xff;
+            acsAndIds.add(getString(position, idLength));
+            position += idLength;
+        }
+        return acsAndIds.toArray(new String[0]);
+    }
+
+    /**
+     * @return The number of gene IDs with UniProt mappings.
+     */
+    public int size() {
+        return numKeys;
+    }
+
+    private static class RunReader implements Closeable {
+        private final DataInputStream is;
+        private final int runNumber;
+        private final byte[] entry = new byte[2 + 2 * 255];
+        private int geneId;
+        private int entryLength;
+
+        RunReader(Path run, int runNumber) throws IOException {
+            this.is = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+            this.runNumber = runNumber;
+        }
+
+        /**
+         * @return <tt>false</tt> if the end of the run has been reached.
+         */
+        boolean advance() throws IOException {
+            try {
+                geneId = is.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            int acLength = is.readUnsignedByte();
+            entry[0] = (byte) acLength;
+            is.readFully(entry, 1, acLength);
+            int idLength = is.readUnsignedByte();
+            entry[1 + acLength] = (byte) idLength;
+            is.readFully(entry, 2 + acLength, idLength);
+            entryLength = 2 + acLength + idLength;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            is.close();
+        }
+    }
+}
@@ -4,7 +4,10 @@ import de.julielab.concepts.db.core.services.ConceptCreationService;
 import de.julielab.concepts.db.core.services.ConceptInsertionService;
 import de.julielab.concepts.db.core.services.DatabaseOperationService;
 import de.julielab.concepts.db.core.services.FileConnectionService;
+import de.julielab.concepts.db.creators.GeneInfoIngestion;
+import de.julielab.concepts.db.creators.GeneInfoRecord;
 import de.julielab.concepts.db.creators.NCBIGeneConceptCreator;
+import de.julielab.concepts.db.creators.TaxIdFilter;
 import de.julielab.java.utilities.ConfigurationUtilities;
 import de.julielab.neo4j.plugins.auxiliaries.NodeUtilities;
 import de.julielab.neo4j.plugins.auxiliaries.PropertyUtilities;
@@ -28,6 +31,8 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -57,17 +62,18 @@ public class NCBIGeneConceptCreatorTest {
 
     @Test
     public void testCreateGeneConcepts() throws Exception {
-        Method method = NCBIGeneConceptCreator.class.getDeclaredMethod("createGeneConcept", String.class, Map.class);
+        Method method = NCBIGeneConceptCreator.class.getDeclaredMethod("createGeneConcept", GeneInfoRecord.class, Map.class);
         method.setAccessible(true);
         String geneRecord = "9606	3558	IL2	-	IL-2|TCGF|lymphokine	HGNC:6001|MIM:147680|HPRD:00979	4	4q26-q27	interleukin 2	protein-coding	IL2	interleukin 2	O	T cell growth factor|aldesleukin|interleukin-2|involved in regulation of T-cell clonal expansion	20140807";
         Map<String, String> gene2Summary = new HashMap<>();
         gene2Summary.put("3558", "This is a test summary.");
         NCBIGeneConceptCreator geneImporter = new NCBIGeneConceptCreator();
-        ImportConcept concept = (ImportConcept) method.invoke(geneImporter, geneRecord, gene2Summary);
+        ImportConcept concept = (ImportConcept) method.invoke(geneImporter, GeneInfoRecord.of(geneRecord), gene2Summary);
         assertEquals("IL2", concept.prefName);
         assertEquals("3558", concept.coordinates.originalId);
         assertNotNull("Additional properties are null", concept.additionalProperties);
         assertEquals("9606", concept.additionalProperties.get("taxId"));
+        assertThat(concept.additionalProperties.get("dbXrefs")).isEqualTo(List.of("HGNC:6001", "MIM:147680", "HPRD:00979"));
         assertNotNull(concept.descriptions);
         assertEquals(1, concept.descriptions.size());
         assertEquals("This is a test summary.", concept.descriptions.get(0));
@@ -82,14 +88,30 @@ public class NCBIGeneConceptCreatorTest {
                 concept.synonyms.toArray());
     }
 
+    @Test
+    public void testGeneInfoRecord() {
+        GeneInfoRecord record = GeneInfoRecord.of("9606	3558	IL2	-	IL-2|TCGF|lymphokine	HGNC:6001|MIM:147680|Ensembl:ENSG00000109471	4	4q26-q27	interleukin 2	protein-coding	IL2	interleukin 2	O	T cell growth factor|aldesleukin	20140807");
+        assertTrue(record.hasTaxId(new TaxIdFilter(Set.of("10090", "9606"))));
+        assertFalse(record.hasTaxId(new TaxIdFilter(Set.of("960", "96060"))));
+        assertTrue(record.hasTaxId(new TaxIdFilter(Collections.emptySet())));
+        assertEquals("3558", record.field(GeneInfoRecord.GENE_ID));
+        assertEquals("interleukin 2", record.field(GeneInfoRecord.FULL_NAME));
+        List<String> synonyms = new ArrayList<>();
+        record.forEachValue(GeneInfoRecord.SYNONYMS, synonyms::add);
+        assertThat(synonyms).containsExactly("IL-2", "TCGF", "lymphokine");
+        assertEquals(2, record.countValuesWithPrefix(GeneInfoRecord.DB_XREFS, "Ensembl:", "HGNC:"));
+    }
+
     @Test
     public void testConvertGeneInfoToTerms() throws Exception {
-        Method method = NCBIGeneConceptCreator.class.getDeclaredMethod("convertGeneInfoToImportConcepts", File.class, Set.class,
-                File.class);
+        Method method = NCBIGeneConceptCreator.class.getDeclaredMethod("convertGeneInfoToImportConcepts", File.class, File.class);
         method.setAccessible(true);
         NCBIGeneConceptCreator geneImporter = new NCBIGeneConceptCreator();
-        Stream<ImportConcept> conceptStream = (Stream<ImportConcept>) method.invoke(geneImporter, new File("src/test/resources/geneconcepts/gene_info_snippet"),
-                Set.of("9606", "10090", "9031"), new File("src/test/resources/geneconcepts/gene2Summary_snippet"));
+        // The records of the selected organisms are filtered by the ingestion
+        Path cacheDir = Files.createTempDirectory("geneinfocache");
+        GeneInfoIngestion ingestion = GeneInfoIngestion.ingest(new File("src/test/resources/geneconcepts/gene_info_snippet"), Set.of("9606", "10090", "9031"), cacheDir);
+        Stream<ImportConcept> conceptStream = (Stream<ImportConcept>) method.invoke(geneImporter, ingestion.getRecords().toFile(),
+                new File("src/test/resources/geneconcepts/gene2Summary_snippet"));
         assertNotNull(conceptStream);
         List<ImportConcept> conceptList = conceptStream.collect(Collectors.toList());
         assertThat(conceptList.indexOf(null)).isLessThan(0);
@@ -125,6 +147,7 @@ public class NCBIGeneConceptCreatorTest {
         assertNotNull(conceptsByGeneId.get("58"));
         // and chicken
         assertNotNull(conceptsByGeneId.get("421534"));
+        FileUtils.deleteDirectory(cacheDir.toFile());
     }
 
     @Test
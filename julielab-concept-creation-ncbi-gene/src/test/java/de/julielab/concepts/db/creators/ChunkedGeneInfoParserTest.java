@@ -0,0 +1,70 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChunkedGeneInfoParserTest {
+    private static final File GENE_INFO = new File("src/test/resources/geneconcepts/genes/gene_info_test");
+    private static final File GENE_SUMMARIES = new File("src/test/resources/geneconcepts/genes/gene2summary_test");
+
+    @Test
+    public void testParallelEqualsSequential() throws Exception {
+        NCBIGeneConceptCreator creator = new NCBIGeneConceptCreator();
+        List<String> sequential;
+        try (Stream<ImportConcept> concepts = creator.convertGeneInfoToImportConcepts(GENE_INFO, GENE_SUMMARIES)) {
+            sequential = concepts.map(this::describe).collect(Collectors.toList());
+        }
+        assertThat(sequential).hasSize(Files.readAllLines(GENE_INFO.toPath()).size());
+
+        // The records are much longer than the smallest chunk sizes, so nearly every chunk boundary falls into the
+        // middle of a record.
+        for (int chunkSize : new int[]{1, 7, 100, 1000, 4096, ChunkedGeneInfoParser.DEFAULT_CHUNK_SIZE}) {
+            for (int parsingThreads : new int[]{1, 3}) {
+                try (Stream<ImportConcept> concepts = creator.convertGeneInfoToImportConcepts(GENE_INFO, GENE_SUMMARIES, UnaryOperator.identity(), parsingThreads, chunkSize)) {
+                    assertThat(concepts.map(this::describe).collect(Collectors.toList())).as("chunk size " + chunkSize + ", " + parsingThreads + " threads").containsExactlyElementsOf(sequential);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChunkStages() throws Exception {
+        List<String> geneIds = Files.readAllLines(GENE_INFO.toPath()).stream().map(line -> line.split("\t")[1]).collect(Collectors.toList());
+        ChunkedGeneInfoParser parser = new ChunkedGeneInfoParser(GENE_INFO.toPath(), 4, 50);
+        try (Stream<String> ids = parser.parse(record -> record.field(GeneInfoRecord.GENE_ID), chunk -> chunk.map(id -> "gene" + id))) {
+            assertThat(ids.collect(Collectors.toList())).containsExactlyElementsOf(geneIds.stream().map(id -> "gene" + id).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testLastRecordWithoutLineBreak() throws Exception {
+        byte[] geneInfo = Files.readAllBytes(GENE_INFO.toPath());
+        Path withoutLastLineBreak = Files.createTempFile("gene_info", null);
+        try {
+            Files.write(withoutLastLineBreak, Arrays.copyOf(geneInfo, geneInfo.length - 1));
+            ChunkedGeneInfoParser parser = new ChunkedGeneInfoParser(withoutLastLineBreak, 2, 333);
+            try (Stream<String> ids = parser.parse(record -> record.field(GeneInfoRecord.GENE_ID), UnaryOperator.identity())) {
+                List<String> idList = ids.collect(Collectors.toList());
+                assertThat(idList).hasSize(Files.readAllLines(GENE_INFO.toPath()).size());
+                assertThat(idList).doesNotHaveDuplicates();
+            }
+        } finally {
+            Files.delete(withoutLastLineBreak);
+        }
+    }
+
+    private String describe(ImportConcept concept) {
+        return concept.coordinates.originalId + " " + concept.coordinates.originalSource + " " + concept.coordinates.sourceId + " " + concept.coordinates.source + " " + concept.prefName + " " + concept.synonyms + " " + concept.descriptions + " " + concept.additionalProperties;
+    }
+}
@@ -0,0 +1,68 @@
+package de.julielab.concepts.db.creators;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DisjointSetsTest {
+
+    @Test
+    public void testUnionsEqualNaiveLabels() {
+        Random random = new Random(1);
+        // starts too small on purpose so that the arrays have to grow
+        DisjointSets sets = new DisjointSets(2);
+        // the naive reference relabels a whole set on each union
+        int[] labels = new int[1000];
+        for (int i = 0; i < labels.length; i++) {
+            assertThat(sets.add()).isEqualTo(i);
+            labels[i] = i;
+        }
+        assertThat(sets.size()).isEqualTo(labels.length);
+
+        for (int round = 0; round < 2000; round++) {
+            int a = random.nextInt(labels.length);
+            int b = random.nextInt(labels.length);
+            int root = sets.union(a, b);
+            assertThat(sets.find(a)).isEqualTo(root);
+            assertThat(sets.find(b)).isEqualTo(root);
+            int oldLabel = labels[b];
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == oldLabel)
+                    labels[i] = labels[a];
+            }
+            if (round % 100 == 0) {
+                for (int i = 0; i < labels.length; i++) {
+                    for (int j = i + 1; j < labels.length; j += 17)
+                        assertThat(sets.find(i) == sets.find(j)).as(i + " and " + j).isEqualTo(labels[i] == labels[j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongChain() {
+        // A chain that would be deep without union by size; find must not recurse
+        DisjointSets sets = new DisjointSets();
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++)
+            sets.add();
+        for (int i = 1; i < n; i++)
+            sets.union(i, i - 1);
+        int root = sets.find(0);
+        for (int i = 0; i < n; i++)
+            assertThat(sets.find(i)).isEqualTo(root);
+    }
+
+    @Test
+    public void testFindOutOfRange() {
+        DisjointSets sets = new DisjointSets(4);
+        sets.add();
+        assertThat(sets.find(0)).isEqualTo(0);
+        assertThatThrownBy(() -> sets.find(1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> sets.find(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> new DisjointSets(0).find(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,143 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ForestTest {
+
+    @Test
+    public void testRootsEqualRecursiveWalk() {
+        for (long seed = 0; seed < 10; seed++) {
+            Random random = new Random(seed);
+            Forest forest = new Forest();
+            int numNodes = 300;
+            for (int i = 0; i < numNodes; i++)
+                forest.addNode(id(i));
+            // Edges only point to nodes with a higher number, thus the forest stays acyclic. The queries in between
+            // fill the cache that the next edge has to invalidate.
+            for (int edge = 0; edge < 400; edge++) {
+                int child = random.nextInt(numNodes - 1);
+                int parent = child + 1 + random.nextInt(Math.min(20, numNodes - child - 1));
+                forest.addNode(id(child), id(parent));
+                for (int query = 0; query < 5; query++) {
+                    ConceptCoordinates id = id(random.nextInt(numNodes));
+                    assertThat(forest.getRoots(id)).as("seed " + seed + ", node " + id).isEqualTo(recursiveRoots(forest.addNode(id)));
+                }
+            }
+            for (int i = 0; i < numNodes; i++)
+                assertThat(forest.getRoots(id(i))).isEqualTo(recursiveRoots(forest.addNode(id(i))));
+        }
+    }
+
+    @Test
+    public void testRootCache() {
+        Forest forest = new Forest();
+        Node gene = forest.addNode(id("gene"), id("cluster"));
+        Node cluster = forest.addNode(id("cluster"));
+        Set<Node> roots = forest.getRoots(id("gene"));
+        assertThat(roots).containsExactly(cluster);
+        assertThat(forest.getRoots(id("gene"))).isSameAs(roots);
+        // the gene has a single parent, so they share their root set
+        assertThat(forest.getRoots(id("cluster"))).isSameAs(roots);
+        assertThatThrownBy(() -> roots.add(gene)).isInstanceOf(UnsupportedOperationException.class);
+
+        // new nodes without parents don't change existing roots
+        forest.addNode(id("other"));
+        assertThat(forest.getRoots(id("gene"))).isSameAs(roots);
+        // adding an existing parent again changes nothing
+        assertThat(gene.addParent(cluster)).isFalse();
+        assertThat(forest.getRoots(id("gene"))).isSameAs(roots);
+
+        Node top = forest.addNode(id("top"));
+        cluster.addParent(top);
+        assertThat(forest.getRoots(id("gene"))).containsExactly(top);
+        assertThat(forest.getRoots(id("cluster"))).containsExactly(top);
+
+        gene.addParent(forest.addNode(id("other")));
+        assertThat(forest.getRoots(id("gene"))).containsExactlyInAnyOrder(top, forest.addNode(id("other")));
+        assertThatThrownBy(() -> forest.getRoot(id("gene"))).isInstanceOf(IllegalStateException.class);
+        assertThat(forest.getRoot(id("cluster"))).containsSame(top);
+
+        gene.setParents(List.of(top));
+        assertThat(forest.getRoots(id("gene"))).containsExactly(top);
+        gene.setParents(null);
+        assertThat(gene.getParents()).isEmpty();
+        assertThat(forest.getRoots(id("gene"))).containsExactly(gene);
+
+        assertThat(forest.getRoots(id("unknown"))).isEmpty();
+        assertThat(forest.getRoot(id("unknown"))).isEmpty();
+    }
+
+    @Test
+    public void testDeepHierarchy() {
+        // the recursive walk would overflow the stack on this chain
+        Forest forest = new Forest();
+        int depth = 200_000;
+        for (int i = 0; i < depth; i++)
+            forest.addNode(id(i), id(i + 1));
+        assertThat(forest.getRoots(id(0))).containsExactly(forest.addNode(id(depth)));
+        assertThat(forest.getRoots(id(depth / 2))).containsExactly(forest.addNode(id(depth)));
+    }
+
+    @Test
+    public void testCycle() {
+        Forest forest = new Forest();
+        forest.addNode(id("a"), id("b"));
+        forest.addNode(id("b"), id("a"));
+        forest.addNode(id("a"), id("root"));
+        forest.addNode(id("c"), id("b"));
+        Node root = forest.addNode(id("root"));
+        // every node of the cycle reaches the root, no matter where the walk enters the cycle
+        assertThat(forest.getRoots(id("c"))).containsExactly(root);
+        assertThat(forest.getRoots(id("b"))).containsExactly(root);
+        assertThat(forest.getRoots(id("a"))).containsExactly(root);
+
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            Forest cyclicForest = new Forest();
+            int numNodes = 60;
+            for (int i = 0; i < numNodes; i++)
+                cyclicForest.addNode(id(i));
+            for (int edge = 0; edge < 50; edge++) {
+                cyclicForest.addNode(id(random.nextInt(numNodes)), id(random.nextInt(numNodes)));
+                ConceptCoordinates id = id(random.nextInt(numNodes));
+                assertThat(cyclicForest.getRoots(id)).as("seed " + seed + ", node " + id).isEqualTo(reachableRoots(cyclicForest.addNode(id)));
+            }
+            for (int i = 0; i < numNodes; i++)
+                assertThat(cyclicForest.getRoots(id(i))).as("seed " + seed + ", node " + i).isEqualTo(reachableRoots(cyclicForest.addNode(id(i))));
+        }
+    }
+
+    /**
+     * The roots as determined before they were cached: a recursive walk through the parents.
+     */
+    private Set<Node> recursiveRoots(Node n) {
+        if (n.getParents().isEmpty())
+            return Set.of(n);
+        Set<Node> roots = new HashSet<>();
+        for (Node parent : n.getParents())
+            roots.addAll(recursiveRoots(parent));
+        return roots;
+    }
+
+    private Set<Node> reachableRoots(Node start) {
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> queue = new ArrayDeque<>(List.of(start));
+        while (!queue.isEmpty()) {
+            Node n = queue.poll();
+            if (visited.add(n))
+                queue.addAll(n.getParents());
+        }
+        return visited.stream().filter(n -> n.getParents().isEmpty()).collect(Collectors.toSet());
+    }
+
+    private ConceptCoordinates id(Object id) {
+        return new ConceptCoordinates(String.valueOf(id), "test", true);
+    }
+}
@@ -0,0 +1,69 @@
+package de.julielab.concepts.db.creators;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneIdCodecTest {
+
+    @Test
+    public void testParseNumeric() {
+        assertThat(GeneIdCodec.parseNumeric("0")).isEqualTo(0);
+        assertThat(GeneIdCodec.parseNumeric("3558")).isEqualTo(3558);
+        assertThat(GeneIdCodec.parseNumeric("2147483647")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(GeneIdCodec.parseNumeric("2147483648")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("99999999999")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("-5")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("+5")).isEqualTo(-1);
+        // leading zeros would map different IDs to the same code
+        assertThat(GeneIdCodec.parseNumeric("0123")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("12a")).isEqualTo(-1);
+        assertThat(GeneIdCodec.parseNumeric("gene1")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        GeneIdCodec codec = new GeneIdCodec();
+        assertThat(codec.encode("3558")).isEqualTo(3558);
+        assertThat(codec.encode("gene1")).isEqualTo(-1);
+        assertThat(codec.encode("0123")).isEqualTo(-2);
+        assertThat(codec.encode("gene1")).isEqualTo(-1);
+        assertThat(codec.lookup("gene1")).isEqualTo(-1);
+        assertThat(codec.lookup("3558")).isEqualTo(3558);
+        assertThat(codec.lookup("unknown")).isEqualTo(GeneIdCodec.NO_ID);
+        assertThat(codec.decode(3558)).isEqualTo("3558");
+        assertThat(codec.decode(-1)).isEqualTo("gene1");
+        assertThat(codec.decode(-2)).isEqualTo("0123");
+        // lookups do not assign codes
+        assertThat(codec.getNonNumericIds()).containsExactly("gene1", "0123");
+    }
+
+    @Test
+    public void testConcurrentEncoding() throws Exception {
+        GeneIdCodec codec = new GeneIdCodec();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++)
+                        codec.encode("gene" + i);
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(codec.getNonNumericIds()).hasSize(1000).doesNotHaveDuplicates();
+        for (int i = 0; i < 1000; i++)
+            assertThat(codec.decode(codec.lookup("gene" + i))).isEqualTo("gene" + i);
+    }
+}
@@ -0,0 +1,90 @@
+package de.julielab.concepts.db.creators;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneInfoIngestionTest {
+    private static final Path GENE_INFO = Path.of("src/test/resources/geneconcepts/genes/gene_info_test");
+    private static final String GENE_IDS_FILE = "totalGeneIds.bin";
+
+    @Test
+    public void testOrganismSelection() throws Exception {
+        Path dir = Files.createTempDirectory("geneinfoingestion");
+        try {
+            Path geneInfo = dir.resolve("gene_info");
+            Files.copy(GENE_INFO, geneInfo);
+            Path cacheDir = dir.resolve("cache");
+            List<String> lines = Files.readAllLines(geneInfo);
+
+            // reading all organisms does not buffer the records but builds the taxonomy index
+            GeneInfoIngestion all = GeneInfoIngestion.ingest(geneInfo.toFile(), Collections.emptySet(), cacheDir);
+            assertThat(all.getRecords()).isEqualTo(geneInfo);
+            assertGeneIds(all, lines);
+            assertThat(cacheDir.resolve("gene_info.taxindex")).exists();
+
+            // the selected organisms are read through the index
+            Set<String> organisms = Set.of("10090", "10116");
+            GeneInfoIngestion selected = GeneInfoIngestion.ingest(geneInfo.toFile(), organisms, cacheDir);
+            List<String> selectedLines = lines.stream().filter(line -> organisms.contains(line.split("\t")[0])).collect(Collectors.toList());
+            assertThat(Files.readAllLines(selected.getRecords())).containsExactlyElementsOf(selectedLines);
+            assertGeneIds(selected, selectedLines);
+
+            // and cached
+            Path geneIdsCacheFile = cacheDir.resolve(GENE_IDS_FILE);
+            FileTime old = FileTime.fromMillis(0);
+            Files.setLastModifiedTime(geneIdsCacheFile, old);
+            GeneInfoIngestion cached = GeneInfoIngestion.ingest(geneInfo.toFile(), organisms, cacheDir);
+            assertThat(Files.getLastModifiedTime(geneIdsCacheFile)).isEqualTo(old);
+            assertGeneIds(cached, selectedLines);
+            assertThat(cached.getDbXrefCount()).isEqualTo(selected.getDbXrefCount());
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testCorruptCache() throws Exception {
+        Path dir = Files.createTempDirectory("geneinfoingestion");
+        try {
+            Path geneInfo = dir.resolve("gene_info");
+            List<String> lines = List.of("9606\t1\tA\t-\t-\tHGNC:1", "9606\tNEWENTRY\tB\t-\t-\t-", "10090\t3\tC\t-\t-\t-");
+            Files.write(geneInfo, lines);
+            Path cacheDir = dir.resolve("cache");
+            Set<String> organisms = Set.of("9606");
+            GeneInfoIngestion.ingest(geneInfo.toFile(), organisms, cacheDir);
+            Path geneIdsCacheFile = cacheDir.resolve(GENE_IDS_FILE);
+            byte[] intact = Files.readAllBytes(geneIdsCacheFile);
+            // magic, version, the cache key and the dbXref count
+            int numNonNumericIdsPosition = 16 + ByteBuffer.wrap(intact).getInt(8);
+            for (int position : new int[]{numNonNumericIdsPosition, numNonNumericIdsPosition + 4}) {
+                for (int value : new int[]{-1, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+                    byte[] corrupt = intact.clone();
+                    ByteBuffer.wrap(corrupt).putInt(position, value);
+                    Files.write(geneIdsCacheFile, corrupt);
+                    GeneInfoIngestion ingestion = GeneInfoIngestion.ingest(geneInfo.toFile(), organisms, cacheDir);
+                    assertGeneIds(ingestion, lines.subList(0, 2));
+                    assertThat(ingestion.getDbXrefCount()).isEqualTo(1);
+                    assertThat(Files.readAllBytes(geneIdsCacheFile)).as("value " + value + " at " + position).isEqualTo(intact);
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    private void assertGeneIds(GeneInfoIngestion ingestion, List<String> lines) {
+        Set<String> geneIds = lines.stream().map(line -> line.split("\t")[1]).collect(Collectors.toSet());
+        assertThat(ingestion.getGeneIds().size()).isEqualTo(geneIds.size());
+        for (String geneId : geneIds)
+            assertThat(ingestion.getGeneIds().contains(ingestion.getGeneIdCodec().lookup(geneId))).as(geneId).isTrue();
+    }
+}
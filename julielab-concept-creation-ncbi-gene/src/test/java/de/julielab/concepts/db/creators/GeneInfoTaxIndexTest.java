@@ -0,0 +1,183 @@
+package de.julielab.concepts.db.creators;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneInfoTaxIndexTest {
+    private static final File GENE_INFO = new File("src/test/resources/geneconcepts/genes/gene_info_test");
+    private static final String[] TAX_IDS = {"9606", "10090", "7227", "10116", "559292"};
+
+    @Test
+    public void testRangeReads() throws Exception {
+        Path dir = Files.createTempDirectory("taxindex");
+        try {
+            Random random = new Random(1);
+            // The organisms appear in several separate runs, thus most of them have more than one range
+            List<String> lines = new ArrayList<>();
+            lines.add("#tax_id\tGeneID\tSymbol");
+            for (int run = 0; run < 40; run++) {
+                String taxId = TAX_IDS[random.nextInt(TAX_IDS.length)];
+                for (int i = random.nextInt(5); i >= 0; i--)
+                    lines.add(taxId + "\t" + lines.size() + "\tsymbol" + lines.size() + "\t-\tsyn|\u00fcmlaut");
+            }
+            for (boolean lastLineBreak : new boolean[]{true, false}) {
+                Path geneInfo = dir.resolve("gene_info" + lastLineBreak);
+                String content = String.join("\n", lines) + (lastLineBreak ? "\n" : "");
+                Files.write(geneInfo, content.getBytes(UTF_8));
+                GeneInfoTaxIndex index = buildIndex(geneInfo.toFile(), dir.resolve("index" + lastLineBreak));
+
+                for (int selection = 0; selection < 50; selection++) {
+                    Set<String> taxIds = new HashSet<>();
+                    for (String taxId : TAX_IDS) {
+                        if (random.nextBoolean())
+                            taxIds.add(taxId);
+                    }
+                    if (random.nextBoolean())
+                        taxIds.add("12345");
+                    byte[] expected = selectRecords(content, taxIds);
+                    assertThat(index.getNumBytes(taxIds)).isEqualTo(expected.length);
+                    assertThat(readAll(index, geneInfo.toFile(), taxIds, random.nextBoolean())).as("organisms " + taxIds).isEqualTo(expected);
+                }
+                // the organism list may contain surrounding whitespace
+                assertThat(readAll(index, geneInfo.toFile(), Set.of(" 10090 "), false)).isEqualTo(selectRecords(content, Set.of("10090")));
+                assertThat(readAll(index, geneInfo.toFile(), Set.of("12345"), true)).isEmpty();
+                assertThat(readAll(index, geneInfo.toFile(), Collections.emptySet(), false)).isEmpty();
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testGeneInfoResource() throws Exception {
+        Path dir = Files.createTempDirectory("taxindex");
+        try {
+            GeneInfoTaxIndex index = buildIndex(GENE_INFO, dir.resolve("index"));
+            String content = new String(Files.readAllBytes(GENE_INFO.toPath()), UTF_8);
+            for (Set<String> taxIds : List.of(Set.of("9606"), Set.of("10090", "10116"), Set.of("562", "885580", "6239"))) {
+                assertThat(readAll(index, GENE_INFO, taxIds, false)).isEqualTo(selectRecords(content, taxIds));
+                assertThat(index.getNumBytes(taxIds)).isEqualTo(selectRecords(content, taxIds).length);
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        Path dir = Files.createTempDirectory("taxindex");
+        try {
+            Path geneInfo = dir.resolve("gene_info");
+            Path indexFile = dir.resolve("index");
+            Files.write(geneInfo, List.of("9606\t1\tA", "10090\t2\tB", "9606\t3\tC"));
+            assertThat(GeneInfoTaxIndex.load(indexFile, geneInfo.toFile())).isNull();
+            buildIndex(geneInfo.toFile(), indexFile);
+            GeneInfoTaxIndex index = GeneInfoTaxIndex.load(indexFile, geneInfo.toFile());
+            assertThat(index).isNotNull();
+            assertThat(readAll(index, geneInfo.toFile(), Set.of("9606"), false)).isEqualTo("9606\t1\tA\n9606\t3\tC\n".getBytes(UTF_8));
+
+            // the index belongs to the exact gene_info file
+            assertThat(GeneInfoTaxIndex.load(indexFile, dir.resolve("other_gene_info").toFile())).isNull();
+            Files.write(geneInfo, List.of("9606\t1\tA", "10090\t2\tB", "9606\t3\tCD"));
+            assertThat(GeneInfoTaxIndex.load(indexFile, geneInfo.toFile())).isNull();
+
+            assertThat(GeneInfoTaxIndex.isIndexable(new File("gene_info"))).isTrue();
+            assertThat(GeneInfoTaxIndex.isIndexable(new File("gene_info.gz"))).isFalse();
+            assertThat(GeneInfoTaxIndex.isIndexable(new File("gene_info.GZIP"))).isFalse();
+            Path gzipped = dir.resolve("gene_info.gz");
+            Files.copy(geneInfo, gzipped);
+            assertThat(GeneInfoTaxIndex.load(indexFile, gzipped.toFile())).isNull();
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testLoadCorrupt() throws Exception {
+        Path dir = Files.createTempDirectory("taxindex");
+        try {
+            Path geneInfo = dir.resolve("gene_info");
+            Path indexFile = dir.resolve("index");
+            Files.write(geneInfo, List.of("9606\t1\tA", "10090\t2\tB"));
+            buildIndex(geneInfo.toFile(), indexFile);
+            byte[] intact = Files.readAllBytes(indexFile);
+            // magic, version and the index key
+            int numTaxIdsPosition = 12 + ByteBuffer.wrap(intact).getInt(8);
+            int firstTaxIdPosition = numTaxIdsPosition + 4;
+            int firstNumRangesPosition = firstTaxIdPosition + 4 + ByteBuffer.wrap(intact).getInt(firstTaxIdPosition);
+
+            for (int position : new int[]{numTaxIdsPosition, firstTaxIdPosition, firstNumRangesPosition}) {
+                for (int value : new int[]{-1, Integer.MAX_VALUE, Integer.MIN_VALUE, 1 << 30}) {
+                    byte[] corrupt = intact.clone();
+                    ByteBuffer.wrap(corrupt).putInt(position, value);
+                    Files.write(indexFile, corrupt);
+                    assertThat(GeneInfoTaxIndex.load(indexFile, geneInfo.toFile())).as("value " + value + " at " + position).isNull();
+                }
+            }
+            Files.write(indexFile, Arrays.copyOf(intact, intact.length - 3));
+            assertThat(GeneInfoTaxIndex.load(indexFile, geneInfo.toFile())).isNull();
+            Files.write(indexFile, intact);
+            assertThat(GeneInfoTaxIndex.load(indexFile, geneInfo.toFile())).isNotNull();
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    /**
+     * Builds the index the way {@link GeneInfoIngestion} does while reading the complete file and loads it back.
+     */
+    private GeneInfoTaxIndex buildIndex(File geneInfo, Path indexFile) throws IOException {
+        GeneInfoTaxIndex.Builder builder = new GeneInfoTaxIndex.Builder();
+        try (GeneInfoReader reader = new GeneInfoReader(geneInfo)) {
+            GeneInfoRecord record;
+            while ((record = reader.next()) != null)
+                builder.add(record, reader.getRecordOffset(), reader.getOffset());
+        }
+        builder.write(indexFile, geneInfo);
+        GeneInfoTaxIndex index = GeneInfoTaxIndex.load(indexFile, geneInfo);
+        assertThat(index).isNotNull();
+        return index;
+    }
+
+    private byte[] readAll(GeneInfoTaxIndex index, File geneInfo, Set<String> taxIds, boolean singleBytes) throws IOException {
+        try (InputStream is = index.open(geneInfo, taxIds)) {
+            if (!singleBytes)
+                return IOUtils.toByteArray(is);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            int b;
+            while ((b = is.read()) != -1)
+                baos.write(b);
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * @return The lines of <tt>content</tt> with one of the given taxonomy IDs, including their line breaks.
+     */
+    private byte[] selectRecords(String content, Set<String> taxIds) {
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.indexOf('\n', start);
+            end = end < 0 ? content.length() : end + 1;
+            String line = content.substring(start, end);
+            if (taxIds.contains(line.substring(0, line.indexOf('\t'))))
+                sb.append(line);
+            start = end;
+        }
+        return sb.toString().getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,187 @@
+package de.julielab.concepts.db.creators;
+
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.creators.NCBIGeneConceptCreator.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the orthology aggregates with those of the recursive top-orthology search that was used before the
+ * clusters were united with {@link DisjointSets}.
+ */
+public class GeneOrthologyAggregatesTest {
+
+    @Test
+    public void testAggregatesEqualRecursiveSearch() throws Exception {
+        // sparse orthologies give many small components, dense ones few large components
+        for (int seed = 0; seed < 20; seed++)
+            compare(seed, 200, 150);
+        for (int seed = 0; seed < 5; seed++)
+            compare(seed, 300, 400);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compare(long seed, int numGenes, int numOrthologies) throws Exception {
+        Random random = new Random(seed);
+        TreeMap<Integer, TreeSet<Integer>> orthologs = new TreeMap<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < numOrthologies; i++) {
+            int group = 1 + random.nextInt(numGenes);
+            int gene = 1 + random.nextInt(numGenes);
+            orthologs.computeIfAbsent(group, k -> new TreeSet<>()).add(gene);
+            lines.add("9606\t" + group + "\tOrtholog\t10090\t" + gene);
+            // other relationships are ignored
+            if (random.nextInt(10) == 0)
+                lines.add("9606\t" + group + "\tPotential ortholog\t10090\t" + (1 + random.nextInt(numGenes)));
+        }
+        // some genes are not in gene_info, e.g. due to species filtering
+        TreeSet<Integer> knownGenes = new TreeSet<>();
+        IntHashSet totalGeneIds = new IntHashSet();
+        for (int gene = 1; gene <= numGenes; gene++) {
+            if (random.nextInt(10) != 0) {
+                knownGenes.add(gene);
+                totalGeneIds.add(gene);
+            }
+        }
+
+        Path geneOrthologs = Files.createTempFile("gene_orthologs", null);
+        try {
+            Files.write(geneOrthologs, lines);
+            NCBIGeneConceptCreator creator = new NCBIGeneConceptCreator();
+            Forest geneHierarchy = new Forest();
+            Method createAggregates = NCBIGeneConceptCreator.class.getDeclaredMethod("createGeneOrthologyAggregates", Stream.class, IntSet.class, IntObjectHashMap.class, Forest.class, File.class, Map.class, List.class);
+            createAggregates.setAccessible(true);
+            List<ImportConcept> actual;
+            try (Stream<ImportConcept> concepts = (Stream<ImportConcept>) createAggregates.invoke(creator, geneConcepts(knownGenes), totalGeneIds, new IntObjectHashMap<List<ConceptCoordinates>>(), geneHierarchy, geneOrthologs.toFile(), new HashMap<>(), aggregateCopyProperties())) {
+                actual = concepts.collect(Collectors.toList());
+            }
+
+            Map<Integer, List<ImportConcept>> genes2Clusters = new TreeMap<>();
+            Map<ConceptCoordinates, ImportConcept> cluster2TopOrtho = new HashMap<>();
+            List<ImportConcept> expected = previousAggregates(orthologs, knownGenes, genes2Clusters, cluster2TopOrtho);
+            assertThat(actual.stream().map(this::describe).collect(Collectors.toList())).as("seed " + seed).containsExactlyElementsOf(expected.stream().map(this::describe).collect(Collectors.toList()));
+
+            // The roots of the gene hierarchy are the top orthology aggregates or the clusters without one
+            for (int gene : genes2Clusters.keySet()) {
+                Set<String> expectedRoots = genes2Clusters.get(gene).stream().map(c -> cluster2TopOrtho.getOrDefault(c.coordinates, c).coordinates.sourceId).collect(Collectors.toSet());
+                assertThat(geneHierarchy.getRoots(getGeneCoordinates(String.valueOf(gene))).stream().map(n -> n.getId().sourceId).collect(Collectors.toSet())).as("roots of gene " + gene).isEqualTo(expectedRoots);
+            }
+        } finally {
+            Files.delete(geneOrthologs);
+        }
+    }
+
+    /**
+     * The orthology aggregates as they were created before, including the recursive search for the top orthology
+     * aggregate of a connected component.
+     */
+    private List<ImportConcept> previousAggregates(TreeMap<Integer, TreeSet<Integer>> orthologs, Set<Integer> knownGenes, Map<Integer, List<ImportConcept>> genes2Clusters, Map<ConceptCoordinates, ImportConcept> orthoAgg2TopOrtho) {
+        List<ImportConcept> aggregates = new ArrayList<>();
+        for (int group : orthologs.keySet()) {
+            Set<Integer> groupGenes = new LinkedHashSet<>();
+            for (int gene : orthologs.get(group)) {
+                if (knownGenes.contains(gene))
+                    groupGenes.add(gene);
+            }
+            if (knownGenes.contains(group))
+                groupGenes.add(group);
+            if (groupGenes.size() > 1) {
+                ImportConcept cluster = new ImportConcept(groupGenes.stream().map(g -> getGeneCoordinates(String.valueOf(g))).collect(Collectors.toList()), aggregateCopyProperties());
+                cluster.coordinates = new ConceptCoordinates();
+                cluster.coordinates.sourceId = GENE_GROUP_PREFIX + group;
+                cluster.coordinates.source = GENE_ORTHOLOGS;
+                cluster.coordinates.originalSource = GENE_ORTHOLOGS;
+                cluster.coordinates.originalId = String.valueOf(group);
+                cluster.generalLabels = Arrays.asList("AGGREGATE_GENEGROUP", "NO_PROCESSING_GAZETTEER");
+                aggregates.add(cluster);
+                for (int gene : groupGenes)
+                    genes2Clusters.computeIfAbsent(gene, k -> new ArrayList<>()).add(cluster);
+            }
+        }
+
+        List<ImportConcept> genes = geneConcepts(knownGenes).collect(Collectors.toList());
+        for (ImportConcept gene : genes) {
+            List<ImportConcept> clusters = genes2Clusters.getOrDefault(Integer.parseInt(gene.coordinates.originalId), Collections.emptyList());
+            for (ImportConcept cluster : clusters) {
+                gene.addParent(cluster.coordinates);
+                if (clusters.size() > 1)
+                    gene.addGeneralLabel(ConceptLabels.NO_QUERY_DICTIONARY.name(), ConceptLabels.NO_SUGGESTIONS.name());
+            }
+        }
+
+        int topOrthologAggregateCounter = 0;
+        for (List<ImportConcept> clusters : genes2Clusters.values()) {
+            if (clusters.size() > 1) {
+                ImportConcept topOrthologyAggregate = null;
+                Set<ImportConcept> seenOrthologyClusters = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (ImportConcept cluster : clusters) {
+                    topOrthologyAggregate = findTopOrtholog(cluster, seenOrthologyClusters, genes2Clusters, orthoAgg2TopOrtho);
+                    if (topOrthologyAggregate != null)
+                        break;
+                }
+                if (topOrthologyAggregate == null) {
+                    topOrthologyAggregate = new ImportConcept(new ArrayList<>(), aggregateCopyProperties());
+                    topOrthologyAggregate.coordinates = new ConceptCoordinates();
+                    topOrthologyAggregate.coordinates.sourceId = TOP_ORTHOLOGY_PREFIX + topOrthologAggregateCounter;
+                    topOrthologyAggregate.coordinates.source = SEMEDICO_RESOURCE_MANAGEMENT_SOURCE;
+                    topOrthologyAggregate.generalLabels = Arrays.asList("AGGREGATE_TOP_ORTHOLOGY", "NO_PROCESSING_GAZETTEER");
+                    aggregates.add(topOrthologyAggregate);
+                    ++topOrthologAggregateCounter;
+                }
+                for (ImportConcept cluster : clusters) {
+                    if (!topOrthologyAggregate.elementCoordinates.contains(cluster.coordinates))
+                        topOrthologyAggregate.elementCoordinates.add(cluster.coordinates);
+                    orthoAgg2TopOrtho.put(cluster.coordinates, topOrthologyAggregate);
+                    cluster.addParent(topOrthologyAggregate.coordinates);
+                }
+            }
+        }
+        genes.addAll(aggregates);
+        return genes;
+    }
+
+    private ImportConcept findTopOrtholog(ImportConcept orthologyCluster, Set<ImportConcept> seenOrthologyClusters, Map<Integer, List<ImportConcept>> genes2Clusters, Map<ConceptCoordinates, ImportConcept> orthoAgg2TopOrtho) {
+        ImportConcept topOrtholog = orthoAgg2TopOrtho.get(orthologyCluster.coordinates);
+        seenOrthologyClusters.add(orthologyCluster);
+        if (topOrtholog == null) {
+            for (ConceptCoordinates element : orthologyCluster.elementCoordinates) {
+                for (ImportConcept orthologyClusterOfElement : genes2Clusters.getOrDefault(Integer.parseInt(element.originalId), Collections.emptyList())) {
+                    if (seenOrthologyClusters.contains(orthologyClusterOfElement))
+                        continue;
+                    seenOrthologyClusters.add(orthologyClusterOfElement);
+                    topOrtholog = findTopOrtholog(orthologyClusterOfElement, seenOrthologyClusters, genes2Clusters, orthoAgg2TopOrtho);
+                    if (topOrtholog != null)
+                        return topOrtholog;
+                }
+            }
+        }
+        return topOrtholog;
+    }
+
+    private Stream<ImportConcept> geneConcepts(Collection<Integer> geneIds) {
+        return geneIds.stream().map(gene -> new ImportConcept(getGeneCoordinates(String.valueOf(gene))));
+    }
+
+    private List<String> aggregateCopyProperties() {
+        return Arrays.asList(ConceptConstants.PROP_PREF_NAME, ConceptConstants.PROP_FACETS);
+    }
+
+    private String describe(ImportConcept concept) {
+        return concept.coordinates.sourceId + " " + concept.coordinates.source + " elements=" + coordinates(concept.elementCoordinates) + " parents=" + coordinates(concept.parentCoordinates) + " labels=" + concept.generalLabels;
+    }
+
+    private List<String> coordinates(List<ConceptCoordinates> coordinates) {
+        return coordinates == null ? null : coordinates.stream().map(c -> c.sourceId + "/" + c.source).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package de.julielab.concepts.db.creators;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GoAnnotationStoreTest {
+
+    @Test
+    public void testAnnotationsEqualMap() {
+        Random random = new Random(1);
+        GoAnnotationStore.Builder builder = new GoAnnotationStore.Builder();
+        Map<Integer, List<String>> expected = new HashMap<>();
+        String[] qualifiers = {"enables", "involved_in", "located_in", "part_of", "contributes_to"};
+        // more annotations than the initial capacity of the builder, added in arbitrary gene order; negative codes
+        // stand for non-numeric gene IDs
+        int numAnnotations = 20_000;
+        for (int i = 0; i < numAnnotations; i++) {
+            int geneId = random.nextInt(3000) - 100;
+            if (random.nextInt(100) == 0)
+                geneId = random.nextBoolean() ? Integer.MAX_VALUE : GeneIdCodec.NO_ID + 1;
+            String goId = String.format("GO:%07d", random.nextInt(500));
+            String qualifier = qualifiers[random.nextInt(qualifiers.length)];
+            builder.add(geneId, goId, qualifier);
+            expected.computeIfAbsent(geneId, k -> new ArrayList<>()).add(goId + " " + qualifier);
+        }
+        GoAnnotationStore store = builder.build();
+        assertThat(store.getNumGenes()).isEqualTo(expected.size());
+        assertThat(store.getNumAnnotations()).isEqualTo(numAnnotations);
+
+        for (int geneId : expected.keySet()) {
+            List<String> annotations = new ArrayList<>();
+            assertThat(store.forEachAnnotation(geneId, (goId, qualifier) -> annotations.add(goId + " " + qualifier))).isTrue();
+            // the annotations of a gene keep the order in which they were added
+            assertThat(annotations).as("gene " + geneId).containsExactlyElementsOf(expected.get(geneId));
+        }
+        for (int geneId : new int[]{-101, 2900, 5000, Integer.MIN_VALUE, Integer.MAX_VALUE - 1}) {
+            if (!expected.containsKey(geneId))
+                assertThat(store.forEachAnnotation(geneId, (goId, qualifier) -> {
+                    throw new AssertionError("unexpected annotation " + goId + " for gene " + geneId);
+                })).isFalse();
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        GoAnnotationStore store = new GoAnnotationStore.Builder().build();
+        assertThat(store.getNumGenes()).isEqualTo(0);
+        assertThat(store.getNumAnnotations()).isEqualTo(0);
+        assertThat(store.forEachAnnotation(1, (goId, qualifier) -> {
+            throw new AssertionError();
+        })).isFalse();
+    }
+
+    @Test
+    public void testSingleGene() {
+        GoAnnotationStore.Builder builder = new GoAnnotationStore.Builder();
+        builder.add(42, "GO:0003700", "enables");
+        builder.add(42, "GO:0005794", "located_in");
+        builder.add(42, "GO:0003700", "enables");
+        GoAnnotationStore store = builder.build();
+        List<String> annotations = new ArrayList<>();
+        store.forEachAnnotation(42, (goId, qualifier) -> annotations.add(goId + " " + qualifier));
+        assertThat(annotations).containsExactly("GO:0003700 enables", "GO:0005794 located_in", "GO:0003700 enables");
+        assertThat(store.getNumGenes()).isEqualTo(1);
+        assertThat(store.forEachAnnotation(41, (goId, qualifier) -> annotations.add(goId))).isFalse();
+        assertThat(store.forEachAnnotation(43, (goId, qualifier) -> annotations.add(goId))).isFalse();
+        assertThat(annotations).hasSize(3);
+    }
+}
@@ -0,0 +1,53 @@
+package de.julielab.concepts.db.creators;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntHashSetTest {
+
+    @Test
+    public void testEqualsHashSet() {
+        Random random = new Random(1);
+        // starting small forces several rehashes
+        IntHashSet set = new IntHashSet(1);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            // negative values are the codes of non-numerical gene IDs
+            int value = random.nextInt(30000) - 5000;
+            assertThat(set.add(value)).isEqualTo(expected.add(value));
+        }
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (int value = -6000; value < 26000; value++)
+            assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        assertThat(set.contains(Integer.MIN_VALUE)).isFalse();
+
+        List<Integer> forEachValues = new ArrayList<>();
+        set.forEach(forEachValues::add);
+        assertThat(forEachValues).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(set.toSortedArray()).containsExactly(expected.stream().sorted().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Test
+    public void testCollidingValues() {
+        // values that differ only in high bits
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 1000; i++)
+            assertThat(set.add(i << 20)).isTrue();
+        for (int i = 0; i < 1000; i++)
+            assertThat(set.contains(i << 20)).isTrue();
+        assertThat(set.contains(1)).isFalse();
+        assertThat(set.size()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testEmptyMarker() {
+        IntHashSet set = new IntHashSet();
+        assertThatThrownBy(() -> set.add(Integer.MIN_VALUE)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(set.size()).isEqualTo(0);
+        assertThat(set.toSortedArray()).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package de.julielab.concepts.db.creators;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testEqualsHashMap() {
+        Random random = new Random(2);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(1);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(30000) - 5000;
+            String value = "v" + i;
+            assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int key = -6000; key < 26000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+            assertThat(map.containsKey(key)).isEqualTo(expected.containsKey(key));
+        }
+        assertThat(map.get(Integer.MIN_VALUE)).isNull();
+        assertThat(map.containsKey(Integer.MIN_VALUE)).isFalse();
+
+        Map<Integer, String> forEachEntries = new HashMap<>();
+        map.forEach(forEachEntries::put);
+        assertThat(forEachEntries).isEqualTo(expected);
+        assertThat(map.sortedKeys()).containsExactly(expected.keySet().stream().sorted().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        IntObjectHashMap<List<String>> map = new IntObjectHashMap<>();
+        map.computeIfAbsent(7, k -> new ArrayList<>()).add("a");
+        map.computeIfAbsent(7, k -> new ArrayList<>()).add("b");
+        map.computeIfAbsent(-1, k -> new ArrayList<>(List.of(String.valueOf(k))));
+        assertThat(map.get(7)).containsExactly("a", "b");
+        assertThat(map.get(-1)).containsExactly("-1");
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNullValues() {
+        // a null value does not remove the key
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(3, null);
+        assertThat(map.containsKey(3)).isTrue();
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.put(3, "x")).isNull();
+        assertThat(map.size()).isEqualTo(1);
+        assertThatThrownBy(() -> map.put(Integer.MIN_VALUE, "x")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
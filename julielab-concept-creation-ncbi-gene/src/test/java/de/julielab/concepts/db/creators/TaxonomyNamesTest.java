@@ -0,0 +1,145 @@
+package de.julielab.concepts.db.creators;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaxonomyNamesTest {
+    private static final List<String> NAMES_DMP = List.of(
+            "1\t|\tall\t|\t\t|\tsynonym\t|",
+            "1\t|\troot\t|\t\t|\tscientific name\t|",
+            "562\t|\tEscherichia coli\t|\t\t|\tscientific name\t|",
+            "562\t|\t\"Bacillus coli\" Migula 1895\t|\t\t|\tauthority\t|",
+            "9606\t|\thuman\t|\t\t|\tgenbank common name\t|",
+            "9606\t|\tHomo sapiens\t|\t\t|\tscientific name\t|",
+            "9606\t|\tman\t|\t\t|\tcommon name\t|",
+            "10090\t|\tMus musculus\t|\t\t|\tscientific name\t|",
+            "10090\t|\thouse mouse\t|\t\t|\tgenbank common name\t|",
+            "10090\t|\tmouse\t|\tmouse <Mus musculus>\t|\tcommon name\t|",
+            "123456789\t|\tLongus identifierus\t|\t\t|\tscientific name\t|");
+
+    @Test
+    public void testNamesEqualRegexSplit() throws Exception {
+        Path dir = Files.createTempDirectory("taxonomynames");
+        try {
+            Path namesDmp = dir.resolve("names.dmp");
+            Files.write(namesDmp, NAMES_DMP);
+            Path gzipped = dir.resolve("names.dmp.gz");
+            try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+                os.write(Files.readAllBytes(namesDmp));
+            }
+            Map<String, String> expected = regexSplitNames(NAMES_DMP);
+            for (Set<String> organisms : List.of(Collections.<String>emptySet(), Set.of("9606"), Set.of("10090", "562", "7227"), Set.of("123456789", " 9606 "))) {
+                for (Path file : List.of(namesDmp, gzipped)) {
+                    TaxonomyNames names = TaxonomyNames.load(file.toFile(), organisms, dir.resolve("cache"));
+                    Set<String> selected = new HashSet<>(expected.keySet());
+                    if (!organisms.isEmpty())
+                        selected.retainAll(organisms.stream().map(String::trim).collect(Collectors.toSet()));
+                    assertThat(names.size()).as(file + " " + organisms).isEqualTo(selected.size());
+                    for (String taxId : expected.keySet())
+                        assertThat(names.getSpeciesName(taxId)).as(taxId).isEqualTo(selected.contains(taxId) ? expected.get(taxId) : null);
+                }
+            }
+            assertThat(expected.get("9606")).isEqualTo("Homo sapiens (human)");
+            assertThat(expected.get("562")).isEqualTo("Escherichia coli");
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Path dir = Files.createTempDirectory("taxonomynames");
+        try {
+            Path namesDmp = dir.resolve("names.dmp");
+            Path cacheFile = dir.resolve("cache");
+            FileTime old = FileTime.fromMillis(0);
+            Files.write(namesDmp, NAMES_DMP);
+            assertThat(TaxonomyNames.load(namesDmp.toFile(), Set.of("9606", "10090"), cacheFile).size()).isEqualTo(2);
+            assertThat(cacheFile).exists();
+            assertThat(dir.resolve("cache.tmp")).doesNotExist();
+
+            // the cache is reused for the same file and organisms, in whatever order
+            Files.setLastModifiedTime(cacheFile, old);
+            TaxonomyNames names = TaxonomyNames.load(namesDmp.toFile(), new LinkedHashSet<>(List.of("10090", "9606")), cacheFile);
+            assertThat(Files.getLastModifiedTime(cacheFile)).isEqualTo(old);
+            assertThat(names.getSpeciesName("9606")).isEqualTo("Homo sapiens (human)");
+            assertThat(names.getSpeciesName("10090")).isEqualTo("Mus musculus (house mouse)");
+
+            // other organisms
+            names = TaxonomyNames.load(namesDmp.toFile(), Set.of("9606", "562"), cacheFile);
+            assertThat(Files.getLastModifiedTime(cacheFile)).isNotEqualTo(old);
+            assertThat(names.getSpeciesName("562")).isEqualTo("Escherichia coli");
+            assertThat(names.getSpeciesName("10090")).isNull();
+
+            // a changed names.dmp
+            Files.setLastModifiedTime(cacheFile, old);
+            List<String> changed = new ArrayList<>(NAMES_DMP);
+            changed.add("562\t|\tE. coli\t|\t\t|\tgenbank common name\t|");
+            Files.write(namesDmp, changed);
+            names = TaxonomyNames.load(namesDmp.toFile(), Set.of("9606", "562"), cacheFile);
+            assertThat(Files.getLastModifiedTime(cacheFile)).isNotEqualTo(old);
+            assertThat(names.getSpeciesName("562")).isEqualTo("Escherichia coli (E. coli)");
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testCorruptCache() throws Exception {
+        Path dir = Files.createTempDirectory("taxonomynames");
+        try {
+            Path namesDmp = dir.resolve("names.dmp");
+            Path cacheFile = dir.resolve("cache");
+            Files.write(namesDmp, NAMES_DMP);
+            TaxonomyNames.load(namesDmp.toFile(), Set.of("9606"), cacheFile);
+            byte[] intact = Files.readAllBytes(cacheFile);
+            // magic, version and the cache key
+            int numTaxaPosition = 12 + ByteBuffer.wrap(intact).getInt(8);
+            for (int position : new int[]{numTaxaPosition, numTaxaPosition + 4}) {
+                for (int value : new int[]{-1, Integer.MAX_VALUE, Integer.MIN_VALUE, 1 << 30}) {
+                    byte[] corrupt = intact.clone();
+                    ByteBuffer.wrap(corrupt).putInt(position, value);
+                    Files.write(cacheFile, corrupt);
+                    TaxonomyNames names = TaxonomyNames.load(namesDmp.toFile(), Set.of("9606"), cacheFile);
+                    assertThat(names.getSpeciesName("9606")).as("value " + value + " at " + position).isEqualTo("Homo sapiens (human)");
+                    assertThat(Files.readAllBytes(cacheFile)).isEqualTo(intact);
+                }
+            }
+            Files.write(cacheFile, Arrays.copyOf(intact, intact.length - 2));
+            assertThat(TaxonomyNames.load(namesDmp.toFile(), Set.of("9606"), cacheFile).getSpeciesName("9606")).isEqualTo("Homo sapiens (human)");
+            assertThat(Files.readAllBytes(cacheFile)).isEqualTo(intact);
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    /**
+     * The species names as they were determined before the names were cached: by splitting every line with a regular
+     * expression.
+     */
+    private Map<String, String> regexSplitNames(List<String> lines) {
+        Map<String, String> scientificNames = new HashMap<>();
+        Map<String, String> commonNames = new HashMap<>();
+        for (String line : lines) {
+            String[] split = line.split("(\t\\|\t)|(\t\\|)");
+            if (split[3].equals("scientific name"))
+                scientificNames.put(split[0], split[1]);
+            else if (split[3].equals("genbank common name"))
+                commonNames.put(split[0], split[1]);
+        }
+        Map<String, String> speciesNames = new HashMap<>();
+        scientificNames.forEach((taxId, name) -> speciesNames.put(taxId, commonNames.containsKey(taxId) ? name + " (" + commonNames.get(taxId) + ")" : name));
+        return speciesNames;
+    }
+}
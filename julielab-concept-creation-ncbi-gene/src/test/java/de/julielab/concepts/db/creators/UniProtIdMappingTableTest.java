@@ -0,0 +1,112 @@
+package de.julielab.concepts.db.creators;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UniProtIdMappingTableTest {
+
+    @Test
+    public void testMultiRunMerge() throws Exception {
+        Random random = new Random(1);
+        List<String> lines = new ArrayList<>();
+        Map<Integer, List<String>> expected = new TreeMap<>();
+        for (int i = 0; i < 500; i++) {
+            String ac = "P" + i;
+            String id = "ENTRY" + i + "_HUMAN";
+            List<String> geneIds = new ArrayList<>();
+            int numGeneIds = random.nextInt(4);
+            for (int j = 0; j < numGeneIds; j++) {
+                int geneId = 1 + random.nextInt(80);
+                geneIds.add(String.valueOf(geneId));
+                expected.computeIfAbsent(geneId, k -> new ArrayList<>()).addAll(List.of(ac, id));
+            }
+            // non-numeric gene IDs are not stored
+            if (random.nextInt(10) == 0)
+                geneIds.add("LOC_X" + i);
+            lines.add(ac + "\t" + id + "\t" + String.join("; ", geneIds) + "\tGO:0005515");
+        }
+
+        Path dir = Files.createTempDirectory("uniprotidmapping");
+        try {
+            Path idMapping = dir.resolve("idmapping_selected.tab");
+            Files.write(idMapping, lines);
+            // The smallest run sizes end runs in the middle of lines with several gene IDs
+            for (int runSize : new int[]{1, 2, 7, 100, 10000}) {
+                Path tableDir = dir.resolve("table" + runSize);
+                UniProtIdMappingTable table = UniProtIdMappingTable.open(idMapping.toFile(), tableDir, runSize);
+                assertThat(table.size()).isEqualTo(expected.size());
+                for (int geneId = 0; geneId <= 81; geneId++) {
+                    List<String> acsAndIds = expected.get(geneId);
+                    assertThat(table.contains(geneId)).isEqualTo(acsAndIds != null);
+                    assertThat(table.getAcsAndIds(String.valueOf(geneId))).as("gene " + geneId + ", run size " + runSize).isEqualTo(acsAndIds != null ? acsAndIds.toArray(new String[0]) : null);
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testDuplicateKeysAcrossRuns() throws Exception {
+        Path dir = Files.createTempDirectory("uniprotidmapping");
+        try {
+            Path idMapping = dir.resolve("idmapping_selected.tab");
+            Files.write(idMapping, List.of(
+                    "A1\tN1\t5",
+                    "A2\tN2\t7",
+                    "A3\tN3\t5",
+                    "A4\tN4\t7; 5",
+                    "A5\tN5\t",
+                    "A6\tN6\t5"));
+            // each run holds two records, so the entries of both genes are spread over all runs
+            UniProtIdMappingTable table = UniProtIdMappingTable.open(idMapping.toFile(), dir.resolve("table"), 2);
+            assertThat(table.size()).isEqualTo(2);
+            assertThat(table.getAcsAndIds("5")).containsExactly("A1", "N1", "A3", "N3", "A4", "N4", "A6", "N6");
+            assertThat(table.getAcsAndIds("7")).containsExactly("A2", "N2", "A4", "N4");
+            assertThat(table.getAcsAndIds("6")).isNull();
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRebuildAfterSourceChange() throws Exception {
+        Path dir = Files.createTempDirectory("uniprotidmapping");
+        try {
+            Path idMapping = dir.resolve("idmapping_selected.tab");
+            Path tableDir = dir.resolve("table");
+            Path header = tableDir.resolve("header");
+            FileTime old = FileTime.fromMillis(0);
+            Files.write(idMapping, List.of("A1\tN1\t5", "A2\tN2\t7"));
+            assertThat(UniProtIdMappingTable.open(idMapping.toFile(), tableDir, 1).getAcsAndIds("5")).containsExactly("A1", "N1");
+
+            // the table is reused as long as the source does not change
+            Files.setLastModifiedTime(header, old);
+            UniProtIdMappingTable table = UniProtIdMappingTable.open(idMapping.toFile(), tableDir, 1);
+            assertThat(Files.getLastModifiedTime(header)).isEqualTo(old);
+            assertThat(table.getAcsAndIds("5")).containsExactly("A1", "N1");
+
+            Files.write(idMapping, List.of("A3\tN3\t5", "A4\tN4\t9", "A5\tN5\t5"));
+            table = UniProtIdMappingTable.open(idMapping.toFile(), tableDir, 1);
+            assertThat(Files.getLastModifiedTime(header)).isNotEqualTo(old);
+            assertThat(table.size()).isEqualTo(2);
+            assertThat(table.getAcsAndIds("5")).containsExactly("A3", "N3", "A5", "N5");
+            assertThat(table.getAcsAndIds("7")).isNull();
+            assertThat(table.getAcsAndIds("9")).containsExactly("A4", "N4");
+            // no run files are left behind
+            try (Stream<Path> files = Files.list(tableDir)) {
+                assertThat(files.map(p -> p.getFileName().toString())).containsExactlyInAnyOrder("header", "keys", "offsets", "values");
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+}
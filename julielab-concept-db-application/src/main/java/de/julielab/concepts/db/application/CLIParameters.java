@@ -28,6 +28,9 @@ public class CLIParameters {
     @Option(name = "-a", aliases = {"--all"}, handler = OptionalStringArrayOptionHandler.class, usage = "Imports concepts, performs the configured operations and the data exports and finally sets the given version to the database. The names of concept creators, operators and exportes can optionally be given as whitespace separated arguments. Only these steps will be called.", metaVar = "[step names]")
     public List<String> doAll;
 
+    @Option(name = "-t", aliases = {"--threads"}, usage = "The number of imports, operations or exports that may run at the same time. Steps are only run in parallel when they are independent from each other as declared by the 'dependson' attribute of the respective configuration elements. Steps without this attribute depend on all steps configured before them. Defaults to 1.", metaVar = "number of threads")
+    public int parallelism = 1;
+
     @Option(name = "-c", aliases = {"--configuration"}, usage = "The XML configuration file defining all settings and actions to perform on the database.", metaVar = "configuration file", required = true)
     public File configurationFile;
 }
@@ -1,5 +1,6 @@
 package de.julielab.concepts.db.application;
 
+import de.julielab.concepts.db.core.ImportConceptsPipeline;
 import de.julielab.concepts.db.core.services.*;
 import de.julielab.concepts.util.*;
 import de.julielab.java.utilities.ConfigurationUtilities;
@@ -19,7 +20,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
@@ -75,24 +79,58 @@ public class ConceptDatabaseApplication {
                 .configurationAt(CONNECTION);
 
         if (parameters.doPreparation != null || parameters.doAll != null) {
-            doOperations(parameters, configuration, connectionConfiguration, PREPARATIONS);
+            StepScheduler preparations = new StepScheduler(parameters.parallelism);
+            addOperations(preparations, parameters, configuration, connectionConfiguration, PREPARATIONS);
+            runSteps(preparations);
         }
-        if (parameters.doImport != null || parameters.doAll != null) {
-            doImports(parameters, configuration, connectionConfiguration);
+        // Imports and operations are scheduled together so that an operation may start as soon as the imports it
+        // depends on have finished
+        boolean doImports = parameters.doImport != null || parameters.doAll != null;
+        ImportConceptsPipeline pipeline = null;
+        if (doImports && configuration.getBoolean(IMPORTS + "[@" + PIPELINED + "]", false)) {
+            int queueSize = configuration.getInt(IMPORTS + "[@" + QUEUE_SIZE + "]", ImportConceptsPipeline.DEFAULT_QUEUE_SIZE);
+            pipeline = new ImportConceptsPipeline(ImportConceptsPipeline.DEFAULT_BATCH_SIZE, queueSize, parameters.parallelism);
         }
-        if (parameters.doOperation != null || parameters.doAll != null) {
-            doOperations(parameters, configuration, connectionConfiguration, OPERATIONS);
+        try {
+            StepScheduler importsAndOperations = new StepScheduler(parameters.parallelism);
+            Map<Integer, HierarchicalConfiguration<ImmutableNode>> importSteps = new HashMap<>();
+            Map<HierarchicalConfiguration<ImmutableNode>, Stream<ImportConcepts>> createdConcepts = new IdentityHashMap<>();
+            if (doImports) {
+                addImports(importsAndOperations, importSteps, createdConcepts, pipeline, parameters, configuration, connectionConfiguration);
+            }
+            if (parameters.doOperation != null || parameters.doAll != null) {
+                addOperations(importsAndOperations, parameters, configuration, connectionConfiguration, OPERATIONS);
+            }
+            // Without parallel steps, the concept creation of all imports is scheduled up front in execution order
+            // so that the next import is created while the current one is being inserted. With parallel steps, the
+            // creation starts with each step to avoid creation threads waiting for steps that cannot start yet.
+            if (pipeline != null && parameters.parallelism <= 1) {
+                for (Integer step : importsAndOperations.getExecutionOrder()) {
+                    HierarchicalConfiguration<ImmutableNode> importConfig = importSteps.get(step);
+                    if (importConfig != null)
+                        createdConcepts.put(importConfig, pipeline.createConcepts(importConfig));
+                }
+            }
+            runSteps(importsAndOperations);
+            // Inserters collecting the concepts of all imports, e.g. for neo4j-admin import, write them now
+            if (doImports)
+                ConceptInsertionService.getInstance(connectionConfiguration).flush();
+        } finally {
+            if (pipeline != null)
+                pipeline.close();
         }
         if (!parameters.noVersioning && (parameters.doVersioning || parameters.doAll != null)) {
             HierarchicalConfiguration<ImmutableNode> versioningConfig = configuration.configurationAt(VERSIONING);
             VersioningService.getInstance(connectionConfiguration).setVersion(versioningConfig);
         }
         if (parameters.doExport != null || parameters.doAll != null) {
-            doExports(parameters, configuration, connectionConfiguration);
+            StepScheduler exports = new StepScheduler(parameters.parallelism);
+            addExports(exports, parameters, configuration, connectionConfiguration);
+            runSteps(exports);
         }
     }
 
-    private static void doExports(CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws DataExportException, ConceptDatabaseConnectionException {
+    private static void addExports(StepScheduler scheduler, CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws DataExportException, ConceptDatabaseConnectionException {
         DataExportService dataExportService = DataExportService.getInstance(connectionConfiguration);
         List<HierarchicalConfiguration<ImmutableNode>> applicableExports = new ArrayList<>();
         List<String> selectedSteps = !isUnspecified(parameters.doExport) ? parameters.doExport : parameters.doAll;
@@ -116,11 +154,11 @@ public class ConceptDatabaseApplication {
                     .configurationsAt(slash(EXPORTS, EXPORT));
         }
         for (HierarchicalConfiguration<ImmutableNode> exportConfig : applicableExports) {
-            dataExportService.exportData(exportConfig);
+            scheduler.addStep(exportConfig.getString("[@" + NAME + "]"), exportConfig.getString("[@" + DEPENDS_ON + "]"), () -> dataExportService.exportData(exportConfig));
         }
     }
 
-    private static void doOperations(CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration, String baseElementName) throws DatabaseOperationException {
+    private static void addOperations(StepScheduler scheduler, CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration, String baseElementName) throws DatabaseOperationException {
         DatabaseOperationService operationService = DatabaseOperationService.getInstance(connectionConfiguration);
         List<HierarchicalConfiguration<ImmutableNode>> applicableOperations = new ArrayList<>();
 
@@ -145,11 +183,11 @@ public class ConceptDatabaseApplication {
                     .configurationsAt(slash(baseElementName, OPERATION));
         }
         for (HierarchicalConfiguration<ImmutableNode> operationConfig : applicableOperations) {
-            operationService.operate(operationConfig);
+            scheduler.addStep(operationConfig.getString("[@" + NAME + "]"), operationConfig.getString("[@" + DEPENDS_ON + "]"), () -> operationService.operate(operationConfig));
         }
     }
 
-    private static void doImports(CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptCreationException, FacetCreationException, ConceptInsertionException {
+    private static void addImports(StepScheduler scheduler, Map<Integer, HierarchicalConfiguration<ImmutableNode>> importSteps, Map<HierarchicalConfiguration<ImmutableNode>, Stream<ImportConcepts>> createdConcepts, ImportConceptsPipeline pipeline, CLIParameters parameters, XMLConfiguration configuration, HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptCreationException, FacetCreationException, ConceptInsertionException {
         ConceptCreationService conceptCreationService = ConceptCreationService.getInstance();
         ConceptInsertionService insertionService = ConceptInsertionService.getInstance(connectionConfiguration);
         List<HierarchicalConfiguration<ImmutableNode>> applicableImports = new ArrayList<>();
@@ -175,8 +213,33 @@ public class ConceptDatabaseApplication {
                     .configurationsAt(slash(IMPORTS, IMPORT));
         }
         for (HierarchicalConfiguration<ImmutableNode> importConfig : applicableImports) {
-            Stream<ImportConcepts> concepts = conceptCreationService.createConcepts(importConfig);
-            insertionService.insertConcepts(importConfig, concepts);
+            int step = scheduler.addStep(importConfig.getString("[@" + NAME + "]"), importConfig.getString("[@" + DEPENDS_ON + "]"), () -> {
+                Stream<ImportConcepts> concepts;
+                if (pipeline == null)
+                    concepts = conceptCreationService.createConcepts(importConfig);
+                else
+                    concepts = createdConcepts.containsKey(importConfig) ? createdConcepts.get(importConfig) : pipeline.createConcepts(importConfig);
+                try {
+                    insertionService.insertConcepts(importConfig, concepts);
+                } catch (ConceptDBManagerRuntimeException e) {
+                    // Errors of the lazy concept creation are delivered as runtime exceptions through the concept
+                    // stream
+                    if (e.getCause() instanceof ConceptDBManagerException)
+                        throw (ConceptDBManagerException) e.getCause();
+                    throw e;
+                }
+            });
+            importSteps.put(step, importConfig);
+        }
+    }
+
+    private static void runSteps(StepScheduler scheduler) throws ConceptCreationException, FacetCreationException, ConceptInsertionException, DataExportException, ConceptDatabaseConnectionException, DatabaseOperationException {
+        try {
+            scheduler.run();
+        } catch (ConceptCreationException | FacetCreationException | ConceptInsertionException | DataExportException | ConceptDatabaseConnectionException | DatabaseOperationException e) {
+            throw e;
+        } catch (ConceptDBManagerException e) {
+            throw new ConceptDBManagerRuntimeException(e);
         }
     }
 
@@ -0,0 +1,219 @@
+package de.julielab.concepts.db.application;
+
+import de.julielab.concepts.util.ConceptDBManagerException;
+import de.julielab.concepts.util.ConceptDBManagerRuntimeException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Executes the steps of an application run - imports, operations or exports - with respect to the dependencies
+ * between them. Steps whose dependencies have been completed are run concurrently up to the given parallelism.
+ * </p>
+ * <p>
+ * A step without explicit dependencies depends on all steps added before it. This keeps the sequential semantics of
+ * configurations that do not declare dependencies. Steps are started in the order they have been added if their
+ * dependencies allow it.
+ * </p>
+ * <p>
+ * Steps running at the same time share the service singletons of the core module. The services create fresh
+ * concept creator, facet creator, inserter, operator and exporter instances for each call so that these providers
+ * need not be thread-safe. Concept inserters that accumulate state across insertions declare this via
+ * {@link de.julielab.concepts.db.core.spi.ConceptInserter#supportsConcurrentInsertion()} and are then used by one
+ * step at a time. Static state of the providers is shared, of course, and must be guarded by the providers.
+ * </p>
+ */
+public class StepScheduler {
+    private static final Logger log = LoggerFactory.getLogger(StepScheduler.class);
+    private final int parallelism;
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * @param parallelism The maximum number of steps to run at the same time.
+     */
+    public StepScheduler(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Adds a step to the schedule.
+     *
+     * @param name      The name of the step. May be <tt>null</tt> in which case no other step can depend on it.
+     * @param dependsOn A whitespace or comma separated list of names of steps this step depends on. If <tt>null</tt>,
+     *                  the step depends on all previously added steps. The empty string makes the step independent.
+     *                  Names of steps not added to this scheduler are ignored.
+     * @param action    The work of the step.
+     * @return The index of the new step, i.e. the number of steps added before it.
+     */
+    public int addStep(String name, String dependsOn, StepAction action) {
+        steps.add(new Step(steps.size(), name, dependsOn, action));
+        return steps.size() - 1;
+    }
+
+    /**
+     * @return The indices of the steps in the order they are executed with a parallelism of 1.
+     * @throws IllegalArgumentException If there is a cyclic dependency between the steps.
+     */
+    public List<Integer> getExecutionOrder() {
+        return resolveDependencies().stream().map(s -> s.index).collect(Collectors.toList());
+    }
+
+    /**
+     * Runs all steps. When a step fails, no further steps are started. The steps already running are completed
+     * and the error of the first failed step is thrown.
+     *
+     * @throws ConceptDBManagerException If a step failed.
+     * @throws IllegalArgumentException  If there is a cyclic dependency between the steps.
+     */
+    public void run() throws ConceptDBManagerException {
+        List<Step> executionOrder = resolveDependencies();
+        if (parallelism == 1 || executionOrder.size() < 2) {
+            for (Step step : executionOrder)
+                step.execute();
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, executionOrder.size()));
+        CompletionService<Step> completionService = new ExecutorCompletionService<>(executor);
+        PriorityQueue<Step> ready = new PriorityQueue<>(Comparator.comparingInt(s -> s.index));
+        for (Step step : executionOrder) {
+            if (step.unfinishedDependencies == 0)
+                ready.add(step);
+        }
+        int running = 0;
+        int finished = 0;
+        Throwable failure = null;
+        try {
+            while (!ready.isEmpty() || running > 0) {
+                while (failure == null && !ready.isEmpty()) {
+                    Step step = ready.poll();
+                    completionService.submit(() -> {
+                        step.execute();
+                        return step;
+                    });
+                    ++running;
+                }
+                if (running == 0)
+                    break;
+                Future<Step> future = completionService.take();
+                --running;
+                try {
+                    Step step = future.get();
+                    ++finished;
+                    for (Step dependent : step.dependents) {
+                        if (--dependent.unfinishedDependencies == 0)
+                            ready.add(dependent);
+                    }
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                        log.error("A step failed, waiting for the {} running steps to finish without starting new steps.", running);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new ConceptDBManagerRuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+        if (failure != null) {
+            log.info("{} of {} steps have been completed.", finished, executionOrder.size());
+            if (failure instanceof ConceptDBManagerException)
+                throw (ConceptDBManagerException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            throw new ConceptDBManagerRuntimeException(failure);
+        }
+    }
+
+    /**
+     * Builds the dependency graph and sorts it topologically. Ties are broken by the order the steps have been added.
+     */
+    private List<Step> resolveDependencies() {
+        Map<String, List<Step>> stepsByName = new HashMap<>();
+        for (Step step : steps) {
+            step.dependents.clear();
+            step.unfinishedDependencies = 0;
+            if (step.name != null)
+                stepsByName.computeIfAbsent(step.name, k -> new ArrayList<>()).add(step);
+        }
+        for (Step step : steps) {
+            Set<Step> dependencies = new LinkedHashSet<>();
+            if (step.dependsOn == null) {
+                dependencies.addAll(steps.subList(0, step.index));
+            } else {
+                for (String dependencyName : step.dependsOn.split("[\\s,]+")) {
+                    if (dependencyName.isEmpty())
+                        continue;
+                    List<Step> namedSteps = stepsByName.get(dependencyName);
+                    if (namedSteps != null)
+                        dependencies.addAll(namedSteps);
+                    else
+                        log.debug("Step {} depends on {} which does not take part in this run. The dependency is ignored.", step, dependencyName);
+                }
+            }
+            for (Step dependency : dependencies) {
+                dependency.dependents.add(step);
+                ++step.unfinishedDependencies;
+            }
+        }
+        List<Step> executionOrder = new ArrayList<>(steps.size());
+        int[] remainingDependencies = steps.stream().mapToInt(s -> s.unfinishedDependencies).toArray();
+        PriorityQueue<Step> ready = new PriorityQueue<>(Comparator.comparingInt(s -> s.index));
+        steps.stream().filter(s -> s.unfinishedDependencies == 0).forEach(ready::add);
+        while (!ready.isEmpty()) {
+            Step step = ready.poll();
+            executionOrder.add(step);
+            for (Step dependent : step.dependents) {
+                if (--remainingDependencies[dependent.index] == 0)
+                    ready.add(dependent);
+            }
+        }
+        if (executionOrder.size() < steps.size()) {
+            String cycle = steps.stream().filter(s -> remainingDependencies[s.index] > 0).map(Step::toString).collect(Collectors.joining(", "));
+            throw new IllegalArgumentException("The dependencies between the following steps are cyclic: " + cycle);
+        }
+        return executionOrder;
+    }
+
+    @FunctionalInterface
+    public interface StepAction {
+        void run() throws ConceptDBManagerException;
+    }
+
+    private static class Step {
+        private final int index;
+        private final String name;
+        private final String dependsOn;
+        private final StepAction action;
+        private final List<Step> dependents = new ArrayList<>();
+        private int unfinishedDependencies;
+
+        private Step(int index, String name, String dependsOn, StepAction action) {
+            this.index = index;
+            this.name = StringUtils.isBlank(name) ? null : name;
+            this.dependsOn = dependsOn;
+            this.action = action;
+        }
+
+        private void execute() throws ConceptDBManagerException {
+            log.info("Starting step {}", this);
+            long time = System.currentTimeMillis();
+            action.run();
+            log.info("Step {} finished after {} seconds.", this, (System.currentTimeMillis() - time) / 1000);
+        }
+
+        @Override
+        public String toString() {
+            return name != null ? name : "#" + (index + 1);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package de.julielab.concepts.db.application;
+
+import de.julielab.concepts.db.core.ImportConceptsPipeline;
+import de.julielab.concepts.db.core.spi.ConceptCreator;
+import de.julielab.concepts.util.ConceptCreationException;
+import de.julielab.concepts.util.ConceptDBManagerRuntimeException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcepts;
+import de.julielab.neo4j.plugins.datarepresentation.ImportFacet;
+import de.julielab.neo4j.plugins.datarepresentation.ImportFacetGroup;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ImportConceptsPipelineTest {
+
+    @BeforeMethod
+    public void reset() {
+        CountingConceptCreator.reset();
+    }
+
+    @Test
+    public void testOrdering() {
+        List<String> received = new ArrayList<>();
+        try (ImportConceptsPipeline pipeline = new ImportConceptsPipeline(2, 2)) {
+            // The second import is already being created while the first is consumed
+            Stream<ImportConcepts> first = pipeline.createConcepts(importConfiguration("a", 2, 5));
+            Stream<ImportConcepts> second = pipeline.createConcepts(importConfiguration("b", 1, 3));
+            for (Stream<ImportConcepts> imports : List.of(first, second)) {
+                imports.forEach(concepts -> {
+                    received.add(concepts.getFacet().getName());
+                    try (Stream<ImportConcept> conceptStream = concepts.getConcepts()) {
+                        conceptStream.forEach(c -> received.add(c.prefName));
+                    }
+                });
+            }
+        }
+        assertThat(received).containsExactly(
+                "a-f0", "a-f0-c0", "a-f0-c1", "a-f0-c2", "a-f0-c3", "a-f0-c4",
+                "a-f1", "a-f1-c0", "a-f1-c1", "a-f1-c2", "a-f1-c3", "a-f1-c4",
+                "b-f0", "b-f0-c0", "b-f0-c1", "b-f0-c2");
+    }
+
+    @Test
+    public void testBackPressure() throws Exception {
+        try (ImportConceptsPipeline pipeline = new ImportConceptsPipeline(2, 2)) {
+            Iterator<ImportConcepts> facetIt = pipeline.createConcepts(importConfiguration("a", 1, 1000)).iterator();
+            ImportConcepts concepts = facetIt.next();
+            awaitBlockedCreation();
+            // Two batches in the queue and one batch waiting to be put into it
+            assertThat(CountingConceptCreator.CREATED.get()).isEqualTo(6);
+
+            Iterator<ImportConcept> conceptIt = concepts.getConcepts().iterator();
+            for (int i = 0; i < 4; i++)
+                conceptIt.next();
+            awaitBlockedCreation();
+            // Each consumed batch makes room for one more batch
+            assertThat(CountingConceptCreator.CREATED.get()).isEqualTo(10);
+
+            // Closing the stream skips the remaining concepts so that the creation is not blocked forever
+            concepts.getConcepts().close();
+            assertThat(CountingConceptCreator.CREATED.get()).isEqualTo(1000);
+            assertThat(facetIt.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void testErrorPropagation() {
+        try (ImportConceptsPipeline pipeline = new ImportConceptsPipeline(2, 2)) {
+            HierarchicalConfiguration<ImmutableNode> importConfiguration = importConfiguration("a", 2, 5);
+            importConfiguration.setProperty(slash(CONCEPTS, CREATOR, REQUEST, CountingConceptCreator.FAIL_AT), 7);
+            Iterator<ImportConcepts> facetIt = pipeline.createConcepts(importConfiguration).iterator();
+            // The first facet is complete
+            try (Stream<ImportConcept> conceptStream = facetIt.next().getConcepts()) {
+                assertThat(conceptStream.count()).isEqualTo(5);
+            }
+            // The error is thrown from the concepts of the facet in creation
+            Stream<ImportConcept> failingConcepts = facetIt.next().getConcepts();
+            assertThatThrownBy(failingConcepts::count)
+                    .isInstanceOf(ConceptDBManagerRuntimeException.class)
+                    .hasRootCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("concept creation failed");
+            // Closing the failed stream does not throw the error again
+            failingConcepts.close();
+            // The import stream reports the error instead of ending normally
+            assertThatThrownBy(facetIt::hasNext)
+                    .isInstanceOf(ConceptDBManagerRuntimeException.class)
+                    .hasRootCauseInstanceOf(IllegalStateException.class);
+
+            // Errors of the concept creation service are delivered the same way
+            HierarchicalConfiguration<ImmutableNode> unknownCreator = ConfigurationUtilities.createEmptyConfiguration();
+            unknownCreator.setProperty(slash(CONCEPTS, CREATOR, NAME), "NoSuchConceptCreator");
+            assertThatThrownBy(() -> pipeline.createConcepts(unknownCreator).count())
+                    .isInstanceOf(ConceptDBManagerRuntimeException.class)
+                    .hasCauseInstanceOf(ConceptCreationException.class);
+        }
+    }
+
+    @Test
+    public void testCloseWhileCreating() throws Exception {
+        ImportConceptsPipeline pipeline = new ImportConceptsPipeline(1, 1);
+        pipeline.createConcepts(importConfiguration("a", 1, 1000)).iterator().next();
+        awaitBlockedCreation();
+        Thread creationThread = CountingConceptCreator.CREATION_THREAD;
+        assertThat(creationThread.isAlive()).isTrue();
+
+        pipeline.close();
+        creationThread.join(TimeUnit.SECONDS.toMillis(10));
+        // The creation thread blocked on the full queue was interrupted and has not created further concepts
+        assertThat(creationThread.isAlive()).isFalse();
+        assertThat(CountingConceptCreator.CREATED.get()).isLessThan(1000);
+    }
+
+    /**
+     * Waits until the number of created concepts does not change any more, i.e. the creation thread is blocked on a
+     * full queue.
+     */
+    private void awaitBlockedCreation() throws InterruptedException {
+        int created;
+        do {
+            created = CountingConceptCreator.CREATED.get();
+            Thread.sleep(200);
+        } while (created == 0 || created != CountingConceptCreator.CREATED.get());
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> importConfiguration(String prefix, int numFacets, int numConcepts) {
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        importConfiguration.setProperty(slash(CONCEPTS, CREATOR, NAME), CountingConceptCreator.class.getSimpleName());
+        importConfiguration.setProperty(slash(CONCEPTS, CREATOR, REQUEST, CountingConceptCreator.PREFIX), prefix);
+        importConfiguration.setProperty(slash(CONCEPTS, CREATOR, REQUEST, CountingConceptCreator.FACETS), numFacets);
+        importConfiguration.setProperty(slash(CONCEPTS, CREATOR, REQUEST, CountingConceptCreator.CONCEPTS_PER_FACET), numConcepts);
+        return importConfiguration;
+    }
+
+    /**
+     * Lazily creates the configured number of facets and concepts and counts the created concepts. The concept ids
+     * consist of the configured prefix, the facet number and the concept number. The creation of the concept with the
+     * overall number given by {@link #FAIL_AT} fails. Since the {@link de.julielab.concepts.db.core.services.ConceptCreationService}
+     * creates fresh instances, the observations are kept in static fields.
+     */
+    public static class CountingConceptCreator implements ConceptCreator {
+        static final String PREFIX = "prefix";
+        static final String FACETS = "facets";
+        static final String CONCEPTS_PER_FACET = "conceptsperfacet";
+        static final String FAIL_AT = "failat";
+        static final AtomicInteger CREATED = new AtomicInteger();
+        static volatile Thread CREATION_THREAD;
+
+        static void reset() {
+            CREATED.set(0);
+            CREATION_THREAD = null;
+        }
+
+        @Override
+        public Stream<ImportConcepts> createConcepts(HierarchicalConfiguration<ImmutableNode> importConfig) {
+            String confPath = slash(CONCEPTS, CREATOR, REQUEST);
+            String prefix = importConfig.getString(slash(confPath, PREFIX));
+            int numConcepts = importConfig.getInt(slash(confPath, CONCEPTS_PER_FACET));
+            int failAt = importConfig.getInt(slash(confPath, FAIL_AT), -1);
+            return IntStream.range(0, importConfig.getInt(slash(confPath, FACETS))).mapToObj(f -> {
+                String facetName = prefix + "-f" + f;
+                ImportFacet facet = new ImportFacet(new ImportFacetGroup("group"), null, facetName, facetName, FacetConstants.SRC_TYPE_HIERARCHICAL, Collections.emptyList(), false);
+                Stream<ImportConcept> concepts = IntStream.range(0, numConcepts).mapToObj(c -> {
+                    CREATION_THREAD = Thread.currentThread();
+                    if (f * numConcepts + c == failAt)
+                        throw new IllegalStateException("concept creation failed");
+                    CREATED.incrementAndGet();
+                    String id = facetName + "-c" + c;
+                    return new ImportConcept(id, Collections.emptyList(), new ConceptCoordinates(id, "src", true));
+                });
+                return new ImportConcepts(concepts, facet);
+            });
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+    }
+}
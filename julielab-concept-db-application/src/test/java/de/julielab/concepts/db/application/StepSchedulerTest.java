@@ -0,0 +1,78 @@
+package de.julielab.concepts.db.application;
+
+import de.julielab.concepts.util.ConceptDBManagerException;
+import de.julielab.concepts.util.DataExportException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StepSchedulerTest {
+    @Test
+    public void testStepsWithoutDependenciesAttributeAreSequential() {
+        StepScheduler scheduler = new StepScheduler(4);
+        scheduler.addStep("a", null, () -> {});
+        scheduler.addStep("b", null, () -> {});
+        scheduler.addStep("c", null, () -> {});
+        assertThat(scheduler.getExecutionOrder()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void testExecutionOrderRespectsDependencies() {
+        StepScheduler scheduler = new StepScheduler(1);
+        scheduler.addStep("export", "import2", () -> {});
+        scheduler.addStep("import1", "", () -> {});
+        scheduler.addStep("import2", "import1, unknown", () -> {});
+        assertThat(scheduler.getExecutionOrder()).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    public void testCyclicDependencies() {
+        StepScheduler scheduler = new StepScheduler(1);
+        scheduler.addStep("a", "b", () -> {});
+        scheduler.addStep("b", "a", () -> {});
+        assertThatThrownBy(scheduler::getExecutionOrder).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("a, b");
+    }
+
+    @Test
+    public void testIndependentStepsRunConcurrently() throws Exception {
+        // Both steps wait for each other. This only finishes when they run at the same time.
+        CountDownLatch latch = new CountDownLatch(2);
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        StepScheduler scheduler = new StepScheduler(2);
+        scheduler.addStep("a", "", () -> awaitOther(latch));
+        scheduler.addStep("b", "", () -> awaitOther(latch));
+        scheduler.addStep("c", "a b", () -> finished.add("c"));
+        scheduler.run();
+        assertThat(finished).containsExactly("c");
+    }
+
+    @Test
+    public void testFailureStopsDependentSteps() {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        StepScheduler scheduler = new StepScheduler(2);
+        scheduler.addStep("a", "", () -> {
+            throw new DataExportException("test failure");
+        });
+        scheduler.addStep("b", "", () -> executed.add("b"));
+        scheduler.addStep("c", "a", () -> executed.add("c"));
+        assertThatThrownBy(scheduler::run).isInstanceOf(DataExportException.class).hasMessage("test failure");
+        assertThat(executed).doesNotContain("c");
+    }
+
+    private void awaitOther(CountDownLatch latch) throws ConceptDBManagerException {
+        latch.countDown();
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new ConceptDBManagerException("The other step did not run concurrently.");
+        } catch (InterruptedException e) {
+            throw new ConceptDBManagerException(e);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.services.BoltConnectionService;
+import de.julielab.concepts.db.core.spi.ConceptInserter;
+import de.julielab.concepts.util.ConceptDatabaseConnectionException;
+import de.julielab.concepts.util.ConceptInsertionException;
+import de.julielab.java.utilities.ProgressBar;
+import de.julielab.neo4j.plugins.FacetManager.FacetLabel;
+import de.julielab.neo4j.plugins.concepts.ConceptEdgeTypes;
+import de.julielab.neo4j.plugins.concepts.ConceptLabel;
+import de.julielab.neo4j.plugins.datarepresentation.*;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.QueryRunner;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.exceptions.Neo4jException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.getCoordinateProperties;
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.getCoordinatesKey;
+import static de.julielab.concepts.db.core.ConceptProperties.getConceptProperties;
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+
+/**
+ * <p>
+ * Inserts concepts into a Neo4j server via the Bolt protocol without the need for the JULIE Lab server plugins.
+ * </p>
+ * <p>
+ * The concepts are sent in batches as the parameter of <tt>UNWIND $batch</tt> Cypher statements. The batch size
+ * and the number of concurrent sessions are read from the <tt>insertion</tt> element of the import configuration.
+ * Each concept is identified by its coordinates: If the original ID and original source are given, they are used,
+ * the source ID and source otherwise. This identity is stored in the {@link #PROP_COORDINATES_KEY} property which
+ * is backed by a uniqueness constraint so that concurrent batches never create the same concept twice.
+ * </p>
+ * <p>
+ * Like the server plugins, the inserter gives each new facet an ID with the prefix {@link #FACET_ID_PREFIX} and
+ * each new concept an ID with the prefix {@link #CONCEPT_ID_PREFIX}, followed by a sequence number. The sequence
+ * numbers are drawn from {@link #SEQUENCE} nodes. Existing IDs are never changed.
+ * </p>
+ * <p>
+ * Parents, aggregate elements and relationship targets that do not yet exist are created as
+ * {@link ConceptLabel#HOLLOW} concepts and completed when the concept itself is inserted. Properties of aggregates
+ * are not copied from their elements; this is left to the aggregate operations of the server plugins.
+ * </p>
+ * <p>
+ * The source IDs and sources of a concept, including those of its additional coordinates, are appended to the
+ * existing ones unless the same pair is already present, as in the server plugins. Writing variants and acronyms are
+ * stored as plain array properties. In merge mode, concepts that do not exist in the database are not created; their
+ * number is logged.
+ * </p>
+ */
+public class BoltConceptInserter implements ConceptInserter {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_CONCURRENCY = 1;
+    public static final String PROP_COORDINATES_KEY = "coordinatesKey";
+    public static final String FACET_ID_PREFIX = "fid";
+    public static final String CONCEPT_ID_PREFIX = "tid";
+    /**
+     * The label of the nodes storing the last sequence number used for facet and concept IDs.
+     */
+    public static final String SEQUENCE = "ID_SEQUENCE";
+    private static final String SEQ_FACETS = "facets";
+    private static final String SEQ_CONCEPTS = "concepts";
+    private static final Logger log = LoggerFactory.getLogger(BoltConceptInserter.class);
+    private static final String CONCEPT = ConceptLabel.CONCEPT.name();
+    private static final String HOLLOW = ConceptLabel.HOLLOW.name();
+    private static final String AGGREGATE = ConceptLabel.AGGREGATE.name();
+    private static final String FACET = FacetLabel.FACET.name();
+
+    private Driver driver;
+
+    @Override
+    public void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfig, ImportConcepts concepts) throws ConceptInsertionException {
+        concepts.setImportOptions(setGlobalOptions(importConfig, concepts.getImportOptions()));
+        ImportFacet facet = concepts.getFacet();
+        if (facet == null)
+            throw new ConceptInsertionException("The facet of the import concepts is null.");
+        ImportOptions importOptions = concepts.getImportOptions();
+
+        int batchSize = importConfig.getInt(slash(INSERTION, BATCH_SIZE), DEFAULT_BATCH_SIZE);
+        if (batchSize <= 0)
+            batchSize = DEFAULT_BATCH_SIZE;
+        int concurrency = Math.max(1, importConfig.getInt(slash(INSERTION, CONCURRENCY), DEFAULT_CONCURRENCY));
+        log.info("Inserting concepts of facet {} via Bolt in batches of {} with {} concurrent session(s).", facet.getName(), batchSize, concurrency);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Deque<Future<Void>> inFlight = new ArrayDeque<>(concurrency);
+        AtomicLong missingConcepts = new AtomicLong();
+        try {
+            createSchema();
+            String facetId = mergeFacet(facet);
+            ProgressBar progressBar = new ProgressBar(concepts.getNumConcepts());
+            Iterator<ImportConcept> conceptIt = concepts.getConcepts().iterator();
+            while (conceptIt.hasNext()) {
+                List<ImportConcept> batch = new ArrayList<>(batchSize);
+                while (conceptIt.hasNext() && batch.size() < batchSize)
+                    batch.add(conceptIt.next());
+                inFlight.add(executor.submit(() -> {
+                    missingConcepts.addAndGet(insertBatch(batch, facetId, importOptions));
+                    synchronized (progressBar) {
+                        progressBar.incrementDone(batch.size(), true);
+                    }
+                    return null;
+                }));
+                if (inFlight.size() >= concurrency)
+                    awaitBatch(inFlight.poll());
+            }
+            while (!inFlight.isEmpty())
+                awaitBatch(inFlight.poll());
+            if (missingConcepts.get() > 0)
+                log.warn("{} concepts of facet {} were not merged because they do not exist in the database.", missingConcepts.get(), facet.getName());
+            log.info("Done with concept import.");
+        } catch (Neo4jException e) {
+            throw new ConceptInsertionException(e);
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the uniqueness constraints on the concept coordinates and the ID sequences and the indexes for the
+     * facet and concept lookups. Schema and data manipulation transactions must be separated.
+     */
+    private void createSchema() {
+        List<String> schemaStatements = List.of(
+                "CREATE CONSTRAINT IF NOT EXISTS ON (c:" + CONCEPT + ") ASSERT c." + PROP_COORDINATES_KEY + " IS UNIQUE",
+                "CREATE CONSTRAINT IF NOT EXISTS ON (s:" + SEQUENCE + ") ASSERT s.name IS UNIQUE",
+                "CREATE INDEX IF NOT EXISTS FOR (f:" + FACET + ") ON (f." + FacetConstants.PROP_CUSTOM_ID + ")",
+                "CREATE INDEX IF NOT EXISTS FOR (f:" + FACET + ") ON (f." + FacetConstants.PROP_ID + ")",
+                "CREATE INDEX IF NOT EXISTS FOR (c:" + CONCEPT + ") ON (c." + ConceptConstants.PROP_ID + ")");
+        try (Session session = driver.session()) {
+            for (String statement : schemaStatements) {
+                try (Transaction tx = session.beginTransaction()) {
+                    tx.run(statement);
+                    tx.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the facet node, if it does not already exist, and returns its ID. The facet is identified by its custom
+     * ID or, if there is none, by its name.
+     */
+    private String mergeFacet(ImportFacet facet) {
+        String customId = facet.getCustomId() != null ? facet.getCustomId() : facet.getName();
+        Map<String, Object> facetProps = new HashMap<>();
+        facetProps.put(FacetConstants.PROP_NAME, facet.getName());
+        facetProps.put(FacetConstants.PROP_SHORT_NAME, facet.getShortName());
+        facetProps.put(FacetConstants.PROP_SOURCE_TYPE, facet.getSourceType());
+        facetProps.values().removeIf(Objects::isNull);
+        Map<String, Object> params = new HashMap<>();
+        params.put("customId", customId);
+        params.put("props", facetProps);
+        String query = "MERGE (f:" + FACET + " {" + FacetConstants.PROP_CUSTOM_ID + ": $customId}) " +
+                "ON CREATE SET f += $props " +
+                "RETURN f." + FacetConstants.PROP_ID + " AS id";
+        String setIdQuery = "MATCH (f:" + FACET + " {" + FacetConstants.PROP_CUSTOM_ID + ": $customId}) " +
+                "SET f." + FacetConstants.PROP_ID + " = $id";
+        try (Session session = driver.session()) {
+            return session.writeTransaction(tx -> {
+                Value id = tx.run(query, params).single().get("id");
+                if (!id.isNull())
+                    return id.asString();
+                String facetId = FACET_ID_PREFIX + reserveSequenceNumbers(tx, SEQ_FACETS, 1);
+                tx.run(setIdQuery, Map.of("customId", customId, "id", facetId));
+                return facetId;
+            });
+        }
+    }
+
+    /**
+     * Increments the given sequence by <tt>count</tt> and returns the first of the reserved numbers. The sequence
+     * node is write-locked before its value is read so that concurrent transactions cannot reserve the same numbers;
+     * the lock is held until the end of the transaction.
+     */
+    private long reserveSequenceNumbers(QueryRunner tx, String sequence, int count) {
+        String query = "MERGE (s:" + SEQUENCE + " {name: $name}) " +
+                "ON CREATE SET s.value = 0 " +
+                "SET s._lock = true " +
+                "WITH s SET s.value = s.value + $count REMOVE s._lock " +
+                "RETURN s.value - $count AS first";
+        return tx.run(query, Map.of("name", sequence, "count", count)).single().get("first").asLong();
+    }
+
+    /**
+     * Writes one batch of concepts within a single transaction. The driver retries the transaction on transient
+     * errors like deadlocks which may occur with concurrent sessions.
+     *
+     * @return The number of concepts that were not merged because they do not exist in the database. Always 0 if not
+     * in merge mode.
+     */
+    private int insertBatch(List<ImportConcept> batch, String facetId, ImportOptions importOptions) {
+        // Concepts with the same labels can be written with the same statement because labels cannot be parameterized.
+        Map<List<String>, List<Map<String, Object>>> conceptRowsByLabels = new HashMap<>();
+        List<Map<String, Object>> parentRows = new ArrayList<>();
+        List<Map<String, Object>> elementRows = new ArrayList<>();
+        Map<String, List<Map<String, Object>>> relationshipRowsByType = new HashMap<>();
+        for (ImportConcept concept : batch) {
+            String key = getCoordinatesKey(concept.coordinates);
+            List<String> labels = new ArrayList<>();
+            if (concept.generalLabels != null)
+                labels.addAll(concept.generalLabels);
+            if (concept.aggregate)
+                labels.add(AGGREGATE);
+            Collections.sort(labels);
+            Map<String, Object> props = getConceptProperties(concept);
+            Map<String, Object> row = new HashMap<>();
+            row.put("key", key);
+            // Source IDs and sources are appended to the existing ones instead of replacing them
+            row.put("sourceIds", props.getOrDefault(ConceptConstants.PROP_SRC_IDS, Collections.emptyList()));
+            row.put("sources", props.getOrDefault(ConceptConstants.PROP_SOURCES, Collections.emptyList()));
+            props.remove(ConceptConstants.PROP_SRC_IDS);
+            props.remove(ConceptConstants.PROP_SOURCES);
+            row.put("props", props);
+            row.put("prefName", concept.prefName);
+            boolean hasParents = concept.parentCoordinates != null && !concept.parentCoordinates.isEmpty();
+            row.put("root", !importOptions.merge && !hasParents && (!concept.aggregate || concept.aggregateIncludeInHierarchy));
+            conceptRowsByLabels.computeIfAbsent(labels, k -> new ArrayList<>()).add(row);
+
+            // The JULIE Lab Neo4j plugins cannot handle parents in merging mode; we keep that behaviour.
+            if (hasParents && !importOptions.merge) {
+                for (ConceptCoordinates parent : concept.parentCoordinates)
+                    parentRows.add(getEdgeRow(key, parent, null));
+            }
+            if (concept.aggregate && concept.elementCoordinates != null) {
+                for (ConceptCoordinates element : concept.elementCoordinates)
+                    elementRows.add(getEdgeRow(key, element, null));
+            }
+            if (concept.relationships != null) {
+                for (ImportConceptRelationship relationship : concept.relationships)
+                    relationshipRowsByType.computeIfAbsent(relationship.type, k -> new ArrayList<>()).add(getEdgeRow(key, relationship.targetCoordinates, relationship.properties));
+            }
+        }
+        try (Session session = driver.session()) {
+            assignConceptIds(session, conceptRowsByLabels.values(), parentRows, elementRows, relationshipRowsByType.values());
+            Set<String> missingKeys = session.writeTransaction(tx -> {
+                Set<String> missing = new HashSet<>();
+                for (List<String> labels : conceptRowsByLabels.keySet()) {
+                    List<Map<String, Object>> rows = conceptRowsByLabels.get(labels);
+                    Result result = tx.run(getConceptStatement(labels, importOptions), batchParameters(rows, facetId, importOptions));
+                    if (importOptions.merge) {
+                        rows.forEach(row -> missing.add((String) row.get("key")));
+                        missing.removeAll(result.single().get("keys").asList(Value::asString));
+                    }
+                }
+                if (!parentRows.isEmpty())
+                    tx.run(getEdgeStatement(ConceptEdgeTypes.IS_BROADER_THAN.name(), true), batchParameters(parentRows, facetId, importOptions));
+                if (!elementRows.isEmpty())
+                    tx.run(getEdgeStatement(ConceptEdgeTypes.HAS_ELEMENT.name(), false), batchParameters(elementRows, facetId, importOptions));
+                for (String type : relationshipRowsByType.keySet())
+                    tx.run(getEdgeStatement(type, false), batchParameters(relationshipRowsByType.get(type), facetId, importOptions));
+                return missing;
+            });
+            if (!missingKeys.isEmpty())
+                log.debug("The following concepts do not exist in the database and were not merged: {}", missingKeys.stream().sorted().collect(Collectors.joining(", ")));
+            return missingKeys.size();
+        }
+    }
+
+    /**
+     * Reserves one concept ID for each concept and each relationship target of a batch. The IDs are only used for
+     * nodes that are created or do not yet have an ID. The sequence numbers are reserved in a transaction of their
+     * own so that concurrent batches do not wait for each other on the sequence node.
+     */
+    private void assignConceptIds(Session session, Collection<List<Map<String, Object>>> conceptRows, List<Map<String, Object>> parentRows, List<Map<String, Object>> elementRows, Collection<List<Map<String, Object>>> relationshipRows) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        conceptRows.forEach(rows::addAll);
+        rows.addAll(parentRows);
+        rows.addAll(elementRows);
+        relationshipRows.forEach(rows::addAll);
+        long first = session.writeTransaction(tx -> reserveSequenceNumbers(tx, SEQ_CONCEPTS, rows.size()));
+        for (Map<String, Object> row : rows) {
+            String idKey = row.containsKey("targetKey") ? "targetId" : "id";
+            row.put(idKey, CONCEPT_ID_PREFIX + first++);
+        }
+    }
+
+    private Map<String, Object> batchParameters(List<Map<String, Object>> rows, String facetId, ImportOptions importOptions) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("batch", rows);
+        params.put("facetId", facetId);
+        params.put("overridePrefName", importOptions.overridePreferredName);
+        return params;
+    }
+
+    /**
+     * Creates or - in merge mode - only updates the concepts of a batch. The preferred name of existing concepts is
+     * only replaced if this is allowed by the import options. In merge mode, the statement returns the keys of the
+     * concepts that were found.
+     */
+    private String getConceptStatement(List<String> labels, ImportOptions importOptions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("UNWIND $batch AS c ");
+        sb.append(importOptions.merge ? "MATCH" : "MERGE").append(" (n:").append(CONCEPT).append(" {").append(PROP_COORDINATES_KEY).append(": c.key}) ");
+        sb.append("SET n.").append(ConceptConstants.PROP_ID).append(" = coalesce(n.").append(ConceptConstants.PROP_ID).append(", c.id) ");
+        sb.append("SET n.").append(ConceptConstants.PROP_PREF_NAME).append(" = CASE WHEN n.").append(ConceptConstants.PROP_PREF_NAME)
+                .append(" IS NULL OR n:").append(HOLLOW).append(" OR $overridePrefName THEN coalesce(c.prefName, n.")
+                .append(ConceptConstants.PROP_PREF_NAME).append(") ELSE n.").append(ConceptConstants.PROP_PREF_NAME).append(" END ");
+        sb.append("SET n += c.props ");
+        sb.append("WITH n, c, [i IN range(0, size(c.sourceIds) - 1) WHERE NOT any(j IN range(0, size(coalesce(n.")
+                .append(ConceptConstants.PROP_SRC_IDS).append(", [])) - 1) WHERE n.").append(ConceptConstants.PROP_SRC_IDS)
+                .append("[j] = c.sourceIds[i] AND n.").append(ConceptConstants.PROP_SOURCES).append("[j] = c.sources[i])] AS newSources ");
+        sb.append("SET n.").append(ConceptConstants.PROP_SRC_IDS).append(" = CASE WHEN size(newSources) = 0 THEN n.")
+                .append(ConceptConstants.PROP_SRC_IDS).append(" ELSE coalesce(n.").append(ConceptConstants.PROP_SRC_IDS)
+                .append(", []) + [i IN newSources | c.sourceIds[i]] END ");
+        sb.append("SET n.").append(ConceptConstants.PROP_SOURCES).append(" = CASE WHEN size(newSources) = 0 THEN n.")
+                .append(ConceptConstants.PROP_SOURCES).append(" ELSE coalesce(n.").append(ConceptConstants.PROP_SOURCES)
+                .append(", []) + [i IN newSources | c.sources[i]] END ");
+        for (String label : labels)
+            sb.append("SET n:").append(escape(label)).append(" ");
+        sb.append("REMOVE n:").append(HOLLOW).append(" ");
+        sb.append("SET n.").append(ConceptConstants.PROP_FACETS).append(" = CASE WHEN n.").append(ConceptConstants.PROP_FACETS)
+                .append(" IS NULL THEN [$facetId] WHEN $facetId IN n.").append(ConceptConstants.PROP_FACETS)
+                .append(" THEN n.").append(ConceptConstants.PROP_FACETS).append(" ELSE n.").append(ConceptConstants.PROP_FACETS).append(" + $facetId END ");
+        if (!importOptions.merge) {
+            sb.append("WITH n, c WHERE c.root ");
+            sb.append("MATCH (f:").append(FACET).append(" {").append(FacetConstants.PROP_ID).append(": $facetId}) ");
+            sb.append("MERGE (f)-[:").append(ConceptEdgeTypes.HAS_ROOT_CONCEPT.name()).append("]->(n)");
+        } else {
+            sb.append("RETURN collect(c.key) AS keys");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Connects the concepts of a batch with target concepts. Targets that do not yet exist are created as hollow
+     * concepts.
+     *
+     * @param type          The relationship type.
+     * @param targetIsStart Whether the relationship is directed from the target to the concept, as it is for parents.
+     */
+    private String getEdgeStatement(String type, boolean targetIsStart) {
+        String relationship = targetIsStart ? "(t)-[r:" + escape(type) + "]->(n)" : "(n)-[r:" + escape(type) + "]->(t)";
+        return "UNWIND $batch AS e " +
+                "MATCH (n:" + CONCEPT + " {" + PROP_COORDINATES_KEY + ": e.key}) " +
+                "MERGE (t:" + CONCEPT + " {" + PROP_COORDINATES_KEY + ": e.targetKey}) " +
+                "ON CREATE SET t:" + HOLLOW + ", t += e.targetProps, t." + ConceptConstants.PROP_ID + " = e.targetId " +
+                "MERGE " + relationship + " " +
+                "SET r += e.props";
+    }
+
+    private Map<String, Object> getEdgeRow(String key, ConceptCoordinates target, Map<String, Object> properties) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("key", key);
+        row.put("targetKey", getCoordinatesKey(target));
+        row.put("targetProps", getCoordinateProperties(target));
+        row.put("props", properties != null ? properties : Collections.emptyMap());
+        return row;
+    }
+
+    private String escape(String name) {
+        return "`" + name.replace("`", "``") + "`";
+    }
+
+    private void awaitBatch(Future<Void> future) throws ConceptInsertionException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConceptInsertionException(e);
+        } catch (ExecutionException e) {
+            throw new ConceptInsertionException("Inserting a batch of concepts via Bolt failed.", e.getCause());
+        }
+    }
+
+    @Override
+    public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptDatabaseConnectionException {
+        try {
+            driver = BoltConnectionService.getInstance().getBoltDriver(connectionConfiguration);
+        } catch (IOException e) {
+            throw new ConceptDatabaseConnectionException(e);
+        }
+    }
+}
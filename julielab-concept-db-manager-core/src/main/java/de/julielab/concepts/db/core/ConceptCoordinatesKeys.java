@@ -0,0 +1,66 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+
+import java.util.*;
+
+/**
+ * Identifies concepts by their coordinates for the inserters that write concepts without the JULIE Lab server
+ * plugins, i.e. the {@link BoltConceptInserter} and the {@link CsvBulkImportConceptInserter}.
+ */
+class ConceptCoordinatesKeys {
+
+    private ConceptCoordinatesKeys() {
+    }
+
+    /**
+     * Returns the string identifying a concept in the database. Original coordinates take precedence over the
+     * source coordinates, just like in the JULIE Lab server plugins.
+     */
+    static String getCoordinatesKey(ConceptCoordinates coordinates) {
+        if (coordinates == null)
+            throw new IllegalArgumentException("Concept coordinates must not be null.");
+        if (coordinates.originalId != null && coordinates.originalSource != null)
+            return "o|" + coordinates.originalSource + "|" + coordinates.originalId;
+        if (coordinates.sourceId != null && coordinates.source != null)
+            return "s|" + coordinates.source + "|" + coordinates.sourceId;
+        throw new IllegalArgumentException("The coordinates " + coordinates + " specify neither an original ID and source nor a source ID and source.");
+    }
+
+    /**
+     * Returns the concept properties holding the given coordinates. The source ID and source are given as the
+     * single elements of the parallel {@link ConceptConstants#PROP_SRC_IDS} and {@link ConceptConstants#PROP_SOURCES}
+     * lists.
+     */
+    static Map<String, Object> getCoordinateProperties(ConceptCoordinates coordinates) {
+        Map<String, Object> props = new HashMap<>();
+        if (coordinates.originalId != null && coordinates.originalSource != null) {
+            props.put(ConceptConstants.PROP_ORG_ID, coordinates.originalId);
+            props.put(ConceptConstants.PROP_ORG_SRC, coordinates.originalSource);
+        }
+        if (coordinates.sourceId != null && coordinates.source != null) {
+            props.put(ConceptConstants.PROP_SRC_IDS, List.of(coordinates.sourceId));
+            props.put(ConceptConstants.PROP_SOURCES, List.of(coordinates.source));
+        }
+        return props;
+    }
+
+    /**
+     * Adds a source ID and its source to the parallel lists of source IDs and sources unless the lists already contain
+     * this pair. Like in the server plugins, a concept thus collects the source IDs of all its imports.
+     *
+     * @return Whether the pair was added.
+     */
+    static boolean addSource(List<Object> sourceIds, List<Object> sources, Object sourceId, Object source) {
+        if (sourceId == null || source == null)
+            return false;
+        for (int i = 0; i < sourceIds.size(); i++) {
+            if (sourceId.equals(sourceIds.get(i)) && source.equals(sources.get(i)))
+                return false;
+        }
+        sourceIds.add(sourceId);
+        sources.add(source);
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+
+import java.util.*;
+
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.addSource;
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.getCoordinateProperties;
+
+/**
+ * Converts import concepts into node properties for the inserters that write concepts without the JULIE Lab server
+ * plugins, i.e. the {@link BoltConceptInserter} and the {@link CsvBulkImportConceptInserter}. The properties are named
+ * like those written by the server plugins.
+ */
+class ConceptProperties {
+    static final String PROP_DISPLAY_NAME = "displayName";
+    static final String PROP_QUALIFIERS = "qualifiers";
+    static final String PROP_WRITING_VARIANTS = "writingVariants";
+    static final String PROP_ACRONYMS = "acronyms";
+
+    private ConceptProperties() {
+    }
+
+    /**
+     * Returns the properties of the given concept except its ID and preferred name. The source IDs and sources of the
+     * coordinates and the additional coordinates of the concept are given as the parallel
+     * {@link ConceptConstants#PROP_SRC_IDS} and {@link ConceptConstants#PROP_SOURCES} lists.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> getConceptProperties(ImportConcept concept) {
+        Map<String, Object> props = new HashMap<>();
+        if (concept.additionalProperties != null)
+            props.putAll(concept.additionalProperties);
+        props.remove(ConceptConstants.PROP_ID);
+        props.putAll(getCoordinateProperties(concept.coordinates));
+        List<Object> sourceIds = new ArrayList<>((List<Object>) props.getOrDefault(ConceptConstants.PROP_SRC_IDS, Collections.emptyList()));
+        List<Object> sources = new ArrayList<>((List<Object>) props.getOrDefault(ConceptConstants.PROP_SOURCES, Collections.emptyList()));
+        if (concept.additionalCoordinates != null) {
+            for (ConceptCoordinates coordinates : concept.additionalCoordinates)
+                addSource(sourceIds, sources, coordinates.sourceId, coordinates.source);
+        }
+        if (!sourceIds.isEmpty()) {
+            props.put(ConceptConstants.PROP_SRC_IDS, sourceIds);
+            props.put(ConceptConstants.PROP_SOURCES, sources);
+        }
+        props.put(PROP_DISPLAY_NAME, concept.displayName);
+        putList(props, ConceptConstants.PROP_SYNONYMS, concept.synonyms);
+        putList(props, ConceptConstants.PROP_DESCRIPTIONS, concept.descriptions);
+        putList(props, PROP_QUALIFIERS, concept.qualifiers);
+        putList(props, PROP_WRITING_VARIANTS, concept.writingVariants);
+        putList(props, PROP_ACRONYMS, concept.acronyms);
+        props.values().removeIf(Objects::isNull);
+        return props;
+    }
+
+    private static void putList(Map<String, Object> props, String property, List<String> values) {
+        if (values != null && !values.isEmpty())
+            props.put(property, values);
+    }
+}
@@ -39,6 +39,7 @@ public class ConfigurationConstants {
     public static final String BASE64 = "base64";
     public static final String GZIP = "gzip";
     public static final String CYPHER_QUERY = "cypherquery";
+    public static final String FETCH_SIZE = "fetchsize";
     public static final String VERSIONING = "versioning";
     public static final String VERSION = "version";
     public static final String JAVA_TYPE = "javatype";
@@ -47,6 +48,14 @@ public class ConfigurationConstants {
     public static final String IMPORT_OPTIONS = "importoptions";
     public static final String MERGE = "merge";
     public static final String OVERRIDE_PREFERRED_NAME = "overridepreferredname";
+    public static final String INSERTION = "insertion";
+    public static final String BATCH_SIZE = "batchsize";
+    public static final String CONCURRENCY = "concurrency";
+    public static final String RETRIES = "retries";
+    public static final String PIPELINED = "pipelined";
+    public static final String QUEUE_SIZE = "queuesize";
+    public static final String DEPENDS_ON = "dependson";
+    public static final String PARALLEL_FACETS = "parallelfacets";
 
     private ConfigurationConstants() {
     }
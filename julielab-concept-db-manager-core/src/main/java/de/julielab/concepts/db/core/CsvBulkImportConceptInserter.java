@@ -0,0 +1,449 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.bulkimport.ExternalRecordSorter;
+import de.julielab.concepts.db.core.spi.ConceptInserter;
+import de.julielab.concepts.util.ConceptDatabaseConnectionException;
+import de.julielab.concepts.util.ConceptInsertionException;
+import de.julielab.java.utilities.ProgressBar;
+import de.julielab.neo4j.plugins.FacetManager.FacetLabel;
+import de.julielab.neo4j.plugins.concepts.ConceptEdgeTypes;
+import de.julielab.neo4j.plugins.concepts.ConceptLabel;
+import de.julielab.neo4j.plugins.datarepresentation.*;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.addSource;
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.getCoordinateProperties;
+import static de.julielab.concepts.db.core.ConceptCoordinatesKeys.getCoordinatesKey;
+import static de.julielab.concepts.db.core.ConceptProperties.getConceptProperties;
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>
+ * Writes concepts into CSV files for the offline <tt>neo4j-admin import</tt> tool instead of inserting them into a
+ * running database. This inserter is used for connection URIs with the <tt>csv</tt> scheme, e.g.
+ * <tt>csv:/data/conceptdb-import</tt>, where the path denotes the output directory.
+ * </p>
+ * <p>
+ * All imports of an application run are collected into the same set of files: facet nodes, concept nodes, the
+ * facet root concept relationships and all concept relationships, i.e. parent relationships, aggregate element
+ * relationships and the relationships given by {@link ImportConceptRelationship}s. Concepts are identified by their
+ * coordinates in the same way as by the {@link BoltConceptInserter}; the resulting key is used as the import ID.
+ * Thus, relationships can be written right away and are resolved to nodes by <tt>neo4j-admin import</tt>.
+ * Facets and concepts receive IDs in the format of the server plugins, numbered in the order of the facets and in
+ * the key order of the concepts, respectively.
+ * Concepts occurring multiple times, e.g. in multiple facets, and referenced concepts that are never imported
+ * themselves are handled by sorting all nodes and relationships by key on disk with bounded memory and combining
+ * records with the same key. Referenced but never imported concepts are written as {@link ConceptLabel#HOLLOW}.
+ * </p>
+ * <p>
+ * During the insertion of a facet, its records are only added to the sorters which spill sorted runs to a work
+ * directory. The runs of all facets are merged and the CSV files are written once when the inserter is flushed after
+ * the last import of the application run. A file with the <tt>neo4j-admin import</tt> command line is written
+ * alongside the CSV files.
+ * </p>
+ */
+public class CsvBulkImportConceptInserter implements ConceptInserter {
+    public static final String SCHEME = "csv";
+    public static final int DEFAULT_RECORDS_IN_MEMORY = 100000;
+    public static final String FACETS_FILE = "facets.csv";
+    public static final String CONCEPTS_FILE = "concepts.csv";
+    public static final String FACET_RELATIONSHIPS_FILE = "facet-relationships.csv";
+    public static final String CONCEPT_RELATIONSHIPS_FILE = "concept-relationships.csv";
+    public static final String IMPORT_COMMAND_FILE = "import-command.txt";
+    /**
+     * The array delimiter of the CSV files. It must be passed to <tt>neo4j-admin import</tt> as
+     * <tt>--array-delimiter=U+001F</tt>.
+     */
+    public static final char ARRAY_DELIMITER = '\u001F';
+    private static final Logger log = LoggerFactory.getLogger(CsvBulkImportConceptInserter.class);
+    private static final String WORK_DIR = ".work";
+    private static final String CONCEPT_ID_SPACE = "Concept";
+    private static final String FACET_ID_SPACE = "Facet";
+    private static final String KEY = "k";
+    private static final String HOLLOW = "h";
+    private static final String LABELS = "l";
+    private static final String FACETS = "f";
+    private static final String PROPERTIES = "p";
+    private static final String START = "s";
+    private static final String TYPE = "t";
+    private static final String END = "e";
+
+    private Path outputDirectory;
+    private Path currentDirectory;
+    private ExternalRecordSorter conceptSorter;
+    private ExternalRecordSorter conceptRelationshipSorter;
+    private ExternalRecordSorter facetRelationshipSorter;
+    private Map<String, Map<String, Object>> facets;
+    /**
+     * The property names of concepts and relationships and whether they hold arrays. Required for the CSV headers.
+     */
+    private Map<String, Boolean> conceptPropertyIsArray;
+    private Map<String, Boolean> relationshipPropertyIsArray;
+
+    @Override
+    public void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfig, ImportConcepts concepts) throws ConceptInsertionException {
+        concepts.setImportOptions(setGlobalOptions(importConfig, concepts.getImportOptions()));
+        ImportFacet facet = concepts.getFacet();
+        if (facet == null)
+            throw new ConceptInsertionException("The facet of the import concepts is null.");
+        try {
+            if (!outputDirectory.equals(currentDirectory)) {
+                // Complete the files of the previous output directory, if any
+                flush();
+                initialize(importConfig.getInt(slash(INSERTION, BATCH_SIZE), DEFAULT_RECORDS_IN_MEMORY));
+            }
+            log.info("Writing concepts of facet {} to neo4j-admin import files in {}.", facet.getName(), outputDirectory);
+            String facetId = addFacet(facet);
+            ImportOptions importOptions = concepts.getImportOptions();
+            ProgressBar progressBar = new ProgressBar(concepts.getNumConcepts());
+            for (ImportConcept concept : (Iterable<ImportConcept>) concepts.getConcepts()::iterator) {
+                addConcept(concept, facetId, importOptions);
+                progressBar.incrementDone(true);
+            }
+            log.info("Done collecting concepts of facet {}.", facet.getName());
+        } catch (IOException e) {
+            throw new ConceptInsertionException("Could not write the neo4j-admin import files to " + outputDirectory, e);
+        }
+    }
+
+    /**
+     * Merges the records of all facets inserted so far and writes the CSV files.
+     */
+    @Override
+    public void flush() throws ConceptInsertionException {
+        if (currentDirectory == null)
+            return;
+        try {
+            log.info("Writing neo4j-admin import files for {} facet(s) to {}.", facets.size(), currentDirectory);
+            writeFiles();
+        } catch (IOException e) {
+            throw new ConceptInsertionException("Could not write the neo4j-admin import files to " + currentDirectory, e);
+        }
+    }
+
+    /**
+     * Prepares the output directory. Only files written by this class are removed from it.
+     */
+    private void initialize(int recordsInMemory) throws IOException {
+        Path workDir = outputDirectory.resolve(WORK_DIR);
+        Files.createDirectories(workDir);
+        try (Stream<Path> oldRuns = Files.list(workDir)) {
+            for (Path oldRun : (Iterable<Path>) oldRuns::iterator)
+                Files.delete(oldRun);
+        }
+        if (recordsInMemory <= 0)
+            recordsInMemory = DEFAULT_RECORDS_IN_MEMORY;
+        conceptSorter = new ExternalRecordSorter(workDir, "concepts", recordsInMemory, r -> (String) r.get(KEY), this::mergeConcepts);
+        conceptRelationshipSorter = new ExternalRecordSorter(workDir, "conceptrels", recordsInMemory, this::getRelationshipKey, this::mergeRelationships);
+        facetRelationshipSorter = new ExternalRecordSorter(workDir, "facetrels", recordsInMemory, this::getRelationshipKey, this::mergeRelationships);
+        facets = new LinkedHashMap<>();
+        conceptPropertyIsArray = new TreeMap<>();
+        relationshipPropertyIsArray = new TreeMap<>();
+        currentDirectory = outputDirectory;
+    }
+
+    /**
+     * Registers the facet, if it is not yet known by its custom ID or name, and returns its ID.
+     */
+    private String addFacet(ImportFacet facet) {
+        String customId = facet.getCustomId() != null ? facet.getCustomId() : facet.getName();
+        Map<String, Object> facetProps = facets.computeIfAbsent(customId, k -> {
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put(FacetConstants.PROP_ID, BoltConceptInserter.FACET_ID_PREFIX + facets.size());
+            props.put(FacetConstants.PROP_NAME, facet.getName());
+            props.put(FacetConstants.PROP_SHORT_NAME, facet.getShortName());
+            props.put(FacetConstants.PROP_CUSTOM_ID, customId);
+            props.put(FacetConstants.PROP_SOURCE_TYPE, facet.getSourceType());
+            return props;
+        });
+        return (String) facetProps.get(FacetConstants.PROP_ID);
+    }
+
+    private void addConcept(ImportConcept concept, String facetId, ImportOptions importOptions) throws IOException {
+        String key = getCoordinatesKey(concept.coordinates);
+        // The ID is assigned when the concepts file is written
+        Map<String, Object> props = new HashMap<>();
+        getConceptProperties(concept).forEach((k, v) -> props.put(k, toPropertyValue(v)));
+        if (concept.prefName != null)
+            props.put(ConceptConstants.PROP_PREF_NAME, concept.prefName);
+
+        List<String> labels = new ArrayList<>();
+        if (concept.generalLabels != null)
+            labels.addAll(concept.generalLabels);
+        if (concept.aggregate)
+            labels.add(ConceptLabel.AGGREGATE.name());
+        addConceptRecord(key, false, labels, List.of(facetId), props);
+
+        // The JULIE Lab Neo4j plugins cannot handle parents in merging mode; we keep that behaviour.
+        boolean hasParents = concept.parentCoordinates != null && !concept.parentCoordinates.isEmpty() && !importOptions.merge;
+        if (hasParents) {
+            for (ConceptCoordinates parent : concept.parentCoordinates)
+                addConceptRelationship(addHollowConcept(parent), ConceptEdgeTypes.IS_BROADER_THAN.name(), key, null);
+        } else if (!importOptions.merge && (!concept.aggregate || concept.aggregateIncludeInHierarchy)) {
+            facetRelationshipSorter.add(relationshipRecord(facetId, ConceptEdgeTypes.HAS_ROOT_CONCEPT.name(), key, Collections.emptyMap()));
+        }
+        if (concept.aggregate && concept.elementCoordinates != null) {
+            for (ConceptCoordinates element : concept.elementCoordinates)
+                addConceptRelationship(key, ConceptEdgeTypes.HAS_ELEMENT.name(), addHollowConcept(element), null);
+        }
+        if (concept.relationships != null) {
+            for (ImportConceptRelationship relationship : concept.relationships)
+                addConceptRelationship(key, relationship.type, addHollowConcept(relationship.targetCoordinates), relationship.properties);
+        }
+    }
+
+    /**
+     * Adds a hollow record for a referenced concept. If the concept is imported itself, the hollow record is merged
+     * into the full record.
+     *
+     * @return The key of the referenced concept.
+     */
+    private String addHollowConcept(ConceptCoordinates coordinates) throws IOException {
+        String key = getCoordinatesKey(coordinates);
+        addConceptRecord(key, true, Collections.emptyList(), Collections.emptyList(), getCoordinateProperties(coordinates));
+        return key;
+    }
+
+    private void addConceptRelationship(String startKey, String type, String endKey, Map<String, Object> properties) throws IOException {
+        Map<String, Object> relProps = new HashMap<>();
+        if (properties != null)
+            properties.forEach((k, v) -> relProps.put(k, toPropertyValue(v)));
+        relProps.values().removeIf(Objects::isNull);
+        relProps.forEach((k, v) -> relationshipPropertyIsArray.merge(k, v instanceof List, Boolean::logicalOr));
+        conceptRelationshipSorter.add(relationshipRecord(startKey, type, endKey, relProps));
+    }
+
+    private void addConceptRecord(String key, boolean hollow, List<String> labels, List<String> facetIds, Map<String, Object> props) throws IOException {
+        props.forEach((k, v) -> conceptPropertyIsArray.merge(k, v instanceof List, Boolean::logicalOr));
+        Map<String, Object> record = new HashMap<>();
+        record.put(KEY, key);
+        record.put(HOLLOW, hollow);
+        record.put(LABELS, labels);
+        record.put(FACETS, facetIds);
+        record.put(PROPERTIES, props);
+        conceptSorter.add(record);
+    }
+
+    private Map<String, Object> relationshipRecord(String start, String type, String end, Map<String, Object> props) {
+        Map<String, Object> record = new HashMap<>();
+        record.put(START, start);
+        record.put(TYPE, type);
+        record.put(END, end);
+        record.put(PROPERTIES, props);
+        return record;
+    }
+
+    private String getRelationshipKey(Map<String, Object> record) {
+        return record.get(START) + "\u0000" + record.get(TYPE) + "\u0000" + record.get(END);
+    }
+
+    /**
+     * Combines two records of the same concept. Full records take precedence over hollow records; list-valued
+     * properties, labels and facets are united. Source IDs and sources are united as pairs so that the two lists stay
+     * parallel.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mergeConcepts(Map<String, Object> r1, Map<String, Object> r2) {
+        boolean h1 = (boolean) r1.get(HOLLOW);
+        boolean h2 = (boolean) r2.get(HOLLOW);
+        Map<String, Object> base = h1 && !h2 ? r2 : r1;
+        Map<String, Object> other = base == r1 ? r2 : r1;
+        base.put(HOLLOW, h1 && h2);
+        base.put(LABELS, union((List<String>) base.get(LABELS), (List<String>) other.get(LABELS)));
+        base.put(FACETS, union((List<String>) base.get(FACETS), (List<String>) other.get(FACETS)));
+        Map<String, Object> baseProps = (Map<String, Object>) base.get(PROPERTIES);
+        Map<String, Object> otherProps = (Map<String, Object>) other.get(PROPERTIES);
+        List<Object> sourceIds = new ArrayList<>((List<Object>) baseProps.getOrDefault(ConceptConstants.PROP_SRC_IDS, Collections.emptyList()));
+        List<Object> sources = new ArrayList<>((List<Object>) baseProps.getOrDefault(ConceptConstants.PROP_SOURCES, Collections.emptyList()));
+        List<Object> otherSourceIds = (List<Object>) otherProps.getOrDefault(ConceptConstants.PROP_SRC_IDS, Collections.emptyList());
+        List<Object> otherSources = (List<Object>) otherProps.getOrDefault(ConceptConstants.PROP_SOURCES, Collections.emptyList());
+        for (int i = 0; i < otherSourceIds.size(); i++)
+            addSource(sourceIds, sources, otherSourceIds.get(i), otherSources.get(i));
+        otherProps.forEach((k, v) -> baseProps.merge(k, v, (v1, v2) -> v1 instanceof List && v2 instanceof List ? union((List<Object>) v1, (List<Object>) v2) : v1));
+        if (!sourceIds.isEmpty()) {
+            baseProps.put(ConceptConstants.PROP_SRC_IDS, sourceIds);
+            baseProps.put(ConceptConstants.PROP_SOURCES, sources);
+        }
+        return base;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mergeRelationships(Map<String, Object> r1, Map<String, Object> r2) {
+        ((Map<String, Object>) r1.get(PROPERTIES)).putAll((Map<String, Object>) r2.get(PROPERTIES));
+        return r1;
+    }
+
+    private <T> List<T> union(List<T> l1, List<T> l2) {
+        if (l2.isEmpty())
+            return l1;
+        LinkedHashSet<T> union = new LinkedHashSet<>(l1);
+        union.addAll(l2);
+        return new ArrayList<>(union);
+    }
+
+    /**
+     * Writes the complete CSV files from all concepts added so far into the current directory.
+     */
+    private void writeFiles() throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(currentDirectory.resolve(FACETS_FILE), UTF_8)) {
+            List<String> facetProperties = List.of(FacetConstants.PROP_NAME, FacetConstants.PROP_SHORT_NAME, FacetConstants.PROP_CUSTOM_ID, FacetConstants.PROP_SOURCE_TYPE);
+            writeLine(bw, Stream.concat(Stream.of(FacetConstants.PROP_ID + ":ID(" + FACET_ID_SPACE + ")"), Stream.concat(facetProperties.stream(), Stream.of(":LABEL"))).collect(Collectors.toList()));
+            for (Map<String, Object> facetProps : facets.values()) {
+                List<String> row = new ArrayList<>();
+                row.add(quote((String) facetProps.get(FacetConstants.PROP_ID)));
+                facetProperties.forEach(p -> row.add(toCsvValue(facetProps.get(p))));
+                row.add(quote(FacetLabel.FACET.name()));
+                writeLine(bw, row);
+            }
+        }
+        List<String> conceptProperties = new ArrayList<>(conceptPropertyIsArray.keySet());
+        try (BufferedWriter bw = Files.newBufferedWriter(currentDirectory.resolve(CONCEPTS_FILE), UTF_8)) {
+            List<String> header = new ArrayList<>();
+            header.add(BoltConceptInserter.PROP_COORDINATES_KEY + ":ID(" + CONCEPT_ID_SPACE + ")");
+            header.add(ConceptConstants.PROP_ID);
+            header.add(ConceptConstants.PROP_FACETS + ":string[]");
+            conceptProperties.forEach(p -> header.add(conceptPropertyIsArray.get(p) ? p + ":string[]" : p));
+            header.add(":LABEL");
+            writeLine(bw, header);
+            long[] conceptNumber = new long[1];
+            conceptSorter.merge(record -> writeLine(bw, getConceptRow(record, BoltConceptInserter.CONCEPT_ID_PREFIX + conceptNumber[0]++, conceptProperties)));
+        }
+        try (BufferedWriter bw = Files.newBufferedWriter(currentDirectory.resolve(FACET_RELATIONSHIPS_FILE), UTF_8)) {
+            writeLine(bw, List.of(":START_ID(" + FACET_ID_SPACE + ")", ":TYPE", ":END_ID(" + CONCEPT_ID_SPACE + ")"));
+            facetRelationshipSorter.merge(record -> writeLine(bw, List.of(quote((String) record.get(START)), quote((String) record.get(TYPE)), quote((String) record.get(END)))));
+        }
+        List<String> relationshipProperties = new ArrayList<>(relationshipPropertyIsArray.keySet());
+        try (BufferedWriter bw = Files.newBufferedWriter(currentDirectory.resolve(CONCEPT_RELATIONSHIPS_FILE), UTF_8)) {
+            List<String> header = new ArrayList<>(List.of(":START_ID(" + CONCEPT_ID_SPACE + ")", ":TYPE", ":END_ID(" + CONCEPT_ID_SPACE + ")"));
+            relationshipProperties.forEach(p -> header.add(relationshipPropertyIsArray.get(p) ? p + ":string[]" : p));
+            writeLine(bw, header);
+            conceptRelationshipSorter.merge(record -> writeLine(bw, getRelationshipRow(record, relationshipProperties)));
+        }
+        String importCommand = String.join(" \\" + System.lineSeparator() + "  ",
+                "neo4j-admin import --database=neo4j --array-delimiter=U+001F --multiline-fields=true",
+                "--nodes=" + currentDirectory.resolve(FACETS_FILE).toAbsolutePath(),
+                "--nodes=" + currentDirectory.resolve(CONCEPTS_FILE).toAbsolutePath(),
+                "--relationships=" + currentDirectory.resolve(FACET_RELATIONSHIPS_FILE).toAbsolutePath(),
+                "--relationships=" + currentDirectory.resolve(CONCEPT_RELATIONSHIPS_FILE).toAbsolutePath());
+        Files.writeString(currentDirectory.resolve(IMPORT_COMMAND_FILE), importCommand + System.lineSeparator(), UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getConceptRow(Map<String, Object> record, String conceptId, List<String> conceptProperties) {
+        Map<String, Object> props = (Map<String, Object>) record.get(PROPERTIES);
+        List<String> row = new ArrayList<>(conceptProperties.size() + 4);
+        row.add(quote((String) record.get(KEY)));
+        row.add(quote(conceptId));
+        row.add(toCsvValue(record.get(FACETS)));
+        for (String property : conceptProperties) {
+            Object value = props.get(property);
+            // Columns declared as arrays require array values.
+            if (value != null && !(value instanceof List) && conceptPropertyIsArray.get(property))
+                value = List.of(value);
+            row.add(toCsvValue(value));
+        }
+        List<String> labels = new ArrayList<>();
+        labels.add(ConceptLabel.CONCEPT.name());
+        labels.addAll((List<String>) record.get(LABELS));
+        if ((boolean) record.get(HOLLOW))
+            labels.add(ConceptLabel.HOLLOW.name());
+        row.add(toCsvValue(labels));
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getRelationshipRow(Map<String, Object> record, List<String> relationshipProperties) {
+        Map<String, Object> props = (Map<String, Object>) record.get(PROPERTIES);
+        List<String> row = new ArrayList<>(relationshipProperties.size() + 3);
+        row.add(quote((String) record.get(START)));
+        row.add(quote((String) record.get(TYPE)));
+        row.add(quote((String) record.get(END)));
+        for (String property : relationshipProperties) {
+            Object value = props.get(property);
+            if (value != null && !(value instanceof List) && relationshipPropertyIsArray.get(property))
+                value = List.of(value);
+            row.add(toCsvValue(value));
+        }
+        return row;
+    }
+
+    private void writeLine(BufferedWriter bw, List<String> values) throws IOException {
+        bw.write(String.join(",", values));
+        bw.newLine();
+    }
+
+    /**
+     * Converts a property value into a CSV field. Missing values are written as empty, unquoted fields which
+     * <tt>neo4j-admin import</tt> does not turn into properties.
+     */
+    private String toCsvValue(Object value) {
+        if (value == null)
+            return "";
+        if (value instanceof List)
+            return quote(((List<?>) value).stream().map(String::valueOf).collect(Collectors.joining(String.valueOf(ARRAY_DELIMITER))));
+        return quote(String.valueOf(value));
+    }
+
+    private String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * All property values are written as strings or string arrays.
+     */
+    private Object toPropertyValue(Object value) {
+        if (value == null)
+            return null;
+        if (value instanceof Collection)
+            return ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.toList());
+        if (value.getClass().isArray()) {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < java.lang.reflect.Array.getLength(value); i++)
+                values.add(String.valueOf(java.lang.reflect.Array.get(value, i)));
+            return values;
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * The CSV files are built from all facets inserted by this instance.
+     */
+    @Override
+    public boolean supportsConcurrentInsertion() {
+        return false;
+    }
+
+    @Override
+    public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptDatabaseConnectionException {
+        String uriString = connectionConfiguration.getString(URI);
+        if (uriString == null)
+            throw new ConceptDatabaseConnectionException("No URI was specified in the connection configuration.");
+        try {
+            URI uri = new URI(uriString);
+            if (uri.getScheme() == null || !uri.getScheme().equalsIgnoreCase(SCHEME))
+                throw new ConceptDatabaseConnectionException("The given URI " + uriString + " does not specify the " + SCHEME + " scheme.");
+            String path = uri.getPath() != null ? uri.getPath() : uri.getSchemeSpecificPart();
+            outputDirectory = Paths.get(path);
+        } catch (URISyntaxException e) {
+            throw new ConceptDatabaseConnectionException(e);
+        }
+    }
+}
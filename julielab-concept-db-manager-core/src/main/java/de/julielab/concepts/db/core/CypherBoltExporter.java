@@ -12,24 +12,23 @@ import org.neo4j.driver.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.stream.Collectors;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
 import static de.julielab.java.utilities.ConfigurationUtilities.slash;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.neo4j.driver.internal.types.InternalTypeSystem.TYPE_SYSTEM;
 
 /**
  * Sends a given Cypher query and writes the retrieved results into the given output file. One record per line,
- * fields are tab-separated, all field values are converted to strings.
+ * fields are tab-separated, all field values are converted to strings. The records are written as they are
+ * received from the database so that the export size is not limited by the available memory.
  */
 public class CypherBoltExporter extends DataExporterImpl {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
     private final static Logger log = LoggerFactory.getLogger(CypherBoltExporter.class);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
     private Driver driver;
     private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
@@ -43,33 +42,30 @@ public class CypherBoltExporter extends DataExporterImpl {
         try {
             String query = ConfigurationUtilities.requirePresent(slash(REQUEST, CYPHER_QUERY), exportConfig::getString);
             File outputFile = new File(ConfigurationUtilities.<String>requirePresent(slash(OUTPUT_FILE), exportConfig::getString));
+            int fetchSize = exportConfig.getInt(slash(REQUEST, FETCH_SIZE), DEFAULT_FETCH_SIZE);
 
             log.info("Sending Cypher query {} to Neo4j and writing the results to {}", query, outputFile);
-            try (Session session = driver.session(); Transaction tx = session.beginTransaction()) {
-                Result result = tx.run(query);
-                List<String> fieldValues = new ArrayList<>();
-                while (result.hasNext()) {
-                    Record record = result.next();
-                    fieldValues.clear();
-                    for (int i = 0; i < record.size(); i++) {
-                        Value value = record.get(i);
-                        String valueAsString;
-                        if (value.hasType(TYPE_SYSTEM.NUMBER()))
-                            valueAsString = value.asNumber().toString();
-                        else if (value.hasType(TYPE_SYSTEM.NULL()))
-                            valueAsString = "";
-                        else if (value.hasType(TYPE_SYSTEM.STRING()))
-                            valueAsString = value.asString();
-                        else if (value.hasType(TYPE_SYSTEM.NODE()))
-                            valueAsString = value.asNode().asMap().entrySet().stream().map(e -> e.getKey() + ": " + e.getValue().toString()).collect(Collectors.joining(", "));
-                        else
-                            throw new DataExportException("The query \"" + query + "\" returned a value of type " + value.type().name() + " which is currently not supported for output.");
-                        fieldValues.add(valueAsString);
+            SessionConfig sessionConfig = SessionConfig.builder().withDefaultAccessMode(AccessMode.READ).withFetchSize(fetchSize).build();
+            try {
+                String resourceHeader = getResourceHeader(connectionConfiguration);
+                try (Session session = driver.session(sessionConfig); Transaction tx = session.beginTransaction();
+                     OutputFileWriter writer = openOutputWriter(outputFile, resourceHeader)) {
+                    Result result = tx.run(query);
+                    long numRecords = 0;
+                    // The records are pulled from the database in batches of the fetch size while we write them
+                    while (result.hasNext()) {
+                        Record record = result.next();
+                        for (int i = 0; i < record.size(); i++) {
+                            if (i > 0)
+                                writer.write('\t');
+                            writer.write(valueToString(record.get(i), query));
+                        }
+                        writer.write(LINE_SEPARATOR);
+                        ++numRecords;
                     }
+                    writer.commit();
+                    log.info("Wrote {} records to {}.", numRecords, outputFile);
                 }
-                writeData(outputFile,
-                        getResourceHeader(connectionConfiguration),
-                        new ByteArrayInputStream(fieldValues.stream().collect(Collectors.joining(System.getProperty("line.separator"))).getBytes(UTF_8)));
             } catch (IOException e) {
                 throw new DataExportException(e);
             } catch (VersionRetrievalException e) {
@@ -81,6 +77,18 @@ public class CypherBoltExporter extends DataExporterImpl {
         }
     }
 
+    private String valueToString(Value value, String query) throws DataExportException {
+        if (value.hasType(TYPE_SYSTEM.NUMBER()))
+            return value.asNumber().toString();
+        else if (value.hasType(TYPE_SYSTEM.NULL()))
+            return "";
+        else if (value.hasType(TYPE_SYSTEM.STRING()))
+            return value.asString();
+        else if (value.hasType(TYPE_SYSTEM.NODE()))
+            return value.asNode().asMap().entrySet().stream().map(e -> e.getKey() + ": " + e.getValue().toString()).collect(Collectors.joining(", "));
+        throw new DataExportException("The query \"" + query + "\" returned a value of type " + value.type().name() + " which is currently not supported for output.");
+    }
+
     @Override
     public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptDatabaseConnectionException {
         this.connectionConfiguration = connectionConfiguration;
@@ -99,6 +107,7 @@ public class CypherBoltExporter extends DataExporterImpl {
     @Override
     public void exposeParameters(String basePath, HierarchicalConfiguration<ImmutableNode> template) {
         template.addProperty(slash(basePath, REQUEST, CYPHER_QUERY), "");
+        template.addProperty(slash(basePath, REQUEST, FETCH_SIZE), String.valueOf(DEFAULT_FETCH_SIZE));
         template.addProperty(slash(basePath, REQUEST, OUTPUT_FILE), "");
     }
 }
@@ -15,21 +15,18 @@ import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
 import static de.julielab.java.utilities.ConfigurationUtilities.slash;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 
 public class CypherFileDBExporter extends DataExporterImpl {
     private final static Logger log = LoggerFactory.getLogger(CypherFileDBExporter.class);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
     private DatabaseManagementService dbms;
     private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
 
@@ -60,17 +57,28 @@ public class CypherFileDBExporter extends DataExporterImpl {
             String cypherQuery = ConfigurationUtilities.requirePresent(slash(REQUEST, CYPHER_QUERY), exportConfig::getString);
             String outputPath = ConfigurationUtilities.requirePresent(OUTPUT_FILE, exportConfig::getString);
             log.info("Sending Cypher query {} to Neo4j embedded database", cypherQuery);
-            List<String> outputLines = new ArrayList<>();
-            try (Transaction tx = dbms.database(DEFAULT_DATABASE_NAME).beginTx()) {
+            String resourceHeader = getResourceHeader(connectionConfiguration);
+            // The result is evaluated lazily, records are written as soon as they are produced
+            try (Transaction tx = dbms.database(DEFAULT_DATABASE_NAME).beginTx();
+                 OutputFileWriter writer = openOutputWriter(new File(outputPath), resourceHeader)) {
                 Result result = tx.execute(cypherQuery);
+                // The record maps do not keep the column order of the query
+                List<String> columns = result.columns();
+                long numRecords = 0;
                 while (result.hasNext()) {
                     Map<String, Object> resultMap = result.next();
-                    outputLines.add(resultMap.values().stream().map(Object::toString).collect(Collectors.joining("\t")));
+                    for (int i = 0; i < columns.size(); i++) {
+                        if (i > 0)
+                            writer.write('\t');
+                        Object value = resultMap.get(columns.get(i));
+                        writer.write(value != null ? value.toString() : "");
+                    }
+                    writer.write(LINE_SEPARATOR);
+                    ++numRecords;
                 }
+                writer.commit();
+                log.info("Wrote {} records to {}.", numRecords, outputPath);
             }
-            writeData(new File(outputPath),
-                    getResourceHeader(connectionConfiguration),
-                    new ByteArrayInputStream(outputLines.stream().collect(Collectors.joining(System.getProperty("line.separator"))).getBytes(UTF_8)));
             log.info("Done.");
         } catch (ConfigurationException e) {
             throw new IncompatibleActionHandlerConnectionException(e);
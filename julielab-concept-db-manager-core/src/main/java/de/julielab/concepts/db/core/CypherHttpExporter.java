@@ -8,7 +8,6 @@ import de.julielab.concepts.util.DataExportException;
 import de.julielab.concepts.util.IncompatibleActionHandlerConnectionException;
 import de.julielab.concepts.util.VersionRetrievalException;
 import de.julielab.java.utilities.ConfigurationUtilities;
-import de.julielab.java.utilities.StringIteratorInputStream;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
@@ -18,17 +17,16 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.HttpMethod;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
-import java.util.stream.StreamSupport;
+import java.util.List;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
 import static de.julielab.java.utilities.ConfigurationUtilities.slash;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.stream.Collectors.joining;
 
 public class CypherHttpExporter extends DataExporterImpl {
     private final static Logger log = LoggerFactory.getLogger(CypherHttpExporter.class);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
     private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
     private HttpConnectionService httpService;
 
@@ -67,28 +65,32 @@ public class CypherHttpExporter extends DataExporterImpl {
             String baseUri = connectionConfiguration.getString(NetworkConnectionCredentials.CONFKEY_URI);
             String transactionalUri = baseUri + Constants.TRANSACTION_ENDPOINT;
             try {
-                Response response = httpService.sendStatements(statements, transactionalUri, connectionConfiguration);
-                if (!response.getErrors().isEmpty())
-                    throw new DataExportException(
-                            "Error happened when trying perform operation: " + response.getErrors());
-//                List<String> responseLines = new ArrayList<>();
-//
-//
-//                {
-//                    Iterator<Result> resIt = response.getResults().iterator();
-//                    while (resIt.hasNext()) {
-//                        Result result = resIt.next();
-//                        for (Data data : result.getData()) {
-//                            responseLines.add(data.getRow().stream().map(o -> o != null ? o.toString() : "null").collect(joining("\t")));
-//                        }
-//                    }
-//                }
-                final Iterator<String> concatenatedStringOutputIterator = StreamSupport.stream(response.getResults().spliterator(), false).map(Result::getData).flatMap(Collection::stream).map(data -> data.getRow().stream().map(o -> o != null ? o.toString() : "null").collect(joining("\t")) + System.getProperty("line.separator")).iterator();
-
-                log.info("Writing data to {}", filepath);
-                writeData(new File(filepath),
-                        getResourceHeader(connectionConfiguration),
-                        new StringIteratorInputStream(concatenatedStringOutputIterator, UTF_8));
+                String resourceHeader = getResourceHeader(connectionConfiguration);
+                try (Response response = httpService.sendStatements(statements, transactionalUri, connectionConfiguration);
+                     OutputFileWriter writer = openOutputWriter(new File(filepath), resourceHeader)) {
+                    log.info("Writing data to {}", filepath);
+                    // The rows are parsed from the HTTP response one by one and written immediately
+                    Iterator<Data> rowIt = response.getRows().iterator();
+                    long numRows = 0;
+                    while (rowIt.hasNext()) {
+                        List<Object> row = rowIt.next().getRow();
+                        for (int i = 0; i < row.size(); i++) {
+                            if (i > 0)
+                                writer.write('\t');
+                            writer.write(String.valueOf(row.get(i)));
+                        }
+                        writer.write(LINE_SEPARATOR);
+                        ++numRows;
+                    }
+                    // The errors come after the results in the response
+                    if (!response.getErrors().isEmpty())
+                        throw new DataExportException(
+                                "Error happened when trying perform operation: " + response.getErrors());
+                    writer.commit();
+                    log.info("Wrote {} rows to {}.", numRows, filepath);
+                }
+            } catch (UncheckedIOException e) {
+                throw new DataExportException(e.getCause());
             } catch (ConceptDatabaseConnectionException | IOException | VersionRetrievalException e) {
                 throw new DataExportException(e);
             }
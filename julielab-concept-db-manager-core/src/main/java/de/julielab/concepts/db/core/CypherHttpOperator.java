@@ -16,9 +16,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.HttpMethod;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
-import java.util.List;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
 import static de.julielab.java.utilities.ConfigurationUtilities.slash;
@@ -38,20 +37,21 @@ public class CypherHttpOperator implements DatabaseOperator {
                     new Statement(cypherQuery));
             String baseUri = connectionConfiguration.getString(NetworkConnectionCredentials.CONFKEY_URI);
             String transactionalUri = baseUri + Constants.TRANSACTION_ENDPOINT;
-            try {
-                Response response = httpService.sendStatements(statements, transactionalUri, connectionConfiguration);
+            try (Response response = httpService.sendStatements(statements, transactionalUri, connectionConfiguration)) {
+                Iterator<Data> rowIt = response.getRows().iterator();
+                long numRows = 0;
+                while (rowIt.hasNext()) {
+                    Data data = rowIt.next();
+                    log.info("Neo4j response: {}", data.getRow().stream().map(String::valueOf).collect(joining("\t")));
+                    ++numRows;
+                }
+                // The errors come after the results in the response
                 if (!response.getErrors().isEmpty())
                     throw new DatabaseOperationException(
                             "Error happened when trying perform operation: " + response.getErrors());
-                List<String> responseLines = new ArrayList<>();
-                Iterator<Result> resIt = response.getResults().iterator();
-                while (resIt.hasNext()) {
-                    Result result = resIt.next();
-                    for (Data data : result.getData()) {
-                        responseLines.add(data.getRow().stream().map(Object::toString).collect(joining("\t")));
-                    }
-                }
-                log.info("Neo4j response: {}", responseLines.stream().collect(joining(System.getProperty("line.separator"))));
+                log.debug("Received {} rows from Neo4j.", numRows);
+            } catch (UncheckedIOException e) {
+                throw new DatabaseOperationException(e.getCause());
             } catch (ConceptDatabaseConnectionException | IOException e) {
                 throw new DatabaseOperationException(e);
             }
@@ -8,14 +8,25 @@ import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.slf4j.Logger;
 
+import javax.ws.rs.core.StreamingOutput;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 public abstract class DataExporterImpl implements DataExporter {
 
+    private static final int PIPE_BUFFER_SIZE = 65536;
     private Logger log;
 
     public DataExporterImpl(Logger log) {
@@ -89,10 +100,28 @@ public abstract class DataExporterImpl implements DataExporter {
         return currentDataState;
     }
 
+    /**
+     * Writes the header and the data to <tt>outputFile</tt>. The data is written to a temporary file first which
+     * replaces <tt>outputFile</tt> after all data has been written. Thus, a failed export does not leave a truncated
+     * file behind and an existing file stays untouched.
+     *
+     * @param outputFile      The file to write to.
+     * @param resourceHeader  The header to write first.
+     * @param decodedResponse The data to write.
+     * @throws IOException If reading or writing the data fails.
+     */
     protected void writeData(File outputFile, String resourceHeader, InputStream decodedResponse) throws IOException {
-        if (!outputFile.getAbsoluteFile().getParentFile().exists())
-            outputFile.getAbsoluteFile().getParentFile().mkdirs();
-        try (OutputStream os = FileUtilities.getOutputStreamToFile(outputFile)) {
+        File tempFile = createTemporaryFile(outputFile);
+        try {
+            writeToFile(tempFile, resourceHeader, decodedResponse);
+            moveIntoPlace(tempFile, outputFile);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private void writeToFile(File file, String resourceHeader, InputStream decodedResponse) throws IOException {
+        try (OutputStream os = FileUtilities.getOutputStreamToFile(file)) {
             os.write(resourceHeader.getBytes(UTF_8));
             byte[] buffer = new byte[4096];
             int bytesRead;
@@ -102,6 +131,132 @@ public abstract class DataExporterImpl implements DataExporter {
         }
     }
 
+    /**
+     * Writes the data produced by <tt>output</tt> to <tt>outputFile</tt> while the data is being produced. The
+     * output is written on a separate thread into a bounded pipe from which the data is read, decoded and written to
+     * the file. Thus, the data is never held in memory as a whole. As with
+     * {@link #writeData(File, String, InputStream)}, <tt>outputFile</tt> is only replaced if the data has been
+     * produced and written completely.
+     *
+     * @param outputFile     The file to write to.
+     * @param resourceHeader The header to write first.
+     * @param output         The producer of the data, e.g. returned by a database plugin method.
+     * @param decodingConfig The decodings to apply, may be <tt>null</tt>. See {@link #decode(InputStream, HierarchicalConfiguration)}.
+     * @throws IOException If producing, decoding or writing the data fails.
+     */
+    protected void writeData(File outputFile, String resourceHeader, StreamingOutput output, HierarchicalConfiguration<ImmutableNode> decodingConfig) throws IOException {
+        PipedInputStream pipeIn = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "export-output-writer"));
+        Future<?> producer = executor.submit(() -> {
+            try (OutputStream os = pipeOut) {
+                output.write(os);
+            }
+            return null;
+        });
+        File tempFile = createTemporaryFile(outputFile);
+        try {
+            try (InputStream is = pipeIn) {
+                InputStream decodedData = decodingConfig != null ? decode(is, decodingConfig) : is;
+                writeToFile(tempFile, resourceHeader, decodedData);
+            } finally {
+                // If reading failed, closing the pipe causes the producer to fail as well so the thread will end
+                executor.shutdown();
+            }
+            // The pipe is also closed when the producer fails so we must check for errors before keeping the data
+            try {
+                producer.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new IOException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the export data to be written.");
+            }
+            moveIntoPlace(tempFile, outputFile);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Opens a buffered writer to <tt>outputFile</tt> that has already written the <tt>resourceHeader</tt>. For
+     * exporters that write their data record by record instead of passing a complete input stream to
+     * {@link #writeData(File, String, InputStream)}. The data only replaces <tt>outputFile</tt> when
+     * {@link OutputFileWriter#commit()} is called after all data has been written.
+     *
+     * @param outputFile     The file to write to. Compressed with GZIP if the name ends with <tt>.gz</tt>.
+     * @param resourceHeader The header to write first.
+     * @return A writer to the output file.
+     * @throws IOException If the file cannot be created.
+     */
+    protected OutputFileWriter openOutputWriter(File outputFile, String resourceHeader) throws IOException {
+        File tempFile = createTemporaryFile(outputFile);
+        OutputFileWriter writer = new OutputFileWriter(tempFile, outputFile);
+        writer.write(resourceHeader);
+        return writer;
+    }
+
+    /**
+     * Creates the parent directory of <tt>outputFile</tt> and returns a not yet existing file in the same directory.
+     * The name ends with the name of <tt>outputFile</tt> so that the same compression is applied.
+     */
+    private static File createTemporaryFile(File outputFile) {
+        File directory = outputFile.getAbsoluteFile().getParentFile();
+        if (!directory.exists())
+            directory.mkdirs();
+        return new File(directory, ".tmp-" + UUID.randomUUID() + "-" + outputFile.getName());
+    }
+
+    private static void moveIntoPlace(File tempFile, File outputFile) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), outputFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), outputFile.toPath(), REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes to a temporary file that replaces the output file on {@link #commit()}. Closing the writer without
+     * committing deletes the temporary file, leaving an existing output file untouched.
+     */
+    protected static class OutputFileWriter extends FilterWriter {
+        private final File tempFile;
+        private final File outputFile;
+        private boolean committed;
+
+        private OutputFileWriter(File tempFile, File outputFile) throws IOException {
+            super(new BufferedWriter(new OutputStreamWriter(FileUtilities.getOutputStreamToFile(tempFile), UTF_8), 65536));
+            this.tempFile = tempFile;
+            this.outputFile = outputFile;
+        }
+
+        /**
+         * Closes the writer and moves the written data to the output file.
+         *
+         * @throws IOException If the data cannot be written or moved.
+         */
+        public void commit() throws IOException {
+            super.close();
+            moveIntoPlace(tempFile, outputFile);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed)
+                return;
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        }
+    }
 
     private String toString(Object o) {
         if (o instanceof String)
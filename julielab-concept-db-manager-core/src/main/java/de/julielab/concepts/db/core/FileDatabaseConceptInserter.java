@@ -87,6 +87,15 @@ public class FileDatabaseConceptInserter implements ConceptInserter {
         }
     }
 
+    /**
+     * Facets inserted at the same time could each create the concepts they share because the JULIE Lab Neo4j plugin
+     * code does not guard concepts by a uniqueness constraint.
+     */
+    @Override
+    public boolean supportsConcurrentInsertion() {
+        return false;
+    }
+
     @Override
     public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration)
             throws ConceptDatabaseConnectionException {
@@ -63,11 +63,12 @@ public class HttpVersioning implements Versioning {
 		jsonMapper.setSerializationInclusion(Include.NON_EMPTY);
 		try {
 			String baseUri = connectionConfiguration.getString(NetworkConnectionCredentials.CONFKEY_URI);
-			Response response = httpService.sendStatements(statements, baseUri + Constants.TRANSACTION_ENDPOINT,
-					connectionConfiguration);
-			Result result = response.getSingleResult();
-			if (!result.getData().isEmpty())
-				return (String) result.getData(0).getRow(0);
+			try (Response response = httpService.sendStatements(statements, baseUri + Constants.TRANSACTION_ENDPOINT,
+					connectionConfiguration)) {
+				Result result = response.getSingleResult();
+				if (!result.getData().isEmpty())
+					return (String) result.getData(0).getRow(0);
+			}
 		} catch (ConceptDatabaseConnectionException | IOException e) {
 			throw new VersionRetrievalException(e);
 		}
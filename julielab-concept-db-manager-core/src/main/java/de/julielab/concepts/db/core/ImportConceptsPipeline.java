@@ -0,0 +1,250 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.services.ConceptCreationService;
+import de.julielab.concepts.db.core.services.ConceptInsertionService;
+import de.julielab.concepts.util.ConceptDBManagerRuntimeException;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcepts;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Decouples concept creation from concept insertion. The concept creators are called on a separate creation thread
+ * which pulls the lazy concept streams - including all parsing, enrichment and aggregation stages of the creator - and
+ * passes the concepts in batches through bounded queues to the inserting threads. Thus, concept creation overlaps
+ * with the latency of writing into the database while the queue bound keeps the number of concepts in memory limited.
+ * </p>
+ * <p>
+ * Imports are created in the order of their {@link #createConcepts(HierarchicalConfiguration)} calls, by default one
+ * after the other on a single creation thread. The creation of an import starts as soon as the previous import has
+ * been completely passed into its queue, i.e. while the previous import is still being inserted.
+ * </p>
+ * <p>
+ * Each facet has its own queue so that the facets of an import may be inserted concurrently. The concept stream of
+ * each facet must be closed after its insertion, as done by the {@link ConceptInsertionService}. Closing skips the
+ * concepts not consumed by the inserter which would otherwise block the creation thread.
+ * </p>
+ */
+public class ImportConceptsPipeline implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUE_SIZE = 10;
+    private static final Logger log = LoggerFactory.getLogger(ImportConceptsPipeline.class);
+    private static final Object FACET_END = new Object();
+    private static final Object END = new Object();
+    private final ExecutorService creationExecutor;
+    private final int batchSize;
+    private final int queueSize;
+
+    /**
+     * @param batchSize The number of concepts passed through the queue at once.
+     * @param queueSize The maximum number of batches waiting in the queue for insertion.
+     */
+    public ImportConceptsPipeline(int batchSize, int queueSize) {
+        this(batchSize, queueSize, 1);
+    }
+
+    /**
+     * @param batchSize       The number of concepts passed through the queue at once.
+     * @param queueSize       The maximum number of batches waiting in the queue for insertion.
+     * @param creationThreads The number of imports whose concepts are created at the same time.
+     */
+    public ImportConceptsPipeline(int batchSize, int queueSize, int creationThreads) {
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        this.queueSize = queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE;
+        AtomicInteger threadCounter = new AtomicInteger();
+        creationExecutor = Executors.newFixedThreadPool(Math.max(1, creationThreads), r -> {
+            Thread t = new Thread(r, "concept-creation-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules the concept creation for <tt>importConfig</tt> on the creation thread and returns the stream of
+     * created concepts. Errors of the concept creation are thrown as {@link ConceptDBManagerRuntimeException}
+     * from the returned stream.
+     *
+     * @param importConfig A subconfiguration on the &lt;import&gt; level.
+     * @return The created concepts, delivered by the creation thread.
+     */
+    public Stream<ImportConcepts> createConcepts(HierarchicalConfiguration<ImmutableNode> importConfig) {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueSize);
+        creationExecutor.submit(() -> produce(importConfig, queue));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new FacetIterator(queue), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private void produce(HierarchicalConfiguration<ImmutableNode> importConfig, BlockingQueue<Object> queue) {
+        BlockingQueue<Object> facetQueue = null;
+        try {
+            try {
+                Stream<ImportConcepts> facets = ConceptCreationService.getInstance().createConcepts(importConfig);
+                for (ImportConcepts concepts : (Iterable<ImportConcepts>) facets::iterator) {
+                    // Get the creator's stream before the consumer replaces it with the queue stream.
+                    Iterator<ImportConcept> conceptIt = concepts.getConcepts().iterator();
+                    facetQueue = new ArrayBlockingQueue<>(queueSize);
+                    queue.put(new FacetStart(concepts, facetQueue));
+                    List<ImportConcept> batch = new ArrayList<>(batchSize);
+                    while (conceptIt.hasNext()) {
+                        batch.add(conceptIt.next());
+                        if (batch.size() == batchSize) {
+                            facetQueue.put(batch);
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                    if (!batch.isEmpty())
+                        facetQueue.put(batch);
+                    facetQueue.put(FACET_END);
+                    facetQueue = null;
+                }
+                queue.put(END);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable t) {
+                log.error("Concept creation failed.", t);
+                Failure failure = new Failure(t);
+                if (facetQueue != null)
+                    facetQueue.put(failure);
+                queue.put(failure);
+            }
+        } catch (InterruptedException e) {
+            // The consumer has gone away.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the creation thread. Creation threads blocked on a queue that is not consumed any more are interrupted.
+     */
+    @Override
+    public void close() {
+        creationExecutor.shutdownNow();
+    }
+
+    private static Object take(BlockingQueue<Object> queue) {
+        try {
+            Object message = queue.take();
+            if (message instanceof Failure) {
+                Throwable cause = ((Failure) message).cause;
+                if (cause instanceof ConceptDBManagerRuntimeException)
+                    throw (ConceptDBManagerRuntimeException) cause;
+                throw new ConceptDBManagerRuntimeException(cause);
+            }
+            return message;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConceptDBManagerRuntimeException(e);
+        }
+    }
+
+    private static class FacetStart {
+        private final ImportConcepts concepts;
+        private final BlockingQueue<Object> facetQueue;
+
+        private FacetStart(ImportConcepts concepts, BlockingQueue<Object> facetQueue) {
+            this.concepts = concepts;
+            this.facetQueue = facetQueue;
+        }
+    }
+
+    private static class Failure {
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private static class FacetIterator implements Iterator<ImportConcepts> {
+        private final BlockingQueue<Object> queue;
+        private Object next;
+
+        private FacetIterator(BlockingQueue<Object> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = take(queue);
+                } catch (ConceptDBManagerRuntimeException e) {
+                    // Nothing follows the failure in the queue.
+                    next = END;
+                    throw e;
+                }
+            }
+            return next != END;
+        }
+
+        @Override
+        public ImportConcepts next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            FacetStart facetStart = (FacetStart) next;
+            next = null;
+            ConceptIterator conceptIt = new ConceptIterator(facetStart.facetQueue);
+            // The inserter might not consume all concepts of the facet, e.g. because the facet already existed.
+            // Closing the stream skips them so that the creation thread can continue.
+            facetStart.concepts.setConcepts(StreamSupport.stream(Spliterators.spliteratorUnknownSize(conceptIt, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(conceptIt::drain));
+            return facetStart.concepts;
+        }
+    }
+
+    private static class ConceptIterator implements Iterator<ImportConcept> {
+        private final BlockingQueue<Object> queue;
+        private Iterator<ImportConcept> batchIt = Collections.emptyIterator();
+        private boolean facetEnd;
+
+        private ConceptIterator(BlockingQueue<Object> queue) {
+            this.queue = queue;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean hasNext() {
+            while (!batchIt.hasNext() && !facetEnd) {
+                Object message;
+                try {
+                    message = take(queue);
+                } catch (ConceptDBManagerRuntimeException e) {
+                    // Nothing follows the failure in the queue.
+                    facetEnd = true;
+                    throw e;
+                }
+                if (message == FACET_END)
+                    facetEnd = true;
+                else
+                    batchIt = ((List<ImportConcept>) message).iterator();
+            }
+            return batchIt.hasNext();
+        }
+
+        @Override
+        public ImportConcept next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return batchIt.next();
+        }
+
+        private void drain() {
+            try {
+                while (hasNext())
+                    next();
+            } catch (ConceptDBManagerRuntimeException e) {
+                // A creation error is also delivered through the facet stream, no need to throw it twice.
+            }
+        }
+    }
+}
@@ -51,20 +51,17 @@ public class JavaClassFileDBExporter extends JavaMethodCallBase implements DataE
             public void exportData(HierarchicalConfiguration<ImmutableNode> exportConfig) throws DataExportException, IncompatibleActionHandlerConnectionException {
                 String outputFile = exportConfig.getString(slash(OUTPUT_FILE));
                 try {
-                    byte[] resultData;
                     Object result = callInstanceMethod(exportConfig.configurationAt(REQUEST), dbms);
+                    HierarchicalConfiguration<ImmutableNode> decodingConfiguration = exportConfig.configurationsAt(DECODING).size() > 0 ? exportConfig.configurationAt(DECODING) : null;
+                    String resourceHeader = getResourceHeader(connectionConfiguration);
                     if (result instanceof StreamingOutput) {
-                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        ((StreamingOutput)result).write(baos);
-                        resultData = baos.toByteArray();
+                        // Decode and write the output while it is produced
+                        writeData(new File(outputFile), resourceHeader, (StreamingOutput) result, decodingConfiguration);
                     } else if (result instanceof String) {
-                        resultData = ((String) result).getBytes(UTF_8);
+                        InputStream inputStream = new ByteArrayInputStream(((String) result).getBytes(UTF_8));
+                        InputStream decodedResponse = decodingConfiguration != null ? decode(inputStream, decodingConfiguration) : inputStream;
+                        writeData(new File(outputFile), resourceHeader, decodedResponse);
                     } else throw new IllegalStateException("Unsupported return type '" + result.getClass().getCanonicalName() + "'.");
-                    HierarchicalConfiguration<ImmutableNode> decodingConfiguration = exportConfig.configurationsAt(DECODING).size() > 0 ? exportConfig.configurationAt(DECODING) : null;
-                    InputStream inputStream = new ByteArrayInputStream(resultData);
-                    InputStream decodedResponse = decodingConfiguration != null ? decode(inputStream, exportConfig.configurationAt(DECODING)) : inputStream;
-                    String resourceHeader = getResourceHeader(connectionConfiguration) + result;
-                    writeData(new File(outputFile), resourceHeader, decodedResponse);
                 } catch (MethodCallException | VersionRetrievalException | IOException | JSONException e) {
                     throw new DataExportException(e);
                 }
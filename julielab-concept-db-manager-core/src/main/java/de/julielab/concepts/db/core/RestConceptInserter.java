@@ -22,6 +22,8 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.InputStreamEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,11 +31,12 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
-import java.io.IOException;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-import java.io.UnsupportedEncodingException;
-import java.util.Collections;
+import java.io.*;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 
 import static de.julielab.concepts.db.core.ConfigurationConstants.*;
@@ -42,8 +45,28 @@ import static de.julielab.java.utilities.ConfigurationUtilities.slash;
 import static de.julielab.neo4j.plugins.datarepresentation.ImportConcepts.*;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * <p>
+ * Sends concepts to the JULIE Lab Neo4j server plugin via HTTP.
+ * </p>
+ * <p>
+ * By default, all concepts of a facet are sent in a single request. If a positive batch size, e.g.
+ * {@link #CONCEPT_IMPORT_BATCH_SIZE}, is set in the <tt>insertion</tt> element of the import configuration, the
+ * concepts are split into batches of that size and each batch is sent in a request of its own. The next batch is
+ * serialized while the previous one is being sent. The number of retries for a batch that could not be sent can be
+ * set in the <tt>insertion</tt> element as well. Only batches that never reached the server because no connection
+ * could be established are resent.
+ * </p>
+ * <p>
+ * The batches are sent one after the other. Parents that are part of a later batch are created as hollow concepts by
+ * the server plugin and are completed when their batch arrives. Concurrent batches could each create a hollow concept
+ * for the same parent because the server plugin does not guard hollow concepts by a uniqueness constraint. Thus, a
+ * configured <tt>concurrency</tt> greater than 1 is ignored.
+ * </p>
+ */
 public class RestConceptInserter implements ConceptInserter {
     public static final int CONCEPT_IMPORT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_RETRIES = 2;
     private static final Logger log = LoggerFactory.getLogger(RestConceptInserter.class);
     private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
 
@@ -61,49 +84,13 @@ public class RestConceptInserter implements ConceptInserter {
 
             String serverUri = connectionConfiguration.getString(URI);
             String pluginEndpoint = importConfig.getString(slash(REST, REST_ENDPOINT));
-            HttpConnectionService httpService = HttpConnectionService.getInstance();
-
             String uri = serverUri + (pluginEndpoint.startsWith("/") ? pluginEndpoint : "/" + pluginEndpoint);
-            HttpPost httpPost = (HttpPost) httpService.getHttpRequest(connectionConfiguration, uri, HttpMethod.POST);
-            httpPost.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
-            httpPost.addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
-
-            PipedOutputStream jsonOut = new PipedOutputStream();
-            PipedInputStream entityStream = new PipedInputStream(jsonOut);
-            JsonFactory jf = new JsonFactory(jsonMapper);
-            JsonGenerator g = jf.createGenerator(jsonOut);
-            g.writeStartObject();
-            g.writeObjectField(NAME_FACET, concepts.getFacet());
-            g.writeObjectField(NAME_IMPORT_OPTIONS, concepts.getImportOptions());
-            g.writeNumberField(NAME_NUM_CONCEPTS, concepts.getNumConcepts());
 
-            Thread concept2json = new Thread(() -> {
-                try {
-                    ProgressBar progressBar = new ProgressBar(concepts.getNumConcepts());
-                    Stream<ImportConcept> importConcepts = concepts.getConcepts();
-                    g.writeFieldName(NAME_CONCEPTS);
-                    g.writeStartArray();
-                    for (ImportConcept concept : (Iterable<ImportConcept>) importConcepts::iterator) {
-                        // The JULIE Lab Neo4j plugins cannot handle parents in merging mode
-                        if (concepts.getImportOptions().merge)
-                            concept.parentCoordinates = Collections.emptyList();
-                        g.writeObject(concept);
-                        progressBar.incrementDone(true);
-                    }
-                    g.writeEndArray();
-                    g.writeEndObject();
-                    g.close();
-                } catch (IOException e) {
-                    log.error("An error occurred while writing concepts into the output stream.", e);
-                    throw new IllegalStateException(new ConceptInsertionException(e));
-                }
-            });
-            concept2json.start();
-            httpPost.setEntity(new InputStreamEntity(entityStream));
-            log.info("Sending data to server");
-            String response = IOUtils.toString(HttpConnectionService.getInstance().sendRequest(httpPost), UTF_8);
-            if (log.isDebugEnabled())
-                log.debug("Server plugin response to concept insertion: {}", response);
+            int batchSize = importConfig.getInt(slash(INSERTION, BATCH_SIZE), 0);
+            if (batchSize > 0)
+                insertInBatches(importConfig, concepts, jsonMapper, uri, batchSize);
+            else
+                insertInSingleRequest(concepts, jsonMapper, uri);
             log.info("Done with concept import.");
         } catch (InternalNeo4jException e) {
             final ObjectMapper om = new ObjectMapper();
@@ -125,6 +112,196 @@ public class RestConceptInserter implements ConceptInserter {
         }
     }
 
+    /**
+     * Sends all concepts within one request. The JSON data is streamed to the server while the concepts are
+     * serialized.
+     */
+    private void insertInSingleRequest(ImportConcepts concepts, ObjectMapper jsonMapper, String uri) throws ConceptDatabaseConnectionException, IOException {
+        HttpPost httpPost = createPost(uri);
+
+        PipedOutputStream jsonOut = new PipedOutputStream();
+        PipedInputStream entityStream = new PipedInputStream(jsonOut);
+        JsonFactory jf = new JsonFactory(jsonMapper);
+        JsonGenerator g = jf.createGenerator(jsonOut);
+        g.writeStartObject();
+        g.writeObjectField(NAME_FACET, concepts.getFacet());
+        g.writeObjectField(NAME_IMPORT_OPTIONS, concepts.getImportOptions());
+        g.writeNumberField(NAME_NUM_CONCEPTS, concepts.getNumConcepts());
+
+        Thread concept2json = new Thread(() -> {
+            try {
+                ProgressBar progressBar = new ProgressBar(concepts.getNumConcepts());
+                Stream<ImportConcept> importConcepts = concepts.getConcepts();
+                g.writeFieldName(NAME_CONCEPTS);
+                g.writeStartArray();
+                for (ImportConcept concept : (Iterable<ImportConcept>) importConcepts::iterator) {
+                    // The JULIE Lab Neo4j plugins cannot handle parents in merging mode
+                    if (concepts.getImportOptions().merge)
+                        concept.parentCoordinates = Collections.emptyList();
+                    g.writeObject(concept);
+                    progressBar.incrementDone(true);
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+                g.close();
+            } catch (IOException e) {
+                log.error("An error occurred while writing concepts into the output stream.", e);
+                throw new IllegalStateException(new ConceptInsertionException(e));
+            }
+        });
+        concept2json.start();
+        httpPost.setEntity(new InputStreamEntity(entityStream));
+        log.info("Sending data to server");
+        try (InputStream responseStream = HttpConnectionService.getInstance().sendRequest(httpPost)) {
+            String response = IOUtils.toString(responseStream, UTF_8);
+            if (log.isDebugEnabled())
+                log.debug("Server plugin response to concept insertion: {}", response);
+        }
+    }
+
+    /**
+     * Splits the concepts into batches of <tt>batchSize</tt> concepts and sends each batch in its own request. The
+     * next batch is serialized while the previous request is in flight. The stream of concepts is read lazily so that
+     * only the batch in flight and the next one are held in memory.
+     */
+    private void insertInBatches(HierarchicalConfiguration<ImmutableNode> importConfig, ImportConcepts concepts, ObjectMapper jsonMapper, String uri, int batchSize) throws ConceptDatabaseConnectionException, IOException {
+        int retries = Math.max(0, importConfig.getInt(slash(INSERTION, RETRIES), DEFAULT_RETRIES));
+        if (importConfig.getInt(slash(INSERTION, CONCURRENCY), 1) > 1)
+            log.warn("Concurrent insertion is not supported via the REST API because concurrent batches could create duplicate hollow concepts. The batches are sent one after the other.");
+        log.info("Sending concepts to server in batches of {}", batchSize);
+
+        ProgressBar progressBar = new ProgressBar(concepts.getNumConcepts());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Deque<Future<Void>> inFlight = new ArrayDeque<>(1);
+        try {
+            Iterator<ImportConcept> conceptIt = concepts.getConcepts().iterator();
+            int batchNumber = 0;
+            while (conceptIt.hasNext()) {
+                List<ImportConcept> batch = new ArrayList<>(batchSize);
+                while (conceptIt.hasNext() && batch.size() < batchSize) {
+                    ImportConcept concept = conceptIt.next();
+                    // The JULIE Lab Neo4j plugins cannot handle parents in merging mode
+                    if (concepts.getImportOptions().merge)
+                        concept.parentCoordinates = Collections.emptyList();
+                    batch.add(concept);
+                }
+                byte[] batchJson = serializeBatch(concepts, batch, jsonMapper);
+                int currentBatchNumber = batchNumber++;
+                int batchLength = batch.size();
+                // Only one batch is sent at a time
+                if (!inFlight.isEmpty())
+                    awaitBatch(inFlight.poll());
+                inFlight.add(executor.submit(() -> {
+                    sendBatch(uri, batchJson, currentBatchNumber, batchSize, retries);
+                    progressBar.incrementDone(batchLength, true);
+                    return null;
+                }));
+            }
+            while (!inFlight.isEmpty())
+                awaitBatch(inFlight.poll());
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] serializeBatch(ImportConcepts concepts, List<ImportConcept> batch, ObjectMapper jsonMapper) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JsonGenerator g = new JsonFactory(jsonMapper).createGenerator(baos)) {
+            g.writeStartObject();
+            g.writeObjectField(NAME_FACET, concepts.getFacet());
+            g.writeObjectField(NAME_IMPORT_OPTIONS, concepts.getImportOptions());
+            g.writeNumberField(NAME_NUM_CONCEPTS, batch.size());
+            g.writeFieldName(NAME_CONCEPTS);
+            g.writeStartArray();
+            for (ImportConcept concept : batch)
+                g.writeObject(concept);
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Sends a single batch. Failures to establish the connection cause the batch to be resent up to <tt>retries</tt>
+     * times. Since the import request is not idempotent, all other errors, e.g. read timeouts or connection resets,
+     * are not retried: the server might already have received and inserted the batch so that resending it could
+     * insert its concepts twice. Errors reported by the server plugin itself are not retried either because they
+     * would just occur again.
+     */
+    private void sendBatch(String uri, byte[] batchJson, int batchNumber, int batchSize, int retries) throws ConceptDatabaseConnectionException, IOException {
+        for (int attempt = 0; ; ++attempt) {
+            HttpPost httpPost = createPost(uri);
+            httpPost.setEntity(new ByteArrayEntity(batchJson));
+            try (InputStream responseStream = HttpConnectionService.getInstance().sendRequest(httpPost)) {
+                String response = IOUtils.toString(responseStream, UTF_8);
+                if (log.isDebugEnabled())
+                    log.debug("Server plugin response to concept insertion of batch {}: {}", batchNumber, response);
+                return;
+            } catch (InternalNeo4jException e) {
+                throw e;
+            } catch (ConceptDatabaseConnectionException | IOException e) {
+                if (attempt >= retries || !isNotDelivered(e)) {
+                    log.error("Sending batch {} (concepts {} to {}) failed after {} attempt(s).", batchNumber, batchNumber * (long) batchSize, (batchNumber + 1) * (long) batchSize - 1, attempt + 1);
+                    throw e;
+                }
+                log.warn("Sending batch {} failed: {}. Retrying ({} of {}).", batchNumber, e.getMessage(), attempt + 1, retries);
+                try {
+                    Thread.sleep(1000L * (attempt + 1));
+                } catch (InterruptedException e1) {
+                    Thread.currentThread().interrupt();
+                    throw new ConceptDatabaseConnectionException(e1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if the exception or one of its causes shows that no connection to the server could be
+     * established. The request has then certainly not been delivered and may safely be resent.
+     */
+    static boolean isNotDelivered(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException || t instanceof UnknownHostException || t instanceof NoRouteToHostException)
+                return true;
+        }
+        return false;
+    }
+
+    private void awaitBatch(Future<Void> future) throws ConceptDatabaseConnectionException, IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConceptDatabaseConnectionException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ConceptDatabaseConnectionException)
+                throw (ConceptDatabaseConnectionException) cause;
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new ConceptDatabaseConnectionException(cause);
+        }
+    }
+
+    private HttpPost createPost(String uri) throws ConceptDatabaseConnectionException {
+        HttpPost httpPost = (HttpPost) HttpConnectionService.getInstance().getHttpRequest(connectionConfiguration, uri, HttpMethod.POST);
+        httpPost.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+        httpPost.addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        return httpPost;
+    }
+
+    /**
+     * Facets inserted at the same time could each create the concepts they share because the server plugin does not
+     * guard concepts by a uniqueness constraint.
+     */
+    @Override
+    public boolean supportsConcurrentInsertion() {
+        return false;
+    }
+
     @Override
     public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptDatabaseConnectionException {
         HttpConnectionService httpService = HttpConnectionService.getInstance();
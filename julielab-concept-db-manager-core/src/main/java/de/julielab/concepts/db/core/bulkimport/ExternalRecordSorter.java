@@ -0,0 +1,222 @@
+package de.julielab.concepts.db.core.bulkimport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>
+ * Sorts records by a string key using a bounded amount of memory. Records with equal keys are combined with a merge
+ * function.
+ * </p>
+ * <p>
+ * Added records are buffered until the buffer holds <tt>maxRecordsInMemory</tt> records. The buffer is then sorted
+ * and written to a temporary run file in the work directory. {@link #merge(RecordConsumer)} performs a k-way merge of
+ * the runs and passes the combined records to a consumer in key order. At most <tt>maxOpenRuns</tt> runs are open at
+ * the same time; larger numbers of runs are merged in multiple passes. The merge result replaces the runs it was
+ * created from so that records can be added and merged again later on.
+ * </p>
+ */
+public class ExternalRecordSorter {
+    /**
+     * The default maximum number of runs that are read at the same time during a merge.
+     */
+    public static final int DEFAULT_MAX_OPEN_RUNS = 64;
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {
+    };
+    private final ObjectMapper om = new ObjectMapper();
+    private final Path workDir;
+    private final String name;
+    private final int maxRecordsInMemory;
+    private final int maxOpenRuns;
+    private final Function<Map<String, Object>, String> keyFunction;
+    private final BinaryOperator<Map<String, Object>> mergeFunction;
+    private final List<Map<String, Object>> buffer = new ArrayList<>();
+    private List<Path> runs = new ArrayList<>();
+    private int runCounter;
+
+    /**
+     * @param workDir            The directory for temporary run files.
+     * @param name               The prefix of the run files. Must be unique within the work directory.
+     * @param maxRecordsInMemory The number of records that are sorted in memory before they are written to a run.
+     * @param keyFunction        Returns the sort key of a record.
+     * @param mergeFunction      Combines two records with the same key.
+     */
+    public ExternalRecordSorter(Path workDir, String name, int maxRecordsInMemory, Function<Map<String, Object>, String> keyFunction, BinaryOperator<Map<String, Object>> mergeFunction) {
+        this(workDir, name, maxRecordsInMemory, DEFAULT_MAX_OPEN_RUNS, keyFunction, mergeFunction);
+    }
+
+    /**
+     * @param workDir            The directory for temporary run files.
+     * @param name               The prefix of the run files. Must be unique within the work directory.
+     * @param maxRecordsInMemory The number of records that are sorted in memory before they are written to a run.
+     * @param maxOpenRuns        The maximum number of runs that are opened at the same time during a merge.
+     * @param keyFunction        Returns the sort key of a record.
+     * @param mergeFunction      Combines two records with the same key.
+     */
+    public ExternalRecordSorter(Path workDir, String name, int maxRecordsInMemory, int maxOpenRuns, Function<Map<String, Object>, String> keyFunction, BinaryOperator<Map<String, Object>> mergeFunction) {
+        this.workDir = workDir;
+        this.name = name;
+        this.maxRecordsInMemory = Math.max(1, maxRecordsInMemory);
+        this.maxOpenRuns = Math.max(2, maxOpenRuns);
+        this.keyFunction = keyFunction;
+        this.mergeFunction = mergeFunction;
+    }
+
+    public void add(Map<String, Object> record) throws IOException {
+        buffer.add(record);
+        if (buffer.size() >= maxRecordsInMemory)
+            spill();
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty())
+            return;
+        buffer.sort(Comparator.comparing(keyFunction));
+        Path run = nextRunFile();
+        try (BufferedWriter bw = Files.newBufferedWriter(run, UTF_8)) {
+            Map<String, Object> current = null;
+            String currentKey = null;
+            for (Map<String, Object> record : buffer) {
+                String key = keyFunction.apply(record);
+                if (key.equals(currentKey)) {
+                    current = mergeFunction.apply(current, record);
+                } else {
+                    if (current != null)
+                        writeRecord(bw, current);
+                    current = record;
+                    currentKey = key;
+                }
+            }
+            writeRecord(bw, current);
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    /**
+     * Merges all records added so far and passes them to <tt>consumer</tt> in key order. Records with equal keys are
+     * combined before they are passed on. If there are more than <tt>maxOpenRuns</tt> runs, groups of runs are first
+     * merged into intermediate runs until the remaining runs can be merged at once.
+     *
+     * @param consumer The receiver of the sorted and combined records.
+     * @throws IOException If reading or writing a run fails.
+     */
+    public void merge(RecordConsumer consumer) throws IOException {
+        spill();
+        while (runs.size() > maxOpenRuns) {
+            List<Path> mergedRuns = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += maxOpenRuns)
+                mergedRuns.add(mergeRuns(runs.subList(i, Math.min(i + maxOpenRuns, runs.size())), null));
+            runs = mergedRuns;
+        }
+        runs = new ArrayList<>(List.of(mergeRuns(runs, consumer)));
+    }
+
+    /**
+     * Merges the given runs into a new run and deletes them afterwards. Records with equal keys are combined in the
+     * order of the runs.
+     *
+     * @param runsToMerge The runs to merge, at most <tt>maxOpenRuns</tt>.
+     * @param consumer    The receiver of the merged records or <tt>null</tt>.
+     * @return The new run.
+     */
+    private Path mergeRuns(List<Path> runsToMerge, RecordConsumer consumer) throws IOException {
+        Path mergedRun = nextRunFile();
+        List<RunReader> readers = new ArrayList<>(runsToMerge.size());
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Comparator.comparing((RunReader r) -> r.key).thenComparingInt(r -> r.index));
+        try (BufferedWriter bw = Files.newBufferedWriter(mergedRun, UTF_8)) {
+            for (Path run : runsToMerge) {
+                RunReader reader = new RunReader(run, readers.size());
+                readers.add(reader);
+                if (reader.advance())
+                    queue.add(reader);
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                String key = reader.key;
+                Map<String, Object> record = reader.record;
+                if (reader.advance())
+                    queue.add(reader);
+                while (!queue.isEmpty() && queue.peek().key.equals(key)) {
+                    RunReader other = queue.poll();
+                    record = mergeFunction.apply(record, other.record);
+                    if (other.advance())
+                        queue.add(other);
+                }
+                writeRecord(bw, record);
+                if (consumer != null)
+                    consumer.accept(record);
+            }
+        } finally {
+            // Exhausted readers are already closed; this covers the remaining ones after an error
+            for (RunReader reader : readers)
+                reader.close();
+        }
+        for (Path run : runsToMerge)
+            Files.deleteIfExists(run);
+        return mergedRun;
+    }
+
+    private Path nextRunFile() {
+        return workDir.resolve(name + "-" + runCounter++ + ".jsonl");
+    }
+
+    private void writeRecord(BufferedWriter bw, Map<String, Object> record) throws IOException {
+        bw.write(om.writeValueAsString(record));
+        bw.newLine();
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(Map<String, Object> record) throws IOException;
+    }
+
+    private class RunReader implements Closeable {
+        private final BufferedReader br;
+        /**
+         * The position of the run in the merge. Breaks ties between equal keys so that records are combined in the
+         * order in which they were added.
+         */
+        private final int index;
+        private String key;
+        private Map<String, Object> record;
+
+        private RunReader(Path run, int index) throws IOException {
+            br = Files.newBufferedReader(run, UTF_8);
+            this.index = index;
+        }
+
+        /**
+         * Reads the next record of the run. Closes the run when its end is reached.
+         *
+         * @return Whether there was another record.
+         */
+        private boolean advance() throws IOException {
+            String line = br.readLine();
+            if (line == null) {
+                close();
+                return false;
+            }
+            record = om.readValue(line, RECORD_TYPE);
+            key = keyFunction.apply(record);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            br.close();
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package de.julielab.concepts.db.core.http;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.stream.Stream;
 
 public interface Response extends AutoCloseable {
     Stream<Result> getResults();
 
+    /**
+     * Returns the rows of all results of this response, one at a time. In contrast to {@link #getResults()}, the
+     * rows are not required to be held in memory at the same time. Note that for a streamed response, the errors
+     * are only available after all rows have been consumed.
+     *
+     * @return The data rows of all results.
+     */
+    Stream<Data> getRows();
+
     Result getSingleResult();
 
     List<Object> getErrors();
+
+    @Override
+    void close() throws IOException;
 }
@@ -32,6 +32,11 @@ public class ResponseImpl implements Response {
 		return results != null ? results.stream() : Stream.empty();
 	}
 
+	@Override
+	public Stream<Data> getRows() {
+		return getResults().flatMap(result -> result.getData() != null ? result.getData().stream() : Stream.empty());
+	}
+
 	public Result getSingleResult() {
 		if (results.isEmpty())
 			throw new IllegalStateException("There are no results.");
@@ -41,7 +46,7 @@ public class ResponseImpl implements Response {
 	}
 
 	@Override
-	public void close() throws Exception {
+	public void close() {
 		// nothing to do
 	}
 }
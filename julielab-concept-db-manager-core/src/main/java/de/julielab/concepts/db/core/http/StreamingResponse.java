@@ -3,10 +3,13 @@ package de.julielab.concepts.db.core.http;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -84,6 +87,20 @@ public class StreamingResponse implements Response {
         return Stream.empty();
     }
 
+    @Override
+    public Stream<Data> getRows() {
+        if (isConsumed)
+            throw new IllegalStateException("This streaming result was already consumed.");
+        ObjectMapper om = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try {
+            JsonParser parser = new JsonFactory(om).createParser(responseStream);
+            isConsumed = true;
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new RowIterator(parser), Spliterator.ORDERED | Spliterator.NONNULL), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public Result getSingleResult() {
         Iterator<Result> it = getResults().iterator();
@@ -96,7 +113,7 @@ public class StreamingResponse implements Response {
     }
 
     @Override
-    public void close() throws Exception {
+    public void close() {
         try {
             if (responseStream != null)
                 responseStream.close();
@@ -104,4 +121,91 @@ public class StreamingResponse implements Response {
             // nothing
         }
     }
+
+    private enum Level {ROOT, RESULTS, RESULT, DATA}
+
+    /**
+     * Walks through the token stream of the transactional endpoint response
+     * <tt>{"results":[{"columns":[...],"data":[{"row":[...],"meta":[...]},...]},...],"errors":[...]}</tt> and
+     * deserializes one data row at a time.
+     */
+    private class RowIterator implements Iterator<Data> {
+        private final JsonParser parser;
+        private Level level = Level.ROOT;
+        private Data next;
+        private boolean finished;
+
+        private RowIterator(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = advance();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Data next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Data data = next;
+            next = null;
+            return data;
+        }
+
+        private Data advance() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (level) {
+                    case ROOT:
+                        if (token == JsonToken.FIELD_NAME) {
+                            String field = parser.getCurrentName();
+                            JsonToken valueToken = parser.nextToken();
+                            if (field.equals("results") && valueToken == JsonToken.START_ARRAY)
+                                level = Level.RESULTS;
+                            else if (field.equals("errors") && valueToken == JsonToken.START_ARRAY)
+                                errors = parser.readValueAs(new TypeReference<List<Object>>() {
+                                });
+                            else
+                                parser.skipChildren();
+                        }
+                        break;
+                    case RESULTS:
+                        if (token == JsonToken.START_OBJECT)
+                            level = Level.RESULT;
+                        else if (token == JsonToken.END_ARRAY)
+                            level = Level.ROOT;
+                        break;
+                    case RESULT:
+                        if (token == JsonToken.FIELD_NAME) {
+                            String field = parser.getCurrentName();
+                            JsonToken valueToken = parser.nextToken();
+                            if (field.equals("data") && valueToken == JsonToken.START_ARRAY)
+                                level = Level.DATA;
+                            else
+                                parser.skipChildren();
+                        } else if (token == JsonToken.END_OBJECT) {
+                            level = Level.RESULTS;
+                        }
+                        break;
+                    case DATA:
+                        if (token == JsonToken.START_OBJECT)
+                            return parser.readValueAs(Data.class);
+                        else if (token == JsonToken.END_ARRAY)
+                            level = Level.RESULT;
+                        break;
+                }
+            }
+            finished = true;
+            parser.close();
+            return null;
+        }
+    }
 }
@@ -30,7 +30,7 @@ public class ConceptCreationService implements ParameterExposing{
 		loader = ServiceLoader.load(ConceptCreator.class);
 	}
 
-	public static ConceptCreationService getInstance() {
+	public static synchronized ConceptCreationService getInstance() {
 		if (service == null)
 			service = new ConceptCreationService();
 		return service;
@@ -38,7 +38,9 @@ public class ConceptCreationService implements ParameterExposing{
 
 	/**
 	 * Expects an &lt;import&gt; configuration element and will return the
-	 * corresponding concepts for database import.
+	 * corresponding concepts for database import. Each call uses fresh concept
+	 * creator instances so that imports may be created concurrently by stateful
+	 * concept creators.
 	 * 
 	 * @param importConfig
 	 *            A subconfiguration on the &lt;import&gt; level.
@@ -50,7 +52,7 @@ public class ConceptCreationService implements ParameterExposing{
 	public Stream<ImportConcepts> createConcepts(HierarchicalConfiguration<ImmutableNode> importConfig)
 			throws ConceptCreationException, FacetCreationException {
 		String providername = importConfig.getString(slash(CONCEPTS, CREATOR, NAME));
-		Iterator<ConceptCreator> providerIt = loader.iterator();
+		Iterator<ConceptCreator> providerIt = ServiceLoader.load(ConceptCreator.class).iterator();
 		while (providerIt.hasNext()) {
 			ConceptCreator conceptCreator = providerIt.next();
 			if (conceptCreator.hasName(providername)) {
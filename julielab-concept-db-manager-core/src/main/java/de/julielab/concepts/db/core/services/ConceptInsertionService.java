@@ -1,10 +1,9 @@
 package de.julielab.concepts.db.core.services;
 
 import de.julielab.concepts.db.core.spi.ConceptInserter;
-import de.julielab.concepts.util.ConceptDBManagerException;
-import de.julielab.concepts.util.ConceptDBManagerRuntimeException;
 import de.julielab.concepts.util.ConceptDatabaseConnectionException;
 import de.julielab.concepts.util.ConceptInsertionException;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
 import de.julielab.neo4j.plugins.datarepresentation.ImportConcepts;
 import org.apache.commons.configuration2.ConfigurationUtils;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
@@ -16,15 +15,24 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+
 public class ConceptInsertionService {
 
     public static final String CONFKEY_PROVIDERNAME = "providername";
     private static final Logger log = LoggerFactory.getLogger(ConceptInsertionService.class);
     private static ConceptInsertionService service;
     private static Map<HierarchicalConfiguration<ImmutableNode>, ConceptInsertionService> serviceMap;
+    /**
+     * The inserter instances used for all insertions if the inserters do not support concurrent insertion, e.g.
+     * because they accumulate state across insertions. Access must be synchronized on the loader.
+     */
     private ServiceLoader<ConceptInserter> loader;
+    private Boolean concurrentInsertionSupported;
     private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
 
     private ConceptInsertionService(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) {
@@ -46,8 +54,42 @@ public class ConceptInsertionService {
         return serviceMap.computeIfAbsent(connectionConfiguration, ConceptInsertionService::new);
     }
 
+    /**
+     * Inserts a single facet. If the inserters support concurrent insertion, fresh inserter instances are used for
+     * each call. Otherwise, the shared inserter instances are used one call at a time.
+     */
     public void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfiguration, ImportConcepts concepts)
             throws ConceptInsertionException {
+        if (isConcurrentInsertionSupported()) {
+            insertConcepts(importConfiguration, concepts, ServiceLoader.load(ConceptInserter.class), true);
+        } else {
+            synchronized (loader) {
+                insertConcepts(importConfiguration, concepts, loader, false);
+            }
+        }
+    }
+
+    /**
+     * Flushes the shared inserter instances, i.e. the inserters not supporting concurrent insertion. Must be called
+     * after the last facet of an application run has been inserted.
+     *
+     * @throws ConceptInsertionException If an inserter cannot complete its output.
+     */
+    public void flush() throws ConceptInsertionException {
+        synchronized (loader) {
+            for (ConceptInserter inserter : loader) {
+                try {
+                    inserter.setConnection(connectionConfiguration);
+                    inserter.flush();
+                } catch (ConceptDatabaseConnectionException e) {
+                    // This inserter is not responsible for the connection
+                }
+            }
+        }
+    }
+
+    private void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfiguration, ImportConcepts concepts, ServiceLoader<ConceptInserter> loader, boolean flush)
+            throws ConceptInsertionException {
         Iterator<ConceptInserter> inserterIt = loader.iterator();
         boolean inserterFound = false;
         while (inserterIt.hasNext()) {
@@ -55,6 +97,8 @@ public class ConceptInsertionService {
             try {
                 inserter.setConnection(connectionConfiguration);
                 inserter.insertConcepts(importConfiguration, concepts);
+                if (flush)
+                    inserter.flush();
                 inserterFound = true;
             } catch (ConceptDatabaseConnectionException e) {
                 log.trace("Concept inserter " + inserter.getClass().getCanonicalName() + " could not serve the connection configuration " + ConfigurationUtils.toString(connectionConfiguration) + ": " + e.getMessage());
@@ -70,16 +114,145 @@ public class ConceptInsertionService {
                             + ConceptInserter.class.getCanonicalName() + " file.");
     }
 
+    /**
+     * Checks if all concept inserters serving the connection configuration support concurrent insertion.
+     *
+     * @return Whether concepts may be inserted from multiple threads at the same time.
+     */
+    private synchronized boolean isConcurrentInsertionSupported() {
+        if (concurrentInsertionSupported == null) {
+            concurrentInsertionSupported = true;
+            synchronized (loader) {
+                for (ConceptInserter inserter : loader) {
+                    try {
+                        inserter.setConnection(connectionConfiguration);
+                        if (!inserter.supportsConcurrentInsertion())
+                            concurrentInsertionSupported = false;
+                    } catch (ConceptDatabaseConnectionException e) {
+                        // This inserter is not responsible for the connection
+                    }
+                }
+            }
+        }
+        return concurrentInsertionSupported;
+    }
+
+    /**
+     * <p>
+     * Inserts all facets delivered by <tt>concepts</tt>. If the <tt>insertion/parallelfacets</tt> setting of the
+     * import configuration is greater than 1 and the concept inserters support it, multiple facets are inserted
+     * at the same time on a worker pool.
+     * </p>
+     * <p>
+     * After the insertion of a facet, its concept stream is closed.
+     * </p>
+     *
+     * @param importConfiguration The import configuration.
+     * @param concepts            The facets to insert.
+     * @throws ConceptInsertionException If the insertion of a facet fails.
+     */
     public void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfiguration, Stream<ImportConcepts> concepts) throws ConceptInsertionException {
         if (concepts == null)
             throw new ConceptInsertionException("The passed concepts object is null.");
-        concepts.forEach(t -> {
-            try {
-                insertConcepts(importConfiguration, t);
-            } catch (ConceptDBManagerException e) {
-                throw new ConceptDBManagerRuntimeException(e);
+        int parallelFacets = importConfiguration.getInt(slash(INSERTION, PARALLEL_FACETS), 1);
+        if (parallelFacets > 1 && !isConcurrentInsertionSupported()) {
+            log.warn("Parallel facet insertion was configured but the concept inserter for the connection {} does not support it. Facets are inserted one after the other.", connectionConfiguration.getString(URI));
+            parallelFacets = 1;
+        }
+        if (parallelFacets > 1) {
+            insertConcurrently(importConfiguration, concepts, parallelFacets);
+        } else {
+            int facetNumber = 0;
+            for (ImportConcepts facetConcepts : (Iterable<ImportConcepts>) concepts::iterator)
+                insertFacet(importConfiguration, facetConcepts, ++facetNumber);
+        }
+    }
+
+    private void insertConcurrently(HierarchicalConfiguration<ImmutableNode> importConfiguration, Stream<ImportConcepts> concepts, int parallelFacets) throws ConceptInsertionException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelFacets);
+        CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+        Iterator<ImportConcepts> facetIt = concepts.iterator();
+        int facetNumber = 0;
+        int running = 0;
+        int finished = 0;
+        Throwable failure = null;
+        try {
+            while (running > 0 || (failure == null && facetIt.hasNext())) {
+                // Only request the next facet from the concept creator when there is a free worker
+                while (failure == null && running < parallelFacets && facetIt.hasNext()) {
+                    ImportConcepts facetConcepts = facetIt.next();
+                    int number = ++facetNumber;
+                    completionService.submit(() -> {
+                        insertFacet(importConfiguration, facetConcepts, number);
+                        return getFacetName(facetConcepts);
+                    });
+                    ++running;
+                }
+                try {
+                    String facetName = completionService.take().get();
+                    ++finished;
+                    log.info("{} facets inserted, {} in progress (last: {}).", finished, running - 1, facetName);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                        log.error("The insertion of a facet failed. Waiting for the {} facets in progress to finish.", running - 1);
+                    }
+                } finally {
+                    --running;
+                }
             }
-        });
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new ConceptInsertionException("Interrupted while waiting for the facet insertion.", e);
+        } catch (RuntimeException e) {
+            // The facet stream itself failed, e.g. because the concept creation failed. Wait for the running
+            // insertions before reporting the error.
+            executor.shutdown();
+            awaitTermination(executor);
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        if (failure != null) {
+            if (failure instanceof ConceptInsertionException)
+                throw (ConceptInsertionException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            throw new ConceptInsertionException(failure);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES))
+                log.debug("Waiting for facet insertions to finish.");
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void insertFacet(HierarchicalConfiguration<ImmutableNode> importConfiguration, ImportConcepts facetConcepts, int facetNumber) throws ConceptInsertionException {
+        String facetName = getFacetName(facetConcepts);
+        if (facetConcepts.getNumConcepts() > 0)
+            log.info("Inserting facet {} ({}) with {} concepts.", facetNumber, facetName, facetConcepts.getNumConcepts());
+        else
+            log.info("Inserting facet {} ({}).", facetNumber, facetName);
+        long time = System.currentTimeMillis();
+        try {
+            insertConcepts(importConfiguration, facetConcepts);
+        } finally {
+            Stream<ImportConcept> conceptStream = facetConcepts.getConcepts();
+            if (conceptStream != null)
+                conceptStream.close();
+        }
+        log.info("Facet {} ({}) was inserted in {} seconds.", facetNumber, facetName, (System.currentTimeMillis() - time) / 1000);
+    }
 
+    private String getFacetName(ImportConcepts facetConcepts) {
+        return facetConcepts.getFacet() != null ? facetConcepts.getFacet().getName() : "unknown facet";
     }
 }
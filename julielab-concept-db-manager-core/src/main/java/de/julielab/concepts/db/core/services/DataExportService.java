@@ -44,9 +44,13 @@ public class DataExportService implements ParameterExposing {
         return serviceMap.computeIfAbsent(connectionConfiguration, DataExportService::new);
     }
 
+    /**
+     * Runs the exporters compatible with the export configuration. Each call uses fresh exporter instances so that
+     * multiple exports may run at the same time.
+     */
     public void exportData(HierarchicalConfiguration<ImmutableNode> exportConfig)
             throws DataExportException {
-        Iterator<DataExporter> exporterIt = loader.iterator();
+        Iterator<DataExporter> exporterIt = ServiceLoader.load(DataExporter.class).iterator();
         boolean exporterExecuted = false;
         while (exporterIt.hasNext()) {
             DataExporter exporter = exporterIt.next();
@@ -44,11 +44,15 @@ public class DatabaseOperationService implements ParameterExposing {
         return serviceMap.computeIfAbsent(connectionConfiguration, DatabaseOperationService::new);
     }
 
+    /**
+     * Runs the operators compatible with the operation configuration. Each call uses fresh operator instances so that
+     * multiple operations may run at the same time.
+     */
     public void operate(HierarchicalConfiguration<ImmutableNode> operationConfiguration)
             throws DatabaseOperationException {
         boolean operatorExecuted = false;
         log.trace("Operation Service called.");
-        for (Iterator<DatabaseOperator> operatorIterator = loader.iterator(); operatorIterator.hasNext(); ) {
+        for (Iterator<DatabaseOperator> operatorIterator = ServiceLoader.load(DatabaseOperator.class).iterator(); operatorIterator.hasNext(); ) {
             DatabaseOperator operator = operatorIterator.next();
             try {
                 operator.setConnection(connectionConfiguration);
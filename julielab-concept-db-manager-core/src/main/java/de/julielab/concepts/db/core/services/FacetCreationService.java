@@ -22,24 +22,26 @@ public class FacetCreationService implements ParameterExposing {
 
     private static final Logger log = LoggerFactory.getLogger(FacetCreationService.class);
     private static FacetCreationService service;
-    private ServiceLoader<FacetCreator> serviceLoader;
 
     private FacetCreationService() {
-        serviceLoader = ServiceLoader.load(FacetCreator.class);
     }
 
-    public static FacetCreationService getInstance() {
+    public static synchronized FacetCreationService getInstance() {
         if (service == null)
             service = new FacetCreationService();
         return service;
     }
 
+    /**
+     * Creates the facet of an import. Each call uses fresh facet creator instances because concept creators may
+     * request facets from multiple threads at the same time.
+     */
     public ImportFacet createFacet(HierarchicalConfiguration<ImmutableNode> importConfiguration, Object facetData)
             throws FacetCreationException {
         String facetCreatorName = importConfiguration.getString(slash(FACET, CREATOR, NAME));
         if (StringUtils.isBlank(facetCreatorName))
             log.debug("Facet creator name is not given, will fall back to the default facet.");
-        Iterator<FacetCreator> creatorIt = serviceLoader.iterator();
+        Iterator<FacetCreator> creatorIt = ServiceLoader.load(FacetCreator.class).iterator();
         ImportFacet facet = null;
         boolean providerFound = false;
         while (creatorIt.hasNext()) {
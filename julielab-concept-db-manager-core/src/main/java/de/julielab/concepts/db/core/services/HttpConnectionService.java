@@ -13,12 +13,11 @@ import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.ParseException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.NoConnectionReuseStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
@@ -30,29 +29,100 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static de.julielab.concepts.db.core.services.NetworkConnectionCredentials.*;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 
+/**
+ * <p>
+ * Sends HTTP requests over a shared pool of keep-alive connections.
+ * </p>
+ * <p>
+ * The pool is tuned by the optional elements {@link #CONFKEY_MAX_CONNECTIONS}, {@link #CONFKEY_MAX_CONNECTIONS_PER_ROUTE},
+ * {@link #CONFKEY_VALIDATE_AFTER_INACTIVITY}, {@link #CONFKEY_IDLE_TIMEOUT} and {@link #CONFKEY_CONNECTION_REQUEST_TIMEOUT}
+ * of the connection configuration. Pooled connections that have been idle for a while are checked before reuse and
+ * closed by a background thread after the idle timeout. This avoids the <tt>NoHttpResponseException</tt> caused by
+ * reusing connections the server has already closed. A request waiting longer than the connection request timeout for
+ * a free connection of the pool fails instead of blocking forever, e.g. when responses are not closed.
+ * </p>
+ */
 public class HttpConnectionService {
+    public static final String CONFKEY_MAX_CONNECTIONS = "maxconnections";
+    public static final String CONFKEY_MAX_CONNECTIONS_PER_ROUTE = "maxconnectionsperroute";
+    public static final String CONFKEY_VALIDATE_AFTER_INACTIVITY = "validateafterinactivity";
+    public static final String CONFKEY_IDLE_TIMEOUT = "idletimeout";
+    public static final String CONFKEY_CONNECTION_REQUEST_TIMEOUT = "connectionrequesttimeout";
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000;
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 60000;
     private final static Logger log = LoggerFactory.getLogger(HttpConnectionService.class);
     private static HttpConnectionService service;
-    private CloseableHttpClient client;
+    private final PoolingHttpClientConnectionManager connManager;
+    private final CloseableHttpClient client;
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private volatile RequestConfig requestConfig = RequestConfig.custom().setConnectionRequestTimeout(DEFAULT_CONNECTION_REQUEST_TIMEOUT).build();
+    private HierarchicalConfiguration<ImmutableNode> appliedConfiguration;
 
     public HttpConnectionService() {
-        PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
-        // NoConnectionReuseStrategy as an attempt to solve the issue
-        // https://stackoverflow.com/questions/10558791/apache-httpclient-interim-error-nohttpresponseexception
-        client = HttpClientBuilder.create().setConnectionManager(connManager).setConnectionReuseStrategy(new NoConnectionReuseStrategy()).build();
+        connManager = new PoolingHttpClientConnectionManager();
+        connManager.setMaxTotal(DEFAULT_MAX_CONNECTIONS);
+        connManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        connManager.setValidateAfterInactivity(DEFAULT_VALIDATE_AFTER_INACTIVITY);
+        client = HttpClientBuilder.create().setConnectionManager(connManager).setDefaultRequestConfig(requestConfig).build();
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "http-connection-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::evictConnections, 5, 5, TimeUnit.SECONDS);
     }
 
-    public static HttpConnectionService getInstance() {
+    public static synchronized HttpConnectionService getInstance() {
         if (service == null)
             service = new HttpConnectionService();
         return service;
     }
 
+    void evictConnections() {
+        connManager.closeExpiredConnections();
+        if (idleTimeout > 0)
+            connManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the connection pool settings of <tt>connectionConfiguration</tt>. Settings that are not given keep their
+     * current values. Called for each request; a configuration is only applied when it differs from the one applied last.
+     *
+     * @param connectionConfiguration The connection configuration.
+     */
+    synchronized void configurePool(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) {
+        if (connectionConfiguration == appliedConfiguration)
+            return;
+        appliedConfiguration = connectionConfiguration;
+        int maxTotal = connectionConfiguration.getInt(CONFKEY_MAX_CONNECTIONS, connManager.getMaxTotal());
+        int maxPerRoute = connectionConfiguration.getInt(CONFKEY_MAX_CONNECTIONS_PER_ROUTE, connManager.getDefaultMaxPerRoute());
+        connManager.setMaxTotal(Math.max(maxTotal, maxPerRoute));
+        connManager.setDefaultMaxPerRoute(maxPerRoute);
+        connManager.setValidateAfterInactivity(connectionConfiguration.getInt(CONFKEY_VALIDATE_AFTER_INACTIVITY, connManager.getValidateAfterInactivity()));
+        idleTimeout = connectionConfiguration.getLong(CONFKEY_IDLE_TIMEOUT, idleTimeout);
+        requestConfig = RequestConfig.copy(requestConfig).setConnectionRequestTimeout(connectionConfiguration.getInt(CONFKEY_CONNECTION_REQUEST_TIMEOUT, requestConfig.getConnectionRequestTimeout())).build();
+        log.debug("HTTP connection pool: {} connections in total, {} per route, validation after {}ms of inactivity, idle timeout {}ms, connection request timeout {}ms", connManager.getMaxTotal(), maxPerRoute, connManager.getValidateAfterInactivity(), idleTimeout, requestConfig.getConnectionRequestTimeout());
+    }
+
+    PoolingHttpClientConnectionManager getConnectionManager() {
+        return connManager;
+    }
+
+    long getIdleTimeout() {
+        return idleTimeout;
+    }
+
     public HttpRequestBase getHttpRequest(HierarchicalConfiguration<ImmutableNode> connectionConfiguration, String httpUri, String method)
             throws ConceptDatabaseConnectionException {
         try {
@@ -66,6 +136,7 @@ public class HttpConnectionService {
             String password = connectionConfiguration.getString(CONFKEY_PASSW);
 
             checkForHttpScheme(uri);
+            configurePool(connectionConfiguration);
 
             String authorizationToken = user != null && password != null
                     ? "Basic " + Base64.encodeBase64URLSafeString((user + ":" + password).getBytes())
@@ -89,6 +160,7 @@ public class HttpConnectionService {
             }
             if (authorizationToken != null)
                 request.addHeader("Authorization", authorizationToken);
+            request.setConfig(requestConfig);
             return request;
         } catch (IllegalArgumentException e) {
             throw new ConceptDatabaseConnectionException(e);
@@ -123,8 +195,11 @@ public class HttpConnectionService {
                 if (entity != null)
                     return entity.getContent();
                 return new ByteArrayInputStream("<no response from Neo4j>".getBytes(UTF_8));
-            } else if (response.getStatusLine().getStatusCode() == 404)
+            } else if (response.getStatusLine().getStatusCode() == 404) {
+                // Release the connection back to the pool.
+                EntityUtils.consumeQuietly(entity);
                 throw new IllegalArgumentException("Server returned status code HTTP " + response.getStatusLine().getStatusCode() + " Not Found: " + request.getMethod() + ": " + request.getURI().toString());
+            }
             responseString = EntityUtils.toString(entity);
             if (responseString != null && !responseString.isEmpty()) {
                 throw new IllegalArgumentException(responseString);
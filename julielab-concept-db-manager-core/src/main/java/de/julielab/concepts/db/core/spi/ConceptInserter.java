@@ -23,6 +23,25 @@ import static de.julielab.java.utilities.ConfigurationUtilities.slash;
 public interface ConceptInserter extends DatabaseConnected {
 	void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfiguration, ImportConcepts concepts) throws ConceptInsertionException;
 
+	/**
+	 * Indicates whether multiple instances of this inserter may insert concepts at the same time from different
+	 * threads. Inserters that accumulate state across insertions or that could create duplicate concepts when facets
+	 * sharing concepts are inserted at the same time must return <tt>false</tt>.
+	 * @return Whether concurrent insertion is supported.
+	 */
+	default boolean supportsConcurrentInsertion() {
+		return true;
+	}
+
+	/**
+	 * Called after all imports of an application run have been inserted. Inserters that accumulate state across
+	 * insertions complete their output here. Inserters supporting concurrent insertion are flushed after each
+	 * insertion.
+	 * @throws ConceptInsertionException If the accumulated data cannot be written.
+	 */
+	default void flush() throws ConceptInsertionException {
+	}
+
 	/**
 	 * Used to set or override {@link ImportOptions} for all concept inserters.
 	 * @param importConfiguration The import configuration.
@@ -0,0 +1,59 @@
+package de.julielab.concepts.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads and writes the values of the binary cache files of the concept creators. Strings are written as their number
+ * of UTF-8 bytes followed by the bytes. The reading methods check each count against the remaining bytes of the buffer
+ * so that a corrupt cache file is detected instead of causing huge or negative allocations.
+ */
+public class CacheIO {
+    private CacheIO() {
+    }
+
+    /**
+     * Writes the given string as its number of UTF-8 bytes followed by the bytes.
+     *
+     * @param dos The output stream.
+     * @param s   The string to write.
+     * @throws IOException If writing fails.
+     */
+    public static void writeString(DataOutputStream dos, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    /**
+     * Reads an element count and checks it against the remaining bytes so that a corrupt cache does not cause huge
+     * or negative allocations.
+     *
+     * @param bb              The buffer.
+     * @param minElementBytes The minimum number of bytes each element occupies in the buffer.
+     * @return The count.
+     * @throws IllegalArgumentException If the remaining bytes of the buffer cannot hold this many elements.
+     */
+    public static int readCount(ByteBuffer bb, int minElementBytes) {
+        int count = bb.getInt();
+        if (count < 0 || count > bb.remaining() / minElementBytes)
+            throw new IllegalArgumentException("Invalid element count " + count + " at position " + (bb.position() - 4) + " with " + bb.remaining() + " remaining bytes.");
+        return count;
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param bb The buffer.
+     * @return The string.
+     * @throws IllegalArgumentException If the remaining bytes of the buffer cannot hold the string.
+     */
+    public static String readString(ByteBuffer bb) {
+        byte[] bytes = new byte[readCount(bb, 1)];
+        bb.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
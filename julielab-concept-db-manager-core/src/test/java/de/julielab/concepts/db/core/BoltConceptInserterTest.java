@@ -0,0 +1,184 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.services.BoltConnectionService;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.neo4j.plugins.concepts.ConceptLabel;
+import de.julielab.neo4j.plugins.datarepresentation.*;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+import org.neo4j.configuration.connectors.BoltConnector;
+import org.neo4j.configuration.connectors.ConnectorPortRegister;
+import org.neo4j.configuration.helpers.SocketAddress;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoltConceptInserterTest {
+    private Path dbDir;
+    private DatabaseManagementService dbms;
+    private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
+    private Driver driver;
+
+    @BeforeClass
+    public void startDatabase() throws Exception {
+        dbDir = Files.createTempDirectory("boltinserter");
+        dbms = new DatabaseManagementServiceBuilder(dbDir)
+                .setConfig(BoltConnector.enabled, true)
+                .setConfig(BoltConnector.listen_address, new SocketAddress("localhost", 0))
+                .build();
+        GraphDatabaseAPI db = (GraphDatabaseAPI) dbms.database("neo4j");
+        int port = db.getDependencyResolver().resolveDependency(ConnectorPortRegister.class).getLocalAddress(BoltConnector.NAME).getPort();
+        connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(URI, "bolt://localhost:" + port);
+        driver = BoltConnectionService.getInstance().getBoltDriver(connectionConfiguration);
+    }
+
+    @AfterClass
+    public void stopDatabase() {
+        if (dbms != null)
+            dbms.shutdown();
+        FileUtils.deleteQuietly(dbDir.toFile());
+    }
+
+    @BeforeMethod
+    public void clearDatabase() {
+        try (Session session = driver.session()) {
+            session.run("MATCH (n) DETACH DELETE n").consume();
+        }
+    }
+
+    @Test
+    public void testInsertConcepts() throws Exception {
+        BoltConceptInserter inserter = new BoltConceptInserter();
+        inserter.setConnection(connectionConfiguration);
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = importConfiguration(1, 1, false);
+
+        ImportConcept concept1 = concept("1");
+        concept1.displayName = "display1";
+        concept1.qualifiers = List.of("qualifier1");
+        concept1.writingVariants = List.of("variant1");
+        concept1.acronyms = List.of("acronym1");
+        concept1.additionalCoordinates = List.of(new ConceptCoordinates("x", "other", true), new ConceptCoordinates("1", "src", true));
+        // Concept 9 is only referenced and thus becomes hollow
+        ImportConcept concept2 = concept("2", "1", "9");
+        concept2.addRelationship(new ImportConceptRelationship(coordinates("1"), "IS_RELATED_TO"));
+        inserter.insertConcepts(importConfiguration, new ImportConcepts(Stream.of(concept1, concept2), facet("facet1")));
+
+        Map<String, Object> props1 = getConceptProperties("1");
+        assertThat(props1).containsEntry(ConceptConstants.PROP_PREF_NAME, "name1")
+                .containsEntry(ConceptProperties.PROP_DISPLAY_NAME, "display1")
+                .containsEntry(ConceptProperties.PROP_QUALIFIERS, List.of("qualifier1"))
+                .containsEntry(ConceptProperties.PROP_WRITING_VARIANTS, List.of("variant1"))
+                .containsEntry(ConceptProperties.PROP_ACRONYMS, List.of("acronym1"))
+                .containsEntry(ConceptConstants.PROP_SRC_IDS, List.of("1", "x"))
+                .containsEntry(ConceptConstants.PROP_SOURCES, List.of("src", "other"));
+        assertThat(getLabels("9")).contains(ConceptLabel.HOLLOW.name());
+        assertThat(getLabels("2")).doesNotContain(ConceptLabel.HOLLOW.name());
+        assertThat(query("MATCH (f:FACET)-[:HAS_ROOT_CONCEPT]->(c:CONCEPT) RETURN c.preferredName AS name")).extracting(r -> r.get("name").asString()).containsExactly("name1");
+        assertThat(query("MATCH (p:CONCEPT)-[:IS_BROADER_THAN]->(c:CONCEPT {" + BoltConceptInserter.PROP_COORDINATES_KEY + ": 's|src|2'}) RETURN p." + BoltConceptInserter.PROP_COORDINATES_KEY + " AS key"))
+                .extracting(r -> r.get("key").asString()).containsExactlyInAnyOrder("s|src|1", "s|src|9");
+        assertThat(query("MATCH (:CONCEPT)-[r:IS_RELATED_TO]->(:CONCEPT) RETURN r")).hasSize(1);
+
+        // Importing the concept again into another facet does not duplicate its source IDs
+        ImportConcept concept1Again = concept("1");
+        concept1Again.additionalCoordinates = List.of(new ConceptCoordinates("y", "other", true));
+        inserter.insertConcepts(importConfiguration, new ImportConcepts(Stream.of(concept1Again), facet("facet2")));
+        props1 = getConceptProperties("1");
+        assertThat(props1).containsEntry(ConceptConstants.PROP_SRC_IDS, List.of("1", "x", "y"))
+                .containsEntry(ConceptConstants.PROP_SOURCES, List.of("src", "other", "other"));
+        assertThat((List<?>) props1.get(ConceptConstants.PROP_FACETS)).hasSize(2);
+        assertThat(query("MATCH (c:CONCEPT) RETURN c")).hasSize(3);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        BoltConceptInserter inserter = new BoltConceptInserter();
+        inserter.setConnection(connectionConfiguration);
+        inserter.insertConcepts(importConfiguration(10, 1, false), new ImportConcepts(Stream.of(concept("1")), facet("facet1")));
+
+        ImportConcept merged = new ImportConcept(null, Collections.emptyList(), coordinates("1"));
+        merged.synonyms = List.of("synonym1");
+        merged.additionalCoordinates = List.of(new ConceptCoordinates("x", "other", true));
+        // Merging does not create concepts that do not exist
+        inserter.insertConcepts(importConfiguration(10, 1, true), new ImportConcepts(Stream.of(merged, concept("77")), facet("facet1")));
+
+        assertThat(getConceptProperties("1")).containsEntry(ConceptConstants.PROP_PREF_NAME, "name1")
+                .containsEntry(ConceptConstants.PROP_SYNONYMS, List.of("synonym1"))
+                .containsEntry(ConceptConstants.PROP_SRC_IDS, List.of("1", "x"));
+        assertThat(query("MATCH (c:CONCEPT) RETURN c")).hasSize(1);
+    }
+
+    @Test
+    public void testConcurrentBatches() throws Exception {
+        BoltConceptInserter inserter = new BoltConceptInserter();
+        inserter.setConnection(connectionConfiguration);
+        // All concepts share the same, not yet existing parent which must be created once
+        List<ImportConcept> concepts = IntStream.range(0, 100).mapToObj(i -> concept(String.valueOf(i), "parent")).collect(Collectors.toList());
+        inserter.insertConcepts(importConfiguration(5, 4, false), new ImportConcepts(concepts.stream(), facet("facet1")));
+
+        assertThat(query("MATCH (c:CONCEPT) RETURN c")).hasSize(101);
+        assertThat(query("MATCH (p:CONCEPT {" + BoltConceptInserter.PROP_COORDINATES_KEY + ": 's|src|parent'})-[:IS_BROADER_THAN]->(c) RETURN c")).hasSize(100);
+        // Every concept received its own ID
+        List<String> ids = query("MATCH (c:CONCEPT) RETURN c." + ConceptConstants.PROP_ID + " AS id").stream().map(r -> r.get("id").asString()).collect(Collectors.toList());
+        assertThat(ids).doesNotHaveDuplicates().allMatch(id -> id.startsWith(BoltConceptInserter.CONCEPT_ID_PREFIX));
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> importConfiguration(int batchSize, int concurrency, boolean merge) throws Exception {
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        importConfiguration.setProperty(slash(INSERTION, BATCH_SIZE), batchSize);
+        importConfiguration.setProperty(slash(INSERTION, CONCURRENCY), concurrency);
+        importConfiguration.setProperty(slash(IMPORT_OPTIONS, MERGE), merge);
+        return importConfiguration;
+    }
+
+    private Map<String, Object> getConceptProperties(String id) {
+        List<Record> records = query("MATCH (c:CONCEPT {" + BoltConceptInserter.PROP_COORDINATES_KEY + ": 's|src|" + id + "'}) RETURN c");
+        assertThat(records).hasSize(1);
+        return records.get(0).get("c").asMap();
+    }
+
+    private List<String> getLabels(String id) {
+        return query("MATCH (c:CONCEPT {" + BoltConceptInserter.PROP_COORDINATES_KEY + ": 's|src|" + id + "'}) RETURN labels(c) AS labels").get(0).get("labels").asList(Value::asString);
+    }
+
+    private List<Record> query(String query) {
+        try (Session session = driver.session()) {
+            return session.run(query).list();
+        }
+    }
+
+    private ImportConcept concept(String id, String... parentIds) {
+        List<ConceptCoordinates> parents = Arrays.stream(parentIds).map(this::coordinates).collect(Collectors.toList());
+        return new ImportConcept("name" + id, Collections.emptyList(), Collections.emptyList(), coordinates(id), parents);
+    }
+
+    private ConceptCoordinates coordinates(String id) {
+        return new ConceptCoordinates(id, "src", true);
+    }
+
+    private ImportFacet facet(String name) {
+        return new ImportFacet(new ImportFacetGroup("group"), null, name, name, FacetConstants.SRC_TYPE_HIERARCHICAL, Collections.emptyList(), false);
+    }
+}
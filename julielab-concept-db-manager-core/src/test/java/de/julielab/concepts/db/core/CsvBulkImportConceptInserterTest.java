@@ -0,0 +1,116 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.neo4j.plugins.FacetManager.FacetLabel;
+import de.julielab.neo4j.plugins.concepts.ConceptEdgeTypes;
+import de.julielab.neo4j.plugins.concepts.ConceptLabel;
+import de.julielab.neo4j.plugins.datarepresentation.*;
+import de.julielab.neo4j.plugins.datarepresentation.constants.ConceptConstants;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CsvBulkImportConceptInserterTest {
+    private static final String ARRAY_DELIMITER = String.valueOf(CsvBulkImportConceptInserter.ARRAY_DELIMITER);
+
+    @Test
+    public void testWriteFiles() throws Exception {
+        Path dir = Files.createTempDirectory("csvbulkimport");
+        try {
+            HierarchicalConfiguration<ImmutableNode> configuration = ConfigurationUtilities.createEmptyConfiguration();
+            configuration.setProperty(URI, CsvBulkImportConceptInserter.SCHEME + ":" + dir.toAbsolutePath());
+            // Two records in memory let the sorters write and merge multiple runs
+            configuration.setProperty(slash(INSERTION, BATCH_SIZE), 2);
+            CsvBulkImportConceptInserter inserter = new CsvBulkImportConceptInserter();
+            inserter.setConnection(configuration);
+
+            ImportConcept concept2 = concept("2", "1");
+            concept2.addRelationship(new ImportConceptRelationship(coordinates("1"), "IS_RELATED_TO"));
+            // Concept 9 is only referenced and thus becomes hollow
+            inserter.insertConcepts(configuration, new ImportConcepts(Stream.of(concept("1"), concept2, concept("3", "1", "9")), facet("facet1")));
+            assertThat(dir.resolve(CsvBulkImportConceptInserter.CONCEPTS_FILE)).doesNotExist();
+            // Concept 3 occurs in both facets, as a root concept in the second one
+            ImportConcept concept3 = concept("3");
+            concept3.synonyms = List.of("syn3");
+            inserter.insertConcepts(configuration, new ImportConcepts(Stream.of(concept3, concept("4", "3")), facet("facet2")));
+            inserter.flush();
+
+            List<Map<String, String>> facets = readCsv(dir.resolve(CsvBulkImportConceptInserter.FACETS_FILE));
+            assertThat(facets).extracting(f -> f.get(FacetConstants.PROP_ID + ":ID(Facet)")).containsExactly("fid0", "fid1");
+            assertThat(facets).extracting(f -> f.get(FacetConstants.PROP_NAME)).containsExactly("facet1", "facet2");
+            assertThat(facets).extracting(f -> f.get(":LABEL")).containsOnly(FacetLabel.FACET.name());
+
+            List<Map<String, String>> concepts = readCsv(dir.resolve(CsvBulkImportConceptInserter.CONCEPTS_FILE));
+            String keyColumn = BoltConceptInserter.PROP_COORDINATES_KEY + ":ID(Concept)";
+            // Every concept is written once, in key order
+            assertThat(concepts).extracting(c -> c.get(keyColumn)).containsExactly("s|src|1", "s|src|2", "s|src|3", "s|src|4", "s|src|9");
+            assertThat(concepts).extracting(c -> c.get(ConceptConstants.PROP_ID)).containsExactly("tid0", "tid1", "tid2", "tid3", "tid4");
+            assertThat(concepts).extracting(c -> c.get(ConceptConstants.PROP_FACETS + ":string[]")).containsExactly("fid0", "fid0", "fid0" + ARRAY_DELIMITER + "fid1", "fid1", "");
+            assertThat(concepts).extracting(c -> c.get(ConceptConstants.PROP_PREF_NAME)).containsExactly("name1", "name2", "name3", "name4", "");
+            assertThat(concepts).extracting(c -> c.get(ConceptConstants.PROP_SRC_IDS + ":string[]")).containsExactly("1", "2", "3", "4", "9");
+            assertThat(concepts).extracting(c -> c.get(ConceptConstants.PROP_SYNONYMS + ":string[]")).containsExactly("", "", "syn3", "", "");
+            assertThat(concepts).extracting(c -> c.get(":LABEL")).containsExactly(ConceptLabel.CONCEPT.name(), ConceptLabel.CONCEPT.name(), ConceptLabel.CONCEPT.name(), ConceptLabel.CONCEPT.name(), ConceptLabel.CONCEPT.name() + ARRAY_DELIMITER + ConceptLabel.HOLLOW.name());
+
+            List<Map<String, String>> facetRelationships = readCsv(dir.resolve(CsvBulkImportConceptInserter.FACET_RELATIONSHIPS_FILE));
+            assertThat(facetRelationships).extracting(r -> r.get(":START_ID(Facet)") + " " + r.get(":TYPE") + " " + r.get(":END_ID(Concept)"))
+                    .containsExactly("fid0 " + ConceptEdgeTypes.HAS_ROOT_CONCEPT.name() + " s|src|1", "fid1 " + ConceptEdgeTypes.HAS_ROOT_CONCEPT.name() + " s|src|3");
+
+            List<Map<String, String>> conceptRelationships = readCsv(dir.resolve(CsvBulkImportConceptInserter.CONCEPT_RELATIONSHIPS_FILE));
+            String broader = ConceptEdgeTypes.IS_BROADER_THAN.name();
+            assertThat(conceptRelationships).extracting(r -> r.get(":START_ID(Concept)") + " " + r.get(":TYPE") + " " + r.get(":END_ID(Concept)"))
+                    .containsExactly("s|src|1 " + broader + " s|src|2", "s|src|1 " + broader + " s|src|3", "s|src|2 IS_RELATED_TO s|src|1", "s|src|3 " + broader + " s|src|4", "s|src|9 " + broader + " s|src|3");
+
+            assertThat(dir.resolve(CsvBulkImportConceptInserter.IMPORT_COMMAND_FILE)).exists();
+            // Only the merged run of each sorter is left in the work directory
+            try (Stream<Path> runs = Files.list(dir.resolve(".work"))) {
+                assertThat(runs.count()).isEqualTo(3);
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+
+    private ImportConcept concept(String id, String... parentIds) {
+        List<ConceptCoordinates> parents = Arrays.stream(parentIds).map(this::coordinates).collect(Collectors.toList());
+        return new ImportConcept("name" + id, Collections.emptyList(), Collections.emptyList(), coordinates(id), parents);
+    }
+
+    private ConceptCoordinates coordinates(String id) {
+        return new ConceptCoordinates(id, "src", true);
+    }
+
+    private ImportFacet facet(String name) {
+        return new ImportFacet(new ImportFacetGroup("group"), null, name, name, FacetConstants.SRC_TYPE_HIERARCHICAL, Collections.emptyList(), false);
+    }
+
+    /**
+     * Reads the rows of a CSV file as maps from the header columns to the unquoted values. The test data contains
+     * neither commas nor quotes within values.
+     */
+    private List<Map<String, String>> readCsv(Path file) throws Exception {
+        List<String> lines = Files.readAllLines(file);
+        String[] header = lines.get(0).split(",", -1);
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(",", -1);
+            assertThat(values).as(line).hasSameSizeAs(header);
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.length; i++)
+                row.put(header[i], values[i].replaceAll("^\"|\"$", ""));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,118 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.services.BoltConnectionService;
+import de.julielab.concepts.util.DataExportException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.java.utilities.FileUtilities;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+import org.neo4j.configuration.connectors.BoltConnector;
+import org.neo4j.configuration.connectors.ConnectorPortRegister;
+import org.neo4j.configuration.helpers.SocketAddress;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.driver.Session;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CypherBoltExporterTest {
+    private static final int NUM_FRUITS = 2500;
+    private Path dbDir;
+    private Path outputDir;
+    private DatabaseManagementService dbms;
+    private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
+
+    @BeforeClass
+    public void startDatabase() throws Exception {
+        dbDir = Files.createTempDirectory("boltexporter");
+        outputDir = Files.createTempDirectory("boltexporteroutput");
+        dbms = new DatabaseManagementServiceBuilder(dbDir)
+                .setConfig(BoltConnector.enabled, true)
+                .setConfig(BoltConnector.listen_address, new SocketAddress("localhost", 0))
+                .build();
+        GraphDatabaseAPI db = (GraphDatabaseAPI) dbms.database("neo4j");
+        int port = db.getDependencyResolver().resolveDependency(ConnectorPortRegister.class).getLocalAddress(BoltConnector.NAME).getPort();
+        connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(URI, "bolt://localhost:" + port);
+        try (Session session = BoltConnectionService.getInstance().getBoltDriver(connectionConfiguration).session()) {
+            session.run("UNWIND range(1, " + NUM_FRUITS + ") AS i CREATE (:Fruit {name: 'fruit' + i, number: i})").consume();
+        }
+    }
+
+    @AfterClass
+    public void stopDatabase() {
+        if (dbms != null)
+            dbms.shutdown();
+        FileUtils.deleteQuietly(dbDir.toFile());
+        FileUtils.deleteQuietly(outputDir.toFile());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File outputFile = outputDir.resolve("fruits.txt.gz").toFile();
+        // Several fetches are required to retrieve all records
+        exporter().exportData(exportConfiguration("MATCH (n:Fruit) RETURN n.name, n.number ORDER BY n.number", outputFile));
+
+        List<String> records = readRecords(outputFile);
+        assertThat(records).hasSize(NUM_FRUITS);
+        assertThat(records.get(0)).isEqualTo("fruit1\t1");
+        assertThat(records.get(NUM_FRUITS - 1)).isEqualTo("fruit" + NUM_FRUITS + "\t" + NUM_FRUITS);
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    public void testFailedExportKeepsOutputFile() throws Exception {
+        File outputFile = outputDir.resolve("previous.txt").toFile();
+        Files.writeString(outputFile.toPath(), "previous export");
+        // Lists are not supported for output; the last record fails after all others have been written
+        String query = "MATCH (n:Fruit) RETURN CASE WHEN n.number = " + NUM_FRUITS + " THEN [n.number] ELSE n.number END ORDER BY n.number";
+        assertThatThrownBy(() -> exporter().exportData(exportConfiguration(query, outputFile)))
+                .isInstanceOf(DataExportException.class);
+
+        assertThat(Files.readString(outputFile.toPath(), UTF_8)).isEqualTo("previous export");
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    private CypherBoltExporter exporter() throws Exception {
+        CypherBoltExporter exporter = new CypherBoltExporter();
+        exporter.setConnection(connectionConfiguration);
+        return exporter;
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> exportConfiguration(String query, File outputFile) {
+        HierarchicalConfiguration<ImmutableNode> exportConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        exportConfiguration.setProperty(slash(REQUEST, CYPHER_QUERY), query);
+        exportConfiguration.setProperty(slash(REQUEST, FETCH_SIZE), 100);
+        exportConfiguration.setProperty(OUTPUT_FILE, outputFile.getAbsolutePath());
+        return exportConfiguration;
+    }
+
+    private List<String> readRecords(File file) throws Exception {
+        try (BufferedReader br = FileUtilities.getReaderFromFile(file)) {
+            return br.lines().filter(l -> !l.startsWith("#")).collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> temporaryFiles() throws Exception {
+        try (Stream<Path> files = Files.list(outputDir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(".tmp-")).collect(Collectors.toList());
+        }
+    }
+}
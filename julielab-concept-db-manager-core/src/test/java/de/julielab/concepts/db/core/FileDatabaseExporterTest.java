@@ -0,0 +1,182 @@
+package de.julielab.concepts.db.core;
+
+import de.julielab.concepts.db.core.services.FileConnectionService;
+import de.julielab.concepts.util.DataExportException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.java.utilities.FileUtilities;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.io.FileUtils;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+public class FileDatabaseExporterTest {
+    private static final int NUM_FRUITS = 2500;
+    private Path dbDir;
+    private Path outputDir;
+    private HierarchicalConfiguration<ImmutableNode> connectionConfiguration;
+
+    @BeforeClass
+    public void createDatabase() throws Exception {
+        dbDir = Files.createTempDirectory("filedbexporter");
+        outputDir = Files.createTempDirectory("filedbexporteroutput");
+        connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(URI, dbDir.toUri().toString());
+        DatabaseManagementService dbms = FileConnectionService.getInstance().getDatabaseManagementService(connectionConfiguration);
+        try (Transaction tx = dbms.database(DEFAULT_DATABASE_NAME).beginTx()) {
+            tx.execute("UNWIND range(1, " + NUM_FRUITS + ") AS i CREATE (:Fruit {name: 'fruit' + i, number: i})");
+            tx.commit();
+        }
+    }
+
+    @AfterClass
+    public void shutdownDatabase() {
+        FileConnectionService.getInstance().shutdown();
+        FileUtils.deleteQuietly(dbDir.toFile());
+        FileUtils.deleteQuietly(outputDir.toFile());
+    }
+
+    @Test
+    public void testCypherRoundTrip() throws Exception {
+        File outputFile = outputDir.resolve("cypherfruits.txt.gz").toFile();
+        CypherFileDBExporter exporter = new CypherFileDBExporter();
+        exporter.setConnection(connectionConfiguration);
+        exporter.exportData(cypherConfiguration("MATCH (n:Fruit) RETURN n.name, n.number ORDER BY n.number", outputFile));
+
+        List<String> records = readRecords(outputFile);
+        assertThat(records).hasSize(NUM_FRUITS);
+        assertThat(records.get(0)).isEqualTo("fruit1\t1");
+        assertThat(records.get(NUM_FRUITS - 1)).isEqualTo("fruit" + NUM_FRUITS + "\t" + NUM_FRUITS);
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    public void testFailedCypherExportKeepsOutputFile() throws Exception {
+        File outputFile = outputDir.resolve("previouscypher.txt").toFile();
+        Files.writeString(outputFile.toPath(), "previous export");
+        CypherFileDBExporter exporter = new CypherFileDBExporter();
+        exporter.setConnection(connectionConfiguration);
+        // The division by zero happens for the last fruit, after the other records have been written
+        String query = "MATCH (n:Fruit) RETURN n.name, 1 / (" + NUM_FRUITS + " - n.number)";
+        assertThatThrownBy(() -> exporter.exportData(cypherConfiguration(query, outputFile)))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(Files.readString(outputFile.toPath(), UTF_8)).isEqualTo("previous export");
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    public void testJavaClassRoundTrip() throws Exception {
+        File outputFile = outputDir.resolve("javafruits.txt").toFile();
+        JavaClassFileDBExporter exporter = new JavaClassFileDBExporter();
+        exporter.setConnection(connectionConfiguration);
+        exporter.exportData(javaClassConfiguration("exportFruits", outputFile));
+
+        List<String> records = readRecords(outputFile);
+        assertThat(records).hasSize(NUM_FRUITS);
+        assertThat(records.get(0)).isEqualTo("fruit1");
+        assertThat(records.get(NUM_FRUITS - 1)).isEqualTo("fruit" + NUM_FRUITS);
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    public void testFailedJavaClassExportKeepsOutputFile() throws Exception {
+        File outputFile = outputDir.resolve("previousjava.txt").toFile();
+        Files.writeString(outputFile.toPath(), "previous export");
+        JavaClassFileDBExporter exporter = new JavaClassFileDBExporter();
+        exporter.setConnection(connectionConfiguration);
+        // The plugin fails after it has written most of the fruits
+        assertThatThrownBy(() -> exporter.exportData(javaClassConfiguration("exportFruitsFailing", outputFile)))
+                .isInstanceOf(DataExportException.class)
+                .hasRootCauseMessage("export failed");
+
+        assertThat(Files.readString(outputFile.toPath(), UTF_8)).isEqualTo("previous export");
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> cypherConfiguration(String query, File outputFile) {
+        HierarchicalConfiguration<ImmutableNode> exportConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        exportConfiguration.setProperty(slash(REQUEST, CYPHER_QUERY), query);
+        exportConfiguration.setProperty(OUTPUT_FILE, outputFile.getAbsolutePath());
+        return exportConfiguration;
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> javaClassConfiguration(String method, File outputFile) {
+        HierarchicalConfiguration<ImmutableNode> exportConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        exportConfiguration.setProperty(slash(REQUEST, CLASS), FruitExport.class.getName());
+        exportConfiguration.setProperty(slash(REQUEST, METHOD), method);
+        exportConfiguration.setProperty(slash(DECODING, BASE64), true);
+        exportConfiguration.setProperty(slash(DECODING, GZIP), true);
+        exportConfiguration.setProperty(OUTPUT_FILE, outputFile.getAbsolutePath());
+        return exportConfiguration;
+    }
+
+    private List<String> readRecords(File file) throws Exception {
+        try (BufferedReader br = FileUtilities.getReaderFromFile(file)) {
+            return br.lines().filter(l -> !l.startsWith("#")).collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> temporaryFiles() throws Exception {
+        try (Stream<Path> files = Files.list(outputDir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(".tmp-")).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Exports the fruit names encoded like the export methods of the database plugins: GZIP compressed and Base64
+     * encoded.
+     */
+    public static class FruitExport {
+        private final DatabaseManagementService dbms;
+
+        public FruitExport(DatabaseManagementService dbms) {
+            this.dbms = dbms;
+        }
+
+        public StreamingOutput exportFruits() {
+            return os -> writeFruits(os, false);
+        }
+
+        public StreamingOutput exportFruitsFailing() {
+            return os -> writeFruits(os, true);
+        }
+
+        private void writeFruits(OutputStream os, boolean fail) throws IOException {
+            try (Transaction tx = dbms.database(DEFAULT_DATABASE_NAME).beginTx();
+                 OutputStream gzos = new GZIPOutputStream(Base64.getEncoder().wrap(os))) {
+                Result result = tx.execute("MATCH (n:Fruit) RETURN n.name AS name ORDER BY n.number");
+                int numFruits = 0;
+                while (result.hasNext()) {
+                    if (fail && ++numFruits == NUM_FRUITS)
+                        throw new IOException("export failed");
+                    gzos.write((result.next().get("name") + "\n").getBytes(UTF_8));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package de.julielab.concepts.db.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import de.julielab.concepts.util.ConceptDatabaseConnectionException;
+import de.julielab.concepts.util.ConceptInsertionException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.neo4j.plugins.datarepresentation.*;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RestConceptInserterTest {
+    private static final String ENDPOINT = "/concepts";
+    private HttpServer server;
+
+    @AfterMethod
+    public void stopServer() {
+        if (server != null)
+            server.stop(0);
+        server = null;
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        List<Integer> conceptsPerRequest = new CopyOnWriteArrayList<>();
+        startRecordingServer(reservePort(), conceptsPerRequest);
+        RestConceptInserter inserter = inserter();
+
+        // Batching is opt-in: all concepts are sent in a single request by default
+        inserter.insertConcepts(importConfiguration(null), concepts(5));
+        assertThat(conceptsPerRequest).containsExactly(5);
+
+        conceptsPerRequest.clear();
+        inserter.insertConcepts(importConfiguration(0), concepts(5));
+        assertThat(conceptsPerRequest).containsExactly(5);
+
+        conceptsPerRequest.clear();
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = importConfiguration(2);
+        // Concurrency is ignored, the batches are sent one after the other
+        importConfiguration.setProperty(slash(INSERTION, CONCURRENCY), 4);
+        inserter.insertConcepts(importConfiguration, concepts(5));
+        assertThat(conceptsPerRequest).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    public void testRetryUndelivered() throws Exception {
+        int port = reservePort();
+        // The server only comes up after the first attempt to send a batch has failed to connect
+        List<Integer> conceptsPerRequest = new CopyOnWriteArrayList<>();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            scheduler.schedule(() -> {
+                startRecordingServer(port, conceptsPerRequest);
+                return null;
+            }, 300, TimeUnit.MILLISECONDS);
+            inserter(port).insertConcepts(importConfiguration(3), concepts(5));
+        } finally {
+            scheduler.shutdownNow();
+        }
+        // Every batch was delivered exactly once
+        assertThat(conceptsPerRequest).containsExactly(3, 2);
+    }
+
+    @Test
+    public void testNoRetryAfterDelivery() throws Exception {
+        int port = reservePort();
+        AtomicInteger requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        // The request reaches the server but the connection is closed without a response
+        server.createContext(ENDPOINT, exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.close();
+        });
+        server.start();
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = importConfiguration(10);
+        importConfiguration.setProperty(slash(INSERTION, RETRIES), 2);
+        assertThatThrownBy(() -> inserter(port).insertConcepts(importConfiguration, concepts(5))).isInstanceOf(ConceptInsertionException.class);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGiveUpAfterRetries() throws Exception {
+        int port = reservePort();
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = importConfiguration(10);
+        importConfiguration.setProperty(slash(INSERTION, RETRIES), 1);
+        assertThatThrownBy(() -> inserter(port).insertConcepts(importConfiguration, concepts(5)))
+                .isInstanceOf(ConceptInsertionException.class)
+                .satisfies(e -> assertThat(RestConceptInserter.isNotDelivered(e)).isTrue());
+    }
+
+    @Test
+    public void testIsNotDelivered() {
+        assertThat(RestConceptInserter.isNotDelivered(new ConnectException())).isTrue();
+        assertThat(RestConceptInserter.isNotDelivered(new ConnectTimeoutException())).isTrue();
+        assertThat(RestConceptInserter.isNotDelivered(new UnknownHostException())).isTrue();
+        assertThat(RestConceptInserter.isNotDelivered(new NoRouteToHostException())).isTrue();
+        assertThat(RestConceptInserter.isNotDelivered(new ConceptDatabaseConnectionException(new IOException(new ConnectException())))).isTrue();
+
+        assertThat(RestConceptInserter.isNotDelivered(new NoHttpResponseException("no response"))).isFalse();
+        assertThat(RestConceptInserter.isNotDelivered(new SocketTimeoutException())).isFalse();
+        assertThat(RestConceptInserter.isNotDelivered(new ConceptDatabaseConnectionException(new SocketException("Connection reset")))).isFalse();
+        assertThat(RestConceptInserter.isNotDelivered(new IllegalArgumentException("server error"))).isFalse();
+    }
+
+    /**
+     * Starts a server on the given port that adds the number of concepts of each request to the given list.
+     */
+    private void startRecordingServer(int port, List<Integer> conceptsPerRequest) throws IOException {
+        ObjectMapper om = new ObjectMapper();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext(ENDPOINT, exchange -> {
+            try (InputStream is = exchange.getRequestBody()) {
+                JsonNode request = om.readTree(is);
+                conceptsPerRequest.add(request.get(ImportConcepts.NAME_CONCEPTS).size());
+            }
+            byte[] response = "{}".getBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    private int reservePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private RestConceptInserter inserter() throws Exception {
+        return inserter(server.getAddress().getPort());
+    }
+
+    private RestConceptInserter inserter(int port) throws Exception {
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(URI, "http://localhost:" + port);
+        RestConceptInserter inserter = new RestConceptInserter();
+        inserter.setConnection(connectionConfiguration);
+        return inserter;
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> importConfiguration(Integer batchSize) throws Exception {
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        importConfiguration.setProperty(slash(REST, REST_ENDPOINT), ENDPOINT);
+        if (batchSize != null)
+            importConfiguration.setProperty(slash(INSERTION, BATCH_SIZE), batchSize);
+        return importConfiguration;
+    }
+
+    private ImportConcepts concepts(int numConcepts) {
+        List<ImportConcept> concepts = IntStream.range(0, numConcepts).mapToObj(i -> new ImportConcept("name" + i, Collections.emptyList(), new ConceptCoordinates(String.valueOf(i), "src", true))).collect(Collectors.toList());
+        ImportFacet facet = new ImportFacet(new ImportFacetGroup("group"), null, "facet", "facet", FacetConstants.SRC_TYPE_HIERARCHICAL, Collections.emptyList(), false);
+        return new ImportConcepts(concepts, facet);
+    }
+}
@@ -0,0 +1,71 @@
+package de.julielab.concepts.db.core.bulkimport;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExternalRecordSorterTest {
+    @Test
+    public void testMerge() throws Exception {
+        Path workDir = Files.createTempDirectory("sortertest");
+        // Only two records in memory to enforce multiple runs
+        ExternalRecordSorter sorter = new ExternalRecordSorter(workDir, "test", 2, r -> (String) r.get("k"), (r1, r2) -> {
+            r1.put("v", (Integer) r1.get("v") + (Integer) r2.get("v"));
+            return r1;
+        });
+        for (String key : List.of("c", "a", "b", "a", "c", "d", "a"))
+            sorter.add(new HashMap<>(Map.of("k", key, "v", 1)));
+        List<String> keys = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        sorter.merge(r -> {
+            keys.add((String) r.get("k"));
+            values.add((Integer) r.get("v"));
+        });
+        assertThat(keys).containsExactly("a", "b", "c", "d");
+        assertThat(values).containsExactly(3, 1, 2, 1);
+
+        // Records added after a merge are merged with the previous result
+        sorter.add(new HashMap<>(Map.of("k", "b", "v", 1)));
+        sorter.add(new HashMap<>(Map.of("k", "e", "v", 1)));
+        keys.clear();
+        values.clear();
+        sorter.merge(r -> {
+            keys.add((String) r.get("k"));
+            values.add((Integer) r.get("v"));
+        });
+        assertThat(keys).containsExactly("a", "b", "c", "d", "e");
+        assertThat(values).containsExactly(3, 2, 2, 1, 1);
+        try (var files = Files.list(workDir)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testMultiPassMerge() throws Exception {
+        Path workDir = Files.createTempDirectory("sortertest");
+        // 3 records in memory and 2 open runs at a time result in several merge passes
+        ExternalRecordSorter sorter = new ExternalRecordSorter(workDir, "test", 3, 2, r -> (String) r.get("k"), (r1, r2) -> {
+            r1.put("v", r1.get("v") + "," + r2.get("v"));
+            return r1;
+        });
+        Random random = new Random(1);
+        Map<String, List<String>> expected = new TreeMap<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "k" + random.nextInt(30);
+            sorter.add(new HashMap<>(Map.of("k", key, "v", String.valueOf(i))));
+            expected.computeIfAbsent(key, k -> new ArrayList<>()).add(String.valueOf(i));
+        }
+        Map<String, String> merged = new LinkedHashMap<>();
+        sorter.merge(r -> merged.put((String) r.get("k"), (String) r.get("v")));
+        assertThat(merged.keySet()).containsExactlyElementsOf(expected.keySet());
+        // Records with equal keys are combined in the order they were added
+        expected.forEach((key, values) -> assertThat(merged.get(key)).as(key).isEqualTo(String.join(",", values)));
+        try (var files = Files.list(workDir)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package de.julielab.concepts.db.core.http;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingResponseTest {
+    @Test
+    public void testGetRows() throws Exception {
+        String json = "{\"results\":[{\"columns\":[\"name\",\"count\"],\"data\":[{\"row\":[\"a\",1],\"meta\":[null,null]},{\"row\":[\"b\",2],\"meta\":[null,null]}]}," +
+                "{\"columns\":[\"x\"],\"data\":[{\"row\":[{\"nested\":[1,2]}],\"meta\":[{\"id\":3,\"type\":\"node\",\"deleted\":false}],\"graph\":{}}],\"stats\":{\"nodes_created\":0}}]," +
+                "\"errors\":[]}";
+        try (StreamingResponse response = new StreamingResponse(new ByteArrayInputStream(json.getBytes(UTF_8)))) {
+            List<Data> rows = response.getRows().collect(Collectors.toList());
+            assertThat(rows).hasSize(3);
+            assertThat(rows.get(0).getRow()).containsExactly("a", 1);
+            assertThat(rows.get(1).getRow()).containsExactly("b", 2);
+            assertThat(rows.get(2).getMeta(0).getId()).isEqualTo(3);
+            assertThat(response.getErrors()).isEmpty();
+        }
+    }
+
+    @Test
+    public void testErrorsAfterRows() throws Exception {
+        String json = "{\"results\":[],\"errors\":[{\"code\":\"Neo.ClientError.Statement.SyntaxError\",\"message\":\"Invalid input\"}]}";
+        try (StreamingResponse response = new StreamingResponse(new ByteArrayInputStream(json.getBytes(UTF_8)))) {
+            assertThat(response.getRows().count()).isEqualTo(0);
+            assertThat(response.getErrors()).hasSize(1);
+        }
+    }
+}
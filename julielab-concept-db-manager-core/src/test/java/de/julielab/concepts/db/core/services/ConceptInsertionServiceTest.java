@@ -0,0 +1,193 @@
+package de.julielab.concepts.db.core.services;
+
+import de.julielab.concepts.db.core.spi.ConceptInserter;
+import de.julielab.concepts.util.ConceptDatabaseConnectionException;
+import de.julielab.concepts.util.ConceptInsertionException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import de.julielab.neo4j.plugins.datarepresentation.ConceptCoordinates;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcept;
+import de.julielab.neo4j.plugins.datarepresentation.ImportConcepts;
+import de.julielab.neo4j.plugins.datarepresentation.ImportFacet;
+import de.julielab.neo4j.plugins.datarepresentation.ImportFacetGroup;
+import de.julielab.neo4j.plugins.datarepresentation.constants.FacetConstants;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static de.julielab.concepts.db.core.ConfigurationConstants.*;
+import static de.julielab.java.utilities.ConfigurationUtilities.slash;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConceptInsertionServiceTest {
+
+    @BeforeMethod
+    public void reset() {
+        RecordingConceptInserter.reset();
+    }
+
+    @Test
+    public void testConcurrentInsertion() throws Exception {
+        List<String> requested = Collections.synchronizedList(new ArrayList<>());
+        Set<String> closed = Collections.synchronizedSet(new HashSet<>());
+        ConceptInsertionService service = ConceptInsertionService.getInstance(connectionConfiguration("concurrent"));
+        service.insertConcepts(importConfiguration(3), facets(8, requested, closed));
+
+        assertThat(RecordingConceptInserter.INSERTED).containsExactlyInAnyOrderElementsOf(names(8));
+        assertThat(RecordingConceptInserter.MAX_RUNNING.get()).isGreaterThan(1).isLessThanOrEqualTo(3);
+        // Each facet was flushed after its insertion and its concept stream was closed
+        assertThat(RecordingConceptInserter.FLUSHED.get()).isEqualTo(8);
+        assertThat(closed).containsExactlyInAnyOrderElementsOf(names(8));
+    }
+
+    @Test
+    public void testSequentialInsertionIfNotSupported() throws Exception {
+        ConceptInsertionService service = ConceptInsertionService.getInstance(connectionConfiguration("sequential"));
+        service.insertConcepts(importConfiguration(3), facets(4, new ArrayList<>(), new HashSet<>()));
+
+        assertThat(RecordingConceptInserter.INSERTED).containsExactlyElementsOf(names(4));
+        assertThat(RecordingConceptInserter.MAX_RUNNING.get()).isEqualTo(1);
+        // The inserter accumulates state and is only flushed at the end of the application run
+        assertThat(RecordingConceptInserter.FLUSHED.get()).isEqualTo(0);
+        service.flush();
+        assertThat(RecordingConceptInserter.FLUSHED.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInsertionFailure() throws Exception {
+        List<String> requested = Collections.synchronizedList(new ArrayList<>());
+        Set<String> closed = Collections.synchronizedSet(new HashSet<>());
+        RecordingConceptInserter.FAILING.add("facet2");
+        ConceptInsertionService service = ConceptInsertionService.getInstance(connectionConfiguration("concurrent"));
+        assertThatThrownBy(() -> service.insertConcepts(importConfiguration(2), facets(20, requested, closed)))
+                .isInstanceOf(ConceptInsertionException.class)
+                .hasMessageContaining("facet2");
+
+        // The facets in progress were completed before the error was reported and no new facets were started
+        assertThat(RecordingConceptInserter.RUNNING.get()).isEqualTo(0);
+        assertThat(requested.size()).isLessThan(20);
+        assertThat(RecordingConceptInserter.INSERTED).doesNotContain("facet2").hasSize(requested.size() - 1);
+        assertThat(closed).containsExactlyInAnyOrderElementsOf(requested);
+    }
+
+    @Test
+    public void testConceptCreationFailure() throws Exception {
+        Iterator<ImportConcepts> facetIt = facets(5, new ArrayList<>(), new HashSet<>()).iterator();
+        // The concept creator fails while creating the fourth facet
+        Stream<ImportConcepts> facets = Stream.generate(() -> {
+            if (RecordingConceptInserter.STARTED.get() >= 3)
+                throw new IllegalStateException("concept creation failed");
+            return facetIt.next();
+        }).limit(5);
+        ConceptInsertionService service = ConceptInsertionService.getInstance(connectionConfiguration("concurrent"));
+        assertThatThrownBy(() -> service.insertConcepts(importConfiguration(3), facets))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("concept creation failed");
+
+        // The running insertions were completed before the error was reported
+        assertThat(RecordingConceptInserter.RUNNING.get()).isEqualTo(0);
+        assertThat(RecordingConceptInserter.INSERTED).hasSize(3);
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> connectionConfiguration(String mode) {
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(URI, RecordingConceptInserter.SCHEME + ":" + mode);
+        return connectionConfiguration;
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> importConfiguration(int parallelFacets) {
+        HierarchicalConfiguration<ImmutableNode> importConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        importConfiguration.setProperty(slash(INSERTION, PARALLEL_FACETS), parallelFacets);
+        return importConfiguration;
+    }
+
+    private List<String> names(int numFacets) {
+        return IntStream.range(0, numFacets).mapToObj(i -> "facet" + i).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the facets lazily and records which facets have been requested and which concept streams have been
+     * closed.
+     */
+    private Stream<ImportConcepts> facets(int numFacets, List<String> requested, Set<String> closed) {
+        return names(numFacets).stream().map(name -> {
+            requested.add(name);
+            ImportFacet facet = new ImportFacet(new ImportFacetGroup("group"), null, name, name, FacetConstants.SRC_TYPE_HIERARCHICAL, Collections.emptyList(), false);
+            Stream<ImportConcept> concepts = Stream.of(new ImportConcept(name, Collections.emptyList(), new ConceptCoordinates(name, "src", true)))
+                    .onClose(() -> closed.add(name));
+            return new ImportConcepts(concepts, facet);
+        });
+    }
+
+    /**
+     * Serves connections with the <tt>insertiontest</tt> scheme. The <tt>concurrent</tt> mode supports concurrent
+     * insertion, the <tt>sequential</tt> mode does not. The insertion of facets listed in {@link #FAILING} fails.
+     * Since the {@link ConceptInsertionService} creates fresh instances, the observations are kept in static fields.
+     */
+    public static class RecordingConceptInserter implements ConceptInserter {
+        static final String SCHEME = "insertiontest";
+        static final List<String> INSERTED = Collections.synchronizedList(new ArrayList<>());
+        static final Set<String> FAILING = Collections.synchronizedSet(new HashSet<>());
+        static final AtomicInteger STARTED = new AtomicInteger();
+        static final AtomicInteger RUNNING = new AtomicInteger();
+        static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+        static final AtomicInteger FLUSHED = new AtomicInteger();
+        private boolean concurrent;
+
+        static void reset() {
+            INSERTED.clear();
+            FAILING.clear();
+            STARTED.set(0);
+            RUNNING.set(0);
+            MAX_RUNNING.set(0);
+            FLUSHED.set(0);
+        }
+
+        @Override
+        public void insertConcepts(HierarchicalConfiguration<ImmutableNode> importConfiguration, ImportConcepts concepts) throws ConceptInsertionException {
+            STARTED.incrementAndGet();
+            int running = RUNNING.incrementAndGet();
+            MAX_RUNNING.accumulateAndGet(running, Math::max);
+            try {
+                concepts.getConcepts().forEach(c -> {
+                });
+                // Give the other facets the chance to run at the same time
+                Thread.sleep(100);
+                String name = concepts.getFacet().getName();
+                if (FAILING.contains(name))
+                    throw new ConceptInsertionException("The insertion of " + name + " failed.");
+                INSERTED.add(name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConceptInsertionException(e);
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean supportsConcurrentInsertion() {
+            return concurrent;
+        }
+
+        @Override
+        public void flush() {
+            FLUSHED.incrementAndGet();
+        }
+
+        @Override
+        public void setConnection(HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws ConceptDatabaseConnectionException {
+            String uri = connectionConfiguration.getString(URI);
+            if (uri == null || !uri.startsWith(SCHEME + ":"))
+                throw new ConceptDatabaseConnectionException("The given URI " + uri + " does not specify the " + SCHEME + " scheme.");
+            concurrent = uri.endsWith(":concurrent");
+        }
+    }
+}
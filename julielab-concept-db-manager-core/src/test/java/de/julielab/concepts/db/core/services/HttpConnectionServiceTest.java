@@ -0,0 +1,146 @@
+package de.julielab.concepts.db.core.services;
+
+import com.sun.net.httpserver.HttpServer;
+import de.julielab.concepts.util.ConceptDatabaseConnectionException;
+import de.julielab.java.utilities.ConfigurationUtilities;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.HttpMethod;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.julielab.concepts.db.core.services.HttpConnectionService.*;
+import static de.julielab.concepts.db.core.services.NetworkConnectionCredentials.CONFKEY_URI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpConnectionServiceTest {
+    private HttpServer server;
+    private Set<Integer> clientPorts;
+
+    @BeforeMethod
+    public void startServer() throws Exception {
+        clientPorts = ConcurrentHashMap.newKeySet();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            byte[] response = "{}".getBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterMethod
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPooledConnectionsAreReused() throws Exception {
+        HttpConnectionService service = new HttpConnectionService();
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = connectionConfiguration();
+        for (int i = 0; i < 5; i++)
+            sendAndClose(service, connectionConfiguration);
+        // All requests were sent over the same keep-alive connection which is back in the pool
+        assertThat(clientPorts).hasSize(1);
+        assertThat(service.getConnectionManager().getTotalStats().getAvailable()).isEqualTo(1);
+        assertThat(service.getConnectionManager().getTotalStats().getLeased()).isEqualTo(0);
+    }
+
+    @Test
+    public void testConfigurePool() throws Exception {
+        HttpConnectionService service = new HttpConnectionService();
+        assertThat(service.getConnectionManager().getMaxTotal()).isEqualTo(DEFAULT_MAX_CONNECTIONS);
+        assertThat(service.getConnectionManager().getDefaultMaxPerRoute()).isEqualTo(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        assertThat(service.getHttpRequest(connectionConfiguration(), HttpMethod.GET).getConfig().getConnectionRequestTimeout()).isEqualTo(DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = connectionConfiguration();
+        connectionConfiguration.setProperty(CONFKEY_MAX_CONNECTIONS, 5);
+        connectionConfiguration.setProperty(CONFKEY_MAX_CONNECTIONS_PER_ROUTE, 8);
+        connectionConfiguration.setProperty(CONFKEY_VALIDATE_AFTER_INACTIVITY, 100);
+        connectionConfiguration.setProperty(CONFKEY_IDLE_TIMEOUT, 1000);
+        connectionConfiguration.setProperty(CONFKEY_CONNECTION_REQUEST_TIMEOUT, 500);
+        service.configurePool(connectionConfiguration);
+        // The total number of connections is raised to the number of connections per route
+        assertThat(service.getConnectionManager().getMaxTotal()).isEqualTo(8);
+        assertThat(service.getConnectionManager().getDefaultMaxPerRoute()).isEqualTo(8);
+        assertThat(service.getConnectionManager().getValidateAfterInactivity()).isEqualTo(100);
+        assertThat(service.getIdleTimeout()).isEqualTo(1000);
+        assertThat(service.getHttpRequest(connectionConfiguration, HttpMethod.GET).getConfig().getConnectionRequestTimeout()).isEqualTo(500);
+
+        // Settings that are not given keep their values
+        HierarchicalConfiguration<ImmutableNode> maxConnectionsOnly = connectionConfiguration();
+        maxConnectionsOnly.setProperty(CONFKEY_MAX_CONNECTIONS, 12);
+        service.configurePool(maxConnectionsOnly);
+        assertThat(service.getConnectionManager().getMaxTotal()).isEqualTo(12);
+        assertThat(service.getConnectionManager().getDefaultMaxPerRoute()).isEqualTo(8);
+        assertThat(service.getConnectionManager().getValidateAfterInactivity()).isEqualTo(100);
+        assertThat(service.getIdleTimeout()).isEqualTo(1000);
+        assertThat(service.getHttpRequest(maxConnectionsOnly, HttpMethod.GET).getConfig().getConnectionRequestTimeout()).isEqualTo(500);
+    }
+
+    @Test
+    public void testConnectionRequestTimeout() throws Exception {
+        HttpConnectionService service = new HttpConnectionService();
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = connectionConfiguration();
+        connectionConfiguration.setProperty(CONFKEY_MAX_CONNECTIONS_PER_ROUTE, 1);
+        connectionConfiguration.setProperty(CONFKEY_CONNECTION_REQUEST_TIMEOUT, 200);
+        // The response is not consumed so the only connection is not released to the pool
+        try (InputStream is = service.sendRequest(service.getHttpRequest(connectionConfiguration, HttpMethod.GET))) {
+            long start = System.currentTimeMillis();
+            assertThatThrownBy(() -> sendAndClose(service, connectionConfiguration))
+                    .isInstanceOf(ConceptDatabaseConnectionException.class)
+                    .hasCauseInstanceOf(ConnectionPoolTimeoutException.class);
+            assertThat(System.currentTimeMillis() - start).isLessThan(10000);
+        }
+    }
+
+    @Test
+    public void testEvictorClosesIdleConnections() throws Exception {
+        HttpConnectionService service = new HttpConnectionService();
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = connectionConfiguration();
+        connectionConfiguration.setProperty(CONFKEY_IDLE_TIMEOUT, 100);
+        sendAndClose(service, connectionConfiguration);
+        assertThat(service.getConnectionManager().getTotalStats().getAvailable()).isEqualTo(1);
+
+        assertThat(Thread.getAllStackTraces().keySet()).anySatisfy(t -> {
+            assertThat(t.getName()).isEqualTo("http-connection-evictor");
+            assertThat(t.isDaemon()).isTrue();
+        });
+        // The evictor thread runs every five seconds
+        long start = System.currentTimeMillis();
+        while (service.getConnectionManager().getTotalStats().getAvailable() > 0 && System.currentTimeMillis() - start < 15000)
+            Thread.sleep(100);
+        assertThat(service.getConnectionManager().getTotalStats().getAvailable()).isEqualTo(0);
+
+        // Without an idle timeout, idle connections are kept
+        connectionConfiguration = connectionConfiguration();
+        connectionConfiguration.setProperty(CONFKEY_IDLE_TIMEOUT, 0);
+        sendAndClose(service, connectionConfiguration);
+        Thread.sleep(200);
+        service.evictConnections();
+        assertThat(service.getConnectionManager().getTotalStats().getAvailable()).isEqualTo(1);
+    }
+
+    private void sendAndClose(HttpConnectionService service, HierarchicalConfiguration<ImmutableNode> connectionConfiguration) throws Exception {
+        try (InputStream is = service.sendRequest(service.getHttpRequest(connectionConfiguration, HttpMethod.GET))) {
+            is.readAllBytes();
+        }
+    }
+
+    private HierarchicalConfiguration<ImmutableNode> connectionConfiguration() {
+        HierarchicalConfiguration<ImmutableNode> connectionConfiguration = ConfigurationUtilities.createEmptyConfiguration();
+        connectionConfiguration.setProperty(CONFKEY_URI, "http://localhost:" + server.getAddress().getPort());
+        return connectionConfiguration;
+    }
+}
@@ -0,0 +1,36 @@
+package de.julielab.concepts.util;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CacheIOTest {
+    @Test
+    public void testStrings() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            CacheIO.writeString(dos, "Homo sapiens");
+            CacheIO.writeString(dos, "");
+            CacheIO.writeString(dos, "Müller");
+        }
+        ByteBuffer bb = ByteBuffer.wrap(baos.toByteArray());
+        assertThat(CacheIO.readString(bb)).isEqualTo("Homo sapiens");
+        assertThat(CacheIO.readString(bb)).isEmpty();
+        assertThat(CacheIO.readString(bb)).isEqualTo("Müller");
+        assertThat(bb.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void testCorruptCounts() {
+        // a count followed by 8 bytes
+        assertThat(CacheIO.readCount(ByteBuffer.allocate(12).putInt(0, 2), 4)).isEqualTo(2);
+        assertThatThrownBy(() -> CacheIO.readCount(ByteBuffer.allocate(12).putInt(0, 3), 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CacheIO.readCount(ByteBuffer.allocate(12).putInt(0, -1), 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CacheIO.readString(ByteBuffer.allocate(12).putInt(0, Integer.MAX_VALUE))).isInstanceOf(IllegalArgumentException.class);
+    }
+}